@@ -30,6 +30,8 @@
 package net.imagej.ops;
 
 import org.scijava.AbstractContextual;
+import org.scijava.module.Module;
+import org.scijava.plugin.Parameter;
 
 /**
  * Abstract base class for {@link Namespace} implementations.
@@ -40,6 +42,9 @@ public abstract class AbstractNamespace extends AbstractContextual implements
 	Namespace
 {
 
+	@Parameter
+	private NamespaceService namespaceService;
+
 	/** The namespace's op execution environment. */
 	private OpEnvironment ops;
 
@@ -55,4 +60,22 @@ public abstract class AbstractNamespace extends AbstractContextual implements
 		this.ops = ops;
 	}
 
+	// -- Internal methods --
+
+	/**
+	 * Executes the operation of the given type with the specified arguments, as
+	 * {@link OpEnvironment#run(Class, Object...)} does, but reusing the
+	 * {@link PreparedOp} of an earlier call with the same argument classes
+	 * where possible.
+	 */
+	protected Object run(final Class<? extends Op> type, final Object... args) {
+		final PreparedOp<Object> prepared = namespaceService.prepared(ops(), type,
+			args);
+		if (prepared != null && prepared.isReusable()) {
+			final Module module = prepared.module(args);
+			if (module != null) return OpEnvironment.run(module);
+		}
+		return ops().run(type, args);
+	}
+
 }
@@ -29,10 +29,7 @@
 
 package net.imagej.ops;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 
 import org.scijava.AbstractContextual;
 import org.scijava.Context;
@@ -106,6 +103,11 @@ public class CustomOpEnvironment extends AbstractContextual implements
 		return index.values();
 	}
 
+	@Override
+	public Collection<OpInfo> infos(final OpRef ref) {
+		return index.get(ref);
+	}
+
 	@Override
 	public OpEnvironment parent() {
 		return parent;
@@ -116,26 +118,4 @@ public class CustomOpEnvironment extends AbstractContextual implements
 		return parent().namespace(nsClass);
 	}
 
-	// -- Helper classes --
-
-	/** A table mapping available ops from class name to {@link OpInfo}. */
-	private static class OpIndex extends HashMap<String, OpInfo> {
-
-		public void addOps(final Collection<? extends OpInfo> infos) {
-			if (infos == null) return;
-			for (final OpInfo info : infos) {
-				put(info.cInfo().getDelegateClassName(), info);
-			}
-		}
-		
-		@Override
-		public Collection<OpInfo> values() {
-			final ArrayList<OpInfo> infos = new ArrayList<>();
-			infos.addAll(super.values());
-			Collections.sort(infos);
-			return infos;
-		}
-
-	}
-
 }
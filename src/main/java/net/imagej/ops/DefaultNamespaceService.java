@@ -29,6 +29,13 @@
 
 package net.imagej.ops;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.scijava.event.EventHandler;
+import org.scijava.module.event.ModulesAddedEvent;
+import org.scijava.module.event.ModulesRemovedEvent;
 import org.scijava.plugin.AbstractPTService;
 import org.scijava.plugin.Plugin;
 import org.scijava.service.Service;
@@ -43,6 +50,23 @@ public class DefaultNamespaceService extends
 	AbstractPTService<Namespace> implements NamespaceService
 {
 
+	/** Maximum number of prepared ops to keep. */
+	private static final int MAX_PREPARED = 1024;
+
+	/** Prepared ops of the {@link OpService}, keyed on signature. */
+	private final Map<OpSignature, PreparedOp<Object>> prepared = Collections
+		.synchronizedMap(new LinkedHashMap<OpSignature, PreparedOp<Object>>(16,
+			0.75f, true)
+		{
+
+			@Override
+			protected boolean removeEldestEntry(
+				final Map.Entry<OpSignature, PreparedOp<Object>> eldest)
+			{
+				return size() > MAX_PREPARED;
+			}
+		});
+
 	// -- Namespace methods --
 
 	@Override
@@ -54,6 +78,36 @@ public class DefaultNamespaceService extends
 		return namespace;
 	}
 
+	@Override
+	public PreparedOp<Object> prepared(final OpEnvironment ops,
+		final Class<? extends Op> type, final Object... args)
+	{
+		// NB: Prepared ops hold on to their op environment. Only the OpService
+		// lives as long as this service does; caching prepared ops of other
+		// (typically short-lived) environments would keep them alive.
+		if (!(ops instanceof OpService)) return null;
+
+		final OpRef ref = OpRef.create(type, args);
+		final OpSignature signature = new OpSignature(ref);
+		final PreparedOp<Object> op = prepared.get(signature);
+		if (op != null) return op;
+		final PreparedOp<Object> newOp = ops.prepare(ref);
+		prepared.put(signature, newOp);
+		return newOp;
+	}
+
+	// -- Event handlers --
+
+	@EventHandler
+	protected void onEvent(final ModulesAddedEvent evt) {
+		prepared.clear();
+	}
+
+	@EventHandler
+	protected void onEvent(final ModulesRemovedEvent evt) {
+		prepared.clear();
+	}
+
 	// -- PTService methods --
 
 	@Override
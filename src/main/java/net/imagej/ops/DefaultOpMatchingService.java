@@ -33,8 +33,10 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import net.imagej.ops.OpCandidate.StatusCode;
@@ -42,11 +44,14 @@ import net.imagej.ops.OpCandidate.StatusCode;
 import org.scijava.Context;
 import org.scijava.InstantiableException;
 import org.scijava.convert.ConvertService;
+import org.scijava.event.EventHandler;
 import org.scijava.log.LogService;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleInfo;
 import org.scijava.module.ModuleItem;
 import org.scijava.module.ModuleService;
+import org.scijava.module.event.ModulesAddedEvent;
+import org.scijava.module.event.ModulesRemovedEvent;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
 import org.scijava.service.AbstractService;
@@ -76,6 +81,8 @@ public class DefaultOpMatchingService extends AbstractService implements
 	@Parameter
 	private LogService log;
 
+	private final OpMatchCache matchCache = new OpMatchCache();
+
 	// -- OpMatchingService methods --
 
 	@Override
@@ -87,6 +94,10 @@ public class DefaultOpMatchingService extends AbstractService implements
 	public OpCandidate findMatch(final OpEnvironment ops,
 		final List<OpRef> refs)
 	{
+		// reuse the winner of a previous request with the same signature
+		final OpCandidate cached = cachedMatch(ops, refs);
+		if (cached != null) return cached;
+
 		// find candidates with matching name & type
 		final List<OpCandidate> candidates = findCandidates(ops, refs);
 		assertCandidates(candidates, refs.get(0));
@@ -94,7 +105,9 @@ public class DefaultOpMatchingService extends AbstractService implements
 		// narrow down candidates to the exact matches
 		final List<OpCandidate> matches = filterMatches(candidates);
 
-		return singleMatch(candidates, matches);
+		final OpCandidate match = singleMatch(candidates, matches);
+		if (cacheable(candidates)) matchCache.put(ops, refs, match);
+		return match;
 	}
 
 	@Override
@@ -109,7 +122,7 @@ public class DefaultOpMatchingService extends AbstractService implements
 		final List<OpRef> refs)
 	{
 		final ArrayList<OpCandidate> candidates = new ArrayList<>();
-		for (final OpInfo info : ops.infos()) {
+		for (final OpInfo info : candidateInfos(ops, refs)) {
 			for (final OpRef ref : refs) {
 				if (isCandidate(info, ref)) {
 					candidates.add(new OpCandidate(ops, ref, info));
@@ -163,6 +176,11 @@ public class DefaultOpMatchingService extends AbstractService implements
 		return module;
 	}
 
+	@Override
+	public OpMatchCache matchCache() {
+		return matchCache;
+	}
+
 	@Override
 	public Object[] padArgs(final OpCandidate candidate) {
 		int inputCount = 0, requiredCount = 0;
@@ -205,8 +223,89 @@ public class DefaultOpMatchingService extends AbstractService implements
 		return paddedArgs;
 	}
 
+	// -- Event handlers --
+
+	@EventHandler
+	protected void onEvent(final ModulesAddedEvent evt) {
+		matchCache.clear();
+	}
+
+	@EventHandler
+	protected void onEvent(final ModulesRemovedEvent evt) {
+		matchCache.clear();
+	}
+
 	// -- Helper methods --
 
+	/**
+	 * Gets a fresh candidate for the memoized winner of the given references,
+	 * populated with their arguments, or null if there is no memoized winner or
+	 * it does not conform to the actual arguments.
+	 * <p>
+	 * Helper method of {@link #findMatch}.
+	 * </p>
+	 */
+	private OpCandidate cachedMatch(final OpEnvironment ops,
+		final List<OpRef> refs)
+	{
+		final OpMatchCache.Match match = matchCache.get(ops, refs);
+		if (match == null) return null;
+
+		final OpCandidate candidate = new OpCandidate(ops, match.getRef(refs),
+			match.getInfo());
+		final Object[] args = padArgs(candidate);
+		if (args != null) {
+			candidate.setArgs(args);
+			if (moduleConforms(candidate)) {
+				initialize(candidate);
+				return candidate;
+			}
+		}
+
+		// NB: The winner is not suitable for these particular argument values.
+		// Forget it, so that the full matching process decides again.
+		matchCache.remove(ops, refs);
+		return null;
+	}
+
+	/**
+	 * Determines whether the outcome of matching the given candidates depends
+	 * only on the argument classes. If any candidate was rejected by
+	 * {@link Contingent#conforms()}, a different op may win for other argument
+	 * values of the same classes, so the match must not be memoized.
+	 * <p>
+	 * Helper method of {@link #findMatch}.
+	 * </p>
+	 */
+	private boolean cacheable(final List<OpCandidate> candidates) {
+		for (final OpCandidate candidate : candidates) {
+			if (candidate.getStatusCode() == StatusCode.DOES_NOT_CONFORM) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the ops which might match any of the given references, sorted by
+	 * priority.
+	 * <p>
+	 * Helper method of {@link #findCandidates}.
+	 * </p>
+	 */
+	private Collection<OpInfo> candidateInfos(final OpEnvironment ops,
+		final List<OpRef> refs)
+	{
+		if (refs.size() == 1) return ops.infos(refs.get(0));
+		final Set<OpInfo> infos = new HashSet<>();
+		for (final OpRef ref : refs) {
+			infos.addAll(ops.infos(ref));
+		}
+		final ArrayList<OpInfo> sorted = new ArrayList<>(infos);
+		Collections.sort(sorted);
+		return sorted;
+	}
+
 	/** Helper method of {@link #findCandidates}. */
 	private boolean isCandidate(final OpInfo info, final OpRef ref) {
 		if (!info.nameMatches(ref.getName())) return false;
@@ -414,17 +513,7 @@ public class DefaultOpMatchingService extends AbstractService implements
 	{
 		if (matches.size() == 1) {
 			// a single match: initialize and return it
-			final Module m = matches.get(0).getModule();
-			if (log.isDebug()) {
-				log.debug("Selected '" + matches.get(0).getRef().getLabel() + "' op: " +
-					m.getDelegateObject().getClass().getName());
-			}
-
-			// initialize the op, if appropriate
-			if (m.getDelegateObject() instanceof Initializable) {
-				((Initializable) m.getDelegateObject()).initialize();
-			}
-
+			initialize(matches.get(0));
 			return matches.get(0);
 		}
 
@@ -432,6 +521,26 @@ public class DefaultOpMatchingService extends AbstractService implements
 		throw new IllegalArgumentException(analysis);
 	}
 
+	/**
+	 * Executes the initializer of the given candidate's {@link Module}, if
+	 * applicable.
+	 * <p>
+	 * Helper method of {@link #findMatch}.
+	 * </p>
+	 */
+	private void initialize(final OpCandidate match) {
+		final Module m = match.getModule();
+		if (log.isDebug()) {
+			log.debug("Selected '" + match.getRef().getLabel() + "' op: " + m
+				.getDelegateObject().getClass().getName());
+		}
+
+		// initialize the op, if appropriate
+		if (m.getDelegateObject() instanceof Initializable) {
+			((Initializable) m.getDelegateObject()).initialize();
+		}
+	}
+
 	/**
 	 * Verifies that the given candidate's module is valid.
 	 * <p>
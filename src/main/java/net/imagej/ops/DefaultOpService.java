@@ -31,9 +31,14 @@ package net.imagej.ops;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.scijava.command.CommandInfo;
 import org.scijava.command.CommandService;
+import org.scijava.event.EventHandler;
+import org.scijava.module.ModuleInfo;
+import org.scijava.module.event.ModulesAddedEvent;
+import org.scijava.module.event.ModulesRemovedEvent;
 import org.scijava.plugin.AbstractPTService;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
@@ -58,6 +63,9 @@ public class DefaultOpService extends AbstractPTService<Op> implements
 	@Parameter
 	private NamespaceService namespaceService;
 
+	/** Index of available ops, kept in sync with the command service. */
+	private final OpIndex index = new OpIndex();
+
 	// -- OpEnvironment methods --
 
 	@Override
@@ -67,26 +75,48 @@ public class DefaultOpService extends AbstractPTService<Op> implements
 
 	@Override
 	public OpInfo info(final Class<? extends Op> type) {
-		// TODO: Consider maintaining a separate and efficient
-		// OpInfo data structure in AbstractOpEnvironment.
+		final OpInfo info = index.get(type.getName());
+		if (info != null) return info;
 		final CommandInfo cInfo = commandService.getCommand(type);
 		return cInfo == null ? null : new OpInfo(cInfo);
 	}
 
 	@Override
 	public Collection<OpInfo> infos() {
-		// TODO: Consider maintaining a separate and efficient
-		// OpInfo data structure in AbstractOpEnvironment.
+		return index.values();
+	}
+
+	@Override
+	public Collection<OpInfo> infos(final OpRef ref) {
+		return index.get(ref);
+	}
+
+	@Override
+	public <NS extends Namespace> NS namespace(Class<NS> nsClass) {
+		return namespaceService.create(nsClass, this);
+	}
+
+	// -- Service methods --
+
+	@Override
+	public void initialize() {
 		final ArrayList<OpInfo> infos = new ArrayList<>();
 		for (final CommandInfo cInfo : commandService.getCommandsOfType(Op.class)) {
 			infos.add(new OpInfo(cInfo));
 		}
-		return infos;
+		index.addOps(infos);
 	}
 
-	@Override
-	public <NS extends Namespace> NS namespace(Class<NS> nsClass) {
-		return namespaceService.create(nsClass, this);
+	// -- Event handlers --
+
+	@EventHandler
+	protected void onEvent(final ModulesAddedEvent evt) {
+		index.addOps(opInfos(evt.getItems()));
+	}
+
+	@EventHandler
+	protected void onEvent(final ModulesRemovedEvent evt) {
+		index.removeOps(opInfos(evt.getItems()));
 	}
 
 	// -- SingletonService methods --
@@ -96,4 +126,20 @@ public class DefaultOpService extends AbstractPTService<Op> implements
 		return Op.class;
 	}
 
+	// -- Helper methods --
+
+	/** Wraps the op commands among the given modules as {@link OpInfo}s. */
+	private List<OpInfo> opInfos(final List<? extends ModuleInfo> modules) {
+		final ArrayList<OpInfo> infos = new ArrayList<>();
+		for (final ModuleInfo info : modules) {
+			if (!(info instanceof CommandInfo)) continue;
+			final CommandInfo cInfo = (CommandInfo) info;
+			final Plugin annotation = cInfo.getAnnotation();
+			if (annotation == null) continue;
+			if (!Op.class.isAssignableFrom(annotation.type())) continue;
+			infos.add(new OpInfo(cInfo));
+		}
+		return infos;
+	}
+
 }
@@ -43,4 +43,16 @@ public interface NamespaceService extends PTService<Namespace>, ImageJService {
 	/** Creates a {@link Namespace} with the given op execution environment. */
 	<NS extends Namespace> NS create(Class<NS> pluginClass, OpEnvironment ops);
 
+	/**
+	 * Gets a {@link PreparedOp} for the given op type and arguments, reusing the
+	 * one prepared for an earlier request with the same {@link OpSignature}
+	 * where possible. This allows {@link Namespace} methods to skip op matching
+	 * for repeated calls.
+	 *
+	 * @return The prepared op, or null if prepared ops are not cached for the
+	 *         given op environment.
+	 */
+	PreparedOp<Object> prepared(OpEnvironment ops, Class<? extends Op> type,
+		Object... args);
+
 }
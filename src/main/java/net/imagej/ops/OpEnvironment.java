@@ -238,6 +238,53 @@ public interface OpEnvironment extends Contextual {
 		return OpUtils.unwrap(match.getModule(), match.getRef());
 	}
 
+	/**
+	 * Matches the given operation once, returning a {@link PreparedOp} which can
+	 * execute it repeatedly without consulting the {@link OpMatchingService}
+	 * again.
+	 *
+	 * @param name The name of the operation. If multiple {@link Op}s share this
+	 *          name, then the best {@link Op} implementation to use will be
+	 *          selected automatically from the name and arguments.
+	 * @param args The operation's arguments, either as sample values or as
+	 *          {@link Class} placeholders describing their types.
+	 * @return A thread-safe handle for executing the matched {@link Op}.
+	 */
+	default PreparedOp<Object> prepare(final String name, final Object... args) {
+		return prepare(OpRef.create(name, args));
+	}
+
+	/**
+	 * Matches the given operation type once, returning a {@link PreparedOp}
+	 * which can execute it repeatedly without consulting the
+	 * {@link OpMatchingService} again.
+	 *
+	 * @param type The {@link Class} of the operation. If multiple {@link Op}s
+	 *          share this type (e.g., the type is an interface which multiple
+	 *          {@link Op}s implement), then the best {@link Op} implementation to
+	 *          use will be selected automatically from the type and arguments.
+	 * @param args The operation's arguments, either as sample values or as
+	 *          {@link Class} placeholders describing their types.
+	 * @return A thread-safe handle for executing the matched {@link Op}.
+	 */
+	default PreparedOp<Object> prepare(final Class<? extends Op> type,
+		final Object... args)
+	{
+		return prepare(OpRef.create(type, args));
+	}
+
+	/**
+	 * Matches the op described by the given {@link OpRef} once, returning a
+	 * {@link PreparedOp} which can execute it repeatedly without consulting the
+	 * {@link OpMatchingService} again.
+	 *
+	 * @param ref The {@link OpRef} describing the op to match.
+	 * @return A thread-safe handle for executing the matched {@link Op}.
+	 */
+	default PreparedOp<Object> prepare(final OpRef ref) {
+		return PreparedOp.prepare(this, ref);
+	}
+
 	/**
 	 * Gets the best {@link Op} to use for the given operation and arguments,
 	 * wrapping it as a {@link Module} with populated inputs.
@@ -295,6 +342,24 @@ public interface OpEnvironment extends Contextual {
 	 */
 	Collection<OpInfo> infos();
 
+	/**
+	 * The available ops which might match the given {@link OpRef},
+	 * <em>including</em> those of the parent, sorted by priority.
+	 * <p>
+	 * The result is a superset of the ops which actually match the reference;
+	 * it allows the {@link OpMatchingService} to avoid scanning every available
+	 * op for every request. The default implementation filters {@link #infos()}
+	 * by name.
+	 * </p>
+	 */
+	default Collection<OpInfo> infos(final OpRef ref) {
+		final ArrayList<OpInfo> infos = new ArrayList<>();
+		for (final OpInfo info : infos()) {
+			if (info.nameMatches(ref.getName())) infos.add(info);
+		}
+		return infos;
+	}
+
 	/** Gets the fully qualified names of all available operations. */
 	default Collection<String> ops() {
 		// collect list of unique operation names
@@ -551,6 +616,19 @@ public interface OpEnvironment extends Contextual {
 		return result;
 	}
 
+	/** Executes the "map" operation on the given arguments. */
+	@OpMethod(ops = { net.imagej.ops.map.MapUnaryComputers.RAIToRAIParallel.class,
+		net.imagej.ops.map.MapUnaryComputers.RAIToRAI.class })
+	default <EI, EO> RandomAccessibleInterval<EO> map(
+		final RandomAccessibleInterval<EO> out, final RandomAccessibleInterval<EI> in,
+		final UnaryComputerOp<EI, EO> op)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<EO> result =
+			(RandomAccessibleInterval<EO>) run(net.imagej.ops.Ops.Map.class, out, in, op);
+		return result;
+	}
+
 	/** Executes the "map" operation on the given arguments. */
 	@OpMethod(ops = { net.imagej.ops.map.MapBinaryComputers.IIAndIIToIIParallel.class,
 		net.imagej.ops.map.MapBinaryComputers.IIAndIIToII.class })
@@ -642,6 +720,19 @@ public interface OpEnvironment extends Contextual {
 		return result;
 	}
 
+	/** Executes the "map" operation on the given arguments. */
+	@OpMethod(ops = { net.imagej.ops.map.MapBinaryComputers.RAIAndRAIToRAIParallel.class,
+		net.imagej.ops.map.MapBinaryComputers.RAIAndRAIToRAI.class })
+	default <EI1, EI2, EO> RandomAccessibleInterval<EO> map(
+		final RandomAccessibleInterval<EO> out, final RandomAccessibleInterval<EI1> in1,
+		final RandomAccessibleInterval<EI2> in2, final BinaryComputerOp<EI1, EI2, EO> op)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<EO> result =
+			(RandomAccessibleInterval<EO>) run(net.imagej.ops.Ops.Map.class, out, in1, in2, op);
+		return result;
+	}
+
 	/** Executes the "map" operation on the given arguments. */
 	@OpMethod(op = net.imagej.ops.map.MapViewRAIToRAI.class)
 	default <EI, EO extends Type<EO>> RandomAccessibleInterval<EO> map(
@@ -797,6 +888,21 @@ public interface OpEnvironment extends Contextual {
 		return result;
 	}
 
+	/** Executes the "map" operation on the given arguments. */
+	@OpMethod(ops = {
+		net.imagej.ops.map.MapBinaryInplace1s.RAIAndRAIParallel.class,
+		net.imagej.ops.map.MapBinaryInplace1s.RAIAndRAI.class })
+	default <EI1, EI2, EO extends EI1> RandomAccessibleInterval<EO> map(
+		final RandomAccessibleInterval<EO> arg,
+		final RandomAccessibleInterval<EI2> in,
+		final BinaryInplace1Op<EI1, EI2, EO> op)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<EO> result =
+			(RandomAccessibleInterval<EO>) run(Ops.Map.class, arg, in, op);
+		return result;
+	}
+
 	/** Executes the "slicewise" operation on the given arguments. */
 	@OpMethod(op = net.imagej.ops.slice.SliceRAI2RAI.class)
 	default <I, O> RandomAccessibleInterval<O> slice(
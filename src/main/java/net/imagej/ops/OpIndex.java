@@ -0,0 +1,281 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.scijava.InstantiableException;
+import org.scijava.util.GenericUtils;
+
+/**
+ * A table of available ops, indexed by class name, by op name and alias, by
+ * namespace and by op type.
+ * <p>
+ * Every bucket is kept sorted by priority, so that the lists it hands out can
+ * be fed directly to the {@link OpMatchingService}. Buckets are immutable and
+ * replaced wholesale when ops are added or removed, meaning lookups never
+ * block and never observe a partially updated bucket.
+ * </p>
+ */
+public class OpIndex {
+
+	/** Key used for ops which have no name, or no namespace. */
+	private static final String NONE = "";
+
+	/** Table of all ops, keyed on delegate class name. */
+	private final Map<String, OpInfo> byClass = new ConcurrentHashMap<>();
+
+	/** Ops keyed on qualified and simple names, including aliases. */
+	private final Map<String, List<OpInfo>> byName = new ConcurrentHashMap<>();
+
+	/** Ops keyed on namespace, including all enclosing namespaces. */
+	private final Map<String, List<OpInfo>> byNamespace =
+		new ConcurrentHashMap<>();
+
+	/** Ops keyed on a type which their class is assignable to; built lazily. */
+	private final Map<Class<?>, List<OpInfo>> byType = new ConcurrentHashMap<>();
+
+	/** Sorted list of all ops. */
+	private volatile List<OpInfo> all = Collections.emptyList();
+
+	// -- OpIndex methods --
+
+	/** Adds the given ops to the index, replacing any with the same class. */
+	public synchronized void addOps(final Collection<? extends OpInfo> infos) {
+		if (infos == null) return;
+		for (final OpInfo info : infos) {
+			final OpInfo old = byClass.put(key(info), info);
+			if (old != null) unindex(old);
+			index(info);
+		}
+	}
+
+	/** Removes the given ops from the index. */
+	public synchronized void removeOps(final Collection<? extends OpInfo> infos)
+	{
+		if (infos == null) return;
+		for (final OpInfo info : infos) {
+			final OpInfo old = byClass.remove(key(info));
+			if (old != null) unindex(old);
+		}
+	}
+
+	/** Gets the op with the given delegate class name, or null if none. */
+	public OpInfo get(final String className) {
+		return byClass.get(className);
+	}
+
+	/** Gets all indexed ops, sorted by priority. */
+	public List<OpInfo> values() {
+		return all;
+	}
+
+	/**
+	 * Gets the ops whose name or aliases match the given name, sorted by
+	 * priority. As with {@link OpInfo#nameMatches(String)}, a name without
+	 * namespace matches ops of that name in any namespace, and a null name
+	 * matches all ops.
+	 */
+	public List<OpInfo> named(final String name) {
+		if (name == null) return all;
+		return bucket(byName, name);
+	}
+
+	/**
+	 * Gets the ops belonging to the given namespace or any namespace nested
+	 * within it, sorted by priority. A null namespace gets the ops which do not
+	 * belong to any namespace.
+	 *
+	 * @see OpInfo#isNamespace(String)
+	 */
+	public List<OpInfo> namespace(final String namespace) {
+		return bucket(byNamespace, namespace == null ? NONE : namespace);
+	}
+
+	/**
+	 * Gets the ops whose class is assignable to the given type, sorted by
+	 * priority. Ops whose class cannot be loaded are included, so that the
+	 * {@link OpMatchingService} can report the problem.
+	 */
+	public List<OpInfo> ofType(final Class<?> type) {
+		if (type == null || type == Object.class) return all;
+		final List<OpInfo> infos = byType.get(type);
+		if (infos != null) return infos;
+		synchronized (this) {
+			return byType.computeIfAbsent(type, t -> {
+				final ArrayList<OpInfo> list = new ArrayList<>();
+				for (final OpInfo info : all) {
+					if (isType(info, t)) list.add(info);
+				}
+				return Collections.unmodifiableList(list);
+			});
+		}
+	}
+
+	/**
+	 * Gets the ops which could match the given {@link OpRef} by name and type,
+	 * sorted by priority. The result is a superset of the actual candidates: it
+	 * is narrowed down using the most selective bucket available only.
+	 */
+	public List<OpInfo> get(final OpRef ref) {
+		List<OpInfo> best = named(ref.getName());
+		for (final Type t : ref.getTypes()) {
+			// NB: Ops are indexed by raw class, so erasing t only widens the bucket.
+			final List<OpInfo> infos = ofType(GenericUtils.getClass(t));
+			if (infos.size() < best.size()) best = infos;
+		}
+		return best;
+	}
+
+	/** Gets the number of indexed ops. */
+	public int size() {
+		return byClass.size();
+	}
+
+	// -- Helper methods --
+
+	private void index(final OpInfo info) {
+		all = insert(all, info);
+		for (final String name : names(info)) {
+			byName.put(name, insert(bucket(byName, name), info));
+		}
+		for (final String ns : namespaces(info)) {
+			byNamespace.put(ns, insert(bucket(byNamespace, ns), info));
+		}
+		for (final Map.Entry<Class<?>, List<OpInfo>> e : byType.entrySet()) {
+			if (isType(info, e.getKey())) e.setValue(insert(e.getValue(), info));
+		}
+	}
+
+	private void unindex(final OpInfo info) {
+		all = remove(all, info);
+		for (final String name : names(info)) {
+			replace(byName, name, remove(bucket(byName, name), info));
+		}
+		for (final String ns : namespaces(info)) {
+			replace(byNamespace, ns, remove(bucket(byNamespace, ns), info));
+		}
+		for (final Map.Entry<Class<?>, List<OpInfo>> e : byType.entrySet()) {
+			e.setValue(remove(e.getValue(), info));
+		}
+	}
+
+	private static String key(final OpInfo info) {
+		return info.cInfo().getDelegateClassName();
+	}
+
+	/**
+	 * Gets the keys under which the given op can be looked up by name: its
+	 * qualified name and aliases, plus their simple (namespace-free) forms.
+	 */
+	private static Set<String> names(final OpInfo info) {
+		final Set<String> names = new LinkedHashSet<>();
+		addName(names, info.getName());
+		final String[] aliases = info.getAliases();
+		if (aliases != null) {
+			for (final String alias : aliases) {
+				addName(names, alias);
+			}
+		}
+		return names;
+	}
+
+	private static void addName(final Set<String> names, final String name) {
+		if (name == null) return;
+		names.add(name);
+		names.add(OpUtils.stripNamespace(name));
+	}
+
+	/** Gets the namespace of the given op, plus all enclosing namespaces. */
+	private static Set<String> namespaces(final OpInfo info) {
+		final Set<String> namespaces = new LinkedHashSet<>();
+		String ns = info.getNamespace();
+		if (ns == null) namespaces.add(NONE);
+		while (ns != null) {
+			namespaces.add(ns);
+			ns = OpUtils.getNamespace(ns);
+		}
+		return namespaces;
+	}
+
+	private static boolean isType(final OpInfo info, final Class<?> type) {
+		try {
+			return type.isAssignableFrom(info.cInfo().loadClass());
+		}
+		catch (final InstantiableException exc) {
+			return true;
+		}
+	}
+
+	private static <K> List<OpInfo> bucket(final Map<K, List<OpInfo>> map,
+		final K key)
+	{
+		final List<OpInfo> infos = map.get(key);
+		return infos == null ? Collections.emptyList() : infos;
+	}
+
+	private static <K> void replace(final Map<K, List<OpInfo>> map, final K key,
+		final List<OpInfo> infos)
+	{
+		if (infos.isEmpty()) map.remove(key);
+		else map.put(key, infos);
+	}
+
+	/** Copies the given sorted list, inserting the op at its sorted position. */
+	private static List<OpInfo> insert(final List<OpInfo> list,
+		final OpInfo info)
+	{
+		final ArrayList<OpInfo> copy = new ArrayList<>(list.size() + 1);
+		copy.addAll(list);
+		final int index = Collections.binarySearch(copy, info);
+		copy.add(index < 0 ? -index - 1 : index, info);
+		return Collections.unmodifiableList(copy);
+	}
+
+	/** Copies the given list, omitting the op. */
+	private static List<OpInfo> remove(final List<OpInfo> list,
+		final OpInfo info)
+	{
+		if (!list.contains(info)) return list;
+		final ArrayList<OpInfo> copy = new ArrayList<>(list);
+		copy.remove(info);
+		return Collections.unmodifiableList(copy);
+	}
+
+}
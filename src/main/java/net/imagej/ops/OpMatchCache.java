@@ -0,0 +1,217 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of match results, which allows the {@link OpMatchingService}
+ * to skip straight to the winning op when it is asked for the same signature
+ * again.
+ * <p>
+ * Results are keyed on the op environment plus the {@link OpSignature} of the
+ * requested {@link OpRef}s. Each environment has its own least-recently-used
+ * table of at most {@link #getCapacity()} entries; environments which are no
+ * longer referenced elsewhere are dropped from the cache automatically.
+ * </p>
+ * <p>
+ * Since a match is memoized by signature rather than by argument values, the
+ * cache only remembers <em>which</em> op won; the matching service must still
+ * populate a fresh instance and verify that it conforms.
+ * </p>
+ */
+public class OpMatchCache {
+
+	/** Default maximum number of memoized matches per op environment. */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final Map<OpEnvironment, Map<OpSignature, Match>> caches = Collections
+		.synchronizedMap(new WeakHashMap<>());
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private volatile int capacity;
+
+	public OpMatchCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public OpMatchCache(final int capacity) {
+		setCapacity(capacity);
+	}
+
+	// -- OpMatchCache methods --
+
+	/**
+	 * Gets the memoized match for the given references, or null if there is
+	 * none.
+	 */
+	public Match get(final OpEnvironment ops, final List<OpRef> refs) {
+		final Map<OpSignature, Match> cache = caches.get(ops);
+		final Match match;
+		if (cache == null) match = null;
+		else synchronized (cache) {
+			match = cache.get(new OpSignature(refs));
+		}
+		(match == null ? misses : hits).incrementAndGet();
+		return match;
+	}
+
+	/** Memoizes the given candidate as the match for the given references. */
+	public void put(final OpEnvironment ops, final List<OpRef> refs,
+		final OpCandidate candidate)
+	{
+		if (capacity <= 0) return;
+		final int refIndex = refs.indexOf(candidate.getRef());
+		if (refIndex < 0) return;
+		final Match match = new Match(candidate.opInfo(), refIndex);
+		final Map<OpSignature, Match> cache = //
+			caches.computeIfAbsent(ops, o -> lru());
+		synchronized (cache) {
+			cache.put(new OpSignature(refs), match);
+		}
+	}
+
+	/** Discards the memoized match for the given references, if any. */
+	public void remove(final OpEnvironment ops, final List<OpRef> refs) {
+		final Map<OpSignature, Match> cache = caches.get(ops);
+		if (cache == null) return;
+		synchronized (cache) {
+			cache.remove(new OpSignature(refs));
+		}
+	}
+
+	/** Discards all memoized matches of the given op environment. */
+	public void clear(final OpEnvironment ops) {
+		caches.remove(ops);
+	}
+
+	/**
+	 * Discards all memoized matches. This must be called whenever the set of
+	 * available ops changes.
+	 */
+	public void clear() {
+		caches.clear();
+	}
+
+	/** Gets the number of lookups which found a memoized match. */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/** Gets the number of lookups which did not find a memoized match. */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/** Resets the hit and miss counters to zero. */
+	public void resetStatistics() {
+		hits.set(0);
+		misses.set(0);
+	}
+
+	/** Gets the total number of memoized matches, across all environments. */
+	public int size() {
+		int size = 0;
+		synchronized (caches) {
+			for (final Map<OpSignature, Match> cache : caches.values()) {
+				synchronized (cache) {
+					size += cache.size();
+				}
+			}
+		}
+		return size;
+	}
+
+	/** Gets the maximum number of memoized matches per op environment. */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets the maximum number of memoized matches per op environment. A
+	 * capacity of zero disables the cache. Existing entries are discarded.
+	 */
+	public void setCapacity(final int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Negative capacity: " + capacity);
+		}
+		this.capacity = capacity;
+		clear();
+	}
+
+	// -- Helper methods --
+
+	private Map<OpSignature, Match> lru() {
+		final int max = capacity;
+		return new LinkedHashMap<OpSignature, Match>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(
+				final Map.Entry<OpSignature, Match> eldest)
+			{
+				return size() > max;
+			}
+		};
+	}
+
+	// -- Helper classes --
+
+	/** A memoized match: the winning op, and which reference it matched. */
+	public static final class Match {
+
+		private final OpInfo info;
+		private final int refIndex;
+
+		private Match(final OpInfo info, final int refIndex) {
+			this.info = info;
+			this.refIndex = refIndex;
+		}
+
+		/** Gets the winning op. */
+		public OpInfo getInfo() {
+			return info;
+		}
+
+		/** Gets the reference, among those looked up, which the op matched. */
+		public OpRef getRef(final List<OpRef> refs) {
+			return refs.get(refIndex);
+		}
+
+	}
+
+}
@@ -114,6 +114,15 @@ public interface OpMatchingService extends ImageJService {
 	 */
 	boolean typesMatch(OpCandidate candidate);
 
+	/**
+	 * Gets the cache of previous match results, which lets repeated requests
+	 * with the same signature skip the matching process. The cache is cleared
+	 * automatically when ops are added or removed; callers which change the
+	 * available ops of an {@link OpEnvironment} by other means should clear it
+	 * themselves.
+	 */
+	OpMatchCache matchCache();
+
 	/** Checks the number of args, padding optional args with null as needed. */
 	Object[] padArgs(OpCandidate candidate);
 
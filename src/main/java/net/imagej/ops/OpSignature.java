@@ -0,0 +1,135 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The signature of one or more {@link OpRef}s: their names, type constraints,
+ * output types and the erased classes of their arguments, but not the argument
+ * values themselves.
+ * <p>
+ * Two requests with equal signatures are indistinguishable to the type-based
+ * part of the {@link OpMatchingService}, which makes signatures suitable keys
+ * for memoizing match results.
+ * </p>
+ *
+ * @see OpMatchCache
+ */
+public final class OpSignature {
+
+	private final List<Object> signature = new ArrayList<>();
+	private final int hash;
+
+	public OpSignature(final OpRef ref) {
+		this(Collections.singletonList(ref));
+	}
+
+	public OpSignature(final List<OpRef> refs) {
+		for (final OpRef ref : refs) {
+			signature.add(ref.getName());
+			signature.add(ref.getTypes());
+			signature.add(ref.getOutTypes());
+			final Object[] args = ref.getArgs();
+			signature.add(args.length);
+			for (final Object arg : args) {
+				signature.add(erase(arg));
+			}
+		}
+		hash = signature.hashCode();
+	}
+
+	// -- Object methods --
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (o == this) return true;
+		if (!(o instanceof OpSignature)) return false;
+		final OpSignature that = (OpSignature) o;
+		return hash == that.hash && signature.equals(that.signature);
+	}
+
+	@Override
+	public String toString() {
+		return signature.toString();
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Gets the part of an argument which matters for matching: its class, or the
+	 * type itself in case of a typed placeholder.
+	 */
+	private static Object erase(final Object arg) {
+		if (arg == null) return null;
+		if (arg instanceof Type) return new Placeholder((Type) arg);
+		return arg.getClass();
+	}
+
+	// -- Helper classes --
+
+	/** A type passed in place of an argument, as a matching hint. */
+	private static final class Placeholder {
+
+		private final Type type;
+
+		private Placeholder(final Type type) {
+			this.type = type;
+		}
+
+		@Override
+		public int hashCode() {
+			return type.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			return o instanceof Placeholder && Objects.equals(type,
+				((Placeholder) o).type);
+		}
+
+		@Override
+		public String toString() {
+			return "placeholder:" + type.getTypeName();
+		}
+
+	}
+
+}
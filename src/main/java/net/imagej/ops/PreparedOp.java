@@ -0,0 +1,239 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops;
+
+import java.util.List;
+
+import net.imagej.ops.OpCandidate.StatusCode;
+
+import org.scijava.convert.ConvertService;
+import org.scijava.module.Module;
+import org.scijava.module.ModuleItem;
+import org.scijava.module.ModuleService;
+
+/**
+ * An op request which has been matched once, and can then be executed many
+ * times without consulting the {@link OpMatchingService} again.
+ * <p>
+ * A prepared op is bound to the argument signature it was prepared with: each
+ * execution must pass the same number of arguments, of the same classes (or
+ * convertible to the same op parameters). Every execution works on a fresh
+ * instance of the matched op, so a single prepared op may be shared freely
+ * among threads.
+ * </p>
+ * <p>
+ * Unlike the special ops obtained via e.g.
+ * {@link net.imagej.ops.special.computer.Computers#unary}, prepared ops work
+ * for any op, including those without a typed special op interface, and are
+ * therefore a drop-in replacement for repeated {@link OpEnvironment#run}
+ * calls.
+ * </p>
+ *
+ * @param <O> type of the op's output
+ * @see OpEnvironment#prepare(String, Object...)
+ */
+public class PreparedOp<O> {
+
+	private final OpEnvironment ops;
+	private final OpRef ref;
+	private final OpInfo info;
+	private final List<ModuleItem<?>> inputs;
+
+	/** Index of the argument for each input, or -1 for omitted optionals. */
+	private final int[] argIndices;
+
+	/** Whether the matched op depends only on the argument classes. */
+	private final boolean reusable;
+
+	private final ModuleService moduleService;
+	private final ConvertService convertService;
+
+	private PreparedOp(final OpEnvironment ops, final OpCandidate match,
+		final boolean reusable)
+	{
+		this.ops = ops;
+		this.ref = match.getRef();
+		this.info = match.opInfo();
+		this.inputs = match.inputs();
+		this.reusable = reusable;
+		moduleService = ops.getContext().service(ModuleService.class);
+		convertService = ops.getContext().service(ConvertService.class);
+
+		// determine which argument goes to which input, padding optionals
+		final int arity = ref.getArgs().length;
+		final Object[] indices = new Object[arity];
+		for (int i = 0; i < arity; i++) {
+			indices[i] = i;
+		}
+		final OpRef probe = new OpRef(ref.getName(), ref.getTypes(), ref
+			.getOutTypes(), indices);
+		final Object[] padded = ops.matcher().padArgs(new OpCandidate(ops, probe,
+			info));
+		argIndices = new int[padded.length];
+		for (int i = 0; i < padded.length; i++) {
+			argIndices[i] = padded[i] == null ? -1 : (Integer) padded[i];
+		}
+	}
+
+	// -- Static construction methods --
+
+	/**
+	 * Matches the given op reference once, preparing the winner for repeated
+	 * execution.
+	 * <p>
+	 * The reference's arguments may be either sample values or {@link Class}
+	 * placeholders describing the argument types.
+	 * </p>
+	 *
+	 * @throws IllegalArgumentException if there is no match, or if there is more
+	 *           than one match at the same priority.
+	 */
+	public static PreparedOp<Object> prepare(final OpEnvironment ops,
+		final OpRef ref)
+	{
+		final OpMatchingService matcher = ops.matcher();
+		final List<OpCandidate> candidates = matcher.findCandidates(ops, ref);
+		if (candidates.isEmpty()) {
+			throw new IllegalArgumentException("No candidate '" + ref.getLabel() +
+				"' ops");
+		}
+		final List<OpCandidate> matches = matcher.filterMatches(candidates);
+		if (matches.size() != 1) {
+			throw new IllegalArgumentException(OpUtils.matchInfo(candidates,
+				matches));
+		}
+		boolean reusable = true;
+		for (final OpCandidate candidate : candidates) {
+			if (candidate.getStatusCode() == StatusCode.DOES_NOT_CONFORM) {
+				reusable = false;
+			}
+		}
+		return new PreparedOp<>(ops, matches.get(0), reusable);
+	}
+
+	// -- PreparedOp methods --
+
+	/**
+	 * Executes the prepared op with the given arguments.
+	 *
+	 * @param args The op's arguments, matching the prepared signature.
+	 * @return The result of the execution. If the {@link Op} has no outputs,
+	 *         this will return {@code null}. If exactly one output, it will be
+	 *         returned verbatim. If more than one, a {@code List<Object>} of the
+	 *         outputs will be given.
+	 * @throws IllegalArgumentException if the prepared op does not conform to
+	 *           the given arguments.
+	 */
+	@SuppressWarnings("unchecked")
+	public O apply(final Object... args) {
+		final Module module = module(args);
+		if (module == null) {
+			throw new IllegalArgumentException("Prepared op " + info +
+				" does not conform to the given arguments");
+		}
+		return (O) OpEnvironment.run(module);
+	}
+
+	/**
+	 * Creates a fresh, initialized instance of the prepared op, populated with
+	 * the given arguments, ready to run.
+	 *
+	 * @param args The op's arguments, matching the prepared signature.
+	 * @return The op's module, or null if the op does not conform to the given
+	 *         arguments.
+	 */
+	public Module module(final Object... args) {
+		if (args.length != ref.getArgs().length) {
+			throw new IllegalArgumentException("Expected " + ref.getArgs().length +
+				" arguments but got " + args.length);
+		}
+		final Module module = moduleService.createModule(info.cInfo());
+		final Op op = OpUtils.unwrap(module, ref);
+		op.setEnvironment(ops);
+
+		int i = 0;
+		for (final ModuleItem<?> item : inputs) {
+			final int index = argIndices[i++];
+			final Object arg = index < 0 ? null : args[index];
+			if (arg != null) module.setInput(item.getName(), value(arg, item));
+			module.resolveInput(item.getName());
+		}
+
+		if (op instanceof Contingent && !((Contingent) op).conforms()) return null;
+		if (op instanceof Initializable) ((Initializable) op).initialize();
+		return module;
+	}
+
+	/**
+	 * Gets this prepared op typed to the given output class.
+	 *
+	 * @throws IllegalArgumentException if the op's primary output cannot be of
+	 *           the given class.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> PreparedOp<T> as(final Class<T> outType) {
+		final List<ModuleItem<?>> outputs = info.outputs();
+		if (outputs.size() == 1) {
+			final Class<?> type = outputs.get(0).getType();
+			if (!type.isAssignableFrom(outType) && !outType.isAssignableFrom(type)) {
+				throw new IllegalArgumentException("Output of " + info +
+					" is not compatible with " + outType.getName());
+			}
+		}
+		return (PreparedOp<T>) this;
+	}
+
+	/** Gets the metadata of the op which was matched. */
+	public OpInfo info() {
+		return info;
+	}
+
+	/**
+	 * Gets whether the matched op depends only on the classes of the arguments.
+	 * If not, a different op might have been matched for other argument values
+	 * of the same classes, so the prepared op should not be shared as a general
+	 * stand-in for matching that signature.
+	 */
+	public boolean isReusable() {
+		return reusable;
+	}
+
+	// -- Helper methods --
+
+	/** Converts the given argument to the type of the given input, if needed. */
+	private Object value(final Object arg, final ModuleItem<?> item) {
+		if (item.getType().isInstance(arg)) return arg;
+		// NB: Class argument for matching; fill with null.
+		if (arg instanceof Class) return null;
+		return convertService.convert(arg, item.getGenericType());
+	}
+
+}
@@ -0,0 +1,282 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.cached;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.Type;
+import net.imglib2.util.Intervals;
+
+/**
+ * Key identifying a cached op result: the class of the op which computed it,
+ * plus its input and the values of its other arguments.
+ * <p>
+ * Each argument is compared as follows:
+ * </p>
+ * <ul>
+ * <li>Objects whose class overrides {@link Object#equals(Object)} are compared
+ * by value. Imglib2 {@link Type}s are copied, so that mutating the original
+ * afterwards does not corrupt the key.</li>
+ * <li>{@link ArrayImg}s and {@link PlanarImg}s are compared by content, if
+ * content fingerprints are enabled: by dimensions, pixel type and a 64-bit
+ * checksum over their backing arrays.</li>
+ * <li>All other objects are compared by identity. They are only weakly
+ * referenced, so a key never keeps its arguments alive.</li>
+ * </ul>
+ */
+public final class CacheKey {
+
+	/** Cache of which classes implement value equality. */
+	private static final Map<Class<?>, Boolean> VALUE_CLASSES =
+		new ConcurrentHashMap<>();
+
+	private final Class<?> opClass;
+	private final Object[] parts;
+	private final int hash;
+
+	/**
+	 * Creates a key for the result of the given op class applied to the given
+	 * input and other arguments.
+	 *
+	 * @param opClass class of the op computing the result.
+	 * @param input the op's primary input.
+	 * @param args the op's other arguments.
+	 * @param fingerprints whether to compare images by content.
+	 * @param queue queue with which weak references to identity-compared
+	 *          arguments are registered, or null.
+	 */
+	public CacheKey(final Class<?> opClass, final Object input,
+		final Object[] args, final boolean fingerprints,
+		final ReferenceQueue<Object> queue)
+	{
+		this.opClass = opClass;
+		parts = new Object[args.length + 1];
+		parts[0] = part(input, fingerprints, queue);
+		for (int i = 0; i < args.length; i++) {
+			parts[i + 1] = part(args[i], fingerprints, queue);
+		}
+		hash = 31 * opClass.hashCode() + Arrays.hashCode(parts);
+	}
+
+	// -- Object methods --
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof CacheKey)) return false;
+		final CacheKey that = (CacheKey) obj;
+		return hash == that.hash && opClass == that.opClass && Arrays.equals(parts,
+			that.parts);
+	}
+
+	// -- Helper methods --
+
+	private Object part(final Object o, final boolean fingerprints,
+		final ReferenceQueue<Object> queue)
+	{
+		if (o == null) return null;
+		if (fingerprints) {
+			final Fingerprint fingerprint = Fingerprint.of(o);
+			if (fingerprint != null) return fingerprint;
+		}
+		if (isValueClass(o.getClass())) {
+			return o instanceof Type ? ((Type<?>) o).copy() : o;
+		}
+		return new IdentityRef(o, this, queue);
+	}
+
+	private static boolean isValueClass(final Class<?> c) {
+		return VALUE_CLASSES.computeIfAbsent(c, k -> {
+			try {
+				final Method equals = k.getMethod("equals", Object.class);
+				return equals.getDeclaringClass() != Object.class;
+			}
+			catch (final NoSuchMethodException exc) {
+				return false;
+			}
+		});
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Weak reference compared by referent identity. It remembers the key it
+	 * belongs to, so that stale entries can be purged once it is cleared.
+	 */
+	static final class IdentityRef extends WeakReference<Object> {
+
+		private final CacheKey owner;
+		private final int hash;
+
+		private IdentityRef(final Object referent, final CacheKey owner,
+			final ReferenceQueue<Object> queue)
+		{
+			super(referent, queue);
+			this.owner = owner;
+			hash = System.identityHashCode(referent);
+		}
+
+		/** Gets the key this reference belongs to. */
+		CacheKey owner() {
+			return owner;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (obj == this) return true;
+			if (!(obj instanceof IdentityRef)) return false;
+			final Object referent = get();
+			return referent != null && referent == ((IdentityRef) obj).get();
+		}
+
+	}
+
+	/** Content fingerprint of an image backed by primitive arrays. */
+	private static final class Fingerprint {
+
+		private final Class<?> imgClass;
+		private final Class<?> typeClass;
+		private final long[] dims;
+		private final long checksum;
+
+		private Fingerprint(final Img<?> img, final long checksum) {
+			imgClass = img.getClass();
+			typeClass = img.firstElement().getClass();
+			dims = Intervals.dimensionsAsLongArray(img);
+			this.checksum = checksum;
+		}
+
+		/** Gets the fingerprint of the given object, or null if unsupported. */
+		static Fingerprint of(final Object o) {
+			if (o instanceof ArrayImg) {
+				final Object access = ((ArrayImg<?, ?>) o).update(null);
+				if (!(access instanceof ArrayDataAccess)) return null;
+				final long checksum = checksum(1, access);
+				return checksum == 0 ? null : new Fingerprint((Img<?>) o, checksum);
+			}
+			if (o instanceof PlanarImg) {
+				final PlanarImg<?, ?> img = (PlanarImg<?, ?>) o;
+				long checksum = 1;
+				for (int i = 0; i < img.numSlices(); i++) {
+					final Object access = img.getPlane(i);
+					if (!(access instanceof ArrayDataAccess)) return null;
+					checksum = checksum(checksum, access);
+					if (checksum == 0) return null;
+				}
+				return new Fingerprint(img, checksum);
+			}
+			return null;
+		}
+
+		/**
+		 * Folds the contents of the given array access into the checksum.
+		 * Returns 0 if the storage is not a primitive array.
+		 */
+		private static long checksum(final long seed, final Object access) {
+			final Object data = ((ArrayDataAccess<?>) access)
+				.getCurrentStorageArray();
+			long h = seed;
+			if (data instanceof byte[]) {
+				for (final byte v : (byte[]) data)
+					h = mix(h, v);
+			}
+			else if (data instanceof short[]) {
+				for (final short v : (short[]) data)
+					h = mix(h, v);
+			}
+			else if (data instanceof char[]) {
+				for (final char v : (char[]) data)
+					h = mix(h, v);
+			}
+			else if (data instanceof int[]) {
+				for (final int v : (int[]) data)
+					h = mix(h, v);
+			}
+			else if (data instanceof long[]) {
+				for (final long v : (long[]) data)
+					h = mix(h, v);
+			}
+			else if (data instanceof float[]) {
+				for (final float v : (float[]) data)
+					h = mix(h, Float.floatToRawIntBits(v));
+			}
+			else if (data instanceof double[]) {
+				for (final double v : (double[]) data)
+					h = mix(h, Double.doubleToRawLongBits(v));
+			}
+			else if (data instanceof boolean[]) {
+				for (final boolean v : (boolean[]) data)
+					h = mix(h, v ? 1 : 0);
+			}
+			else return 0;
+			return h == 0 ? 1 : h;
+		}
+
+		private static long mix(final long h, final long v) {
+			return (h ^ v) * 0x9E3779B97F4A7C15L + (h >>> 29);
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(checksum);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (obj == this) return true;
+			if (!(obj instanceof Fingerprint)) return false;
+			final Fingerprint that = (Fingerprint) obj;
+			return checksum == that.checksum && imgClass == that.imgClass &&
+				typeClass == that.typeClass && Arrays.equals(dims, that.dims);
+		}
+
+	}
+
+}
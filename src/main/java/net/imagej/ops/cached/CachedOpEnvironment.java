@@ -31,9 +31,9 @@ package net.imagej.ops.cached;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import net.imagej.ops.AbstractOp;
 import net.imagej.ops.CustomOpEnvironment;
@@ -41,27 +41,57 @@ import net.imagej.ops.Op;
 import net.imagej.ops.OpEnvironment;
 import net.imagej.ops.OpInfo;
 import net.imagej.ops.OpRef;
+import net.imagej.ops.special.SpecialOp;
+import net.imagej.ops.special.computer.BinaryComputerOp;
+import net.imagej.ops.special.computer.UnaryComputerOp;
+import net.imagej.ops.special.function.BinaryFunctionOp;
 import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imagej.ops.special.hybrid.BinaryHybridCF;
 import net.imagej.ops.special.hybrid.UnaryHybridCF;
 
+import org.scijava.Context;
 import org.scijava.Priority;
 import org.scijava.cache.CacheService;
 import org.scijava.command.CommandInfo;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleItem;
-import org.scijava.plugin.Parameter;
 import org.scijava.util.GenericUtils;
 
 /**
  * Creates {@link CachedFunctionOp}s which know how to cache their outputs.
+ * <p>
+ * Unary and binary functions, computers and hybrids are cached. Functions
+ * return the stored result itself; computers copy it into the output they are
+ * given, which is supported for {@link net.imglib2.type.Type}s and
+ * {@link net.imglib2.img.Img}s. Which ops are cached can be narrowed with
+ * {@link #include} and {@link #exclude}.
+ * </p>
+ * <p>
+ * Results are stored in an {@link OpResultCache}, bounded by the estimated
+ * number of bytes they occupy, and keyed on a {@link CacheKey} of the op class,
+ * input and other arguments. By default, images are compared by identity. If
+ * {@link #setContentAware content awareness} is enabled, images backed by
+ * primitive arrays are compared by content instead: identical images share
+ * their results, and modifying an image invalidates its results.
+ * </p>
+ * <p>
+ * By default, all environments of a {@link Context} share one
+ * {@link OpResultCache}, held by the context's {@link CacheService}, so
+ * that e.g. separate feature sets share their results as before. Pass a cache
+ * of your own to the constructor to keep an environment's results apart.
+ * </p>
  * 
  * @author Christian Dietz (University of Konstanz)
  */
 public class CachedOpEnvironment extends CustomOpEnvironment {
 
-	@Parameter
-	private CacheService cs;
-	private Collection<Class<?>> ignoredOps;
+	private final Set<Class<?>> includedOps = new CopyOnWriteArraySet<>();
+
+	private final Set<Class<?>> excludedOps = new CopyOnWriteArraySet<>();
+
+	private final OpResultCache cache;
+
+	private volatile boolean contentAware;
 
 	public CachedOpEnvironment(final OpEnvironment parent) {
 		this(parent, null, new ArrayList<>());
@@ -77,44 +107,159 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		final Collection<? extends OpInfo> prioritizedInfos,
 		final Collection<Class<?>> ignoredOps)
 	{
-		super(parent, prioritizedInfos);
+		this(parent, prioritizedInfos, ignoredOps, sharedCache(parent
+			.getContext()));
+	}
 
-		if (prioritizedInfos != null) for (final OpInfo info : prioritizedInfos) {
-			info.cInfo().setPriority(Priority.FIRST_PRIORITY);
-		}
+	/**
+	 * Creates a caching op environment which stores its results in the given
+	 * cache. Environments sharing the same cache share their results.
+	 */
+	public CachedOpEnvironment(final OpEnvironment parent,
+		final Collection<? extends OpInfo> prioritizedInfos,
+		final Collection<Class<?>> ignoredOps, final OpResultCache cache)
+	{
+		super(parent, prioritize(prioritizedInfos));
+		if (ignoredOps != null) excludedOps.addAll(ignoredOps);
+		this.cache = cache;
+	}
 
-		this.ignoredOps = ignoredOps;
+	// -- CachedOpEnvironment methods --
+
+	/** Gets the cache in which results are stored. */
+	public OpResultCache getCache() {
+		return cache;
 	}
 
+	/** Gets whether images are compared by content rather than by identity. */
+	public boolean isContentAware() {
+		return contentAware;
+	}
+
+	/**
+	 * Sets whether images are compared by content rather than by identity.
+	 * Computing the fingerprint of an image costs one pass over its pixels per
+	 * lookup; this pays off when identical images are passed as distinct
+	 * objects, or when images are modified in place between computations.
+	 */
+	public void setContentAware(final boolean contentAware) {
+		this.contentAware = contentAware;
+	}
+
+	/**
+	 * Opts the given op type in to caching. Once any type has been included,
+	 * only ops of included types are cached.
+	 * 
+	 * @param opType An op class or op type interface, e.g.
+	 *          {@code Ops.Stats.Mean.class}.
+	 */
+	public void include(final Class<?> opType) {
+		includedOps.add(opType);
+	}
+
+	/**
+	 * Opts the given op type out of caching. Exclusions take precedence over
+	 * inclusions.
+	 * 
+	 * @param opType An op class or op type interface, e.g.
+	 *          {@code Ops.Stats.Mean.class}.
+	 */
+	public void exclude(final Class<?> opType) {
+		excludedOps.add(opType);
+	}
+
+	/** Gets whether the given op, matched for the given request, is cached. */
+	public boolean isCached(final Op op, final OpRef ref) {
+		if (matches(excludedOps, op, ref)) return false;
+		return includedOps.isEmpty() || matches(includedOps, op, ref);
+	}
+
+	// -- OpEnvironment methods --
+
 	@Override
 	public Op op(final OpRef ref) {
 		final Op op = super.op(ref);
-
-		for (final Class<?> ignored : ignoredOps) {
-			for (final Type t : ref.getTypes()) {
-				// FIXME: Use generic assignability test, once it exists.
-				final Class<?> raw = GenericUtils.getClass(t);
-				if (ignored.isAssignableFrom(raw)) {
-					return op;
-				}
-			}
-		}
+		if (!isCached(op, ref)) return op;
 
 		final Op cachedOp;
-		if (op instanceof UnaryHybridCF) {
+		if (op instanceof BinaryHybridCF) {
+			cachedOp = wrapBinaryHybrid((BinaryHybridCF<?, ?, ?>) op);
+		}
+		else if (op instanceof UnaryHybridCF) {
 			cachedOp = wrapUnaryHybrid((UnaryHybridCF<?, ?>) op);
 		}
+		else if (op instanceof BinaryFunctionOp) {
+			cachedOp = wrapBinaryFunction((BinaryFunctionOp<?, ?, ?>) op);
+		}
 		else if (op instanceof UnaryFunctionOp) {
 			cachedOp = wrapUnaryFunction((UnaryFunctionOp<?, ?>) op);
 		}
+		else if (op instanceof BinaryComputerOp) {
+			cachedOp = wrapBinaryComputer((BinaryComputerOp<?, ?, ?>) op);
+		}
+		else if (op instanceof UnaryComputerOp) {
+			cachedOp = wrapUnaryComputer((UnaryComputerOp<?, ?>) op);
+		}
 		else return op;
 
+		// NB: The wrapper implements fewer special op interfaces than a hybrid
+		// may. If the caller asked for one it lacks, hand out the op itself.
+		for (final Type t : ref.getTypes()) {
+			final Class<?> raw = GenericUtils.getClass(t);
+			if (SpecialOp.class.isAssignableFrom(raw) && !raw.isInstance(
+				cachedOp)) return op;
+		}
+
 		getContext().inject(cachedOp);
 		return cachedOp;
 	}
 
 	// -- Helper methods --
 
+	/**
+	 * Gets the result cache shared by all environments of the given context,
+	 * creating it on first use.
+	 */
+	private static OpResultCache sharedCache(final Context context) {
+		final CacheService cs = context.getService(CacheService.class);
+		if (cs == null) return new OpResultCache();
+		synchronized (cs) {
+			OpResultCache cache = (OpResultCache) cs.get(OpResultCache.class);
+			if (cache == null) {
+				cache = new OpResultCache();
+				cs.put(OpResultCache.class, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Raises the given ops to the highest priority. This must happen before
+	 * they are indexed, since the index is sorted by priority.
+	 */
+	private static Collection<? extends OpInfo> prioritize(
+		final Collection<? extends OpInfo> infos)
+	{
+		if (infos != null) for (final OpInfo info : infos) {
+			info.cInfo().setPriority(Priority.FIRST_PRIORITY);
+		}
+		return infos;
+	}
+
+	/** Checks whether the op, or any requested type, is one of the given. */
+	private static boolean matches(final Set<Class<?>> opTypes, final Op op,
+		final OpRef ref)
+	{
+		for (final Class<?> opType : opTypes) {
+			if (opType.isInstance(op)) return true;
+			for (final Type t : ref.getTypes()) {
+				final Class<?> raw = GenericUtils.getClass(t);
+				if (opType.isAssignableFrom(raw)) return true;
+			}
+		}
+		return false;
+	}
+
 	private <I, O> CachedFunctionOp<I, O> wrapUnaryFunction(
 		final UnaryFunctionOp<I, O> op)
 	{
@@ -127,6 +272,66 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		return new CachedHybridOp<>(op, otherArgs(op, 2));
 	}
 
+	private <I, O> CachedComputerOp<I, O> wrapUnaryComputer(
+		final UnaryComputerOp<I, O> op)
+	{
+		return new CachedComputerOp<>(op, otherArgs(op, 2));
+	}
+
+	private <I1, I2, O> CachedBinaryFunctionOp<I1, I2, O> wrapBinaryFunction(
+		final BinaryFunctionOp<I1, I2, O> op)
+	{
+		return new CachedBinaryFunctionOp<>(op, otherArgs(op, 2));
+	}
+
+	private <I1, I2, O> CachedBinaryHybridOp<I1, I2, O> wrapBinaryHybrid(
+		final BinaryHybridCF<I1, I2, O> op)
+	{
+		return new CachedBinaryHybridOp<>(op, otherArgs(op, 3));
+	}
+
+	private <I1, I2, O> CachedBinaryComputerOp<I1, I2, O> wrapBinaryComputer(
+		final BinaryComputerOp<I1, I2, O> op)
+	{
+		return new CachedBinaryComputerOp<>(op, otherArgs(op, 3));
+	}
+
+	/**
+	 * Injects a copy of a cached op, made for another thread. The copy wraps
+	 * an independent instance of the delegate but shares this cache.
+	 */
+	private <OP extends Op> OP independent(final OP op) {
+		getContext().inject(op);
+		return op;
+	}
+
+	/** Creates the cache key for the given op invocation. */
+	private CacheKey key(final Object input, final Op op, final Object[] args) {
+		return new CacheKey(op.getClass(), input, args, contentAware, cache
+			.queue());
+	}
+
+	/** Creates the cache key for the given binary op invocation. */
+	private CacheKey key(final Object input1, final Object input2, final Op op,
+		final Object[] args)
+	{
+		final Object[] all = new Object[args.length + 1];
+		all[0] = input2;
+		System.arraycopy(args, 0, all, 1, args.length);
+		return key(input1, op, all);
+	}
+
+	/** Computes into the output, reusing a stored result if there is one. */
+	private void compute(final CacheKey key, final Object output,
+		final Runnable computation)
+	{
+		final Object result = cache.get(key);
+		if (result != null && OpResultCache.copyInto(result, output)) return;
+		computation.run();
+		final Object snapshot = OpResultCache.snapshot(output);
+		if (snapshot != null) cache.put(key, snapshot);
+	}
+
 	/**
 	 * Gets the given {@link Op} instance's argument value, starting at the
 	 * specified offset.
@@ -156,9 +361,6 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		UnaryFunctionOp<I, O>
 	{
 
-		@Parameter
-		private CacheService cache;
-
 		private final UnaryFunctionOp<I, O> delegate;
 
 		private final Object[] args;
@@ -173,14 +375,14 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		@Override
 		public O calculate(final I input) {
 
-			final Hash hash = new Hash(input, delegate, args);
+			final CacheKey key = key(input, delegate, args);
 
 			@SuppressWarnings("unchecked")
-			O output = (O) cache.get(hash);
+			O output = (O) cache.get(key);
 
 			if (output == null) {
 				output = delegate.calculate(input);
-				cache.put(hash, output);
+				cache.put(key, output);
 			}
 			return output;
 		}
@@ -212,15 +414,16 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 
 		@Override
 		public CachedFunctionOp<I, O> getIndependentInstance() {
-			return this;
+			return independent(new CachedFunctionOp<>(delegate
+				.getIndependentInstance(), args));
 		}
 
 	}
 
 	/**
 	 * Wraps a {@link UnaryHybridCF} and caches the results. New inputs will
-	 * result in re-computation if {@link UnaryHybridCF} is used as
-	 * {@link UnaryFunctionOp}.
+	 * result in re-computation, whether the {@link UnaryHybridCF} is used as
+	 * {@link UnaryFunctionOp} or as {@link UnaryComputerOp}.
 	 * 
 	 * @author Christian Dietz (University of Konstanz)
 	 * @param <I>
@@ -230,9 +433,6 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		UnaryHybridCF<I, O>
 	{
 
-		@Parameter
-		private CacheService cache;
-
 		private final UnaryHybridCF<I, O> delegate;
 
 		private final Object[] args;
@@ -247,15 +447,15 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 
 		@Override
 		public O calculate(final I input) {
-			final Hash hash = new Hash(input, delegate, args);
+			final CacheKey key = key(input, delegate, args);
 
 			@SuppressWarnings("unchecked")
-			O output = (O) cache.get(hash);
+			O output = (O) cache.get(key);
 
 			if (output == null) {
 				output = createOutput(input);
-				compute(input, output);
-				cache.put(hash, output);
+				delegate.compute(input, output);
+				cache.put(key, output);
 			}
 			return output;
 		}
@@ -267,7 +467,8 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 
 		@Override
 		public void compute(final I input, final O output) {
-			delegate.compute(input, output);
+			CachedOpEnvironment.this.compute(key(input, delegate, args), output,
+				() -> delegate.compute(input, output));
 		}
 
 		@Override
@@ -277,32 +478,290 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 
 		@Override
 		public CachedHybridOp<I, O> getIndependentInstance() {
-			return this;
+			return independent(new CachedHybridOp<>(delegate
+				.getIndependentInstance(), args));
+		}
+	}
+
+	/**
+	 * Wraps a {@link UnaryComputerOp} and caches copies of its outputs. A cached
+	 * result is copied into the output on subsequent computations.
+	 * 
+	 * @param <I>
+	 * @param <O>
+	 */
+	class CachedComputerOp<I, O> extends AbstractOp implements
+		UnaryComputerOp<I, O>
+	{
+
+		private final UnaryComputerOp<I, O> delegate;
+
+		private final Object[] args;
+
+		public CachedComputerOp(final UnaryComputerOp<I, O> delegate,
+			final Object[] args)
+		{
+			this.delegate = delegate;
+			this.args = args;
+		}
+
+		@Override
+		public void compute(final I input, final O output) {
+			CachedOpEnvironment.this.compute(key(input, delegate, args), output,
+				() -> delegate.compute(input, output));
+		}
+
+		@Override
+		public void run() {
+			delegate.run();
+		}
+
+		@Override
+		public I in() {
+			return delegate.in();
+		}
+
+		@Override
+		public void setInput(final I input) {
+			delegate.setInput(input);
+		}
+
+		@Override
+		public O out() {
+			return delegate.out();
+		}
+
+		@Override
+		public void setOutput(final O output) {
+			delegate.setOutput(output);
+		}
+
+		@Override
+		public void initialize() {
+			delegate.initialize();
+		}
+
+		@Override
+		public CachedComputerOp<I, O> getIndependentInstance() {
+			return independent(new CachedComputerOp<>(delegate
+				.getIndependentInstance(), args));
+		}
+	}
+
+	/**
+	 * Wraps a {@link BinaryFunctionOp} and caches the results. A change to
+	 * either input will result in re-computation of the result.
+	 * 
+	 * @param <I1>
+	 * @param <I2>
+	 * @param <O>
+	 */
+	class CachedBinaryFunctionOp<I1, I2, O> extends AbstractOp implements
+		BinaryFunctionOp<I1, I2, O>
+	{
+
+		private final BinaryFunctionOp<I1, I2, O> delegate;
+
+		private final Object[] args;
+
+		public CachedBinaryFunctionOp(final BinaryFunctionOp<I1, I2, O> delegate,
+			final Object[] args)
+		{
+			this.delegate = delegate;
+			this.args = args;
+		}
+
+		@Override
+		public O calculate(final I1 input1, final I2 input2) {
+			final CacheKey key = key(input1, input2, delegate, args);
+
+			@SuppressWarnings("unchecked")
+			O output = (O) cache.get(key);
+
+			if (output == null) {
+				output = delegate.calculate(input1, input2);
+				cache.put(key, output);
+			}
+			return output;
+		}
+
+		@Override
+		public void run() {
+			delegate.run();
+		}
+
+		@Override
+		public I1 in1() {
+			return delegate.in1();
+		}
+
+		@Override
+		public I2 in2() {
+			return delegate.in2();
+		}
+
+		@Override
+		public void setInput1(final I1 input1) {
+			delegate.setInput1(input1);
+		}
+
+		@Override
+		public void setInput2(final I2 input2) {
+			delegate.setInput2(input2);
+		}
+
+		@Override
+		public O out() {
+			return delegate.out();
+		}
+
+		@Override
+		public void initialize() {
+			delegate.initialize();
+		}
+
+		@Override
+		public CachedBinaryFunctionOp<I1, I2, O> getIndependentInstance() {
+			return independent(new CachedBinaryFunctionOp<>(delegate
+				.getIndependentInstance(), args));
 		}
 	}
 
 	/**
-	 * Simple utility class to wrap two objects and an array of objects in a
-	 * single object which combines their hashes.
+	 * Wraps a {@link BinaryHybridCF} and caches the results, whether it is used
+	 * as {@link BinaryFunctionOp} or as {@link BinaryComputerOp}.
+	 * 
+	 * @param <I1>
+	 * @param <I2>
+	 * @param <O>
 	 */
-	private class Hash {
+	class CachedBinaryHybridOp<I1, I2, O> extends
+		CachedBinaryFunctionOp<I1, I2, O> implements BinaryHybridCF<I1, I2, O>
+	{
 
-		private final int hash;
+		private final BinaryHybridCF<I1, I2, O> delegate;
 
-		public Hash(final Object o1, final Object o2, final Object[] args) {
-			hash = Objects.hash(o1, o2.getClass(), Arrays.hashCode(args));
+		private final Object[] args;
+
+		public CachedBinaryHybridOp(final BinaryHybridCF<I1, I2, O> delegate,
+			final Object[] args)
+		{
+			super(delegate, args);
+			this.delegate = delegate;
+			this.args = args;
 		}
 
 		@Override
-		public int hashCode() {
-			return hash;
+		public O calculate(final I1 input1, final I2 input2) {
+			final CacheKey key = key(input1, input2, delegate, args);
+
+			@SuppressWarnings("unchecked")
+			O output = (O) cache.get(key);
+
+			if (output == null) {
+				output = createOutput(input1, input2);
+				delegate.compute(input1, input2, output);
+				cache.put(key, output);
+			}
+			return output;
+		}
+
+		@Override
+		public O createOutput(final I1 input1, final I2 input2) {
+			return delegate.createOutput(input1, input2);
+		}
+
+		@Override
+		public void compute(final I1 input1, final I2 input2, final O output) {
+			CachedOpEnvironment.this.compute(key(input1, input2, delegate, args),
+				output, () -> delegate.compute(input1, input2, output));
+		}
+
+		@Override
+		public void setOutput(final O output) {
+			delegate.setOutput(output);
+		}
+
+		@Override
+		public CachedBinaryHybridOp<I1, I2, O> getIndependentInstance() {
+			return independent(new CachedBinaryHybridOp<>(delegate
+				.getIndependentInstance(), args));
+		}
+	}
+
+	/**
+	 * Wraps a {@link BinaryComputerOp} and caches copies of its outputs. A
+	 * cached result is copied into the output on subsequent computations.
+	 * 
+	 * @param <I1>
+	 * @param <I2>
+	 * @param <O>
+	 */
+	class CachedBinaryComputerOp<I1, I2, O> extends AbstractOp implements
+		BinaryComputerOp<I1, I2, O>
+	{
+
+		private final BinaryComputerOp<I1, I2, O> delegate;
+
+		private final Object[] args;
+
+		public CachedBinaryComputerOp(final BinaryComputerOp<I1, I2, O> delegate,
+			final Object[] args)
+		{
+			this.delegate = delegate;
+			this.args = args;
+		}
+
+		@Override
+		public void compute(final I1 input1, final I2 input2, final O output) {
+			CachedOpEnvironment.this.compute(key(input1, input2, delegate, args),
+				output, () -> delegate.compute(input1, input2, output));
+		}
+
+		@Override
+		public void run() {
+			delegate.run();
+		}
+
+		@Override
+		public I1 in1() {
+			return delegate.in1();
+		}
+
+		@Override
+		public I2 in2() {
+			return delegate.in2();
+		}
+
+		@Override
+		public void setInput1(final I1 input1) {
+			delegate.setInput1(input1);
+		}
+
+		@Override
+		public void setInput2(final I2 input2) {
+			delegate.setInput2(input2);
+		}
+
+		@Override
+		public O out() {
+			return delegate.out();
+		}
+
+		@Override
+		public void setOutput(final O output) {
+			delegate.setOutput(output);
+		}
+
+		@Override
+		public void initialize() {
+			delegate.initialize();
 		}
 
 		@Override
-		public boolean equals(final Object obj) {
-			if (obj == this) return true;
-			if (obj instanceof Hash) return hash == ((Hash) obj).hash;
-			return false;
+		public CachedBinaryComputerOp<I1, I2, O> getIndependentInstance() {
+			return independent(new CachedBinaryComputerOp<>(delegate
+				.getIndependentInstance(), args));
 		}
 	}
 }
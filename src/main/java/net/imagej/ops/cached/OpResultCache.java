@@ -0,0 +1,306 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.cached;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.Type;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+/**
+ * A cache of op results, bounded by the estimated number of bytes the results
+ * occupy. When the bound is exceeded, the least recently used results are
+ * evicted first.
+ * <p>
+ * Results whose keys refer to arguments which have since been garbage
+ * collected can never be hit again; they are purged eagerly.
+ * </p>
+ *
+ * @see CachedOpEnvironment
+ */
+public class OpResultCache {
+
+	/** Default bound of the cache: 256 MiB. */
+	public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+	/** Estimated size of objects whose size is not known otherwise. */
+	private static final long OBJECT_BYTES = 64;
+
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+	private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(
+		16, 0.75f, true);
+
+	private final long maxBytes;
+
+	private long bytes;
+
+	private long hits;
+
+	private long misses;
+
+	public OpResultCache() {
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	public OpResultCache(final long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	// -- OpResultCache methods --
+
+	/**
+	 * Gets the queue with which the weak references of {@link CacheKey}s for
+	 * this cache must be registered.
+	 */
+	public ReferenceQueue<Object> queue() {
+		return queue;
+	}
+
+	/** Gets the cached result for the given key, or null if none. */
+	public synchronized Object get(final CacheKey key) {
+		purge();
+		final Entry entry = entries.get(key);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Caches the given result, evicting least recently used results as needed.
+	 * Results larger than the whole cache are not cached at all.
+	 */
+	public synchronized void put(final CacheKey key, final Object value) {
+		purge();
+		final long size = OBJECT_BYTES + estimateBytes(value);
+		if (size > maxBytes) return;
+		final Entry old = entries.put(key, new Entry(value, size));
+		if (old != null) bytes -= old.bytes;
+		bytes += size;
+
+		final Iterator<Entry> iter = entries.values().iterator();
+		while (bytes > maxBytes && iter.hasNext()) {
+			final Entry eldest = iter.next();
+			bytes -= eldest.bytes;
+			iter.remove();
+		}
+	}
+
+	/** Discards all cached results. */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+		while (queue.poll() != null) {
+			// NB: Drain the queue.
+		}
+	}
+
+	/** Gets the number of cached results. */
+	public synchronized int size() {
+		purge();
+		return entries.size();
+	}
+
+	/** Gets the estimated number of bytes occupied by the cached results. */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/** Gets the maximum number of bytes the cached results may occupy. */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/** Gets the number of lookups which found a cached result. */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/** Gets the number of lookups which did not find a cached result. */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	// -- Utility methods --
+
+	/**
+	 * Estimates the number of bytes occupied by the given object. Images backed
+	 * by primitive arrays are measured exactly; other images and intervals are
+	 * assumed to take 8 bytes per element.
+	 */
+	public static long estimateBytes(final Object o) {
+		if (o == null) return 0;
+		if (o instanceof ArrayImg) {
+			return arrayBytes(((ArrayImg<?, ?>) o).update(null), o);
+		}
+		if (o instanceof PlanarImg) {
+			final PlanarImg<?, ?> img = (PlanarImg<?, ?>) o;
+			long sum = 0;
+			for (int i = 0; i < img.numSlices(); i++) {
+				sum += arrayBytes(img.getPlane(i), null);
+			}
+			return sum;
+		}
+		if (o instanceof IterableInterval) {
+			return 8 * ((IterableInterval<?>) o).size();
+		}
+		if (o instanceof RandomAccessibleInterval) {
+			return 8 * Intervals.numElements((RandomAccessibleInterval<?>) o);
+		}
+		if (o.getClass().isArray()) {
+			final int length = Array.getLength(o);
+			final Class<?> c = o.getClass().getComponentType();
+			if (!c.isPrimitive()) {
+				long sum = 0;
+				for (int i = 0; i < length; i++) {
+					sum += OBJECT_BYTES + estimateBytes(Array.get(o, i));
+				}
+				return sum;
+			}
+			if (c == long.class || c == double.class) return 8L * length;
+			if (c == int.class || c == float.class) return 4L * length;
+			if (c == short.class || c == char.class) return 2L * length;
+			return length;
+		}
+		if (o instanceof Collection) {
+			long sum = 0;
+			for (final Object e : (Collection<?>) o) {
+				sum += OBJECT_BYTES + estimateBytes(e);
+			}
+			return sum;
+		}
+		return OBJECT_BYTES;
+	}
+
+	/**
+	 * Gets a copy of the given computer output which can be stored as a result,
+	 * or null if outputs of its kind cannot be copied.
+	 */
+	public static Object snapshot(final Object output) {
+		if (output instanceof Type) return ((Type<?>) output).copy();
+		if (output instanceof Img) return ((Img<?>) output).copy();
+		return null;
+	}
+
+	/**
+	 * Copies a stored result into the given computer output.
+	 *
+	 * @return false if the result does not fit the output, in which case the
+	 *         output is left untouched.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static boolean copyInto(final Object result, final Object output) {
+		if (result instanceof Type && output instanceof Type) {
+			if (result.getClass() != output.getClass()) return false;
+			((Type) output).set((Type) result);
+			return true;
+		}
+		if (result instanceof Img && output instanceof RandomAccessibleInterval) {
+			final Img<?> src = (Img<?>) result;
+			final RandomAccessibleInterval<?> dst =
+				(RandomAccessibleInterval<?>) output;
+			if (!sameDimensions(src, dst)) return false;
+			if (src.firstElement().getClass() != Util.getTypeFromInterval(dst)
+				.getClass()) return false;
+			final Cursor<Type> in = Views.flatIterable((Img<Type>) src).cursor();
+			final Cursor<Type> out = Views.flatIterable(
+				(RandomAccessibleInterval<Type>) dst).cursor();
+			while (in.hasNext()) {
+				out.next().set(in.next());
+			}
+			return true;
+		}
+		return false;
+	}
+
+	// -- Helper methods --
+
+	/** Removes all entries whose keys refer to garbage collected objects. */
+	private void purge() {
+		Reference<?> ref;
+		while ((ref = queue.poll()) != null) {
+			final CacheKey owner = ((CacheKey.IdentityRef) ref).owner();
+			final Entry entry = entries.remove(owner);
+			if (entry != null) bytes -= entry.bytes;
+		}
+	}
+
+	private static boolean sameDimensions(final RandomAccessibleInterval<?> a,
+		final RandomAccessibleInterval<?> b)
+	{
+		if (a.numDimensions() != b.numDimensions()) return false;
+		for (int d = 0; d < a.numDimensions(); d++) {
+			if (a.dimension(d) != b.dimension(d)) return false;
+		}
+		return true;
+	}
+
+	private static long arrayBytes(final Object access, final Object fallback) {
+		if (access instanceof ArrayDataAccess) {
+			return estimateBytes(((ArrayDataAccess<?>) access)
+				.getCurrentStorageArray());
+		}
+		return fallback == null ? OBJECT_BYTES : 8 * ((IterableInterval<?>) fallback)
+			.size();
+	}
+
+	// -- Helper classes --
+
+	private static final class Entry {
+
+		private final Object value;
+		private final long bytes;
+
+		private Entry(final Object value, final long bytes) {
+			this.value = value;
+			this.bytes = bytes;
+		}
+
+	}
+
+}
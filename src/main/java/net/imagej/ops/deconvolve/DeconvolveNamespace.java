@@ -30,6 +30,7 @@
 package net.imagej.ops.deconvolve;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import net.imagej.ops.AbstractNamespace;
 import net.imagej.ops.Namespace;
@@ -198,6 +199,27 @@ public class DeconvolveNamespace extends AbstractNamespace {
 
 	}
 
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyF.class)
+	public <
+		I extends RealType<I>, O extends RealType<O>, K extends RealType<K>, C extends ComplexType<C>>
+		RandomAccessibleInterval<O> richardsonLucy(
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel, final long[] borderSize,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput,
+			final OutOfBoundsFactory<K, RandomAccessibleInterval<K>> obfKernel,
+			final Type<O> outType, final C fftType, final int maxIterations,
+			final boolean nonCirculant, final boolean accelerate,
+			final double tolerance)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyF.class, in, kernel, borderSize,
+				obfInput, obfKernel, outType, fftType, maxIterations, nonCirculant,
+				accelerate, tolerance);
+		return result;
+	}
+
 	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyC.class)
 	public <
 		I extends RealType<I>, O extends RealType<O>, K extends RealType<K>, C extends ComplexType<C>>
@@ -354,6 +376,233 @@ public class DeconvolveNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyC.class)
+	public <
+		I extends RealType<I>, O extends RealType<O>, K extends RealType<K>, C extends ComplexType<C>>
+		RandomAccessibleInterval<O> richardsonLucy(
+			final RandomAccessibleInterval<O> out,
+			final RandomAccessibleInterval<I> in1,
+			final RandomAccessibleInterval<K> in2,
+			final RandomAccessibleInterval<C> fftInput,
+			final RandomAccessibleInterval<C> fftKernel,
+			final boolean performInputFFT, final boolean performKernelFFT,
+			final int maxIterations, final Interval imgConvolutionInterval,
+			final UnaryInplaceOp<O, O> accelerator,
+			final UnaryComputerOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>> update,
+			RandomAccessibleInterval<O> raiExtendedEstimate,
+			final ArrayList<UnaryInplaceOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>>> iterativePostProcessing,
+			final double tolerance)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyC.class, out, in1, in2,
+				fftInput, fftKernel, performInputFFT, performKernelFFT, maxIterations,
+				imgConvolutionInterval, accelerator, update, raiExtendedEstimate,
+				iterativePostProcessing, tolerance);
+		return result;
+	}
+
+//-- DeconvolveOps.RichardsonLucyBatch
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchList.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		List<RandomAccessibleInterval<O>> richardsonLucyBatch(
+			final List<RandomAccessibleInterval<I>> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int maxIterations)
+	{
+		@SuppressWarnings("unchecked")
+		final List<RandomAccessibleInterval<O>> result =
+			(List<RandomAccessibleInterval<O>>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchList.class, in,
+				kernel, maxIterations);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchList.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		List<RandomAccessibleInterval<O>> richardsonLucyBatch(
+			final List<RandomAccessibleInterval<O>> out,
+			final List<RandomAccessibleInterval<I>> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int maxIterations)
+	{
+		@SuppressWarnings("unchecked")
+		final List<RandomAccessibleInterval<O>> result =
+			(List<RandomAccessibleInterval<O>>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchList.class, out,
+				in, kernel, maxIterations);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchList.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		List<RandomAccessibleInterval<O>> richardsonLucyBatch(
+			final List<RandomAccessibleInterval<O>> out,
+			final List<RandomAccessibleInterval<I>> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int maxIterations,
+			final boolean nonCirculant)
+	{
+		@SuppressWarnings("unchecked")
+		final List<RandomAccessibleInterval<O>> result =
+			(List<RandomAccessibleInterval<O>>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchList.class, out,
+				in, kernel, maxIterations, nonCirculant);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchList.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		List<RandomAccessibleInterval<O>> richardsonLucyBatch(
+			final List<RandomAccessibleInterval<O>> out,
+			final List<RandomAccessibleInterval<I>> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int maxIterations,
+			final boolean nonCirculant,
+			final boolean accelerate)
+	{
+		@SuppressWarnings("unchecked")
+		final List<RandomAccessibleInterval<O>> result =
+			(List<RandomAccessibleInterval<O>>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchList.class, out,
+				in, kernel, maxIterations, nonCirculant, accelerate);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchList.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		List<RandomAccessibleInterval<O>> richardsonLucyBatch(
+			final List<RandomAccessibleInterval<O>> out,
+			final List<RandomAccessibleInterval<I>> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int maxIterations,
+			final boolean nonCirculant,
+			final boolean accelerate,
+			final double tolerance)
+	{
+		@SuppressWarnings("unchecked")
+		final List<RandomAccessibleInterval<O>> result =
+			(List<RandomAccessibleInterval<O>>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchList.class, out,
+				in, kernel, maxIterations, nonCirculant, accelerate, tolerance);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchList.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		List<RandomAccessibleInterval<O>> richardsonLucyBatch(
+			final List<RandomAccessibleInterval<O>> out,
+			final List<RandomAccessibleInterval<I>> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int maxIterations,
+			final boolean nonCirculant,
+			final boolean accelerate,
+			final double tolerance,
+			final long maxBytes)
+	{
+		@SuppressWarnings("unchecked")
+		final List<RandomAccessibleInterval<O>> result =
+			(List<RandomAccessibleInterval<O>>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchList.class, out,
+				in, kernel, maxIterations, nonCirculant, accelerate, tolerance,
+				maxBytes);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchStack.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> richardsonLucyBatch(
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int axis,
+			final int maxIterations)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchStack.class, in,
+				kernel, axis, maxIterations);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchStack.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> richardsonLucyBatch(
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int axis,
+			final int maxIterations,
+			final boolean nonCirculant)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchStack.class, in,
+				kernel, axis, maxIterations, nonCirculant);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchStack.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> richardsonLucyBatch(
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int axis,
+			final int maxIterations,
+			final boolean nonCirculant,
+			final boolean accelerate)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchStack.class, in,
+				kernel, axis, maxIterations, nonCirculant, accelerate);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchStack.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> richardsonLucyBatch(
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int axis,
+			final int maxIterations,
+			final boolean nonCirculant,
+			final boolean accelerate,
+			final double tolerance)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchStack.class, in,
+				kernel, axis, maxIterations, nonCirculant, accelerate,
+				tolerance);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyBatchStack.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> richardsonLucyBatch(
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel,
+			final int axis,
+			final int maxIterations,
+			final boolean nonCirculant,
+			final boolean accelerate,
+			final double tolerance,
+			final long maxBytes)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyBatchStack.class, in,
+				kernel, axis, maxIterations, nonCirculant, accelerate,
+				tolerance, maxBytes);
+		return result;
+	}
+
 //-- DeconvolveOps.RichardsonLucyTV
 
 	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyTVF.class)
@@ -499,6 +748,27 @@ public class DeconvolveNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyTVF.class)
+	public <
+		I extends RealType<I>, O extends RealType<O>, K extends RealType<K>, C extends ComplexType<C>>
+		RandomAccessibleInterval<O> richardsonLucyTV(
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel, final long[] borderSize,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput,
+			final OutOfBoundsFactory<K, RandomAccessibleInterval<K>> obfKernel,
+			final Type<O> outType, final C fftType, final int maxIterations,
+			final boolean nonCirculant, final boolean accelerate,
+			final double tolerance, final float regularizationFactor)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(
+				net.imagej.ops.deconvolve.RichardsonLucyTVF.class, in, kernel,
+				borderSize, obfInput, obfKernel, outType, fftType, maxIterations,
+				nonCirculant, accelerate, tolerance, regularizationFactor);
+		return result;
+	}
+
 	// -- richardson lucy correction ops
 
 	@OpMethod(op = net.imagej.ops.deconvolve.RichardsonLucyCorrection.class)
@@ -564,14 +834,16 @@ public class DeconvolveNamespace extends AbstractNamespace {
 
 	// -- accelerate ops
 
-	@OpMethod(op = net.imagej.ops.deconvolve.accelerate.VectorAccelerator.class)
+	@OpMethod(ops = {
+		net.imagej.ops.deconvolve.accelerate.LeanVectorAccelerator.class,
+		net.imagej.ops.deconvolve.accelerate.VectorAccelerator.class })
 	public <O extends RealType<O>> RandomAccessibleInterval<O> accelerate(
 		final RandomAccessibleInterval<O> arg)
 	{
 		@SuppressWarnings("unchecked")
 		final RandomAccessibleInterval<O> result =
 			(RandomAccessibleInterval<O>) ops().run(
-				net.imagej.ops.deconvolve.accelerate.VectorAccelerator.class, arg);
+				net.imagej.ops.Ops.Deconvolve.Accelerate.class, arg);
 		return result;
 	}
 
@@ -137,15 +137,24 @@ public class NonCirculantNormalizationFactor<I extends RealType<I>, O extends Re
 	@Override
 	public void mutate(RandomAccessibleInterval<O> arg) {
 
+		// normalize for non-circulant deconvolution
+		divide.mutate1(getNormalization(), arg);
+
+	}
+
+	/**
+	 * Gets the normalization image, computing it on first use. Once computed,
+	 * the op only reads it, so one instance can normalize several
+	 * deconvolutions at once.
+	 */
+	public synchronized RandomAccessibleInterval<O> getNormalization() {
+
 		// if the normalization image hasn't been computed yet, then compute it
 		if (normalization == null) {
-			normalization = create.calculate(imgConvolutionInterval);
 			this.createNormalizationImageSemiNonCirculant();
 		}
 
-		// normalize for non-circulant deconvolution
-		divide.mutate1(normalization, arg);
-
+		return normalization;
 	}
 
 	protected void createNormalizationImageSemiNonCirculant() {
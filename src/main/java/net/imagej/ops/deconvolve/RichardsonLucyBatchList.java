@@ -0,0 +1,450 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.deconvolve;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.imagej.ops.Ops;
+import net.imagej.ops.deconvolve.accelerate.LeanVectorAccelerator;
+import net.imagej.ops.filter.fft.CreateOutputFFTMethods;
+import net.imagej.ops.filter.fft.FFTMethodsOpC;
+import net.imagej.ops.filter.fft.KernelSpectrumCache;
+import net.imagej.ops.filter.pad.PadInputFFTMethods;
+import net.imagej.ops.filter.pad.PadShiftKernelFFTMethods;
+import net.imagej.ops.special.computer.BinaryComputerOp;
+import net.imagej.ops.special.computer.Computers;
+import net.imagej.ops.special.computer.UnaryComputerOp;
+import net.imagej.ops.special.function.BinaryFunctionOp;
+import net.imagej.ops.special.function.Functions;
+import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imagej.ops.special.hybrid.AbstractBinaryHybridCF;
+import net.imagej.ops.special.hybrid.Hybrids;
+import net.imagej.ops.special.hybrid.UnaryHybridCF;
+import net.imagej.ops.special.inplace.Inplaces;
+import net.imagej.ops.special.inplace.UnaryInplaceOp;
+import net.imglib2.Dimensions;
+import net.imglib2.FinalDimensions;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.outofbounds.OutOfBoundsConstantValueFactory;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.ComplexType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.complex.ComplexFloatType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.thread.ThreadService;
+
+/**
+ * Richardson Lucy deconvolution of a batch of images with one PSF.
+ * <p>
+ * Images are grouped by extent. For each group the PSF is padded and
+ * transformed once, and in non-circulant mode the normalization factor is
+ * computed once too. The images of a group are then deconvolved concurrently
+ * by a number of workers, each of which owns its FFT buffer and Richardson
+ * Lucy work images and reuses them for every image it takes. The number of
+ * workers is bounded by the available processors and by a memory budget for
+ * the work buffers.
+ * </p>
+ * <p>
+ * Each image is deconvolved as by {@link RichardsonLucyF} with default
+ * border, out of bounds strategy and FFT type.
+ * </p>
+ * 
+ * @param <I>
+ * @param <O>
+ * @param <K>
+ * @param <C>
+ * @see RichardsonLucyBatchStack
+ */
+@Plugin(type = Ops.Deconvolve.RichardsonLucyBatch.class,
+	priority = Priority.HIGH_PRIORITY)
+public class RichardsonLucyBatchList<I extends RealType<I> & NativeType<I>, O extends RealType<O> & NativeType<O>, K extends RealType<K> & NativeType<K>, C extends ComplexType<C> & NativeType<C>>
+	extends
+	AbstractBinaryHybridCF<List<RandomAccessibleInterval<I>>, RandomAccessibleInterval<K>, List<RandomAccessibleInterval<O>>>
+	implements Ops.Deconvolve.RichardsonLucyBatch
+{
+
+	@Parameter
+	private ThreadService ts;
+
+	/**
+	 * max number of iterations
+	 */
+	@Parameter
+	private int maxIterations;
+
+	/**
+	 * indicates whether to use non-circulant edge handling
+	 */
+	@Parameter(required = false)
+	private boolean nonCirculant = false;
+
+	/**
+	 * indicates whether to use acceleration
+	 */
+	@Parameter(required = false)
+	private boolean accelerate = false;
+
+	/**
+	 * convergence tolerance (see {@link RichardsonLucyC}), zero to perform all
+	 * iterations
+	 */
+	@Parameter(required = false)
+	private double tolerance = 0;
+
+	/**
+	 * memory budget for the work buffers of all workers, in bytes; if zero, half
+	 * the maximum heap size
+	 */
+	@Parameter(required = false)
+	private long maxBytes = 0;
+
+	private UnaryFunctionOp<Dimensions, RandomAccessibleInterval<C>> createFFTOp;
+
+	private UnaryFunctionOp<Dimensions, Img<O>> createOp;
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void initialize() {
+		super.initialize();
+
+		final C fftType = (C) ops().create().nativeType(ComplexFloatType.class);
+
+		createFFTOp = (UnaryFunctionOp) Functions.unary(ops(),
+			CreateOutputFFTMethods.class, RandomAccessibleInterval.class,
+			Dimensions.class, fftType, true);
+	}
+
+	@Override
+	public List<RandomAccessibleInterval<O>> createOutput(
+		final List<RandomAccessibleInterval<I>> inputs,
+		final RandomAccessibleInterval<K> kernel)
+	{
+		final List<RandomAccessibleInterval<O>> outputs = new ArrayList<>();
+		for (final RandomAccessibleInterval<I> input : inputs) {
+			final O outType = outType(input, kernel);
+			outputs.add(ops().create().img(input, outType));
+		}
+		return outputs;
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void compute(final List<RandomAccessibleInterval<I>> inputs,
+		final RandomAccessibleInterval<K> kernel,
+		final List<RandomAccessibleInterval<O>> outputs)
+	{
+		if (inputs.size() != outputs.size()) {
+			throw new IllegalArgumentException("Got " + inputs.size() +
+				" inputs, but " + outputs.size() + " outputs");
+		}
+		if (inputs.isEmpty()) return;
+
+		createOp = (UnaryFunctionOp) Functions.unary(ops(), Ops.Create.Img.class,
+			Img.class, Dimensions.class, Util.getTypeFromInterval(outputs.get(0)));
+
+		// group the images by extent; each group shares one prepared psf
+		final Map<List<Long>, List<Integer>> groups = new LinkedHashMap<>();
+		for (int i = 0; i < inputs.size(); i++) {
+			final RandomAccessibleInterval<I> input = inputs.get(i);
+			final List<Long> extent = new ArrayList<>();
+			for (int d = 0; d < input.numDimensions(); d++) {
+				extent.add(input.min(d));
+				extent.add(input.max(d));
+			}
+			if (!groups.containsKey(extent)) groups.put(extent,
+				new ArrayList<Integer>());
+			groups.get(extent).add(i);
+		}
+
+		for (final List<Integer> group : groups.values()) {
+			new Group(inputs, kernel, outputs, group).run();
+		}
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Gets the default output type of a filter of the given input and kernel:
+	 * the input type if the kernel has the same type, {@link FloatType}
+	 * otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	static <I extends RealType<I>, K extends RealType<K>, O> O outType(
+		final RandomAccessibleInterval<I> input,
+		final RandomAccessibleInterval<K> kernel)
+	{
+		final I type = Util.getTypeFromInterval(input);
+		if (type.getClass() == Util.getTypeFromInterval(kernel).getClass()) {
+			return (O) type.createVariable();
+		}
+		return (O) new FloatType();
+	}
+
+	// -- Helper classes --
+
+	/** Images of one extent, and the psf prepared for them. */
+	private class Group {
+
+		private final List<RandomAccessibleInterval<I>> inputs;
+		private final List<RandomAccessibleInterval<O>> outputs;
+		private final List<Integer> indices;
+
+		private final RandomAccessibleInterval<K> kernel;
+		private final BinaryFunctionOp<RandomAccessibleInterval<I>, Dimensions, RandomAccessibleInterval<I>> padOp;
+		private final Dimensions paddedSize;
+		private final RandomAccessibleInterval<K> paddedKernel;
+		private final RandomAccessibleInterval<C> fftKernel;
+
+		/** Normalization shared by all workers, if non-circulant. */
+		private NonCirculantNormalizationFactor<I, O, K, C> normalizer;
+
+		/** An input, padded; also the interval of the work images. */
+		private final RandomAccessibleInterval<I> imgConvolutionInterval;
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public Group(final List<RandomAccessibleInterval<I>> inputs,
+			final RandomAccessibleInterval<K> kernel,
+			final List<RandomAccessibleInterval<O>> outputs,
+			final List<Integer> indices)
+		{
+			this.inputs = inputs;
+			this.outputs = outputs;
+			this.indices = indices;
+			this.kernel = kernel;
+
+			final RandomAccessibleInterval<I> input = inputs.get(indices.get(0));
+			final int numDimensions = input.numDimensions();
+
+			// the out of bounds factory will be different depending on wether we
+			// are using circulant or non-circulant
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obf;
+			if (!nonCirculant) {
+				obf = new OutOfBoundsMirrorFactory<>(Boundary.SINGLE);
+			}
+			else {
+				obf = new OutOfBoundsConstantValueFactory<>(Util.getTypeFromInterval(
+					input).createVariable());
+			}
+
+			padOp = (BinaryFunctionOp) Functions.binary(ops(),
+				PadInputFFTMethods.class, RandomAccessibleInterval.class,
+				RandomAccessibleInterval.class, Dimensions.class, true, obf);
+
+			final BinaryFunctionOp<RandomAccessibleInterval<K>, Dimensions, RandomAccessibleInterval<K>> padKernelOp =
+				(BinaryFunctionOp) Functions.binary(ops(),
+					PadShiftKernelFFTMethods.class, RandomAccessibleInterval.class,
+					RandomAccessibleInterval.class, Dimensions.class, true);
+
+			// extend based on kernel size
+			final long[] size = new long[numDimensions];
+			for (int d = 0; d < numDimensions; ++d) {
+				size[d] = input.dimension(d) + kernel.dimension(d) - 1;
+			}
+			paddedSize = new FinalDimensions(size);
+
+			imgConvolutionInterval = padOp.calculate(input, paddedSize);
+
+			// pad and transform the psf once for the whole group
+			paddedKernel = padKernelOp.calculate(kernel, paddedSize);
+			fftKernel = createFFTOp.calculate(paddedSize);
+
+			final UnaryComputerOp<RandomAccessibleInterval<K>, RandomAccessibleInterval<C>> fftKernelOp =
+				(UnaryComputerOp) Computers.unary(ops(), FFTMethodsOpC.class,
+					fftKernel, RandomAccessibleInterval.class);
+			KernelSpectrumCache.of(ops().getContext()).transform(
+				fftKernelOp, padKernelOp, kernel, paddedKernel, fftKernel);
+		}
+
+		/** Deconvolves the images of this group. */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public void run() {
+			final List<Worker> workers = new ArrayList<>();
+			final int numWorkers = numWorkers();
+			for (int w = 0; w < numWorkers; w++) {
+				final Worker worker = new Worker();
+
+				// compute the normalization factor once, in the first worker's
+				// (still unused) FFT buffer
+				if (nonCirculant && normalizer == null) {
+					final RandomAccessibleInterval<I> input = inputs.get(indices.get(
+						0));
+					normalizer = (NonCirculantNormalizationFactor) Inplaces.unary(
+						ops(), NonCirculantNormalizationFactor.class, outputs.get(indices
+							.get(0)), input, kernel, worker.fftInput, fftKernel,
+						imgConvolutionInterval);
+					normalizer.getNormalization();
+				}
+
+				workers.add(worker);
+			}
+			for (final Worker worker : workers) {
+				worker.initialize();
+			}
+
+			// each worker takes the next image until none is left
+			final AtomicInteger next = new AtomicInteger();
+			final List<Future<?>> futures = new ArrayList<>();
+			for (final Worker worker : workers) {
+				futures.add(ts.run(new Runnable() {
+
+					@Override
+					public void run() {
+						int j;
+						while ((j = next.getAndIncrement()) < indices.size()) {
+							worker.deconvolve(indices.get(j));
+						}
+					}
+				}));
+			}
+
+			for (final Future<?> future : futures) {
+				try {
+					future.get();
+				}
+				catch (final InterruptedException exc) {
+					throw new RuntimeException(exc);
+				}
+				catch (final ExecutionException exc) {
+					throw new RuntimeException(exc);
+				}
+			}
+		}
+
+		/**
+		 * Gets the number of workers: one per image and processor, as many as
+		 * the memory budget allows, but at least one.
+		 */
+		private int numWorkers() {
+			final long budget = maxBytes > 0 ? maxBytes : Runtime.getRuntime()
+				.maxMemory() / 2;
+
+			// fft buffer, reblurred image and estimate, copy of the observed image,
+			// and the accelerator's images
+			final long n = Intervals.numElements(imgConvolutionInterval);
+			final long bytesPerPixel = (Util.getTypeFromInterval(outputs.get(
+				indices.get(0))).getBitsPerPixel() + 7) / 8;
+			final long bytesPerWorker = 8 * Intervals.numElements(fftKernel) + n *
+				(2 * bytesPerPixel + 4 + (accelerate ? 12 : 0));
+
+			final long affordable = Math.max(1, budget / bytesPerWorker);
+			final int processors = Runtime.getRuntime().availableProcessors();
+			return (int) Math.min(affordable, Math.min(indices.size(),
+				processors));
+		}
+
+		/** Work buffers and ops of one worker, reused for each of its images. */
+		private class Worker {
+
+			private final RandomAccessibleInterval<C> fftInput;
+			private final Img<O> estimate;
+			private final UnaryHybridCF<RandomAccessibleInterval<I>, O> sum;
+			private BinaryComputerOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<K>, RandomAccessibleInterval<O>> richardsonLucy;
+
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			public Worker() {
+				fftInput = createFFTOp.calculate(paddedSize);
+
+				if (nonCirculant) {
+					estimate = createOp.calculate(imgConvolutionInterval);
+					sum = (UnaryHybridCF) Hybrids.unaryCF(ops(), Ops.Stats.Sum.class,
+						Util.getTypeFromInterval(estimate), RandomAccessibleInterval.class);
+				}
+				else {
+					estimate = null;
+					sum = null;
+				}
+			}
+
+			/**
+			 * Sets up the Richardson Lucy computer of this worker, once the
+			 * normalization factor is known.
+			 */
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			public void initialize() {
+				final RandomAccessibleInterval<O> output = outputs.get(indices.get(
+					0));
+
+				final UnaryInplaceOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>> accelerator =
+					accelerate ? (UnaryInplaceOp) Inplaces.unary(ops(),
+						LeanVectorAccelerator.class, output) : null;
+
+				ArrayList<UnaryInplaceOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>>> list =
+					null;
+				if (nonCirculant) {
+					list = new ArrayList<>();
+					list.add((UnaryInplaceOp) normalizer);
+				}
+
+				// the psf spectrum is shared, so it must not be computed again
+				richardsonLucy = (BinaryComputerOp) Computers.binary(ops(),
+					RichardsonLucyC.class, output, imgConvolutionInterval, paddedKernel,
+					fftInput, fftKernel, true, false, maxIterations,
+					imgConvolutionInterval, accelerator, null, estimate, list,
+					tolerance);
+			}
+
+			/** Deconvolves the image of the given index. */
+			public void deconvolve(final int index) {
+				final RandomAccessibleInterval<I> paddedInput = padOp.calculate(inputs
+					.get(index), paddedSize);
+
+				// the first guess of non-circulant mode is a flat sheet with total
+				// sum normalized by image area
+				if (nonCirculant) {
+					final double average = sum.calculate(paddedInput)
+						.getRealDouble() / Intervals.numElements(inputs.get(index));
+					for (final O type : estimate) {
+						type.setReal(average);
+					}
+				}
+
+				richardsonLucy.compute(paddedInput, paddedKernel, outputs.get(index));
+			}
+		}
+	}
+
+}
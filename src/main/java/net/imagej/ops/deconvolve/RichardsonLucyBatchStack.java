@@ -0,0 +1,136 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.deconvolve;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imagej.ops.Ops;
+import net.imagej.ops.special.computer.BinaryComputerOp;
+import net.imagej.ops.special.computer.Computers;
+import net.imagej.ops.special.function.AbstractBinaryFunctionOp;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.ComplexType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.view.Views;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Richardson Lucy deconvolution of each slice of a stack with one PSF, as a
+ * batch (see {@link RichardsonLucyBatchList}).
+ * 
+ * @param <I>
+ * @param <O>
+ * @param <K>
+ * @param <C>
+ */
+@Plugin(type = Ops.Deconvolve.RichardsonLucyBatch.class,
+	priority = Priority.HIGH_PRIORITY)
+public class RichardsonLucyBatchStack<I extends RealType<I> & NativeType<I>, O extends RealType<O> & NativeType<O>, K extends RealType<K> & NativeType<K>, C extends ComplexType<C> & NativeType<C>>
+	extends
+	AbstractBinaryFunctionOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<K>, RandomAccessibleInterval<O>>
+	implements Ops.Deconvolve.RichardsonLucyBatch
+{
+
+	/**
+	 * the stack axis; the kernel has one dimension less than the stack
+	 */
+	@Parameter
+	private int axis;
+
+	/**
+	 * max number of iterations
+	 */
+	@Parameter
+	private int maxIterations;
+
+	/**
+	 * indicates whether to use non-circulant edge handling
+	 */
+	@Parameter(required = false)
+	private boolean nonCirculant = false;
+
+	/**
+	 * indicates whether to use acceleration
+	 */
+	@Parameter(required = false)
+	private boolean accelerate = false;
+
+	/**
+	 * convergence tolerance (see {@link RichardsonLucyC}), zero to perform all
+	 * iterations
+	 */
+	@Parameter(required = false)
+	private double tolerance = 0;
+
+	/**
+	 * memory budget for the work buffers of all workers, in bytes; if zero, half
+	 * the maximum heap size
+	 */
+	@Parameter(required = false)
+	private long maxBytes = 0;
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public RandomAccessibleInterval<O> calculate(
+		final RandomAccessibleInterval<I> stack,
+		final RandomAccessibleInterval<K> kernel)
+	{
+		if (kernel.numDimensions() != stack.numDimensions() - 1) {
+			throw new IllegalArgumentException("Kernel must have " + (stack
+				.numDimensions() - 1) + " dimensions");
+		}
+
+		final O outType = RichardsonLucyBatchList.outType(stack, kernel);
+		final RandomAccessibleInterval<O> output = ops().create().img(stack,
+			outType);
+
+		final List<RandomAccessibleInterval<I>> inputs = new ArrayList<>();
+		final List<RandomAccessibleInterval<O>> outputs = new ArrayList<>();
+		for (long i = stack.min(axis); i <= stack.max(axis); i++) {
+			inputs.add(Views.hyperSlice(stack, axis, i));
+			outputs.add(Views.hyperSlice(output, axis, i));
+		}
+
+		final BinaryComputerOp<List<RandomAccessibleInterval<I>>, RandomAccessibleInterval<K>, List<RandomAccessibleInterval<O>>> batch =
+			(BinaryComputerOp) Computers.binary(ops(), RichardsonLucyBatchList.class,
+				outputs, inputs, kernel, maxIterations, nonCirculant, accelerate,
+				tolerance, maxBytes);
+		batch.compute(inputs, kernel, outputs);
+
+		return output;
+	}
+
+}
@@ -30,12 +30,13 @@
 package net.imagej.ops.deconvolve;
 
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
 
 import net.imagej.ops.Ops;
+import net.imagej.ops.deconvolve.accelerate.LeanVectorAccelerator;
 import net.imagej.ops.filter.AbstractIterativeFFTFilterC;
-import net.imagej.ops.filter.convolve.ConvolveFFTC;
 import net.imagej.ops.filter.fft.FFTMethodsOpC;
-import net.imagej.ops.special.computer.BinaryComputerOp;
+import net.imagej.ops.filter.fft.KernelSpectrumCache;
 import net.imagej.ops.special.computer.Computers;
 import net.imagej.ops.special.computer.UnaryComputerOp;
 import net.imagej.ops.special.function.Functions;
@@ -43,6 +44,7 @@ import net.imagej.ops.special.function.UnaryFunctionOp;
 import net.imagej.ops.special.hybrid.Hybrids;
 import net.imagej.ops.special.hybrid.UnaryHybridCF;
 import net.imagej.ops.special.inplace.UnaryInplaceOp;
+import net.imglib2.Cursor;
 import net.imglib2.Dimensions;
 import net.imglib2.FinalInterval;
 import net.imglib2.Interval;
@@ -50,6 +52,8 @@ import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.Img;
 import net.imglib2.type.numeric.ComplexType;
 import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
 import net.imglib2.util.Util;
 import net.imglib2.view.IntervalView;
 import net.imglib2.view.Views;
@@ -57,11 +61,19 @@ import net.imglib2.view.Views;
 import org.scijava.Priority;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.thread.ThreadService;
 
 /**
  * Richardson Lucy algorithm for (@link RandomAccessibleInterval) (Lucy, L. B.
  * (1974).
  * "An iterative technique for the rectification of observed distributions".)
+ * <p>
+ * Each iteration reblurs the estimate, divides the observed image by it,
+ * correlates the ratio with the PSF and multiplies the estimate by the result.
+ * The steps run as fused parallel passes (see {@link RichardsonLucyPasses}),
+ * with inverse FFTs computed in place; the work images are allocated once per
+ * op instance and reused across calls.
+ * </p>
  * 
  * @author Brian Northan
  * @param <I>
@@ -77,6 +89,9 @@ public class RichardsonLucyC<I extends RealType<I>, O extends RealType<O>, K ext
 	Ops.Deconvolve.RichardsonLucy
 {
 
+	@Parameter
+	private ThreadService ts;
+
 	/**
 	 * Op that computes Richardson Lucy update, can be overridden to implement
 	 * variations of the algorithm (like RichardsonLucyTV)
@@ -102,36 +117,39 @@ public class RichardsonLucyC<I extends RealType<I>, O extends RealType<O>, K ext
 	private ArrayList<UnaryInplaceOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>>> iterativePostProcessingOps =
 		null;
 
-	private BinaryComputerOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<O>, RandomAccessibleInterval<O>> rlCorrectionOp;
+	/**
+	 * Convergence tolerance: iterating stops early once an iteration decreases
+	 * the I-divergence between the observed and the reblurred image by less
+	 * than this fraction. If zero (the default), all iterations are performed.
+	 */
+	@Parameter(required = false)
+	private double tolerance = 0;
 
 	private UnaryFunctionOp<Interval, Img<O>> createOp;
 
 	private UnaryComputerOp<RandomAccessibleInterval<K>, RandomAccessibleInterval<C>> fftKernelOp;
 
-	private BinaryComputerOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<K>, RandomAccessibleInterval<O>> convolverOp;
-
 	private UnaryComputerOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<O>> copyOp;
 
 	private UnaryComputerOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>> copy2Op;
 
-	private RandomAccessibleInterval<O> raiExtendedReblurred;
+	/** Reblurred estimate, and then correction factor; reused across calls. */
+	private Img<O> raiExtendedReblurred;
+
+	/** Estimate, if none was passed in; reused across calls. */
+	private Img<O> estimateBuffer;
+
+	/** Copy of the observed image, for the float fast path. */
+	private float[] observedFloats;
+
+	/** Number of iterations performed by the last call. */
+	private int iterations;
 
 	@Override
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public void initialize() {
 		super.initialize();
 
-		if (updateOp == null) {
-			updateOp = (UnaryComputerOp) Computers.unary(ops(),
-				RichardsonLucyUpdate.class, RandomAccessibleInterval.class,
-				RandomAccessibleInterval.class);
-		}
-
-		rlCorrectionOp = (BinaryComputerOp) Computers.binary(ops(),
-			RichardsonLucyCorrection.class, RandomAccessibleInterval.class,
-			RandomAccessibleInterval.class, RandomAccessibleInterval.class,
-			getFFTInput(), getFFTKernel());
-
 		fftKernelOp = (UnaryComputerOp) Computers.unary(ops(), FFTMethodsOpC.class,
 			getFFTKernel(), RandomAccessibleInterval.class);
 
@@ -144,62 +162,101 @@ public class RichardsonLucyC<I extends RealType<I>, O extends RealType<O>, K ext
 		createOp = (UnaryFunctionOp) Functions.unary(ops(), Ops.Create.Img.class,
 			Img.class, Dimensions.class, Util.getTypeFromInterval(out()));
 
-		convolverOp = (BinaryComputerOp) Computers.binary(ops(), ConvolveFFTC.class,
-			RandomAccessibleInterval.class, RandomAccessibleInterval.class,
-			RandomAccessibleInterval.class, this.getFFTInput(), this.getFFTKernel(),
-			true, false);
-
 	}
 
 	@Override
 	public void compute(RandomAccessibleInterval<I> in,
 		RandomAccessibleInterval<K> kernel, RandomAccessibleInterval<O> out)
 	{
-		// if a starting point for the estimate was not passed in then create
-		// estimate Img and use the input as the starting point
-		if (raiExtendedEstimate == null) {
+		final ExecutorService es = ts.getExecutorService();
 
-			raiExtendedEstimate = createOp.calculate(getImgConvolutionInterval());
+		// if a starting point for the estimate was not passed in then use the
+		// input as the starting point
+		final RandomAccessibleInterval<O> estimate;
+		if (raiExtendedEstimate != null) {
+			estimate = raiExtendedEstimate;
+		}
+		else {
+			estimateBuffer = reuse(estimateBuffer);
+			copyOp.compute(in, estimateBuffer);
+			estimate = estimateBuffer;
+		}
 
-			copyOp.compute(in, raiExtendedEstimate);
+		// image for the reblurred estimate and the correction factor
+		raiExtendedReblurred = reuse(raiExtendedReblurred);
+		final Img<O> reblurred = raiExtendedReblurred;
+
+		// copy the observed image once for the float fast path of the divide
+		final float[] observed = observedFloats(in, reblurred);
+
+		// perform fft of psf, reusing the spectrum of an equal psf
+		if (getPerformKernelFFT()) {
+			KernelSpectrumCache.of(ops().getContext()).transform(
+				fftKernelOp, kernel, getFFTKernel());
 		}
 
-		// create image for the reblurred
-		raiExtendedReblurred = createOp.calculate(getImgConvolutionInterval());
+		// if the update is plain multiplication, fuse it too
+		final boolean fusedUpdate = updateOp == null ||
+			updateOp instanceof RichardsonLucyUpdate;
+
+		// start a new acceleration sequence
+		if (getAccelerator() instanceof LeanVectorAccelerator) {
+			((LeanVectorAccelerator<?>) getAccelerator()).reset();
+		}
 
-		// perform fft of psf
-		fftKernelOp.compute(kernel, getFFTKernel());
+		double divergence = Double.NaN;
 
 		// -- perform iterations --
 
-		for (int i = 0; i < getMaxIterations(); i++) {
+		for (iterations = 0; iterations < getMaxIterations(); iterations++) {
 
 			if (status != null) {
-				status.showProgress(i, getMaxIterations());
+				status.showProgress(iterations, getMaxIterations());
 			}
 
 			// create reblurred by convolving kernel with estimate
-			// NOTE: the FFT of the PSF of the kernel has been passed in as a
-			// parameter. when the op was set up, and computed above, so we can use
-			// compute
-			convolverOp.compute(raiExtendedEstimate, this.raiExtendedReblurred);
+			// NOTE: the FFT of the PSF of the kernel has been computed above
+			RichardsonLucyPasses.forward(es, estimate, getFFTInput());
+			RichardsonLucyPasses.multiply(ops(), getFFTInput(), getFFTKernel(),
+				false);
+			RichardsonLucyPasses.inverse(es, getFFTInput(), reblurred);
+
+			// divide observed by reblurred, measuring how well the estimate fits
+			final double previousDivergence = divergence;
+			divergence = RichardsonLucyPasses.divide(ops(), in, observed, reblurred,
+				tolerance > 0);
+
+			// stop once the last iteration did not pay off
+			if (tolerance > 0 && previousDivergence - divergence < tolerance *
+				previousDivergence)
+			{
+				break;
+			}
 
-			// compute correction factor
-			rlCorrectionOp.compute(in, raiExtendedReblurred, raiExtendedReblurred);
+			// compute correction factor by correlating the ratio with the psf
+			RichardsonLucyPasses.forward(es, reblurred, getFFTInput());
+			RichardsonLucyPasses.multiply(ops(), getFFTInput(), getFFTKernel(),
+				true);
+			RichardsonLucyPasses.inverse(es, getFFTInput(), reblurred);
 
 			// perform update to calculate new estimate
-			updateOp.compute(raiExtendedReblurred, raiExtendedEstimate);
+			if (fusedUpdate) {
+				RichardsonLucyPasses.update(ops(), reblurred, estimate);
+			}
+			else {
+				updateOp.compute(reblurred, estimate);
+			}
 
 			// apply post processing
 			if (iterativePostProcessingOps != null) {
 				for (UnaryInplaceOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>> pp : iterativePostProcessingOps) {
-					pp.mutate(raiExtendedEstimate);
+					pp.mutate(estimate);
 				}
 			}
 
 			// accelerate the algorithm by taking a larger step
 			if (getAccelerator() != null) {
-				getAccelerator().mutate(raiExtendedEstimate);
+				getAccelerator().mutate(estimate);
 			}
 		}
 
@@ -213,8 +270,45 @@ public class RichardsonLucyC<I extends RealType<I>, O extends RealType<O>, K ext
 			end[d] = start[d] + out.dimension(d) - 1;
 		}
 
-		copy2Op.compute(Views.interval(raiExtendedEstimate, new FinalInterval(start,
-			end)), out);
+		copy2Op.compute(Views.interval(estimate, new FinalInterval(start, end)),
+			out);
+	}
+
+	/** Gets the number of iterations performed by the last call. */
+	public int getIterations() {
+		return iterations;
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Gets the given work image if it still fits the convolution interval, or a
+	 * new one.
+	 */
+	private Img<O> reuse(final Img<O> image) {
+		if (image != null && Intervals.equalDimensions(image,
+			getImgConvolutionInterval())) return image;
+		return createOp.calculate(getImgConvolutionInterval());
+	}
+
+	/**
+	 * Copies the observed image into a reused float array, if the reblurred
+	 * image is backed by one; otherwise returns null.
+	 */
+	private float[] observedFloats(final RandomAccessibleInterval<I> in,
+		final Img<O> reblurred)
+	{
+		final float[] target = RichardsonLucyPasses.floats(reblurred,
+			FloatType.class);
+		if (target == null) return null;
+		if (observedFloats == null || observedFloats.length != target.length) {
+			observedFloats = new float[target.length];
+		}
+		final Cursor<I> c = Views.flatIterable(in).cursor();
+		for (int i = 0; c.hasNext(); i++) {
+			observedFloats[i] = c.next().getRealFloat();
+		}
+		return observedFloats;
 	}
 
 }
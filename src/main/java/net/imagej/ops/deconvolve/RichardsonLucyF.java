@@ -33,7 +33,7 @@ import java.util.ArrayList;
 
 import net.imagej.ops.OpService;
 import net.imagej.ops.Ops;
-import net.imagej.ops.deconvolve.accelerate.VectorAccelerator;
+import net.imagej.ops.deconvolve.accelerate.LeanVectorAccelerator;
 import net.imagej.ops.filter.AbstractFFTFilterF;
 import net.imagej.ops.special.computer.BinaryComputerOp;
 import net.imagej.ops.special.computer.Computers;
@@ -95,6 +95,13 @@ public class RichardsonLucyF<I extends RealType<I> & NativeType<I>, O extends Re
 	@Parameter(required = false)
 	private boolean accelerate = false;
 
+	/**
+	 * convergence tolerance: iterating stops once an iteration decreases the
+	 * I-divergence by less than this fraction (zero to perform all iterations)
+	 */
+	@Parameter(required = false)
+	private double tolerance = 0;
+
 	private UnaryComputerOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>> computeEstimateOp;
 
 	private UnaryInplaceOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>> normalizer;
@@ -139,7 +146,7 @@ public class RichardsonLucyF<I extends RealType<I> & NativeType<I>, O extends Re
 		if (accelerate == true) {
 			accelerator =
 				(UnaryInplaceOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>>) Inplaces
-					.unary(ops(), VectorAccelerator.class, output);
+					.unary(ops(), LeanVectorAccelerator.class, output);
 		}
 
 		// if non-circulant mode, set up the richardson-lucy computer in
@@ -165,13 +172,14 @@ public class RichardsonLucyF<I extends RealType<I> & NativeType<I>, O extends Re
 			return Computers.binary(ops(), RichardsonLucyC.class, output,
 				raiExtendedInput, raiExtendedKernel, fftImg, fftKernel, true, true,
 				maxIterations, imgConvolutionInterval, accelerator, computeEstimateOp,
-				fg.calculate(raiExtendedInput), list);
+				fg.calculate(raiExtendedInput), list, tolerance);
 		}
 
 		// return a richardson lucy computer
 		return Computers.binary(ops(), RichardsonLucyC.class, output,
 			raiExtendedInput, raiExtendedKernel, fftImg, fftKernel, true, true,
-			maxIterations, imgConvolutionInterval, accelerator, computeEstimateOp);
+			maxIterations, imgConvolutionInterval, accelerator, computeEstimateOp,
+			null, null, tolerance);
 	}
 
 	/**
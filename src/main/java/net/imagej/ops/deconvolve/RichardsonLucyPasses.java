@@ -0,0 +1,247 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.deconvolve;
+
+import java.util.concurrent.ExecutorService;
+
+import net.imagej.ops.OpEnvironment;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.fft2.FFTMethods;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.type.numeric.ComplexType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.complex.ComplexFloatType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+/**
+ * Fused, parallel passes of the Richardson-Lucy iteration, each with a fast
+ * path for {@link FloatType} and {@link ComplexFloatType} images backed by
+ * float arrays. All images are traversed in flat iteration order.
+ *
+ * @see RichardsonLucyC
+ */
+final class RichardsonLucyPasses {
+
+	private RichardsonLucyPasses() {
+		// NB: Prevent instantiation of utility class.
+	}
+
+	/**
+	 * Gets the float array backing the given image, or null if it is not an
+	 * {@link ArrayImg} of the given type backed by one.
+	 */
+	static float[] floats(final RandomAccessibleInterval<?> image,
+		final Class<?> type)
+	{
+		if (!(image instanceof ArrayImg)) return null;
+		if (Util.getTypeFromInterval(image).getClass() != type) return null;
+		final Object access = ((ArrayImg<?, ?>) image).update(null);
+		if (!(access instanceof FloatArray)) return null;
+		return ((FloatArray) access).getCurrentStorageArray();
+	}
+
+	/** Computes the forward FFT of the given input. */
+	static <R extends RealType<R>, C extends ComplexType<C>> void forward(
+		final ExecutorService es, final RandomAccessibleInterval<R> input,
+		final RandomAccessibleInterval<C> spectrum)
+	{
+		FFTMethods.realToComplex(input, spectrum, 0, false, es);
+		for (int d = 1; d < spectrum.numDimensions(); d++) {
+			FFTMethods.complexToComplex(spectrum, d, true, false, es);
+		}
+	}
+
+	/**
+	 * Computes the inverse FFT of the given spectrum, in place; the spectrum is
+	 * destroyed.
+	 */
+	static <C extends ComplexType<C>, R extends RealType<R>> void inverse(
+		final ExecutorService es, final RandomAccessibleInterval<C> spectrum,
+		final RandomAccessibleInterval<R> output)
+	{
+		for (int d = spectrum.numDimensions() - 1; d > 0; d--) {
+			FFTMethods.complexToComplex(spectrum, d, false, true, es);
+		}
+		FFTMethods.complexToReal(spectrum, output, FFTMethods
+			.unpaddingIntervalCentered(spectrum, output), 0, true, es);
+	}
+
+	/**
+	 * Multiplies the first spectrum by the second, or by its complex conjugate.
+	 */
+	static <C extends ComplexType<C>> void multiply(final OpEnvironment ops,
+		final RandomAccessibleInterval<C> a, final RandomAccessibleInterval<C> b,
+		final boolean conjugate)
+	{
+		final float[] fa = floats(a, ComplexFloatType.class);
+		final float[] fb = floats(b, ComplexFloatType.class);
+		final float sign = conjugate ? -1 : 1;
+		ops.run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				if (fa != null && fb != null) {
+					for (int s = 0, i = 2 * startIndex; s < numSteps; s++, i += 2 *
+						stepSize)
+					{
+						final float re = fa[i];
+						final float im = fa[i + 1];
+						final float bre = fb[i];
+						final float bim = sign * fb[i + 1];
+						fa[i] = re * bre - im * bim;
+						fa[i + 1] = re * bim + im * bre;
+					}
+					return;
+				}
+				final Cursor<C> ca = Views.flatIterable(a).cursor();
+				final Cursor<C> cb = Views.flatIterable(b).cursor();
+				final C tmp = Util.getTypeFromInterval(b).createVariable();
+				for (int s = 0; s < numSteps; s++) {
+					ca.jumpFwd(s == 0 ? startIndex + 1 : stepSize);
+					cb.jumpFwd(s == 0 ? startIndex + 1 : stepSize);
+					tmp.set(cb.get());
+					if (conjugate) tmp.complexConjugate();
+					ca.get().mul(tmp);
+				}
+			}
+		}, Intervals.numElements(a));
+	}
+
+	/**
+	 * Divides the observed image by the reblurred one, in place: the ratio
+	 * where the reblurred image is positive, zero elsewhere.
+	 *
+	 * @param observedFloats copy of the observed image, or null if the reblurred
+	 *          image is not backed by a float array
+	 * @param computeDivergence whether to compute the I-divergence
+	 * @return the I-divergence between the observed and the reblurred image,
+	 *         over the points where the latter is positive; or zero if not
+	 *         requested
+	 */
+	static <I extends RealType<I>, O extends RealType<O>> double divide(
+		final OpEnvironment ops, final RandomAccessibleInterval<I> observed,
+		final float[] observedFloats, final RandomAccessibleInterval<O> reblurred,
+		final boolean computeDivergence)
+	{
+		final float[] fr = observedFloats == null ? null : floats(reblurred,
+			FloatType.class);
+		final double[] sum = new double[1];
+		ops.run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				double local = 0;
+				if (fr != null) {
+					for (int s = 0, i = startIndex; s < numSteps; s++, i += stepSize) {
+						final float r = fr[i];
+						fr[i] = r > 0 ? observedFloats[i] / r : 0;
+						if (computeDivergence && r > 0) {
+							local += divergence(observedFloats[i], fr[i], r);
+						}
+					}
+				}
+				else {
+					final Cursor<I> co = Views.flatIterable(observed).cursor();
+					final Cursor<O> cr = Views.flatIterable(reblurred).cursor();
+					for (int s = 0; s < numSteps; s++) {
+						co.jumpFwd(s == 0 ? startIndex + 1 : stepSize);
+						cr.jumpFwd(s == 0 ? startIndex + 1 : stepSize);
+						final double r = cr.get().getRealDouble();
+						final double o = co.get().getRealDouble();
+						cr.get().setReal(r > 0 ? o / r : 0);
+						if (computeDivergence && r > 0) local += divergence(o, o / r, r);
+					}
+				}
+				if (computeDivergence) {
+					synchronized (sum) {
+						sum[0] += local;
+					}
+				}
+			}
+		}, Intervals.numElements(reblurred));
+		return sum[0];
+	}
+
+	/** Multiplies the estimate by the correction factor, in place. */
+	static <O extends RealType<O>> void update(final OpEnvironment ops,
+		final RandomAccessibleInterval<O> correction,
+		final RandomAccessibleInterval<O> estimate)
+	{
+		final float[] fc = floats(correction, FloatType.class);
+		final float[] fe = floats(estimate, FloatType.class);
+		ops.run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				if (fc != null && fe != null) {
+					for (int s = 0, i = startIndex; s < numSteps; s++, i += stepSize) {
+						fe[i] *= fc[i];
+					}
+					return;
+				}
+				final Cursor<O> cc = Views.flatIterable(correction).cursor();
+				final Cursor<O> ce = Views.flatIterable(estimate).cursor();
+				for (int s = 0; s < numSteps; s++) {
+					cc.jumpFwd(s == 0 ? startIndex + 1 : stepSize);
+					ce.jumpFwd(s == 0 ? startIndex + 1 : stepSize);
+					ce.get().mul(cc.get());
+				}
+			}
+		}, Intervals.numElements(estimate));
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Gets the I-divergence term of an observed and a (positive) reblurred
+	 * value, given their ratio.
+	 */
+	private static double divergence(final double observed, final double ratio,
+		final double reblurred)
+	{
+		final double log = observed > 0 ? observed * Math.log(ratio) : 0;
+		return log - observed + reblurred;
+	}
+
+}
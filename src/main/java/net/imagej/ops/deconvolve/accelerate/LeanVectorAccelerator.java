@@ -0,0 +1,212 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.deconvolve.accelerate;
+
+import net.imagej.ops.Ops;
+import net.imagej.ops.special.inplace.AbstractUnaryInplaceOp;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Memory-lean variant of the {@link VectorAccelerator} (Biggs and Andrews,
+ * Applied Optics, Vol. 36, Issue 8, pp. 1766-1775 (1997)).
+ * <p>
+ * Takes the same steps, but keeps only the three images the scheme needs
+ * between iterations (previous estimate, previous prediction and previous
+ * change vector), stored as {@link FloatType}, and allocates nothing after
+ * the first call. The acceleration factor and the new prediction are each
+ * computed in a single parallel pass; the change vectors are computed on the
+ * fly.
+ * </p>
+ * 
+ * @param <T>
+ */
+@Plugin(type = Ops.Deconvolve.Accelerate.class,
+	priority = Priority.HIGH_PRIORITY)
+public class LeanVectorAccelerator<T extends RealType<T>> extends
+	AbstractUnaryInplaceOp<RandomAccessibleInterval<T>> implements
+	Ops.Deconvolve.Accelerate
+{
+
+	/** Estimate of the previous iteration. */
+	private Img<FloatType> previous;
+
+	/** Prediction of the previous iteration. */
+	private Img<FloatType> prediction;
+
+	/** Change vector of the previous iteration. */
+	private Img<FloatType> change;
+
+	/** Whether {@link #change} holds the previous change vector. */
+	private boolean hasChange;
+
+	private double accelerationFactor;
+
+	@Override
+	public void mutate(final RandomAccessibleInterval<T> yk_iterated) {
+		if (prediction != null && !Intervals.equalDimensions(prediction,
+			yk_iterated))
+		{
+			reset();
+		}
+
+		// use the iterated prediction and the previous prediction to calculate
+		// the acceleration factor
+		if (prediction != null) {
+			accelerationFactor = computeAccelerationFactor(yk_iterated);
+
+			if (accelerationFactor < 0) {
+				hasChange = false;
+				accelerationFactor = 0.0;
+			}
+
+			if (accelerationFactor > 1.0) {
+				accelerationFactor = 1.0;
+			}
+		}
+		else {
+			previous = ops().create().img(yk_iterated, new FloatType());
+			prediction = ops().create().img(yk_iterated, new FloatType());
+			change = ops().create().img(yk_iterated, new FloatType());
+		}
+
+		predict(yk_iterated, (float) accelerationFactor);
+	}
+
+	/**
+	 * Forgets the state of previous iterations, so that the next call starts a
+	 * new acceleration sequence.
+	 */
+	public void reset() {
+		previous = null;
+		prediction = null;
+		change = null;
+		hasChange = false;
+		accelerationFactor = 0.0;
+	}
+
+	/** Gets the acceleration factor of the last step. */
+	public double getAccelerationFactor() {
+		return accelerationFactor;
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Computes the change vector between the iterated and the predicted
+	 * estimate, its dot products with the previous change vector, and stores it
+	 * as the new previous change vector; all in one pass.
+	 */
+	private double computeAccelerationFactor(
+		final RandomAccessibleInterval<T> yk_iterated)
+	{
+		final boolean dot = hasChange;
+		final double[] sums = new double[2];
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final Cursor<T> cx = Views.flatIterable(yk_iterated).cursor();
+				final Cursor<FloatType> cy = Views.flatIterable(prediction).cursor();
+				final Cursor<FloatType> cg = Views.flatIterable(change).cursor();
+				double numerator = 0;
+				double denominator = 0;
+				for (int s = 0; s < numSteps; s++) {
+					final int step = s == 0 ? startIndex + 1 : stepSize;
+					cx.jumpFwd(step);
+					cy.jumpFwd(step);
+					cg.jumpFwd(step);
+					final float gk = cx.get().getRealFloat() - cy.get().get();
+					if (dot) {
+						final float gkm1 = cg.get().get();
+						numerator += gk * gkm1;
+						denominator += gkm1 * gkm1;
+					}
+					cg.get().set(gk);
+				}
+				synchronized (sums) {
+					sums[0] += numerator;
+					sums[1] += denominator;
+				}
+			}
+		}, Intervals.numElements(yk_iterated));
+
+		hasChange = true;
+		return dot ? sums[0] / sums[1] : 0.0;
+	}
+
+	/**
+	 * Makes the next prediction from the current and the previous estimate,
+	 * stores the estimate and the prediction for the next call, and writes the
+	 * prediction back into the estimate; all in one pass.
+	 */
+	private void predict(final RandomAccessibleInterval<T> yk_iterated,
+		final float a)
+	{
+		final boolean step = a > 0;
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final Cursor<T> cx = Views.flatIterable(yk_iterated).cursor();
+				final Cursor<FloatType> cp = Views.flatIterable(previous).cursor();
+				final Cursor<FloatType> cy = Views.flatIterable(prediction).cursor();
+				for (int s = 0; s < numSteps; s++) {
+					final int jump = s == 0 ? startIndex + 1 : stepSize;
+					cx.jumpFwd(jump);
+					cp.jumpFwd(jump);
+					cy.jumpFwd(jump);
+					final float xk = cx.get().getRealFloat();
+					final float yk = step ? Math.max(xk + a * (xk - cp.get().get()),
+						0.0001f) : xk;
+					cp.get().set(xk);
+					cy.get().set(yk);
+					cx.get().setReal(yk);
+				}
+			}
+		}, Intervals.numElements(yk_iterated));
+	}
+
+}
@@ -101,7 +101,6 @@ public class VectorAccelerator<T extends RealType<T> & NativeType<T>> extends
 
 			yk_prediction = create.calculate(dims);
 			xkm1_previous = create.calculate(dims);
-			yk_prediction = create.calculate(dims);
 			gk = create.calculate(dims);
 			hk_vector = create.calculate(dims);
 
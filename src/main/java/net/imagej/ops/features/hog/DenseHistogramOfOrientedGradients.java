@@ -0,0 +1,197 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.features.hog;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.special.function.AbstractUnaryFunctionOp;
+import net.imagej.ops.special.function.Functions;
+import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Calculates the histogram of oriented gradients descriptors of a whole grid
+ * of detection windows at once, as proposed by Dalal and Triggs.
+ * <p>
+ * Each window of {@code windowWidth x windowHeight} cells of
+ * {@code cellSize x cellSize} pixels is described by its overlapping blocks of
+ * {@code blockSize x blockSize} cells, with a stride of one cell. The
+ * histograms of the cells of a block are concatenated and L2 normalized, and
+ * the blocks of a window are concatenated row by row into its descriptor. The
+ * windows are placed every {@code stride} pixels, by default every cell.
+ * </p>
+ * <p>
+ * The output is 3D: the descriptor of the window at position {@code (x, y)}
+ * of the grid lies along the last dimension. All cell histograms are read
+ * from an {@link IntegralOrientationHistogram}, so each costs
+ * {@code O(numOrientations)} for any window position and cell size.
+ * </p>
+ */
+@Plugin(type = Ops.HoG.DenseHistogramOfOrientedGradients.class)
+public class DenseHistogramOfOrientedGradients<T extends RealType<T>> extends
+	AbstractUnaryFunctionOp<RandomAccessibleInterval<T>, RandomAccessibleInterval<FloatType>>
+	implements Ops.HoG.DenseHistogramOfOrientedGradients, Contingent
+{
+
+	/** Keeps the normalization of blocks without gradients finite. */
+	private static final double EPSILON = 1e-3;
+
+	@Parameter(required = true)
+	private int numOrientations;
+
+	@Parameter(required = true)
+	private int cellSize;
+
+	@Parameter(required = true)
+	private int blockSize;
+
+	@Parameter(required = true)
+	private int windowWidth;
+
+	@Parameter(required = true)
+	private int windowHeight;
+
+	@Parameter(required = false)
+	private int stride;
+
+	@SuppressWarnings("rawtypes")
+	private UnaryFunctionOp<RandomAccessibleInterval<T>, RandomAccessibleInterval> integralHistogramOp;
+
+	@Override
+	public void initialize() {
+		integralHistogramOp = Functions.unary(ops(),
+			Ops.HoG.IntegralOrientationHistogram.class,
+			RandomAccessibleInterval.class, in(), numOrientations);
+	}
+
+	@Override
+	public boolean conforms() {
+		if (in().numDimensions() != 2 && in().numDimensions() != 3) return false;
+		return numOrientations > 0 && cellSize > 0 && blockSize > 0 &&
+			stride >= 0 && windowWidth >= blockSize && windowHeight >= blockSize &&
+			in().dimension(0) >= (long) windowWidth * cellSize && in().dimension(
+				1) >= (long) windowHeight * cellSize;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public RandomAccessibleInterval<FloatType> calculate(
+		final RandomAccessibleInterval<T> input)
+	{
+		final RandomAccessibleInterval<DoubleType> integral = integralHistogramOp
+			.calculate(input);
+
+		final long step = stride > 0 ? stride : cellSize;
+		final long numWindowsX = (input.dimension(0) - (long) windowWidth *
+			cellSize) / step + 1;
+		final long numWindowsY = (input.dimension(1) - (long) windowHeight *
+			cellSize) / step + 1;
+		final int blocksX = windowWidth - blockSize + 1;
+		final int blocksY = windowHeight - blockSize + 1;
+		final int blockLength = blockSize * blockSize * numOrientations;
+
+		final RandomAccessibleInterval<FloatType> output = ops().create().img(
+			new FinalInterval(numWindowsX, numWindowsY, (long) blocksX * blocksY *
+				blockLength), new FloatType());
+
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final RandomAccess<DoubleType> integralRA = integral.randomAccess();
+				final RandomAccess<FloatType> outRA = output.randomAccess();
+				final double[] histogram = new double[numOrientations];
+				final double[] cells = new double[windowWidth * windowHeight *
+					numOrientations];
+				final double[] block = new double[blockLength];
+
+				for (int s = 0; s < numSteps; s++) {
+					final long w = startIndex + (long) s * stepSize;
+					final long originX = (w % numWindowsX) * step;
+					final long originY = (w / numWindowsX) * step;
+
+					// histograms of all cells of the window
+					for (int cy = 0, i = 0; cy < windowHeight; cy++) {
+						for (int cx = 0; cx < windowWidth; cx++) {
+							final long x = originX + (long) cx * cellSize;
+							final long y = originY + (long) cy * cellSize;
+							IntegralHistograms.histogram(integralRA, integral, x, y, x +
+								cellSize - 1, y + cellSize - 1, histogram);
+							System.arraycopy(histogram, 0, cells, i, numOrientations);
+							i += numOrientations;
+						}
+					}
+
+					// normalized blocks, row by row
+					outRA.setPosition(w % numWindowsX, 0);
+					outRA.setPosition(w / numWindowsX, 1);
+					outRA.setPosition(0, 2);
+					for (int by = 0; by < blocksY; by++) {
+						for (int bx = 0; bx < blocksX; bx++) {
+							double sumOfSquares = 0;
+							for (int cy = 0, i = 0; cy < blockSize; cy++) {
+								for (int cx = 0; cx < blockSize; cx++) {
+									final int offset = ((by + cy) * windowWidth + bx + cx) *
+										numOrientations;
+									for (int b = 0; b < numOrientations; b++) {
+										final double v = cells[offset + b];
+										block[i++] = v;
+										sumOfSquares += v * v;
+									}
+								}
+							}
+							final double norm = Math.sqrt(sumOfSquares + EPSILON * EPSILON);
+							for (int i = 0; i < blockLength; i++) {
+								outRA.get().setReal(block[i] / norm);
+								outRA.fwd(2);
+							}
+						}
+					}
+				}
+			}
+		}, numWindowsX * numWindowsY);
+
+		return output;
+	}
+
+}
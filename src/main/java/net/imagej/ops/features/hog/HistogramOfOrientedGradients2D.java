@@ -36,26 +36,21 @@ import java.util.concurrent.ExecutorService;
 import net.imagej.ops.Contingent;
 import net.imagej.ops.Ops;
 import net.imagej.ops.create.img.CreateImgFromDimsAndType;
+import net.imagej.ops.filter.gradient.DefaultGradient;
 import net.imagej.ops.special.function.Functions;
 import net.imagej.ops.special.function.UnaryFunctionOp;
 import net.imagej.ops.special.hybrid.AbstractUnaryHybridCF;
-import net.imagej.ops.thread.chunker.CursorBasedChunk;
 import net.imglib2.Cursor;
 import net.imglib2.FinalInterval;
 import net.imglib2.RandomAccess;
-import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
-import net.imglib2.algorithm.gradient.PartialDerivative;
 import net.imglib2.algorithm.neighborhood.Neighborhood;
 import net.imglib2.algorithm.neighborhood.RectangleShape;
 import net.imglib2.algorithm.neighborhood.RectangleShape.NeighborhoodsAccessible;
-import net.imglib2.converter.Converter;
-import net.imglib2.converter.Converters;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.util.Intervals;
 import net.imglib2.view.Views;
-import net.imglib2.view.composite.GenericComposite;
 
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
@@ -90,11 +85,7 @@ public class HistogramOfOrientedGradients2D<T extends RealType<T>>
 	private UnaryFunctionOp<FinalInterval, RandomAccessibleInterval> createOp;
 
 	@SuppressWarnings("rawtypes")
-	private UnaryFunctionOp<FinalInterval, RandomAccessibleInterval> createImgOp;
-
-	private Converter<T, FloatType> converterToFloat;
-
-	private Converter<GenericComposite<FloatType>, FloatType> converterGetMax;
+	private UnaryFunctionOp<RandomAccessibleInterval<T>, RandomAccessibleInterval> gradientOp;
 
 	private ExecutorService es;
 
@@ -108,30 +99,7 @@ public class HistogramOfOrientedGradients2D<T extends RealType<T>>
 		createOp = Functions.unary(ops(), CreateImgFromDimsAndType.class, RandomAccessibleInterval.class,
 				new FinalInterval(in().dimension(0), in().dimension(1), numOrientations), new FloatType());
 
-		createImgOp = Functions.unary(ops(), CreateImgFromDimsAndType.class, RandomAccessibleInterval.class,
-				new FinalInterval(in().dimension(0), in().dimension(1)), new FloatType());
-
-		converterToFloat = new Converter<T, FloatType>() {
-			@Override
-			public void convert(final T arg0, final FloatType arg1) {
-				arg1.setReal(arg0.getRealFloat());
-			}
-		};
-
-		converterGetMax = new Converter<GenericComposite<FloatType>, FloatType>() {
-			@Override
-			public void convert(GenericComposite<FloatType> input, FloatType output) {
-				int idx = 0;
-				float max = 0;
-				for (int i = 0; i < in().dimension(2); i++) {
-					if (Math.abs(input.get(i).getRealFloat()) > max) {
-						max = Math.abs(input.get(i).getRealFloat());
-						idx = i;
-					}
-				}
-				output.setReal(input.get(idx).getRealFloat());
-			}
-		};
+		gradientOp = Functions.unary(ops(), Ops.Filter.Gradient.class, RandomAccessibleInterval.class, in());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -148,75 +116,13 @@ public class HistogramOfOrientedGradients2D<T extends RealType<T>>
 	@SuppressWarnings("unchecked")
 	@Override
 	public void compute(RandomAccessibleInterval<T> in, RandomAccessibleInterval<T> out) {
-		final RandomAccessible<FloatType> convertedIn = Converters.convert(Views.extendMirrorDouble(in),
-				converterToFloat, new FloatType());
-
-		// compute partial derivative for each dimension
-		RandomAccessibleInterval<FloatType> derivative0 = createImgOp.calculate();
-		RandomAccessibleInterval<FloatType> derivative1 = createImgOp.calculate();
-
-		// case of grayscale image
-		if (in.numDimensions() == 2) {
-			PartialDerivative.gradientCentralDifference(convertedIn, derivative0, 0);
-			PartialDerivative.gradientCentralDifference(convertedIn, derivative1, 1);
-		}
-		// case of color image
-		else {
-			List<RandomAccessibleInterval<FloatType>> listDerivs0 = new ArrayList<>();
-			List<RandomAccessibleInterval<FloatType>> listDerivs1 = new ArrayList<>();
-			for (int i = 0; i < in.dimension(2); i++) {
-				final RandomAccessibleInterval<FloatType> deriv0 = createImgOp.calculate();
-				final RandomAccessibleInterval<FloatType> deriv1 = createImgOp.calculate();
-				PartialDerivative.gradientCentralDifference(
-						Views.interval(convertedIn, new long[] { 0, 0, i }, new long[] { in.max(0), in.max(1), i }),
-						deriv0, 0);
-				PartialDerivative.gradientCentralDifference(
-						Views.interval(convertedIn, new long[] { 0, 0, i }, new long[] { in.max(0), in.max(1), i }),
-						deriv1, 1);
-				listDerivs0.add(deriv0);
-				listDerivs1.add(deriv1);
-			}
-			derivative0 = Converters.convert(Views.collapse(Views.stack(listDerivs0)), converterGetMax,
-					new FloatType());
-			derivative1 = Converters.convert(Views.collapse(Views.stack(listDerivs1)), converterGetMax,
-					new FloatType());
-		}
-		final RandomAccessibleInterval<FloatType> finalderivative0 = derivative0;
-		final RandomAccessibleInterval<FloatType> finalderivative1 = derivative1;
-
-		// compute angles and magnitudes
-		final RandomAccessibleInterval<FloatType> angles = createImgOp.calculate();
-		final RandomAccessibleInterval<FloatType> magnitudes = createImgOp.calculate();
-
-		final CursorBasedChunk chunkable = new CursorBasedChunk() {
-
-			@Override
-			public void execute(int startIndex, int stepSize, int numSteps) {
-				final Cursor<FloatType> cursorAngles = Views.flatIterable(angles).localizingCursor();
-				final Cursor<FloatType> cursorMagnitudes = Views.flatIterable(magnitudes).localizingCursor();
-				final Cursor<FloatType> cursorDerivative0 = Views.flatIterable(finalderivative0).localizingCursor();
-				final Cursor<FloatType> cursorDerivative1 = Views.flatIterable(finalderivative1).localizingCursor();
-
-				setToStart(cursorAngles, startIndex);
-				setToStart(cursorMagnitudes, startIndex);
-				setToStart(cursorDerivative0, startIndex);
-				setToStart(cursorDerivative1, startIndex);
-
-				for (int i = 0; i < numSteps; i++) {
-					final float x = cursorDerivative0.get().getRealFloat();
-					final float y = cursorDerivative1.get().getRealFloat();
-					cursorAngles.get().setReal(getAngle(x, y));
-					cursorMagnitudes.get().setReal(getMagnitude(x, y));
-
-					cursorAngles.jumpFwd(stepSize);
-					cursorMagnitudes.jumpFwd(stepSize);
-					cursorDerivative0.jumpFwd(stepSize);
-					cursorDerivative1.jumpFwd(stepSize);
-				}
-			}
-		};
-
-		ops().thread().chunker(chunkable, Views.flatIterable(magnitudes).size());
+		// compute angles and magnitudes in one pass; for color images, the
+		// derivatives of largest magnitude over all channels are used
+		final RandomAccessibleInterval<FloatType> gradient = gradientOp.calculate(in);
+		final RandomAccessibleInterval<FloatType> angles = Views.hyperSlice(gradient, 2,
+				DefaultGradient.ORIENTATION);
+		final RandomAccessibleInterval<FloatType> magnitudes = Views.hyperSlice(gradient, 2,
+				DefaultGradient.MAGNITUDE);
 
 		// stores each Thread to execute
 		final List<Callable<Void>> listCallables = new ArrayList<>();
@@ -227,7 +133,7 @@ public class HistogramOfOrientedGradients2D<T extends RealType<T>>
 		final NeighborhoodsAccessible<FloatType> neighborHood = shape.neighborhoodsRandomAccessible(angles);
 
 		for (int i = 0; i < in.dimension(0); i++) {
-			listCallables.add(new ComputeDescriptor(Views.interval(convertedIn, in), i, angles.randomAccess(),
+			listCallables.add(new ComputeDescriptor(magnitudes, i, angles.randomAccess(),
 					magnitudes.randomAccess(), (RandomAccess<FloatType>) out.randomAccess(),
 					neighborHood.randomAccess()));
 		}
@@ -273,8 +179,7 @@ public class HistogramOfOrientedGradients2D<T extends RealType<T>>
 					if (Intervals.contains(interval, cursorNeighborHood)) {
 						raAngles.setPosition(cursorNeighborHood);
 						raMagnitudes.setPosition(cursorNeighborHood);
-						raOut.setPosition(new long[] { i, j,
-								(int) (raAngles.get().getRealFloat() / (360 / numOrientations) - 0.5) });
+						raOut.setPosition(new long[] { i, j, getBin(raAngles.get().getRealFloat(), numOrientations) });
 						raOut.get().add(raMagnitudes.get());
 					}
 				}
@@ -283,17 +188,13 @@ public class HistogramOfOrientedGradients2D<T extends RealType<T>>
 		}
 	}
 
-	// returns the signed angle of a vector
-	private double getAngle(final double x, final double y) {
-		float angle = (float) Math.toDegrees(Math.atan2(x, y));
-		if (angle < 0) {
-			angle += 360;
-		}
-		return angle;
-	}
-
-	// returns the magnitude of a vector
-	private double getMagnitude(final double x, final double y) {
-		return Math.sqrt(x * x + y * y);
+	/**
+	 * Gets the orientation bin of an angle in degrees, as used by this op and
+	 * {@link IntegralOrientationHistogram}. Angles rounded past the last bin by
+	 * the integer bin width are kept in the last bin.
+	 */
+	static int getBin(final float angle, final int numOrientations) {
+		return Math.min((int) (angle / (360 / numOrientations) - 0.5),
+			numOrientations - 1);
 	}
 }
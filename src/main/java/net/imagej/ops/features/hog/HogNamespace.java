@@ -33,6 +33,8 @@ import net.imagej.ops.Namespace;
 import net.imagej.ops.OpMethod;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
 
 import org.scijava.plugin.Plugin;
 
@@ -73,4 +75,42 @@ public class HogNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	// -- dense histogram of oriented gradients --
+
+	/** Executes the "denseHog" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.features.hog.DenseHistogramOfOrientedGradients.class)
+	public <T extends RealType<T>> RandomAccessibleInterval<FloatType> denseHog(final RandomAccessibleInterval<T> in,
+			final int numOrientations, final int cellSize, final int blockSize, final int windowWidth,
+			final int windowHeight) {
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> result = (RandomAccessibleInterval<FloatType>) ops().run(
+				net.imagej.ops.features.hog.DenseHistogramOfOrientedGradients.class, in, numOrientations, cellSize,
+				blockSize, windowWidth, windowHeight);
+		return result;
+	}
+
+	/** Executes the "denseHog" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.features.hog.DenseHistogramOfOrientedGradients.class)
+	public <T extends RealType<T>> RandomAccessibleInterval<FloatType> denseHog(final RandomAccessibleInterval<T> in,
+			final int numOrientations, final int cellSize, final int blockSize, final int windowWidth,
+			final int windowHeight, final int stride) {
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> result = (RandomAccessibleInterval<FloatType>) ops().run(
+				net.imagej.ops.features.hog.DenseHistogramOfOrientedGradients.class, in, numOrientations, cellSize,
+				blockSize, windowWidth, windowHeight, stride);
+		return result;
+	}
+
+	// -- integral orientation histogram --
+
+	/** Executes the "integralHistogram" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.features.hog.IntegralOrientationHistogram.class)
+	public <T extends RealType<T>> RandomAccessibleInterval<DoubleType> integralHistogram(
+			final RandomAccessibleInterval<T> in, final int numOrientations) {
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<DoubleType> result = (RandomAccessibleInterval<DoubleType>) ops().run(
+				net.imagej.ops.features.hog.IntegralOrientationHistogram.class, in, numOrientations);
+		return result;
+	}
+
 }
@@ -0,0 +1,103 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.features.hog;
+
+import java.util.Arrays;
+
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.type.numeric.RealType;
+
+/**
+ * Utility methods for reading integral histograms, such as those computed by
+ * {@link IntegralOrientationHistogram}: 3D images with one summed-area table
+ * per bin along the last dimension.
+ */
+public final class IntegralHistograms {
+
+	private IntegralHistograms() {
+		// NB: Prevent instantiation of utility class.
+	}
+
+	/**
+	 * Reads the histogram of a rectangle from an integral histogram, in
+	 * {@code O(bins)}. The rectangle is given by its inclusive corners and
+	 * clipped to the bounds of the integral histogram.
+	 * 
+	 * @param integral access to the integral histogram
+	 * @param bounds the interval of the integral histogram
+	 * @param minX smallest x of the rectangle
+	 * @param minY smallest y of the rectangle
+	 * @param maxX largest x of the rectangle
+	 * @param maxY largest y of the rectangle
+	 * @param histogram receives the sum of each bin over the rectangle; its
+	 *          length must be the number of bins
+	 */
+	public static void histogram(
+		final RandomAccess<? extends RealType<?>> integral, final Interval bounds,
+		final long minX, final long minY, final long maxX, final long maxY,
+		final double[] histogram)
+	{
+		// the tables hold inclusive sums, so the corners before the rectangle
+		// are subtracted
+		final long x0 = Math.max(minX, bounds.min(0)) - 1;
+		final long y0 = Math.max(minY, bounds.min(1)) - 1;
+		final long x1 = Math.min(maxX, bounds.max(0));
+		final long y1 = Math.min(maxY, bounds.max(1));
+
+		Arrays.fill(histogram, 0);
+		if (x0 >= x1 || y0 >= y1) return;
+
+		final long binMin = bounds.min(2);
+		add(integral, x1, y1, binMin, 1, histogram);
+		if (x0 >= bounds.min(0)) add(integral, x0, y1, binMin, -1, histogram);
+		if (y0 >= bounds.min(1)) add(integral, x1, y0, binMin, -1, histogram);
+		if (x0 >= bounds.min(0) && y0 >= bounds.min(1)) {
+			add(integral, x0, y0, binMin, 1, histogram);
+		}
+	}
+
+	// -- Helper methods --
+
+	private static void add(final RandomAccess<? extends RealType<?>> integral,
+		final long x, final long y, final long binMin, final int sign,
+		final double[] histogram)
+	{
+		integral.setPosition(x, 0);
+		integral.setPosition(y, 1);
+		integral.setPosition(binMin, 2);
+		for (int b = 0; b < histogram.length; b++) {
+			histogram[b] += sign * integral.get().getRealDouble();
+			integral.fwd(2);
+		}
+	}
+
+}
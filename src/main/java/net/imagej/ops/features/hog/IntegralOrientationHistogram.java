@@ -0,0 +1,154 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.features.hog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.filter.gradient.DefaultGradient;
+import net.imagej.ops.special.function.AbstractUnaryFunctionOp;
+import net.imagej.ops.special.function.Functions;
+import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Calculates the integral orientation histogram of an image: one summed-area
+ * table of the gradient magnitudes per orientation bin. The output is 3D, with
+ * one channel per bin. With {@link IntegralHistograms}, the histogram of
+ * oriented gradients of any rectangle of the image can then be read in
+ * {@code O(numOrientations)}, independent of the size of the rectangle.
+ * <p>
+ * Gradients and orientation bins are the same as in
+ * {@link HistogramOfOrientedGradients2D}, so summing the histogram over the
+ * neighborhood of a pixel gives the descriptor of that op. Input can be either
+ * a 2D image or a 3D image where the third dimension is interpreted as color
+ * channel. The summed-area tables are built with {@link Ops.Image.Integral}.
+ * </p>
+ */
+@Plugin(type = Ops.HoG.IntegralOrientationHistogram.class)
+public class IntegralOrientationHistogram<T extends RealType<T>> extends
+	AbstractUnaryFunctionOp<RandomAccessibleInterval<T>, RandomAccessibleInterval<DoubleType>>
+	implements Ops.HoG.IntegralOrientationHistogram, Contingent
+{
+
+	@Parameter(required = true)
+	private int numOrientations;
+
+	@SuppressWarnings("rawtypes")
+	private UnaryFunctionOp<RandomAccessibleInterval<T>, RandomAccessibleInterval> gradientOp;
+
+	@SuppressWarnings("rawtypes")
+	private UnaryFunctionOp<RandomAccessibleInterval<FloatType>, RandomAccessibleInterval> integralOp;
+
+	@Override
+	public void initialize() {
+		gradientOp = Functions.unary(ops(), Ops.Filter.Gradient.class,
+			RandomAccessibleInterval.class, in());
+	}
+
+	@Override
+	public boolean conforms() {
+		return (in().numDimensions() == 2 || in().numDimensions() == 3) &&
+			numOrientations > 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public RandomAccessibleInterval<DoubleType> calculate(
+		final RandomAccessibleInterval<T> input)
+	{
+		final RandomAccessibleInterval<FloatType> gradient = gradientOp.calculate(
+			input);
+		final long width = input.dimension(0);
+
+		// sort the magnitude of each pixel into the channel of its bin
+		final RandomAccessibleInterval<FloatType> binned = ops().create().img(
+			new FinalInterval(width, input.dimension(1), numOrientations),
+			new FloatType());
+
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final RandomAccess<FloatType> magnitudeRA = gradient.randomAccess();
+				final RandomAccess<FloatType> orientationRA = gradient.randomAccess();
+				final RandomAccess<FloatType> binnedRA = binned.randomAccess();
+				magnitudeRA.setPosition(DefaultGradient.MAGNITUDE, 2);
+				orientationRA.setPosition(DefaultGradient.ORIENTATION, 2);
+
+				for (int s = 0; s < numSteps; s++) {
+					final long y = startIndex + (long) s * stepSize;
+					magnitudeRA.setPosition(y, 1);
+					orientationRA.setPosition(y, 1);
+					binnedRA.setPosition(y, 1);
+					for (long x = 0; x < width; x++) {
+						magnitudeRA.setPosition(x, 0);
+						orientationRA.setPosition(x, 0);
+						binnedRA.setPosition(x, 0);
+						binnedRA.setPosition(HistogramOfOrientedGradients2D.getBin(
+							orientationRA.get().getRealFloat(), numOrientations), 2);
+						binnedRA.get().set(magnitudeRA.get());
+					}
+				}
+			}
+		}, input.dimension(1));
+
+		// one summed-area table per bin
+		final List<RandomAccessibleInterval<DoubleType>> integrals =
+			new ArrayList<>(numOrientations);
+		for (int b = 0; b < numOrientations; b++) {
+			final RandomAccessibleInterval<FloatType> channel = Views.hyperSlice(
+				binned, 2, b);
+			if (integralOp == null) {
+				integralOp = Functions.unary(ops(), Ops.Image.Integral.class,
+					RandomAccessibleInterval.class, channel);
+			}
+			integrals.add(integralOp.calculate(channel));
+		}
+		return Views.stack(integrals);
+	}
+
+}
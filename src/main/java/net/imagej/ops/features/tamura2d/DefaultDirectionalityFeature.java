@@ -36,10 +36,9 @@ import net.imagej.ops.image.histogram.HistogramCreate;
 import net.imagej.ops.special.function.Functions;
 import net.imagej.ops.special.function.UnaryFunctionOp;
 import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
-import net.imglib2.algorithm.gradient.PartialDerivative;
 import net.imglib2.histogram.Histogram1d;
-import net.imglib2.img.Img;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.util.Util;
@@ -67,7 +66,6 @@ public class DefaultDirectionalityFeature<I extends RealType<I>, O extends RealT
 
 	private UnaryFunctionOp<Iterable, Histogram1d> histOp;
 	private UnaryFunctionOp<Iterable, RealType> stdOp;
-	private UnaryFunctionOp<RandomAccessibleInterval<I>, Img<I>> imgCreator;
 
 	@SuppressWarnings("unchecked")
 	@Override
@@ -76,8 +74,6 @@ public class DefaultDirectionalityFeature<I extends RealType<I>, O extends RealT
 			Iterable.class);
 		histOp = Functions.unary(ops(), HistogramCreate.class, Histogram1d.class,
 			Iterable.class, histogramSize);
-		imgCreator = (UnaryFunctionOp) Functions.unary(ops(), Ops.Create.Img.class,
-			Img.class, in(), Util.getTypeFromInterval(in()));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -89,37 +85,29 @@ public class DefaultDirectionalityFeature<I extends RealType<I>, O extends RealT
 		// List to store all directions occuring within the image on borders
 		ArrayList<DoubleType> dirList = new ArrayList<>();
 
-		// Dimension of input region
-		long[] dims = new long[input.numDimensions()];
-		input.dimensions(dims);
-
-		// create image for derivations in x and y direction
-		Img<I> derX = imgCreator.calculate(input);
-		Img<I> derY = imgCreator.calculate(input);
-
-		// calculate derivations in x and y direction
-		PartialDerivative.gradientCentralDifference2(Views.extendMirrorSingle(
-			input), derX, 0);
-		PartialDerivative.gradientCentralDifference2(Views.extendMirrorSingle(
-			input), derY, 1);
-
-		// calculate theta at each position: theta = atan(dX/dY) + pi/2
-		Cursor<I> cX = derX.cursor();
-		Cursor<I> cY = derY.cursor();
+		// derivatives in x and y direction, central differences computed in the
+		// input type, one position at a time
+		final RandomAccess<I> ra = Views.extendMirrorSingle(input).randomAccess();
+		final I dX = Util.getTypeFromInterval(input).createVariable();
+		final I dY = dX.createVariable();
 
 		// for each position calculate magnitude and direction
-		while (cX.hasNext()) {
-			cX.next();
-			cY.next();
+		final Cursor<I> cursor = Views.iterable(input).localizingCursor();
+		while (cursor.hasNext()) {
+			cursor.fwd();
+			ra.setPosition(cursor);
+			centralDifference(ra, 0, dX);
+			centralDifference(ra, 1, dY);
 
-			double dx = cX.get().getRealDouble();
-			double dy = cY.get().getRealDouble();
+			double dx = dX.getRealDouble();
+			double dy = dY.getRealDouble();
 
 			double dir = 0.0;
 			double mag = 0.0;
 
 			mag = Math.sqrt(dx * dx + dy * dy);
 
+			// theta = atan(dY/dX) + pi/2
 			if (dx != 0 && mag > 0.0) {
 				dir = Math.atan(dy / dx) + Math.PI / 2;
 				dirList.add(new DoubleType(dir));
@@ -138,4 +126,19 @@ public class DefaultDirectionalityFeature<I extends RealType<I>, O extends RealT
 			output.setReal(1 / std);
 		}
 	}
+
+	/**
+	 * Sets {@code result} to {@code (f(x + 1) - f(x - 1)) / 2} along the given
+	 * dimension, in the arithmetic of the input type.
+	 */
+	private void centralDifference(final RandomAccess<I> ra, final int d,
+		final I result)
+	{
+		ra.fwd(d);
+		result.set(ra.get());
+		ra.move(-2, d);
+		result.sub(ra.get());
+		ra.fwd(d);
+		result.mul(0.5);
+	}
 }
@@ -30,6 +30,7 @@
 package net.imagej.ops.filter;
 
 import net.imagej.ops.Ops.Map;
+import net.imagej.ops.map.neighborhood.AbstractCenterAwareComputerOp;
 import net.imagej.ops.map.neighborhood.CenterAwareComputerOp;
 import net.imagej.ops.special.chain.RAIs;
 import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
@@ -61,7 +62,8 @@ public abstract class AbstractCenterAwareNeighborhoodBasedFilter<I, O> extends
 
 	@Override
 	public void initialize() {
-		filterOp = unaryComputer(Views.iterable(in()).firstElement(), out().firstElement());
+		filterOp = new FilterOp(Views.iterable(in()).firstElement(), out()
+			.firstElement());
 		map = Computers.unary(ops(), Map.class, out(), in(), shape, filterOp);
 	}
 
@@ -92,4 +94,38 @@ public abstract class AbstractCenterAwareNeighborhoodBasedFilter<I, O> extends
 	protected abstract CenterAwareComputerOp<I, O> unaryComputer(final I inType,
 		final O outType);
 
+	// -- Helper classes --
+
+	/**
+	 * Delegates to the computer created by {@link #unaryComputer}. Independent
+	 * instances are created by calling {@link #unaryComputer} again, so the
+	 * lazily initialized state of each instance stays with one thread.
+	 */
+	private class FilterOp extends AbstractCenterAwareComputerOp<I, O> {
+
+		private final I inType;
+
+		private final O outType;
+
+		private final CenterAwareComputerOp<I, O> delegate;
+
+		public FilterOp(final I inType, final O outType) {
+			this.inType = inType;
+			this.outType = outType;
+			delegate = unaryComputer(inType, outType);
+		}
+
+		@Override
+		public void compute(final Iterable<I> neighborhood, final I center,
+			final O output)
+		{
+			delegate.compute(neighborhood, center, output);
+		}
+
+		@Override
+		public FilterOp getIndependentInstance() {
+			return new FilterOp(inType, outType);
+		}
+	}
+
 }
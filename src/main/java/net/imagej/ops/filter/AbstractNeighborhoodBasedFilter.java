@@ -59,7 +59,7 @@ public abstract class AbstractNeighborhoodBasedFilter<I, O> extends
 
 	@Override
 	public void initialize() {
-		filterOp = unaryComputer(out().firstElement());
+		filterOp = new FilterOp(out().firstElement());
 		map = Computers.unary(ops(), Map.class, out(), in(), shape, filterOp);
 	}
 
@@ -86,4 +86,33 @@ public abstract class AbstractNeighborhoodBasedFilter<I, O> extends
 	protected abstract UnaryComputerOp<Iterable<I>, O> unaryComputer(
 		final O outType);
 
+	// -- Helper classes --
+
+	/**
+	 * Delegates to the computer created by {@link #unaryComputer}. Independent
+	 * instances are created by calling {@link #unaryComputer} again, so the
+	 * state of each instance stays with one thread.
+	 */
+	private class FilterOp extends AbstractUnaryComputerOp<Iterable<I>, O> {
+
+		private final O outType;
+
+		private final UnaryComputerOp<Iterable<I>, O> delegate;
+
+		public FilterOp(final O outType) {
+			this.outType = outType;
+			delegate = unaryComputer(outType);
+		}
+
+		@Override
+		public void compute(final Iterable<I> neighborhood, final O output) {
+			delegate.compute(neighborhood, output);
+		}
+
+		@Override
+		public FilterOp getIndependentInstance() {
+			return new FilterOp(outType);
+		}
+	}
+
 }
@@ -0,0 +1,162 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Parallel;
+import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.Interval;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.neighborhood.RectangleShape;
+import net.imglib2.outofbounds.OutOfBoundsBorderFactory;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import org.scijava.plugin.Parameter;
+
+/**
+ * Abstract base class for filters over a {@link RectangleShape} which do not
+ * visit each neighborhood separately, but process the image line by line,
+ * updating their state incrementally as the window slides along a line.
+ * <p>
+ * In contrast to {@link AbstractNeighborhoodBasedFilter}, the output must be
+ * randomly accessible, with the same interval as the input.
+ * </p>
+ * 
+ * @param <I> input type
+ * @param <O> output type
+ */
+public abstract class AbstractRectangleFilter<I, O> extends
+	AbstractUnaryComputerOp<RandomAccessibleInterval<I>, IterableInterval<O>>
+	implements Contingent, Parallel
+{
+
+	@Parameter
+	private RectangleShape shape;
+
+	@Parameter(required = false)
+	private OutOfBoundsFactory<I, RandomAccessibleInterval<I>> outOfBoundsFactory =
+		new OutOfBoundsBorderFactory<>();
+
+	@Override
+	public void compute(final RandomAccessibleInterval<I> input,
+		final IterableInterval<O> output)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> out =
+			(RandomAccessibleInterval<O>) output;
+		compute(Views.extend(input, outOfBoundsFactory), input, out);
+	}
+
+	@Override
+	public boolean conforms() {
+		return out() instanceof RandomAccessibleInterval && Intervals.contains(
+			(RandomAccessibleInterval<?>) out(), in());
+	}
+
+	/**
+	 * Get the shape (structuring element) used by this filter.
+	 * 
+	 * @return the shape
+	 */
+	public RectangleShape getShape() {
+		return shape;
+	}
+
+	/**
+	 * Filters the given input interval into the output.
+	 * 
+	 * @param extended the input, extended by the out-of-bounds strategy
+	 * @param interval the interval of the input to filter
+	 * @param output the output, containing the interval
+	 */
+	protected abstract void compute(RandomAccessible<I> extended,
+		Interval interval, RandomAccessibleInterval<O> output);
+
+	/**
+	 * Processes all lines of the given interval along one dimension in
+	 * parallel. Each chunk of lines is handed to its own processor, which is
+	 * called with the start position of each line and may hence keep state.
+	 * 
+	 * @param interval the interval whose lines to process
+	 * @param dim the dimension along which the lines run
+	 * @param processors creates one line processor per chunk
+	 */
+	protected void forEachLine(final Interval interval, final int dim,
+		final Supplier<Consumer<long[]>> processors)
+	{
+		final long numLines = Intervals.numElements(interval) / interval.dimension(
+			dim);
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final Consumer<long[]> processor = processors.get();
+				final long[] position = new long[interval.numDimensions()];
+				long index = startIndex;
+				for (int i = 0; i < numSteps; i++) {
+					linePosition(index, interval, dim, position);
+					processor.accept(position);
+					index += stepSize;
+				}
+			}
+		}, numLines);
+	}
+
+	// -- Helper methods --
+
+	/** Gets the start position of the line with the given index. */
+	private static void linePosition(final long index, final Interval interval,
+		final int dim, final long[] position)
+	{
+		long remainder = index;
+		for (int d = 0; d < position.length; d++) {
+			if (d == dim) {
+				position[d] = interval.min(d);
+				continue;
+			}
+			final long size = interval.dimension(d);
+			position[d] = interval.min(d) + remainder % size;
+			remainder /= size;
+		}
+	}
+
+}
@@ -0,0 +1,476 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter;
+
+import java.util.function.Consumer;
+
+import net.imglib2.FinalDimensions;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.neighborhood.RectangleShape;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+/**
+ * Abstract base class for filters over a {@link RectangleShape} which only
+ * depend on the mean, and possibly the variance, of each neighborhood, besides
+ * its center value.
+ * <p>
+ * The sums over a rectangle are computed separably, one dimension after the
+ * other, with a running sum along each line: each pixel costs one addition and
+ * one subtraction per dimension, regardless of the radius. Shapes skipping the
+ * center are handled by taking the center value out of the sums.
+ * </p>
+ * <p>
+ * For integer types of up to 16 bits (32 bits if no variance is needed), the
+ * sums are accumulated exactly as longs, so that only the final division
+ * rounds. Other types are accumulated as doubles, with NaN and infinite values
+ * kept out of the running sums: they only affect the neighborhoods containing
+ * them, which get the sum of their non-finite values, as with a direct sum.
+ * For shapes skipping the center, a non-finite center value still affects its
+ * own neighborhood.
+ * </p>
+ * 
+ * @param <I> input type
+ * @param <O> output type
+ */
+public abstract class AbstractRunningSumFilter<I extends RealType<I>, O extends RealType<O>>
+	extends AbstractRectangleFilter<I, O>
+{
+
+	/** Maximum number of bits of integer types summed exactly as longs. */
+	private static final int MAX_EXACT_BITS = 32;
+
+	/** Maximum number of bits of integer types squared and summed as longs. */
+	private static final int MAX_EXACT_SQUARE_BITS = 16;
+
+	@Override
+	protected void compute(final RandomAccessible<I> extended,
+		final Interval interval, final RandomAccessibleInterval<O> output)
+	{
+		final boolean squares = needsSquares();
+		final I type = Util.getTypeFromInterval(in());
+		if (type instanceof IntegerType && type.getBitsPerPixel() <= (squares
+			? MAX_EXACT_SQUARE_BITS : MAX_EXACT_BITS))
+		{
+			compute(extended, interval, output, new LongType(), 0);
+			return;
+		}
+
+		// NB: Shifting the values towards zero limits the cancellation in the
+		// sum of squares. Without squares, the mean is kept exact instead.
+		final RandomAccess<I> first = extended.randomAccess();
+		first.setPosition(Intervals.minAsLongArray(interval));
+		final double start = first.get().getRealDouble();
+		final double offset = squares && Double.isFinite(start) ? start : 0;
+		compute(extended, interval, output, new DoubleType(), offset);
+	}
+
+	/** Whether {@link #filter} needs the variance. */
+	protected abstract boolean needsSquares();
+
+	/**
+	 * Computes the filter result of one neighborhood.
+	 * 
+	 * @param mean mean of the neighborhood
+	 * @param variance sample variance of the neighborhood, or NaN if not
+	 *          {@link #needsSquares()} or if it has less than two values
+	 * @param center value at the center of the neighborhood
+	 * @param output the output to set
+	 */
+	protected abstract void filter(double mean, double variance, double center,
+		O output);
+
+	// -- Helper methods --
+
+	/**
+	 * Computes the filter with sums of the given type, which are exact longs for
+	 * {@link LongType}.
+	 */
+	private <S extends NativeType<S> & RealType<S>> void compute(
+		final RandomAccessible<I> extended, final Interval interval,
+		final RandomAccessibleInterval<O> output, final S sumType,
+		final double offset)
+	{
+		final int n = interval.numDimensions();
+		final int span = getShape().getSpan();
+		final boolean squares = needsSquares();
+
+		long size = 1;
+		for (int d = 0; d < n; d++)
+			size *= 2 * span + 1;
+		if (getShape().isSkippingCenter()) size--;
+		final long count = size;
+
+		RandomAccessible<S> sums = null;
+		RandomAccessible<S> squareSums = null;
+		for (int d = 0; d < n; d++) {
+			// NB: Dimensions not summed yet need a margin for the later passes.
+			final long[] min = Intervals.minAsLongArray(interval);
+			final long[] max = Intervals.maxAsLongArray(interval);
+			for (int e = d + 1; e < n; e++) {
+				min[e] -= span;
+				max[e] += span;
+			}
+			final FinalInterval target = new FinalInterval(min, max);
+			final int dim = d;
+			final int length = (int) target.dimension(d);
+			final RandomAccessible<S> previousSums = sums;
+			final RandomAccessible<S> previousSquareSums = squareSums;
+			final boolean exact = sumType instanceof LongType;
+
+			if (d == n - 1) {
+				forEachLine(target, d, () -> {
+					final Pass<S> pass = new Pass<>(extended, previousSums,
+						previousSquareSums, dim, length, span, exact, offset);
+					pass.output(output, count);
+					return pass;
+				});
+				break;
+			}
+
+			final FinalDimensions dims = new FinalDimensions(Intervals
+				.dimensionsAsLongArray(target));
+			final RandomAccessibleInterval<S> nextSums = Views.translate(ops()
+				.create().img(dims, sumType), min);
+			final RandomAccessibleInterval<S> nextSquareSums = squares ? Views
+				.translate(ops().create().img(dims, sumType), min) : null;
+			forEachLine(target, d, () -> {
+				final Pass<S> pass = new Pass<>(extended, previousSums,
+					previousSquareSums, dim, length, span, exact, offset);
+				pass.sums(nextSums, nextSquareSums);
+				return pass;
+			});
+			sums = nextSums;
+			squareSums = nextSquareSums;
+		}
+	}
+
+	/**
+	 * Computes the sample variance from exact sums. With {@code sum = a * count
+	 * + r}, the sum of squared deviations from {@code a} is an exact integer, so
+	 * that only the final correction by {@code r} rounds.
+	 */
+	private static double variance(final long sum, final long sumOfSquares,
+		final long count)
+	{
+		final long a = Math.floorDiv(sum, count);
+		final long r = sum - a * count;
+		final long deviations = sumOfSquares - a * (sum + r);
+		return Math.max(0, (deviations - (double) r * r / count) / (count - 1));
+	}
+
+	// -- Helper classes --
+
+	/** Sums lines along one dimension. */
+	private class Pass<S extends RealType<S>> implements Consumer<long[]> {
+
+		/** Input values, read in the first pass. */
+		private final RandomAccess<I> in;
+
+		/** Sums of the previous pass, or null in the first pass. */
+		private final RandomAccess<S> inSums;
+
+		private final RandomAccess<S> inSquareSums;
+
+		private final int dim;
+
+		private final int length;
+
+		private final int span;
+
+		/** Whether the sums are exact longs. */
+		private final boolean exact;
+
+		private final double offset;
+
+		private final double[] values;
+
+		private final double[] squares;
+
+		private final long[] exactValues;
+
+		private final long[] exactSquares;
+
+		private RandomAccess<S> outSums;
+
+		private RandomAccess<S> outSquareSums;
+
+		private RandomAccess<O> out;
+
+		private RandomAccess<I> center;
+
+		private long count;
+
+		private final boolean skipCenter = getShape().isSkippingCenter();
+
+		public Pass(final RandomAccessible<I> extended,
+			final RandomAccessible<S> sums, final RandomAccessible<S> squareSums,
+			final int dim, final int length, final int span, final boolean exact,
+			final double offset)
+		{
+			in = extended.randomAccess();
+			inSums = sums == null ? null : sums.randomAccess();
+			inSquareSums = squareSums == null ? null : squareSums.randomAccess();
+			this.dim = dim;
+			this.length = length;
+			this.span = span;
+			this.exact = exact;
+			this.offset = offset;
+			final int padded = length + 2 * span;
+			values = exact ? null : new double[padded];
+			squares = exact || !needsSquares() ? null : new double[padded];
+			exactValues = exact ? new long[padded] : null;
+			exactSquares = exact && needsSquares() ? new long[padded] : null;
+		}
+
+		/** Makes this pass write the sums of its lines. */
+		public void sums(final RandomAccessible<S> sums,
+			final RandomAccessible<S> squareSums)
+		{
+			outSums = sums.randomAccess();
+			outSquareSums = squareSums == null ? null : squareSums.randomAccess();
+		}
+
+		/** Makes this pass write the filter result of its lines. */
+		public void output(final RandomAccessible<O> output, final long count) {
+			out = output.randomAccess();
+			this.count = count;
+			center = in.copyRandomAccess();
+		}
+
+		@Override
+		public void accept(final long[] start) {
+			if (out != null) {
+				out.setPosition(start);
+				center.setPosition(start);
+			}
+			else {
+				outSums.setPosition(start);
+				if (outSquareSums != null) outSquareSums.setPosition(start);
+			}
+			if (exact) {
+				readExact(start);
+				sumExact();
+			}
+			else {
+				read(start);
+				sum();
+			}
+		}
+
+		/** Runs the double sums along the line read last. */
+		private void sum() {
+			double sum = 0;
+			double sumOfSquares = 0;
+			// NB: Non-finite values are counted rather than summed, so that they
+			// do not spill over into windows after the ones containing them.
+			int nonFinite = 0;
+			int nonFiniteSquares = 0;
+			for (int i = 0; i < 2 * span; i++) {
+				if (Double.isFinite(values[i])) sum += values[i];
+				else nonFinite++;
+				if (squares == null) continue;
+				if (Double.isFinite(squares[i])) sumOfSquares += squares[i];
+				else nonFiniteSquares++;
+			}
+
+			for (int i = 0; i < length; i++) {
+				final int last = i + 2 * span;
+				if (Double.isFinite(values[last])) sum += values[last];
+				else nonFinite++;
+				if (squares != null) {
+					if (Double.isFinite(squares[last])) sumOfSquares += squares[last];
+					else nonFiniteSquares++;
+				}
+				final double windowSum = nonFinite == 0 ? sum : sumNonFinite(values,
+					i);
+				final double windowSquares = nonFiniteSquares == 0 ? sumOfSquares
+					: sumNonFinite(squares, i);
+
+				if (out != null) {
+					final double c = center.get().getRealDouble();
+					double s = windowSum;
+					double q = windowSquares;
+					if (skipCenter) {
+						s -= c - offset;
+						q -= (c - offset) * (c - offset);
+					}
+					double variance = Double.NaN;
+					if (squares != null && count > 1) {
+						variance = Math.max(0, (count * q - s * s) / (count * (count -
+							1)));
+					}
+					write(s / count + offset, variance, c);
+				}
+				else {
+					outSums.get().setReal(windowSum);
+					outSums.fwd(dim);
+					if (outSquareSums != null) {
+						outSquareSums.get().setReal(windowSquares);
+						outSquareSums.fwd(dim);
+					}
+				}
+
+				if (Double.isFinite(values[i])) sum -= values[i];
+				else nonFinite--;
+				if (squares == null) continue;
+				if (Double.isFinite(squares[i])) sumOfSquares -= squares[i];
+				else nonFiniteSquares--;
+			}
+		}
+
+		/** Sums the non-finite values of the window starting at {@code i}. */
+		private double sumNonFinite(final double[] array, final int i) {
+			double sum = 0;
+			for (int j = i; j <= i + 2 * span; j++) {
+				if (!Double.isFinite(array[j])) sum += array[j];
+			}
+			return sum;
+		}
+
+		/** Runs the exact long sums along the line read last. */
+		private void sumExact() {
+			long sum = 0;
+			long sumOfSquares = 0;
+			for (int i = 0; i < 2 * span; i++) {
+				sum += exactValues[i];
+				if (exactSquares != null) sumOfSquares += exactSquares[i];
+			}
+
+			for (int i = 0; i < length; i++) {
+				sum += exactValues[i + 2 * span];
+				if (exactSquares != null) sumOfSquares += exactSquares[i + 2 * span];
+
+				if (out != null) {
+					final long c = ((IntegerType<?>) center.get()).getIntegerLong();
+					long s = sum;
+					long q = sumOfSquares;
+					if (skipCenter) {
+						s -= c;
+						q -= c * c;
+					}
+					final double variance = exactSquares != null && count > 1
+						? variance(s, q, count) : Double.NaN;
+					write((double) s / count, variance, c);
+				}
+				else {
+					((IntegerType<?>) outSums.get()).setInteger(sum);
+					outSums.fwd(dim);
+					if (outSquareSums != null) {
+						((IntegerType<?>) outSquareSums.get()).setInteger(sumOfSquares);
+						outSquareSums.fwd(dim);
+					}
+				}
+
+				sum -= exactValues[i];
+				if (exactSquares != null) sumOfSquares -= exactSquares[i];
+			}
+		}
+
+		/** Reads the (padded) line starting at the given position. */
+		private void read(final long[] start) {
+			final int padded = values.length;
+			if (inSums == null) {
+				in.setPosition(start);
+				in.move(-span, dim);
+				for (int i = 0; i < padded; i++) {
+					final double v = in.get().getRealDouble() - offset;
+					values[i] = v;
+					if (squares != null) squares[i] = v * v;
+					in.fwd(dim);
+				}
+				return;
+			}
+			inSums.setPosition(start);
+			inSums.move(-span, dim);
+			for (int i = 0; i < padded; i++) {
+				values[i] = inSums.get().getRealDouble();
+				inSums.fwd(dim);
+			}
+			if (squares == null) return;
+			inSquareSums.setPosition(start);
+			inSquareSums.move(-span, dim);
+			for (int i = 0; i < padded; i++) {
+				squares[i] = inSquareSums.get().getRealDouble();
+				inSquareSums.fwd(dim);
+			}
+		}
+
+		/** Reads the (padded) line starting at the given position as longs. */
+		private void readExact(final long[] start) {
+			final int padded = exactValues.length;
+			if (inSums == null) {
+				in.setPosition(start);
+				in.move(-span, dim);
+				for (int i = 0; i < padded; i++) {
+					final long v = ((IntegerType<?>) in.get()).getIntegerLong();
+					exactValues[i] = v;
+					if (exactSquares != null) exactSquares[i] = v * v;
+					in.fwd(dim);
+				}
+				return;
+			}
+			inSums.setPosition(start);
+			inSums.move(-span, dim);
+			for (int i = 0; i < padded; i++) {
+				exactValues[i] = ((IntegerType<?>) inSums.get()).getIntegerLong();
+				inSums.fwd(dim);
+			}
+			if (exactSquares == null) return;
+			inSquareSums.setPosition(start);
+			inSquareSums.move(-span, dim);
+			for (int i = 0; i < padded; i++) {
+				exactSquares[i] = ((IntegerType<?>) inSquareSums.get())
+					.getIntegerLong();
+				inSquareSums.fwd(dim);
+			}
+		}
+
+		private void write(final double mean, final double variance,
+			final double c)
+		{
+			filter(mean, variance, c, out.get());
+			center.fwd(dim);
+			out.fwd(dim);
+		}
+	}
+
+}
@@ -0,0 +1,237 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.neighborhood.RectangleShape;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Util;
+
+/**
+ * Abstract base class for filters over a {@link RectangleShape} which only
+ * depend on the median of each neighborhood, besides its center value, for
+ * integer types of up to 16 bits. The median is found with Huang's sliding
+ * histogram.
+ * <p>
+ * Each line of the image is processed with one histogram of the window, which
+ * is updated incrementally as the window moves along the line: only the
+ * values leaving and entering the window are visited, i.e. one hyperplane of
+ * the window per pixel instead of the whole window. The median is tracked
+ * along with the count of values below it, so that it only needs to be moved
+ * by the few bins it changes between neighboring pixels.
+ * </p>
+ * <p>
+ * The median is the same as the one of {@code stats.median}.
+ * </p>
+ * 
+ * @param <I> input type
+ * @param <O> output type
+ */
+public abstract class AbstractSlidingMedianFilter<I extends IntegerType<I>, O extends RealType<O>>
+	extends AbstractRectangleFilter<I, O>
+{
+
+	/** Maximum number of bits of types for which a histogram is kept. */
+	private static final int MAX_BITS = 16;
+
+	@Override
+	public boolean conforms() {
+		if (!super.conforms()) return false;
+		// NB: The type parameter is erased, so the input may be of any type.
+		final Object type = Util.getTypeFromInterval(in());
+		return type instanceof IntegerType && ((IntegerType<?>) type)
+			.getBitsPerPixel() <= MAX_BITS;
+	}
+
+	@Override
+	protected void compute(final RandomAccessible<I> extended,
+		final Interval interval, final RandomAccessibleInterval<O> output)
+	{
+		final I type = Util.getTypeFromInterval(in());
+		final int min = (int) type.getMinValue();
+		final int bins = (int) type.getMaxValue() - min + 1;
+		final int span = getShape().getSpan();
+		final boolean skipCenter = getShape().isSkippingCenter();
+
+		forEachLine(interval, 0, () -> new SlidingHistogram(extended, output,
+			interval.dimension(0), min, bins, span, skipCenter));
+	}
+
+	/**
+	 * Computes the filter result of one neighborhood.
+	 * 
+	 * @param median median of the neighborhood
+	 * @param center value at the center of the neighborhood
+	 * @param output the output to set
+	 */
+	protected abstract void filter(double median, double center, O output);
+
+	// -- Helper classes --
+
+	/** Histogram of a window sliding along lines of dimension 0. */
+	private class SlidingHistogram implements Consumer<long[]> {
+
+		private final RandomAccess<I> window;
+
+		private final RandomAccess<I> center;
+
+		private final RandomAccess<O> out;
+
+		private final long length;
+
+		private final int min;
+
+		private final int[] histogram;
+
+		private final int span;
+
+		private final int width;
+
+		private final boolean skipCenter;
+
+		/** Zero-based rank of the median within the window. */
+		private final long rank;
+
+		private final int[] counter;
+
+		/** Bin of the current median. */
+		private int median;
+
+		/** Number of values in bins below {@link #median}. */
+		private long below;
+
+		public SlidingHistogram(final RandomAccessible<I> extended,
+			final RandomAccessibleInterval<O> output, final long length,
+			final int min, final int bins, final int span, final boolean skipCenter)
+		{
+			window = extended.randomAccess();
+			center = extended.randomAccess();
+			out = output.randomAccess();
+			this.length = length;
+			this.min = min;
+			histogram = new int[bins];
+			this.span = span;
+			width = 2 * span + 1;
+			this.skipCenter = skipCenter;
+			final int n = output.numDimensions();
+			long size = 1;
+			for (int d = 0; d < n; d++)
+				size *= width;
+			if (skipCenter) size--;
+			// NB: Same rank as stats.median, which selects the (size / 2)-th value.
+			rank = size / 2;
+			counter = new int[n];
+		}
+
+		/** Filters the line starting at the given position. */
+		@Override
+		public void accept(final long[] start) {
+			Arrays.fill(histogram, 0);
+			median = 0;
+			below = 0;
+
+			final long x0 = start[0];
+			final long x1 = x0 + length - 1;
+			center.setPosition(start);
+			out.setPosition(start);
+
+			for (long x = x0 - span; x <= x0 + span; x++) {
+				updateHyperplane(start, x, 1);
+			}
+			for (long x = x0; x <= x1; x++) {
+				if (x > x0) {
+					updateHyperplane(start, x - span - 1, -1);
+					updateHyperplane(start, x + span, 1);
+				}
+				final int c = center.get().getInteger();
+				if (skipCenter) update(c - min, -1);
+				filter(min + findMedian(), c, out.get());
+				if (skipCenter) update(c - min, 1);
+				center.fwd(0);
+				out.fwd(0);
+			}
+		}
+
+		/**
+		 * Adds ({@code delta = 1}) or removes ({@code delta = -1}) the values of
+		 * the window at position {@code x} of dimension 0.
+		 */
+		private void updateHyperplane(final long[] start, final long x,
+			final int delta)
+		{
+			final int n = counter.length;
+			window.setPosition(x, 0);
+			for (int d = 1; d < n; d++) {
+				window.setPosition(start[d] - span, d);
+				counter[d] = 0;
+			}
+			while (true) {
+				update(window.get().getInteger() - min, delta);
+				int d = 1;
+				for (; d < n; d++) {
+					if (++counter[d] < width) {
+						window.fwd(d);
+						break;
+					}
+					counter[d] = 0;
+					window.move(1 - width, d);
+				}
+				if (d == n) break;
+			}
+		}
+
+		private void update(final int bin, final int delta) {
+			histogram[bin] += delta;
+			if (bin < median) below += delta;
+		}
+
+		/** Moves the median to the bin containing the value of rank. */
+		private int findMedian() {
+			while (below > rank) {
+				median--;
+				below -= histogram[median];
+			}
+			while (below + histogram[median] <= rank) {
+				below += histogram[median];
+				median++;
+			}
+			return median;
+		}
+	}
+
+}
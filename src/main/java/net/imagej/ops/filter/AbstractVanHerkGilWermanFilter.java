@@ -0,0 +1,338 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter;
+
+import java.util.function.Consumer;
+
+import net.imglib2.FinalDimensions;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.neighborhood.RectangleShape;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+/**
+ * Abstract base class for filters over a {@link RectangleShape} which only
+ * depend on the minimum and/or maximum of each neighborhood, besides its center
+ * value. The extrema are computed with the van Herk/Gil-Werman algorithm.
+ * <p>
+ * The extremum over a rectangle is computed separably, one dimension after the
+ * other. Along each line, it is taken from prefix and suffix extrema of blocks
+ * as long as the window, which costs three comparisons per pixel regardless of
+ * the radius. Intermediate results are stored as floats if they represent all
+ * values of the input type exactly, i.e. for float and integer types of up to
+ * 24 bits, and as doubles otherwise. Depending on their size, they are kept in
+ * array or cell images.
+ * </p>
+ * <p>
+ * As in {@code stats.minMax}, NaN values are ignored: a neighborhood without
+ * any other values has a minimum of positive and a maximum of negative
+ * infinity.
+ * </p>
+ * <p>
+ * Not applicable to shapes skipping the center, which are not separable.
+ * </p>
+ * 
+ * @param <I> input type
+ * @param <O> output type
+ */
+public abstract class AbstractVanHerkGilWermanFilter<I extends RealType<I>, O extends RealType<O>>
+	extends AbstractRectangleFilter<I, O>
+{
+
+	/** Maximum number of bits of integer types which doubles hold exactly. */
+	private static final int MAX_INTEGER_BITS = 32;
+
+	/** Maximum number of bits of integer types which floats hold exactly. */
+	private static final int MAX_FLOAT_INTEGER_BITS = 24;
+
+	@Override
+	public boolean conforms() {
+		if (!super.conforms() || getShape().isSkippingCenter()) return false;
+		final I type = Util.getTypeFromInterval(in());
+		return !(type instanceof IntegerType) ||
+			type.getBitsPerPixel() <= MAX_INTEGER_BITS;
+	}
+
+	@Override
+	protected void compute(final RandomAccessible<I> extended,
+		final Interval interval, final RandomAccessibleInterval<O> output)
+	{
+		final I type = Util.getTypeFromInterval(in());
+		if (type instanceof FloatType || type instanceof IntegerType && type
+			.getBitsPerPixel() <= MAX_FLOAT_INTEGER_BITS)
+		{
+			compute(extended, interval, output, new FloatType());
+		}
+		else compute(extended, interval, output, new DoubleType());
+	}
+
+	/** Computes the filter with intermediate results of the given type. */
+	private <B extends NativeType<B> & RealType<B>> void compute(
+		final RandomAccessible<I> extended, final Interval interval,
+		final RandomAccessibleInterval<O> output, final B bufferType)
+	{
+		final int n = interval.numDimensions();
+		final int span = getShape().getSpan();
+
+		RandomAccessible<B> mins = null;
+		RandomAccessible<B> maxs = null;
+		for (int d = 0; d < n; d++) {
+			// NB: Dimensions not filtered yet need a margin for the later passes.
+			final long[] min = Intervals.minAsLongArray(interval);
+			final long[] max = Intervals.maxAsLongArray(interval);
+			for (int e = d + 1; e < n; e++) {
+				min[e] -= span;
+				max[e] += span;
+			}
+			final FinalInterval target = new FinalInterval(min, max);
+			final int dim = d;
+			final int length = (int) target.dimension(d);
+			final RandomAccessible<B> previousMins = mins;
+			final RandomAccessible<B> previousMaxs = maxs;
+
+			if (d == n - 1) {
+				forEachLine(target, d, () -> {
+					final Pass<B> pass = new Pass<>(extended, previousMins, previousMaxs,
+						dim, length, span);
+					pass.output(output);
+					return pass;
+				});
+				break;
+			}
+
+			final FinalDimensions dims = new FinalDimensions(Intervals
+				.dimensionsAsLongArray(target));
+			final RandomAccessibleInterval<B> nextMins = needsMin() ? Views
+				.translate(ops().create().img(dims, bufferType), min) : null;
+			final RandomAccessibleInterval<B> nextMaxs = needsMax() ? Views
+				.translate(ops().create().img(dims, bufferType), min) : null;
+			forEachLine(target, d, () -> {
+				final Pass<B> pass = new Pass<>(extended, previousMins, previousMaxs,
+					dim, length, span);
+				pass.extrema(nextMins, nextMaxs);
+				return pass;
+			});
+			mins = nextMins;
+			maxs = nextMaxs;
+		}
+	}
+
+	/** Whether {@link #filter} needs the minimum. */
+	protected abstract boolean needsMin();
+
+	/** Whether {@link #filter} needs the maximum. */
+	protected abstract boolean needsMax();
+
+	/**
+	 * Computes the filter result of one neighborhood.
+	 * 
+	 * @param min minimum of the neighborhood, or NaN if not {@link #needsMin()}
+	 * @param max maximum of the neighborhood, or NaN if not {@link #needsMax()}
+	 * @param center value at the center of the neighborhood
+	 * @param output the output to set
+	 */
+	protected abstract void filter(double min, double max, double center,
+		O output);
+
+	// -- Helper classes --
+
+	/** Filters lines along one dimension. */
+	private class Pass<B extends RealType<B>> implements Consumer<long[]> {
+
+		/** Input values, read in the first pass. */
+		private final RandomAccess<I> in;
+
+		/** Extrema of the previous pass, or null in the first pass. */
+		private final RandomAccess<B> inMins;
+
+		private final RandomAccess<B> inMaxs;
+
+		private final int dim;
+
+		private final int length;
+
+		private final int span;
+
+		private final int width;
+
+		private final double[] values;
+
+		private final double[] mins;
+
+		private final double[] maxs;
+
+		/** Extrema from the start of each block up to each position. */
+		private final double[] prefix;
+
+		/** Extrema from each position up to the end of its block. */
+		private final double[] suffix;
+
+		private RandomAccess<B> outMins;
+
+		private RandomAccess<B> outMaxs;
+
+		private RandomAccess<O> out;
+
+		private RandomAccess<I> center;
+
+		public Pass(final RandomAccessible<I> extended,
+			final RandomAccessible<B> mins, final RandomAccessible<B> maxs,
+			final int dim, final int length, final int span)
+		{
+			in = extended.randomAccess();
+			inMins = mins == null ? null : mins.randomAccess();
+			inMaxs = maxs == null ? null : maxs.randomAccess();
+			this.dim = dim;
+			this.length = length;
+			this.span = span;
+			width = 2 * span + 1;
+			values = new double[length + 2 * span];
+			prefix = new double[values.length];
+			suffix = new double[values.length];
+			this.mins = needsMin() ? new double[length] : null;
+			this.maxs = needsMax() ? new double[length] : null;
+		}
+
+		/** Makes this pass write the extrema of its lines. */
+		public void extrema(final RandomAccessible<B> mins,
+			final RandomAccessible<B> maxs)
+		{
+			outMins = mins == null ? null : mins.randomAccess();
+			outMaxs = maxs == null ? null : maxs.randomAccess();
+		}
+
+		/** Makes this pass write the filter result of its lines. */
+		public void output(final RandomAccessible<O> output) {
+			out = output.randomAccess();
+			center = in.copyRandomAccess();
+		}
+
+		@Override
+		public void accept(final long[] start) {
+			if (mins != null) {
+				read(inMins, start);
+				extrema(false, mins);
+			}
+			if (maxs != null) {
+				read(inMaxs, start);
+				extrema(true, maxs);
+			}
+
+			if (out == null) {
+				if (mins != null) write(outMins, start, mins);
+				if (maxs != null) write(outMaxs, start, maxs);
+				return;
+			}
+			out.setPosition(start);
+			center.setPosition(start);
+			for (int i = 0; i < length; i++) {
+				filter(mins == null ? Double.NaN : mins[i], maxs == null ? Double.NaN
+					: maxs[i], center.get().getRealDouble(), out.get());
+				center.fwd(dim);
+				out.fwd(dim);
+			}
+		}
+
+		/**
+		 * Reads the (padded) line starting at the given position, from the given
+		 * extrema of the previous pass or else from the input.
+		 */
+		private void read(final RandomAccess<B> source, final long[] start)
+		{
+			final int padded = values.length;
+			if (source == null) {
+				in.setPosition(start);
+				in.move(-span, dim);
+				for (int i = 0; i < padded; i++) {
+					values[i] = in.get().getRealDouble();
+					in.fwd(dim);
+				}
+				return;
+			}
+			source.setPosition(start);
+			source.move(-span, dim);
+			for (int i = 0; i < padded; i++) {
+				values[i] = source.get().getRealDouble();
+				source.fwd(dim);
+			}
+		}
+
+		/** Computes the extrema of all windows of the line read last. */
+		private void extrema(final boolean max, final double[] result) {
+			final int padded = values.length;
+			// NB: NaN is replaced by the identity of the extremum, i.e. ignored.
+			final double identity = max ? Double.NEGATIVE_INFINITY
+				: Double.POSITIVE_INFINITY;
+			for (int i = 0; i < padded; i++) {
+				if (Double.isNaN(values[i])) values[i] = identity;
+			}
+			for (int i = 0; i < padded; i++) {
+				prefix[i] = i % width == 0 ? values[i] : combine(max, prefix[i - 1],
+					values[i]);
+			}
+			for (int i = padded - 1; i >= 0; i--) {
+				suffix[i] = i == padded - 1 || (i + 1) % width == 0 ? values[i]
+					: combine(max, suffix[i + 1], values[i]);
+			}
+			// NB: A window starting at i spans at most two blocks.
+			for (int i = 0; i < length; i++) {
+				result[i] = combine(max, suffix[i], prefix[i + width - 1]);
+			}
+		}
+
+		private void write(final RandomAccess<B> target,
+			final long[] start, final double[] result)
+		{
+			target.setPosition(start);
+			for (int i = 0; i < length; i++) {
+				target.get().setReal(result[i]);
+				target.fwd(dim);
+			}
+		}
+	}
+
+	private static double combine(final boolean max, final double a,
+		final double b)
+	{
+		return max ? Math.max(a, b) : Math.min(a, b);
+	}
+
+}
@@ -31,6 +31,7 @@ package net.imagej.ops.filter;
 
 import net.imagej.ops.Ops;
 import net.imagej.ops.filter.fft.FFTMethodsOpC;
+import net.imagej.ops.filter.fft.KernelSpectrumCache;
 import net.imagej.ops.filter.ifft.IFFTMethodsOpC;
 import net.imagej.ops.special.computer.BinaryComputerOp;
 import net.imagej.ops.special.computer.Computers;
@@ -98,9 +99,10 @@ public class FFTMethodsLinearFFTFilterC<I extends RealType<I>, O extends RealTyp
 			fftIn.compute(in, getFFTInput());
 		}
 
-		// perform kernel FFT if needed
+		// perform kernel FFT if needed, reusing the spectrum of an equal kernel
 		if (getPerformKernelFFT()) {
-			fftKernel.compute(kernel, getFFTKernel());
+			KernelSpectrumCache.of(ops().getContext()).transform(
+				fftKernel, kernel, getFFTKernel());
 		}
 
 		// perform the operation in frequency domain (ie multiplication for
@@ -35,6 +35,8 @@ import net.imagej.ops.AbstractNamespace;
 import net.imagej.ops.Namespace;
 import net.imagej.ops.OpMethod;
 import net.imagej.ops.Ops;
+import net.imagej.ops.filter.convolve.ConvolveCostModel;
+import net.imagej.ops.filter.scaleSpace.ScaleSpace;
 import net.imagej.ops.special.computer.BinaryComputerOp;
 import net.imagej.ops.special.computer.UnaryComputerOp;
 import net.imagej.ops.special.function.UnaryFunctionOp;
@@ -43,6 +45,7 @@ import net.imglib2.Interval;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.neighborhood.RectangleShape;
 import net.imglib2.algorithm.neighborhood.Shape;
 import net.imglib2.img.Img;
 import net.imglib2.outofbounds.OutOfBoundsFactory;
@@ -51,6 +54,7 @@ import net.imglib2.type.Type;
 import net.imglib2.type.numeric.ComplexType;
 import net.imglib2.type.numeric.NumericType;
 import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.view.composite.CompositeIntervalView;
 import net.imglib2.view.composite.RealComposite;
 
@@ -136,10 +140,32 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/**
+	 * Executes a bilateral filter on the given arguments, optionally
+	 * approximated on a bilateral grid.
+	 * 
+	 * @param in
+	 * @param out
+	 * @param sigmaR
+	 * @param sigmaS
+	 * @param radius
+	 * @param approximate
+	 * @return
+	 */
+	@OpMethod(op = net.imagej.ops.filter.bilateral.DefaultBilateral.class)
+	public <I extends RealType<I>, O extends RealType<O>> RandomAccessibleInterval<O> bilateral(
+			final RandomAccessibleInterval<O> out, final RandomAccessibleInterval<I> in, final double sigmaR,
+			final double sigmaS, final int radius, final boolean approximate) {
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result = (RandomAccessibleInterval<O>) ops().run(Ops.Filter.Bilateral.class,
+				out, in, sigmaR, sigmaS, radius, approximate);
+		return result;
+	}
+
 	// -- convolve --
 	/** Executes the "convolve" operation on the given arguments. */
-	@OpMethod(ops = { net.imagej.ops.filter.convolve.ConvolveFFTF.class,
-			net.imagej.ops.filter.convolve.ConvolveNaiveF.class })
+	@OpMethod(ops = { net.imagej.ops.filter.convolve.ConvolveAutoF.class,
+			net.imagej.ops.filter.convolve.ConvolveFFTF.class, net.imagej.ops.filter.convolve.ConvolveNaiveF.class })
 	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>> RandomAccessibleInterval<O> convolve(
 			final RandomAccessibleInterval<I> in, final RandomAccessibleInterval<K> kernel) {
 		@SuppressWarnings("unchecked")
@@ -149,7 +175,8 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "convolve" operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveNaiveF.class)
+	@OpMethod(ops = { net.imagej.ops.filter.convolve.ConvolveAutoF.class,
+			net.imagej.ops.filter.convolve.ConvolveNaiveF.class })
 	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>> RandomAccessibleInterval<O> convolve(
 			final RandomAccessibleInterval<I> in, final RandomAccessibleInterval<K> kernel,
 			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obf) {
@@ -160,7 +187,8 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "convolve" operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveNaiveF.class)
+	@OpMethod(ops = { net.imagej.ops.filter.convolve.ConvolveAutoF.class,
+			net.imagej.ops.filter.convolve.ConvolveNaiveF.class })
 	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>> RandomAccessibleInterval<O> convolve(
 			final RandomAccessibleInterval<I> in, final RandomAccessibleInterval<K> kernel,
 			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obf, final Type<O> outType) {
@@ -170,6 +198,18 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/** Executes the "convolve" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveAutoF.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>> RandomAccessibleInterval<O> convolve(
+			final RandomAccessibleInterval<I> in, final RandomAccessibleInterval<K> kernel,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obf, final Type<O> outType,
+			final ConvolveCostModel.Engine engine) {
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result = (RandomAccessibleInterval<O>) ops().run(Ops.Filter.Convolve.class,
+				in, kernel, obf, outType, engine);
+		return result;
+	}
+
 	/** Executes the "convolve" operation on the given arguments. */
 	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveFFTF.class)
 	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>> RandomAccessibleInterval<O> convolve(
@@ -228,6 +268,50 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/** Executes the "convolve" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveFFTBlockwiseF.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>> RandomAccessibleInterval<O> convolve(
+			final RandomAccessibleInterval<I> in, final RandomAccessibleInterval<K> kernel, final Dimensions blockSize) {
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result = (RandomAccessibleInterval<O>) ops().run(Ops.Filter.Convolve.class,
+				in, kernel, blockSize);
+		return result;
+	}
+
+	/** Executes the "convolve" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveFFTBlockwiseF.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>> RandomAccessibleInterval<O> convolve(
+			final RandomAccessibleInterval<I> in, final RandomAccessibleInterval<K> kernel, final Dimensions blockSize,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput) {
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result = (RandomAccessibleInterval<O>) ops().run(Ops.Filter.Convolve.class,
+				in, kernel, blockSize, obfInput);
+		return result;
+	}
+
+	/** Executes the "convolve" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveFFTBlockwiseF.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>> RandomAccessibleInterval<O> convolve(
+			final RandomAccessibleInterval<I> in, final RandomAccessibleInterval<K> kernel, final Dimensions blockSize,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput, final Type<O> outType) {
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result = (RandomAccessibleInterval<O>) ops().run(Ops.Filter.Convolve.class,
+				in, kernel, blockSize, obfInput, outType);
+		return result;
+	}
+
+	/** Executes the "convolve" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveFFTBlockwiseF.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>, C extends ComplexType<C>> RandomAccessibleInterval<O> convolve(
+			final RandomAccessibleInterval<I> in, final RandomAccessibleInterval<K> kernel, final Dimensions blockSize,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput, final Type<O> outType,
+			final C fftType) {
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result = (RandomAccessibleInterval<O>) ops().run(Ops.Filter.Convolve.class,
+				in, kernel, blockSize, obfInput, outType, fftType);
+		return result;
+	}
+
 	/** Executes the "convolve" operation on the given arguments. */
 	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveNaiveC.class)
 	public <I extends RealType<I>, K extends RealType<K>, O extends RealType<O>> RandomAccessibleInterval<O> convolve(
@@ -576,6 +660,13 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(op = net.imagej.ops.filter.dog.DoGScaleSpace.class)
+	public <T extends RealType<T>> ScaleSpace<FloatType> dog(final ScaleSpace<T> in) {
+		@SuppressWarnings("unchecked")
+		final ScaleSpace<FloatType> result = (ScaleSpace<FloatType>) ops().run(Ops.Filter.DoG.class, in);
+		return result;
+	}
+
 	// -- frangiVesselness --
 
 	/**
@@ -602,10 +693,52 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/**
+	 * Executes the multi-scale "Frangi Vesselness" filter operation on the
+	 * levels of a scale space, with unit spacing.
+	 *
+	 * @param out - output image, sized like the finest level
+	 * @param in - scale space of the input image
+	 */
+	@OpMethod(op = net.imagej.ops.filter.vesselness.FrangiScaleSpace.class)
+	public <T extends RealType<T>, U extends RealType<U>>
+		RandomAccessibleInterval<U> frangiVesselness(
+			final RandomAccessibleInterval<U> out, final ScaleSpace<T> in)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<U> result =
+			(RandomAccessibleInterval<U>) ops().run(Ops.Filter.FrangiVesselness.class,
+				out, in);
+		return result;
+	}
+
+	/**
+	 * Executes the multi-scale "Frangi Vesselness" filter operation on the
+	 * levels of a scale space.
+	 *
+	 * @param out - output image, sized like the finest level
+	 * @param in - scale space of the input image
+	 * @param spacing - n-dimensional array indicating the physical distance
+	 *          between data points in the image
+	 */
+	@OpMethod(op = net.imagej.ops.filter.vesselness.FrangiScaleSpace.class)
+	public <T extends RealType<T>, U extends RealType<U>>
+		RandomAccessibleInterval<U> frangiVesselness(
+			final RandomAccessibleInterval<U> out, final ScaleSpace<T> in,
+			final double[] spacing)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<U> result =
+			(RandomAccessibleInterval<U>) ops().run(Ops.Filter.FrangiVesselness.class,
+				out, in, spacing);
+		return result;
+	}
+
 	// -- gauss --
 
 	/** Executes the "gauss" operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.gauss.DefaultGaussRAI.class)
+	@OpMethod(ops = { net.imagej.ops.filter.gauss.DefaultGaussRAI.class,
+		net.imagej.ops.filter.gauss.RecursiveGaussRAI.class })
 	public <T extends NumericType<T>, V extends NumericType<V>> RandomAccessibleInterval<V> gauss(
 			final RandomAccessibleInterval<V> out, final RandomAccessibleInterval<T> in, final double[] sigmas,
 			final OutOfBoundsFactory<T, RandomAccessibleInterval<T>> outOfBounds) {
@@ -616,7 +749,8 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "gauss" operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.gauss.DefaultGaussRAI.class)
+	@OpMethod(ops = { net.imagej.ops.filter.gauss.DefaultGaussRAI.class,
+		net.imagej.ops.filter.gauss.RecursiveGaussRAI.class })
 	public <T extends NumericType<T>, V extends NumericType<V>> RandomAccessibleInterval<V> gauss(
 			final RandomAccessibleInterval<V> out, final RandomAccessibleInterval<T> in, final double... sigmas) {
 		@SuppressWarnings("unchecked")
@@ -626,7 +760,8 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "gauss" operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.gauss.DefaultGaussRAI.class)
+	@OpMethod(ops = { net.imagej.ops.filter.gauss.DefaultGaussRAI.class,
+		net.imagej.ops.filter.gauss.RecursiveGaussRAI.class })
 	public <T extends NumericType<T>, V extends NumericType<V>> RandomAccessibleInterval<V> gauss(
 			final RandomAccessibleInterval<T> in, final double... sigmas) {
 		@SuppressWarnings("unchecked")
@@ -675,6 +810,66 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	// -- gradient --
+
+	/** Executes the "gradient" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.gradient.DefaultGradient.class)
+	public <T extends RealType<T>> RandomAccessibleInterval<FloatType> gradient(
+		final RandomAccessibleInterval<T> in)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> result =
+			(RandomAccessibleInterval<FloatType>) ops().run(Ops.Filter.Gradient.class, null, in);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.filter.gradient.DefaultGradient.class)
+	public <T extends RealType<T>> RandomAccessibleInterval<FloatType> gradient(
+		final RandomAccessibleInterval<FloatType> out,
+		final RandomAccessibleInterval<T> in)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> result =
+			(RandomAccessibleInterval<FloatType>) ops().run(Ops.Filter.Gradient.class, out, in);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.filter.gradient.DefaultGradient.class)
+	public <T extends RealType<T>> RandomAccessibleInterval<FloatType> gradient(
+		final RandomAccessibleInterval<FloatType> out,
+		final RandomAccessibleInterval<T> in, final int numBins)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> result =
+			(RandomAccessibleInterval<FloatType>) ops().run(Ops.Filter.Gradient.class, out, in, numBins);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.filter.gradient.DefaultGradient.class)
+	public <T extends RealType<T>> RandomAccessibleInterval<FloatType> gradient(
+		final RandomAccessibleInterval<FloatType> out,
+		final RandomAccessibleInterval<T> in, final int numBins, final boolean sobel)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> result =
+			(RandomAccessibleInterval<FloatType>) ops().run(Ops.Filter.Gradient.class, out, in, numBins,
+				sobel);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.filter.gradient.DefaultGradient.class)
+	public <T extends RealType<T>> RandomAccessibleInterval<FloatType> gradient(
+		final RandomAccessibleInterval<FloatType> out,
+		final RandomAccessibleInterval<T> in, final int numBins, final boolean sobel,
+		final OutOfBoundsFactory<T, RandomAccessibleInterval<T>> outOfBounds)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> result =
+			(RandomAccessibleInterval<FloatType>) ops().run(Ops.Filter.Gradient.class, out, in, numBins,
+				sobel, outOfBounds);
+		return result;
+	}
+
 	// -- hessian --
 
 	@OpMethod(op = net.imagej.ops.filter.hessian.HessianRAI.class)
@@ -688,6 +883,17 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(op = net.imagej.ops.filter.hessian.HessianScaleSpace.class)
+	public <T extends RealType<T>> List<CompositeIntervalView<T, RealComposite<T>>>
+		hessian(final ScaleSpace<T> in)
+	{
+		@SuppressWarnings("unchecked")
+		final List<CompositeIntervalView<T, RealComposite<T>>> result =
+			(List<CompositeIntervalView<T, RealComposite<T>>>) ops().run(
+				Ops.Filter.Hessian.class, in);
+		return result;
+	}
+
 	// -- ifft --
 
 	/** Executes the "ifft" operation on the given arguments. */
@@ -771,6 +977,26 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/** Executes the "mean" filter operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.mean.RectangleMeanFilter.class)
+	public <I extends RealType<I>, O extends RealType<O>> IterableInterval<O> mean(final IterableInterval<O> out,
+			final RandomAccessibleInterval<I> in, final RectangleShape shape) {
+		@SuppressWarnings("unchecked")
+		final IterableInterval<O> result = (IterableInterval<O>) ops().run(Ops.Filter.Mean.class, out, in, shape);
+		return result;
+	}
+
+	/** Executes the "mean" filter operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.mean.RectangleMeanFilter.class)
+	public <I extends RealType<I>, O extends RealType<O>> IterableInterval<O> mean(final IterableInterval<O> out,
+			final RandomAccessibleInterval<I> in, final RectangleShape shape,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> outOfBoundsFactory) {
+		@SuppressWarnings("unchecked")
+		final IterableInterval<O> result = (IterableInterval<O>) ops().run(Ops.Filter.Mean.class, out, in, shape,
+				outOfBoundsFactory);
+		return result;
+	}
+
 	// -- non-linear filters --
 
 	/** Executes the "max" filter operation on the given arguments. */
@@ -793,6 +1019,26 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/** Executes the "max" filter operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.max.RectangleMaxFilter.class)
+	public <T extends RealType<T>> IterableInterval<T> max(final IterableInterval<T> out,
+			final RandomAccessibleInterval<T> in, final RectangleShape shape) {
+		@SuppressWarnings("unchecked")
+		final IterableInterval<T> result = (IterableInterval<T>) ops().run(Ops.Filter.Max.class, out, in, shape);
+		return result;
+	}
+
+	/** Executes the "max" filter operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.max.RectangleMaxFilter.class)
+	public <T extends RealType<T>> IterableInterval<T> max(final IterableInterval<T> out,
+			final RandomAccessibleInterval<T> in, final RectangleShape shape,
+			final OutOfBoundsFactory<T, T> outOfBoundsFactory) {
+		@SuppressWarnings("unchecked")
+		final IterableInterval<T> result = (IterableInterval<T>) ops().run(Ops.Filter.Max.class, out, in, shape,
+				outOfBoundsFactory);
+		return result;
+	}
+
 	/** Executes the "median" filter operation on the given arguments. */
 	@OpMethod(op = net.imagej.ops.filter.median.DefaultMedianFilter.class)
 	public <T extends RealType<T>> IterableInterval<T> median(final IterableInterval<T> out,
@@ -813,6 +1059,26 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/** Executes the "median" filter operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.median.RectangleMedianFilter.class)
+	public <T extends RealType<T>> IterableInterval<T> median(final IterableInterval<T> out,
+			final RandomAccessibleInterval<T> in, final RectangleShape shape) {
+		@SuppressWarnings("unchecked")
+		final IterableInterval<T> result = (IterableInterval<T>) ops().run(Ops.Filter.Median.class, out, in, shape);
+		return result;
+	}
+
+	/** Executes the "median" filter operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.median.RectangleMedianFilter.class)
+	public <T extends RealType<T>> IterableInterval<T> median(final IterableInterval<T> out,
+			final RandomAccessibleInterval<T> in, final RectangleShape shape,
+			final OutOfBoundsFactory<T, T> outOfBoundsFactory) {
+		@SuppressWarnings("unchecked")
+		final IterableInterval<T> result = (IterableInterval<T>) ops().run(Ops.Filter.Median.class, out, in, shape,
+				outOfBoundsFactory);
+		return result;
+	}
+
 	/** Executes the "min" filter operation on the given arguments. */
 	@OpMethod(op = net.imagej.ops.filter.min.DefaultMinFilter.class)
 	public <T extends RealType<T>> IterableInterval<T> min(final IterableInterval<T> out,
@@ -833,6 +1099,26 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/** Executes the "min" filter operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.min.RectangleMinFilter.class)
+	public <T extends RealType<T>> IterableInterval<T> min(final IterableInterval<T> out,
+			final RandomAccessibleInterval<T> in, final RectangleShape shape) {
+		@SuppressWarnings("unchecked")
+		final IterableInterval<T> result = (IterableInterval<T>) ops().run(Ops.Filter.Min.class, out, in, shape);
+		return result;
+	}
+
+	/** Executes the "min" filter operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.min.RectangleMinFilter.class)
+	public <T extends RealType<T>> IterableInterval<T> min(final IterableInterval<T> out,
+			final RandomAccessibleInterval<T> in, final RectangleShape shape,
+			final OutOfBoundsFactory<T, T> outOfBoundsFactory) {
+		@SuppressWarnings("unchecked")
+		final IterableInterval<T> result = (IterableInterval<T>) ops().run(Ops.Filter.Min.class, out, in, shape,
+				outOfBoundsFactory);
+		return result;
+	}
+
 	/**
 	 * Executes the "paddingIntervalCentered" operation on the given arguments.
 	 */
@@ -993,6 +1279,53 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	// -- scaleSpace --
+
+	/** Executes the "scaleSpace" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.scaleSpace.DefaultScaleSpace.class)
+	public <T extends RealType<T>> ScaleSpace<FloatType> scaleSpace(
+		final RandomAccessibleInterval<T> in, final double... sigmas)
+	{
+		@SuppressWarnings("unchecked")
+		final ScaleSpace<FloatType> result = (ScaleSpace<FloatType>) ops().run(
+			Ops.Filter.ScaleSpace.class, in, sigmas);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.filter.scaleSpace.DefaultScaleSpace.class)
+	public <T extends RealType<T>> ScaleSpace<FloatType> scaleSpace(
+		final RandomAccessibleInterval<T> in, final double[] sigmas, final double inputSigma)
+	{
+		@SuppressWarnings("unchecked")
+		final ScaleSpace<FloatType> result = (ScaleSpace<FloatType>) ops().run(
+			Ops.Filter.ScaleSpace.class, in, sigmas, inputSigma);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.filter.scaleSpace.DefaultScaleSpace.class)
+	public <T extends RealType<T>> ScaleSpace<FloatType> scaleSpace(
+		final RandomAccessibleInterval<T> in, final double[] sigmas, final double inputSigma,
+		final boolean downsample)
+	{
+		@SuppressWarnings("unchecked")
+		final ScaleSpace<FloatType> result = (ScaleSpace<FloatType>) ops().run(
+			Ops.Filter.ScaleSpace.class, in, sigmas, inputSigma, downsample);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.filter.scaleSpace.DefaultScaleSpace.class)
+	public <T extends RealType<T>> ScaleSpace<FloatType> scaleSpace(
+		final RandomAccessibleInterval<T> in, final double[] sigmas, final double inputSigma,
+		final boolean downsample,
+		final OutOfBoundsFactory<FloatType, RandomAccessibleInterval<FloatType>> outOfBounds)
+	{
+		@SuppressWarnings("unchecked")
+		final ScaleSpace<FloatType> result = (ScaleSpace<FloatType>) ops().run(
+			Ops.Filter.ScaleSpace.class, in, sigmas, inputSigma, downsample,
+			outOfBounds);
+		return result;
+	}
+
 	// -- Sobel
 
     @OpMethod(op = net.imagej.ops.filter.sobel.SobelRAI.class)
@@ -1037,6 +1370,26 @@ public class FilterNamespace extends AbstractNamespace {
 				outOfBoundsFactory);
 		return result;
 	}
+
+	/** Executes the "variance" filter operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.variance.RectangleVarianceFilter.class)
+	public <T extends RealType<T>> IterableInterval<T> variance(final IterableInterval<T> out,
+			final RandomAccessibleInterval<T> in, final RectangleShape shape) {
+		@SuppressWarnings("unchecked")
+		final IterableInterval<T> result = (IterableInterval<T>) ops().run(Ops.Filter.Variance.class, out, in, shape);
+		return result;
+	}
+
+	/** Executes the "variance" filter operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.variance.RectangleVarianceFilter.class)
+	public <T extends RealType<T>> IterableInterval<T> variance(final IterableInterval<T> out,
+			final RandomAccessibleInterval<T> in, final RectangleShape shape,
+			final OutOfBoundsFactory<T, T> outOfBoundsFactory) {
+		@SuppressWarnings("unchecked")
+		final IterableInterval<T> result = (IterableInterval<T>) ops().run(Ops.Filter.Variance.class, out, in, shape,
+				outOfBoundsFactory);
+		return result;
+	}
 	
 	// -- Namespace methods --
 
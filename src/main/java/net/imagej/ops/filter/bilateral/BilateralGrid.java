@@ -0,0 +1,221 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.bilateral;
+
+import net.imagej.ops.OpEnvironment;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.view.Views;
+
+/**
+ * Bilateral grid of an image, after Paris and Durand, "A Fast Approximation of
+ * the Bilateral Filter using a Signal Processing Approach" (2006).
+ * <p>
+ * Values are splatted into a grid whose cells span sigmaS pixels in space and
+ * sigmaR in intensity, the grid is blurred, and the result is sliced at the
+ * position of each pixel by multilinear interpolation.
+ * </p>
+ */
+class BilateralGrid<I extends RealType<I>> {
+
+	/** Number of empty cells at both ends of each grid dimension. */
+	private static final int PADDING = 2;
+
+	/** Binomial approximation of a Gaussian with a sigma of one cell. */
+	private static final double[] KERNEL = { 1 / 16d, 4 / 16d, 6 / 16d, 4 / 16d, 1 / 16d };
+
+	private final RandomAccessibleInterval<I> input;
+
+	private final double sigmaS;
+
+	private final double sigmaR;
+
+	private final int[] dims;
+
+	private final int[] strides;
+
+	private final double[] data;
+
+	private final double[] weights;
+
+	private double min = Double.POSITIVE_INFINITY;
+
+	public BilateralGrid(final RandomAccessibleInterval<I> input, final double sigmaS, final double sigmaR) {
+		this.input = input;
+		this.sigmaS = sigmaS;
+		this.sigmaR = sigmaR;
+
+		double max = Double.NEGATIVE_INFINITY;
+		for (final I t : Views.iterable(input)) {
+			min = Math.min(min, t.getRealDouble());
+			max = Math.max(max, t.getRealDouble());
+		}
+
+		final int n = input.numDimensions();
+		dims = new int[n + 1];
+		strides = new int[n + 1];
+		long size = 1;
+		for (int d = 0; d <= n; d++) {
+			final double extent = d < n ? (input.dimension(d) - 1) / sigmaS : (max - min) / sigmaR;
+			dims[d] = (int) Math.ceil(extent) + 1 + 2 * PADDING;
+			strides[d] = (int) size;
+			size *= dims[d];
+			if (size > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Bilateral grid too large; increase sigmaS or sigmaR");
+			}
+		}
+		data = new double[(int) size];
+		weights = new double[(int) size];
+	}
+
+	/** Computes the approximate bilateral filter into the given output. */
+	public void filter(final OpEnvironment ops, final RandomAccessibleInterval<? extends RealType<?>> output) {
+		splat();
+		for (int d = 0; d < dims.length; d++) {
+			blur(ops, d);
+		}
+		slice(ops, output);
+	}
+
+	// -- Helper methods --
+
+	private void splat() {
+		final int n = input.numDimensions();
+		final Cursor<I> cursor = Views.iterable(input).localizingCursor();
+		while (cursor.hasNext()) {
+			final double value = cursor.next().getRealDouble();
+			int index = 0;
+			for (int d = 0; d < n; d++) {
+				index += (Math.round((cursor.getLongPosition(d) - input.min(d)) / sigmaS) + PADDING) * strides[d];
+			}
+			index += (Math.round((value - min) / sigmaR) + PADDING) * strides[n];
+			data[index] += value;
+			weights[index] += 1;
+		}
+	}
+
+	/** Convolves all lines of the grid along the given dimension. */
+	private void blur(final OpEnvironment ops, final int dim) {
+		final int length = dims[dim];
+		final int stride = strides[dim];
+		ops.run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize, final int numSteps) {
+				final double[] dataLine = new double[length];
+				final double[] weightLine = new double[length];
+				int line = startIndex;
+				for (int step = 0; step < numSteps; step++) {
+					final int start = line % stride + line / stride * stride * length;
+					for (int i = 0; i < length; i++) {
+						dataLine[i] = data[start + i * stride];
+						weightLine[i] = weights[start + i * stride];
+					}
+					for (int i = 0; i < length; i++) {
+						double v = 0;
+						double w = 0;
+						for (int k = 0; k < KERNEL.length; k++) {
+							final int j = i + k - KERNEL.length / 2;
+							if (j < 0 || j >= length) continue;
+							v += KERNEL[k] * dataLine[j];
+							w += KERNEL[k] * weightLine[j];
+						}
+						data[start + i * stride] = v;
+						weights[start + i * stride] = w;
+					}
+					line += stepSize;
+				}
+			}
+		}, data.length / length);
+	}
+
+	private void slice(final OpEnvironment ops, final RandomAccessibleInterval<? extends RealType<?>> output) {
+		final int n = input.numDimensions();
+		final long[] size = new long[n];
+		input.dimensions(size);
+		long numElements = 1;
+		for (final long s : size)
+			numElements *= s;
+
+		ops.run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize, final int numSteps) {
+				final RandomAccess<I> inputRA = input.randomAccess();
+				final RandomAccess<? extends RealType<?>> outputRA = output.randomAccess();
+				final long[] position = new long[n];
+				final int[] floor = new int[n + 1];
+				final double[] fraction = new double[n + 1];
+
+				long index = startIndex;
+				for (int step = 0; step < numSteps; step++) {
+					long rest = index;
+					for (int d = 0; d < n; d++) {
+						position[d] = input.min(d) + rest % size[d];
+						rest /= size[d];
+					}
+					inputRA.setPosition(position);
+					final double value = inputRA.get().getRealDouble();
+
+					for (int d = 0; d <= n; d++) {
+						final double x = (d < n ? (position[d] - input.min(d)) / sigmaS : (value - min) / sigmaR)
+								+ PADDING;
+						floor[d] = (int) x;
+						fraction[d] = x - floor[d];
+					}
+
+					// NB: Interpolates between the 2^(n+1) surrounding cells.
+					double v = 0;
+					double w = 0;
+					for (int corner = 0; corner < 1 << (n + 1); corner++) {
+						double factor = 1;
+						int cell = 0;
+						for (int d = 0; d <= n; d++) {
+							final boolean upper = (corner >> d & 1) != 0;
+							factor *= upper ? fraction[d] : 1 - fraction[d];
+							cell += (floor[d] + (upper ? 1 : 0)) * strides[d];
+						}
+						v += factor * data[cell];
+						w += factor * weights[cell];
+					}
+
+					outputRA.setPosition(position);
+					outputRA.get().setReal(w > 0 ? v / w : value);
+					index += stepSize;
+				}
+			}
+		}, numElements);
+	}
+}
@@ -35,21 +35,31 @@ import org.scijava.plugin.Plugin;
 
 import net.imagej.ops.Contingent;
 import net.imagej.ops.Ops;
+import net.imagej.ops.Parallel;
 import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
-import net.imglib2.Cursor;
-import net.imglib2.FinalInterval;
-import net.imglib2.Interval;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
-import net.imglib2.algorithm.neighborhood.Neighborhood;
-import net.imglib2.algorithm.neighborhood.RectangleNeighborhood;
-import net.imglib2.algorithm.neighborhood.RectangleNeighborhoodFactory;
+import net.imglib2.type.numeric.IntegerType;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.util.Intervals;
-import net.imglib2.view.Views;
+import net.imglib2.util.Util;
 
 /**
  * Performs a bilateral filter on an image.
+ * <p>
+ * The window of each pixel is the box of the given radius around it, clipped
+ * to the image, in all dimensions. Spatial weights are computed once per
+ * offset, and range weights are looked up in a table: exactly for integer
+ * types of up to 16 bits, and with linear interpolation between samples for
+ * other types. Pixels are filtered in parallel.
+ * </p>
+ * <p>
+ * In the optional approximate mode, the filter is computed on a bilateral grid
+ * (Paris and Durand, 2006) instead, whose cost does not depend on the radius
+ * or on sigmaS; the radius is ignored then.
+ * </p>
  *
  * @author Gabe Selzer
  * @param <I>
@@ -59,11 +69,16 @@ import net.imglib2.view.Views;
 @Plugin(type = Ops.Filter.Bilateral.class, priority = Priority.NORMAL_PRIORITY)
 public class DefaultBilateral<I extends RealType<I>, O extends RealType<O>>
 		extends AbstractUnaryComputerOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<O>>
-		implements Ops.Filter.Bilateral, Contingent {
+		implements Ops.Filter.Bilateral, Contingent, Parallel {
 
-	public final static int MIN_DIMS = 2;
+	/** Maximum number of bits of integer types with an exact range table. */
+	private static final int MAX_EXACT_BITS = 16;
 
-	public final static int MAX_DIMS = 2;
+	/** Samples of the range weight per sigmaR, for non-integer types. */
+	private static final int SAMPLES_PER_SIGMA = 64;
+
+	/** Range difference, in sigmaR, beyond which weights are zero. */
+	private static final int RANGE_CUTOFF = 8;
 
 	/**
 	 * refers to the range smoothing parameter; the greater the sigma, the greater
@@ -86,76 +101,165 @@ public class DefaultBilateral<I extends RealType<I>, O extends RealType<O>>
 	@Parameter
 	private int radius;
 
+	/**
+	 * whether to approximate the filter on a bilateral grid, which is much
+	 * faster for large sigmaS.
+	 */
+	@Parameter(required = false)
+	private boolean approximate;
+
 	private static double gauss(final double x, final double sigma) {
 		final double mu = 0.0;
 		return (1 / (sigma * Math.sqrt(2 * Math.PI))) * Math.exp((-0.5 * (x - mu) * (x - mu)) / (sigma * sigma));
 	}
 
-	private double getDistance(long[] x, long[] y) {
-		double distance = 0;
+	@Override
+	public void compute(final RandomAccessibleInterval<I> input, final RandomAccessibleInterval<O> output) {
+		if (approximate) {
+			new BilateralGrid<>(input, sigmaS, sigmaR).filter(ops(), output);
+			return;
+		}
+
+		final int n = input.numDimensions();
+		final double[] spatial = spatialWeights(n);
+		final RangeWeights range = rangeWeights(Util.getTypeFromInterval(input));
+
+		ops().run(ChunkerOp.class, new Chunk() {
 
-		for (int i = 0; i < x.length; i++) {
-			double separation = (x[i] - y[i]);
-			if (separation != 0) {
-				distance += (separation * separation);
+			@Override
+			public void execute(final int startIndex, final int stepSize, final int numSteps) {
+				final RandomAccess<I> centerRA = input.randomAccess();
+				final RandomAccess<I> windowRA = input.randomAccess();
+				final RandomAccess<O> outputRA = output.randomAccess();
+				final long[] position = new long[n];
+				final long[] min = new long[n];
+				final long[] max = new long[n];
+				final int[] strides = strides(n);
+
+				long index = startIndex;
+				for (int step = 0; step < numSteps; step++) {
+					position(index, input, position);
+					int offset = 0;
+					for (int d = 0; d < n; d++) {
+						min[d] = Math.max(input.min(d), position[d] - radius);
+						max[d] = Math.min(input.max(d), position[d] + radius);
+						offset += (min[d] - position[d] + radius) * strides[d];
+					}
+
+					centerRA.setPosition(position);
+					final double center = centerRA.get().getRealDouble();
+					windowRA.setPosition(min);
+
+					// NB: Visits the window in flat iteration order.
+					double v = 0.0;
+					double w = 0.0;
+					int table = offset;
+					while (true) {
+						final double value = windowRA.get().getRealDouble();
+						final double weight = spatial[table] * range.weight(Math.abs(center - value));
+						v += weight * value;
+						w += weight;
+
+						int d = 0;
+						for (; d < n; d++) {
+							if (windowRA.getLongPosition(d) < max[d]) {
+								windowRA.fwd(d);
+								table += strides[d];
+								break;
+							}
+							table -= (max[d] - min[d]) * strides[d];
+							windowRA.setPosition(min[d], d);
+						}
+						if (d == n) break;
+					}
+
+					outputRA.setPosition(position);
+					outputRA.get().setReal(v / w);
+					index += stepSize;
+				}
 			}
+		}, Intervals.numElements(input));
+	}
+
+	@Override
+	public boolean conforms() {
+		return (Intervals.equalDimensions(in(), out()));
+	}
+
+	// -- Helper methods --
 
+	/** Gets the strides of the flattened window of each dimension. */
+	private int[] strides(final int n) {
+		final int[] strides = new int[n];
+		int stride = 1;
+		for (int d = 0; d < n; d++) {
+			strides[d] = stride;
+			stride *= 2 * radius + 1;
 		}
+		return strides;
+	}
+
+	/** Gets the spatial weight of each offset of the flattened window. */
+	private double[] spatialWeights(final int n) {
+		final int width = 2 * radius + 1;
+		int size = 1;
+		for (int d = 0; d < n; d++)
+			size *= width;
 
-		return Math.sqrt(distance);
+		final double[] weights = new double[size];
+		for (int i = 0; i < size; i++) {
+			double distance = 0;
+			int rest = i;
+			for (int d = 0; d < n; d++) {
+				final double separation = rest % width - radius;
+				distance += separation * separation;
+				rest /= width;
+			}
+			weights[i] = gauss(Math.sqrt(distance), sigmaS);
+		}
+		return weights;
 	}
 
-	@Override
-	public void compute(final RandomAccessibleInterval<I> input, final RandomAccessibleInterval<O> output) {
+	private RangeWeights rangeWeights(final I type) {
+		if (type instanceof IntegerType && type.getBitsPerPixel() <= MAX_EXACT_BITS) {
+			// NB: Differences of integers are integers; the table is exact.
+			final double[] table = new double[(int) (type.getMaxValue() - type.getMinValue()) + 1];
+			for (int i = 0; i < table.length; i++) {
+				table[i] = gauss(i, sigmaR);
+			}
+			return difference -> table[(int) difference];
+		}
 
-		final long[] size = new long[input.numDimensions()];
-		input.dimensions(size);
-
-		final RandomAccess<O> outputRA = output.randomAccess();
-		final Cursor<I> inputCursor = Views.iterable(input).localizingCursor();
-		final long[] currentPos = new long[input.numDimensions()];
-		final long[] neighborhoodPos = new long[input.numDimensions()];
-		final long[] neighborhoodMin = new long[input.numDimensions()];
-		final long[] neighborhoodMax = new long[input.numDimensions()];
-		Neighborhood<I> neighborhood;
-		Cursor<I> neighborhoodCursor;
-		final RectangleNeighborhoodFactory<I> fac = RectangleNeighborhood.factory();
-		while (inputCursor.hasNext()) {
-			inputCursor.fwd();
-			inputCursor.localize(currentPos);
-			double distance;
-			inputCursor.localize(neighborhoodMin);
-			inputCursor.localize(neighborhoodMax);
-			neighborhoodMin[0] = Math.max(0, neighborhoodMin[0] - radius);
-			neighborhoodMin[1] = Math.max(0, neighborhoodMin[1] - radius);
-			neighborhoodMax[0] = Math.min(input.max(0), neighborhoodMax[0] + radius);
-			neighborhoodMax[1] = Math.min(input.max(1), neighborhoodMax[1] + radius);
-			final Interval interval = new FinalInterval(neighborhoodMin, neighborhoodMax);
-			neighborhood = fac.create(currentPos, neighborhoodMin, neighborhoodMax, interval, input.randomAccess());
-			neighborhoodCursor = neighborhood.localizingCursor();
-			double weight, v = 0.0;
-			double w = 0.0;
-			do {
-				neighborhoodCursor.fwd();
-				neighborhoodCursor.localize(neighborhoodPos);
-				distance = getDistance(currentPos, neighborhoodPos);
-				weight = gauss(distance, sigmaS);// spatial kernel
-
-				distance = Math.abs(inputCursor.get().getRealDouble() - neighborhoodCursor.get().getRealDouble());// intensity
-																													// difference
-				weight *= gauss(distance, sigmaR);// range kernel, then exponent addition
-
-				v += weight * neighborhoodCursor.get().getRealDouble();
-				w += weight;
-			} while (neighborhoodCursor.hasNext());
-			outputRA.setPosition(currentPos);
-			outputRA.get().setReal(v / w);
+		final double step = sigmaR / SAMPLES_PER_SIGMA;
+		final double[] table = new double[RANGE_CUTOFF * SAMPLES_PER_SIGMA + 2];
+		for (int i = 0; i < table.length; i++) {
+			table[i] = gauss(i * step, sigmaR);
 		}
+		final double cutoff = RANGE_CUTOFF * sigmaR;
+		return difference -> {
+			if (!(difference < cutoff)) return 0;
+			final double x = difference / step;
+			final int i = (int) x;
+			return table[i] + (x - i) * (table[i + 1] - table[i]);
+		};
+	}
 
+	/** Gets the position of the element with the given flat index. */
+	private static void position(final long index, final RandomAccessibleInterval<?> interval,
+			final long[] position) {
+		long rest = index;
+		for (int d = 0; d < position.length; d++) {
+			final long size = interval.dimension(d);
+			position[d] = interval.min(d) + rest % size;
+			rest /= size;
+		}
 	}
 
-	@Override
-	public boolean conforms() {
-		return (Intervals.equalDimensions(in(), out()));
+	// -- Helper classes --
+
+	/** Weight of an intensity difference. */
+	private interface RangeWeights {
+
+		double weight(double difference);
 	}
 }
@@ -0,0 +1,382 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.convolve;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.filter.convolve.ConvolveCostModel.Engine;
+import net.imagej.ops.special.function.AbstractBinaryFunctionOp;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.outofbounds.OutOfBoundsConstantValueFactory;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.Type;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Convolves an image with whichever engine the {@link ConvolveCostModel}
+ * expects to be cheapest: naive summation, 1-D passes for kernels of rank one
+ * (e.g. Gaussian, Sobel and box kernels), or {@link ConvolveFFTF}.
+ * <p>
+ * All engines place the center of the kernel at {@code dimension / 2} and
+ * compute the same (true) convolution.
+ * </p>
+ * <p>
+ * This op is only matched when an {@link Engine} is given, with
+ * {@link Engine#AUTO} selecting by cost. Calls without one keep being served
+ * by {@link ConvolveNaiveF}, which correlates rather than convolves, and
+ * {@link ConvolveFFTF}, so their results do not change.
+ * </p>
+ * 
+ * @param <I>
+ * @param <O>
+ * @param <K>
+ */
+@Plugin(type = Ops.Filter.Convolve.class, priority = Priority.HIGH_PRIORITY +
+	2)
+public class ConvolveAutoF<I extends RealType<I>, O extends RealType<O> & NativeType<O>, K extends RealType<K>>
+	extends
+	AbstractBinaryFunctionOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<K>, RandomAccessibleInterval<O>>
+	implements Ops.Filter.Convolve, Contingent
+{
+
+	/** Relative tolerance of the rank-one test of the kernel. */
+	private static final double RANK_ONE_TOLERANCE = 1e-6;
+
+	/**
+	 * Defines the out of bounds strategy for the extended area of the input
+	 */
+	@Parameter(required = false)
+	private OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obf;
+
+	/**
+	 * The output type. If null a default output type will be used.
+	 */
+	@Parameter(required = false)
+	private Type<O> outType;
+
+	/**
+	 * The engine to use. {@link Engine#AUTO} selects the cheapest one.
+	 */
+	@Parameter(required = false)
+	private Engine engine;
+
+	/**
+	 * Create the output using the outFactory and outType if they exist. If these
+	 * are null use a default factory and type
+	 */
+	@SuppressWarnings("unchecked")
+	public RandomAccessibleInterval<O> createOutput(
+		RandomAccessibleInterval<I> input, RandomAccessibleInterval<K> kernel)
+	{
+
+		if (outType == null) {
+
+			// if the input type and kernel type are the same use this type
+			if (Util.getTypeFromInterval(input).getClass() == Util
+				.getTypeFromInterval(kernel).getClass())
+			{
+				Object temp = Util.getTypeFromInterval(input).createVariable();
+				outType = (Type<O>) temp;
+
+			}
+			// otherwise default to float
+			else {
+				Object temp = new FloatType();
+				outType = (Type<O>) temp;
+			}
+		}
+
+		return ops().create().img(input, outType.createVariable());
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public RandomAccessibleInterval<O> calculate(
+		final RandomAccessibleInterval<I> input,
+		final RandomAccessibleInterval<K> kernel)
+	{
+		if (obf == null) {
+			obf = new OutOfBoundsConstantValueFactory<>(Util.getTypeFromInterval(
+				input).createVariable());
+		}
+
+		final double[][] factors = factorize(kernel);
+		Engine selected = engine;
+		if (selected == Engine.AUTO || selected == Engine.SEPARABLE &&
+			factors == null)
+		{
+			selected = ConvolveCostModel.getInstance().select(input, kernel,
+				factors != null);
+		}
+
+		if (selected == Engine.FFT) {
+			return (RandomAccessibleInterval<O>) ops().run(ConvolveFFTF.class, input,
+				kernel, null, obf, null, outType);
+		}
+
+		final RandomAccessibleInterval<O> output = createOutput(input, kernel);
+
+		// NB: Work in the coordinates of the input.
+		final long[] translation = new long[input.numDimensions()];
+		for (int d = 0; d < translation.length; d++) {
+			translation[d] = input.min(d) - output.min(d);
+		}
+		final RandomAccessibleInterval<O> out = Views.translate(output,
+			translation);
+		final RandomAccessible<I> extended = Views.extend(input, obf);
+
+		if (selected == Engine.SEPARABLE) separable(extended, kernel, factors, out);
+		else naive(extended, kernel, out);
+		return output;
+	}
+
+	@Override
+	public boolean conforms() {
+		// NB: Leave the existing signatures to ConvolveNaiveF and ConvolveFFTF.
+		return engine != null;
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Factors a kernel of rank one into one 1-D kernel per dimension, whose
+	 * outer product is the kernel.
+	 *
+	 * @return the factors, or null if the kernel is not of rank one.
+	 */
+	static double[][] factorize(
+		final RandomAccessibleInterval<? extends RealType<?>> kernel)
+	{
+		final int n = kernel.numDimensions();
+		final double[][] factors = new double[n][];
+		final long[] pivot = new long[n];
+		double max = 0;
+		final Cursor<? extends RealType<?>> c = Views.iterable(kernel)
+			.localizingCursor();
+		while (c.hasNext()) {
+			final double v = Math.abs(c.next().getRealDouble());
+			if (v > max) {
+				max = v;
+				c.localize(pivot);
+			}
+		}
+		if (max == 0) {
+			for (int d = 0; d < n; d++) {
+				factors[d] = new double[(int) kernel.dimension(d)];
+			}
+			return factors;
+		}
+
+		// NB: A tensor of rank one is the outer product of its lines through any
+		// nonzero element, divided by that element to the power n - 1.
+		final RandomAccess<? extends RealType<?>> ra = kernel.randomAccess();
+		ra.setPosition(pivot);
+		final double p = ra.get().getRealDouble();
+		for (int d = 0; d < n; d++) {
+			factors[d] = new double[(int) kernel.dimension(d)];
+			ra.setPosition(pivot);
+			for (int i = 0; i < factors[d].length; i++) {
+				ra.setPosition(kernel.min(d) + i, d);
+				factors[d][i] = ra.get().getRealDouble();
+			}
+		}
+		final double scale = Math.pow(p, n - 1);
+		final double tolerance = RANK_ONE_TOLERANCE * Math.abs(p * scale);
+		c.reset();
+		while (c.hasNext()) {
+			final double v = c.next().getRealDouble();
+			double product = 1;
+			for (int d = 0; d < n; d++) {
+				product *= factors[d][(int) (c.getLongPosition(d) - kernel.min(d))];
+			}
+			if (Math.abs(v * scale - product) > tolerance) return null;
+		}
+		for (int i = 0; i < factors[0].length; i++) {
+			factors[0][i] /= scale;
+		}
+		return factors;
+	}
+
+	private void naive(final RandomAccessible<I> input,
+		final RandomAccessibleInterval<K> kernel,
+		final RandomAccessibleInterval<O> output)
+	{
+		final int n = output.numDimensions();
+		final int size = (int) Intervals.numElements(kernel);
+		final double[] values = new double[size];
+		final long[][] offsets = new long[size][n];
+		final Cursor<K> c = Views.iterable(kernel).localizingCursor();
+		for (int i = 0; i < size; i++) {
+			values[i] = c.next().getRealDouble();
+			for (int d = 0; d < n; d++) {
+				offsets[i][d] = kernel.dimension(d) / 2 - (c.getLongPosition(d) -
+					kernel.min(d));
+			}
+		}
+
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final RandomAccess<I> in = input.randomAccess();
+				final RandomAccess<O> out = output.randomAccess();
+				final long[] position = new long[n];
+
+				long index = startIndex;
+				for (int step = 0; step < numSteps; step++) {
+					position(index, output, position);
+					double sum = 0;
+					for (int i = 0; i < size; i++) {
+						for (int d = 0; d < n; d++) {
+							in.setPosition(position[d] + offsets[i][d], d);
+						}
+						sum += values[i] * in.get().getRealDouble();
+					}
+					out.setPosition(position);
+					out.get().setReal(sum);
+					index += stepSize;
+				}
+			}
+		}, Intervals.numElements(output));
+	}
+
+	/**
+	 * Convolves with one factor per dimension. Pass d covers the output plus
+	 * the halo the later passes read, so that the result does not depend on
+	 * how intermediate images are extended.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void separable(final RandomAccessible<I> input,
+		final RandomAccessibleInterval<K> kernel, final double[][] factors,
+		final RandomAccessibleInterval<O> output)
+	{
+		final int n = output.numDimensions();
+		RandomAccessible<? extends RealType<?>> source = input;
+		for (int d = 0; d < n; d++) {
+			final RandomAccessibleInterval<? extends RealType<?>> target;
+			if (d == n - 1) target = output;
+			else {
+				final long[] min = new long[n];
+				final long[] max = new long[n];
+				for (int e = 0; e < n; e++) {
+					final long center = kernel.dimension(e) / 2;
+					final boolean halo = e > d;
+					min[e] = output.min(e) - (halo ? kernel.dimension(e) - 1 - center
+						: 0);
+					max[e] = output.max(e) + (halo ? center : 0);
+				}
+				final Interval interval = new FinalInterval(min, max);
+				target = Views.translate((RandomAccessibleInterval) ops().create().img(
+					interval, new DoubleType()), min);
+			}
+			pass(source, target, factors[d], d);
+			source = target;
+		}
+	}
+
+	/** Convolves all lines along the given dimension with a 1-D kernel. */
+	private void pass(final RandomAccessible<? extends RealType<?>> source,
+		final RandomAccessibleInterval<? extends RealType<?>> target,
+		final double[] factor, final int dim)
+	{
+		final int n = target.numDimensions();
+		final long length = target.dimension(dim);
+		final long center = factor.length / 2;
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final RandomAccess<? extends RealType<?>> in = source.randomAccess();
+				final RandomAccess<? extends RealType<?>> out = target.randomAccess();
+				final long[] position = new long[n];
+
+				long index = startIndex;
+				for (int step = 0; step < numSteps; step++) {
+					// NB: Position of the start of the line, skipping dim.
+					long rest = index;
+					for (int d = 0; d < n; d++) {
+						if (d == dim) position[d] = target.min(d);
+						else {
+							position[d] = target.min(d) + rest % target.dimension(d);
+							rest /= target.dimension(d);
+						}
+					}
+					in.setPosition(position);
+					out.setPosition(position);
+					for (long x = target.min(dim); x <= target.max(dim); x++) {
+						double sum = 0;
+						for (int i = 0; i < factor.length; i++) {
+							in.setPosition(x + center - i, dim);
+							sum += factor[i] * in.get().getRealDouble();
+						}
+						out.setPosition(x, dim);
+						out.get().setReal(sum);
+					}
+					index += stepSize;
+				}
+			}
+		}, Intervals.numElements(target) / length);
+	}
+
+	/** Gets the position of the element with the given flat index. */
+	private static void position(final long index, final Interval interval,
+		final long[] position)
+	{
+		long rest = index;
+		for (int d = 0; d < position.length; d++) {
+			final long size = interval.dimension(d);
+			position[d] = interval.min(d) + rest % size;
+			rest /= size;
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.convolve;
+
+import net.imagej.ops.OpEnvironment;
+import net.imglib2.Dimensions;
+import net.imglib2.FinalDimensions;
+import net.imglib2.algorithm.fft2.FFTMethods;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Cost model with which {@link ConvolveAutoF} picks the cheapest way to
+ * convolve an image with a kernel.
+ * <p>
+ * The cost of naive and separable convolution is proportional to the number
+ * of multiply-adds; the cost of FFT convolution to {@code P log2(P)}, where
+ * {@code P} is the number of elements of the padded image. The two
+ * coefficients default to values typical of current hardware, and can be
+ * measured on the host by {@link #calibrate(OpEnvironment)}.
+ * </p>
+ * <p>
+ * One instance, {@link #getInstance()}, is shared by all ops.
+ * </p>
+ */
+public class ConvolveCostModel {
+
+	/** The ways to convolve an image. */
+	public static enum Engine {
+		/** Whichever engine is expected to be cheapest. */
+		AUTO,
+		/** Direct summation over the kernel. */
+		NAIVE,
+		/** One 1-D pass per dimension, for kernels of rank one. */
+		SEPARABLE,
+		/** Multiplication in the frequency domain. */
+		FFT
+	}
+
+	/** Default cost of one multiply-add, in nanoseconds. */
+	public static final double DEFAULT_NAIVE_COST = 4;
+
+	/** Default cost of FFT convolution per {@code P log2(P)}, in nanoseconds. */
+	public static final double DEFAULT_FFT_COST = 8;
+
+	private static final ConvolveCostModel INSTANCE = new ConvolveCostModel();
+
+	private volatile double naiveCost = DEFAULT_NAIVE_COST;
+
+	private volatile double fftCost = DEFAULT_FFT_COST;
+
+	/** Gets the cost model shared by all ops. */
+	public static ConvolveCostModel getInstance() {
+		return INSTANCE;
+	}
+
+	// -- ConvolveCostModel methods --
+
+	/**
+	 * Picks the cheapest engine to convolve an image of the given size with a
+	 * kernel of the given size.
+	 *
+	 * @param separable whether the kernel is of rank one.
+	 */
+	public Engine select(final Dimensions image, final Dimensions kernel,
+		final boolean separable)
+	{
+		Engine best = Engine.NAIVE;
+		double cost = estimate(Engine.NAIVE, image, kernel);
+		if (separable) {
+			final double c = estimate(Engine.SEPARABLE, image, kernel);
+			if (c < cost) {
+				best = Engine.SEPARABLE;
+				cost = c;
+			}
+		}
+		if (estimate(Engine.FFT, image, kernel) < cost) best = Engine.FFT;
+		return best;
+	}
+
+	/**
+	 * Estimates the time, in nanoseconds, the given engine takes to convolve an
+	 * image of the given size with a kernel of the given size.
+	 */
+	public double estimate(final Engine engine, final Dimensions image,
+		final Dimensions kernel)
+	{
+		final int n = image.numDimensions();
+		switch (engine) {
+			case NAIVE:
+				return naiveCost * numElements(image) * numElements(kernel);
+			case SEPARABLE: {
+				// NB: Pass d covers the image plus the halo of dimensions > d, and
+				// writes each element once.
+				double sum = 0;
+				for (int d = 0; d < n; d++) {
+					double size = 1;
+					for (int e = 0; e < n; e++) {
+						size *= image.dimension(e) + (e > d ? kernel.dimension(e) - 1 : 0);
+					}
+					sum += size * (kernel.dimension(d) + 1);
+				}
+				return naiveCost * sum;
+			}
+			default: {
+				final long[] padded = new long[n];
+				for (int d = 0; d < n; d++) {
+					padded[d] = image.dimension(d) + kernel.dimension(d) - 1;
+				}
+				final long[] fftSize = new long[n];
+				FFTMethods.dimensionsRealToComplexFast(new FinalDimensions(padded),
+					padded, fftSize);
+				final double p = numElements(new FinalDimensions(padded));
+				return fftCost * p * Math.log(p) / Math.log(2);
+			}
+		}
+	}
+
+	/**
+	 * Measures the cost coefficients on this host, by timing a few naive and
+	 * FFT convolutions of a test image.
+	 */
+	public void calibrate(final OpEnvironment ops) {
+		final Img<FloatType> image = ArrayImgs.floats(256, 256);
+		int i = 0;
+		for (final FloatType t : image) {
+			t.set(i++ % 17);
+		}
+		final Img<FloatType> kernel = ArrayImgs.floats(7, 7);
+		for (final FloatType t : kernel) {
+			t.set(i++ % 5);
+		}
+
+		final double naive = time(ops, Engine.NAIVE, image, kernel);
+		final double fft = time(ops, Engine.FFT, image, kernel);
+
+		// NB: Estimates are linear in the coefficients.
+		final ConvolveCostModel unit = new ConvolveCostModel();
+		unit.naiveCost = 1;
+		unit.fftCost = 1;
+		naiveCost = naive / unit.estimate(Engine.NAIVE, image, kernel);
+		fftCost = fft / unit.estimate(Engine.FFT, image, kernel);
+	}
+
+	/** Gets the cost of one multiply-add, in nanoseconds. */
+	public double getNaiveCost() {
+		return naiveCost;
+	}
+
+	/** Sets the cost of one multiply-add, in nanoseconds. */
+	public void setNaiveCost(final double naiveCost) {
+		this.naiveCost = naiveCost;
+	}
+
+	/** Gets the cost of FFT convolution per {@code P log2(P)}, in nanoseconds. */
+	public double getFFTCost() {
+		return fftCost;
+	}
+
+	/** Sets the cost of FFT convolution per {@code P log2(P)}, in nanoseconds. */
+	public void setFFTCost(final double fftCost) {
+		this.fftCost = fftCost;
+	}
+
+	// -- Helper methods --
+
+	/** Gets the fastest of a few runs, after warming up. */
+	private static double time(final OpEnvironment ops, final Engine engine,
+		final Img<FloatType> image, final Img<FloatType> kernel)
+	{
+		long best = Long.MAX_VALUE;
+		for (int run = 0; run < 5; run++) {
+			final long start = System.nanoTime();
+			ops.run(ConvolveAutoF.class, image, kernel, null, null, engine);
+			if (run > 0) best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	private static double numElements(final Dimensions dims) {
+		double size = 1;
+		for (int d = 0; d < dims.numDimensions(); d++) {
+			size *= dims.dimension(d);
+		}
+		return size;
+	}
+
+}
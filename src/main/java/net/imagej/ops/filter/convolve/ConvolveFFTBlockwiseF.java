@@ -0,0 +1,296 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.convolve;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.filter.fft.CreateOutputFFTMethods;
+import net.imagej.ops.filter.fft.FFTMethodsOpC;
+import net.imagej.ops.filter.fft.KernelSpectrumCache;
+import net.imagej.ops.filter.fftSize.ComputeFFTMethodsSize;
+import net.imagej.ops.filter.ifft.IFFTMethodsOpC;
+import net.imagej.ops.filter.pad.PadShiftKernel;
+import net.imagej.ops.special.computer.Computers;
+import net.imagej.ops.special.computer.UnaryComputerOp;
+import net.imagej.ops.special.function.AbstractBinaryFunctionOp;
+import net.imagej.ops.special.function.BinaryFunctionOp;
+import net.imagej.ops.special.function.Functions;
+import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.Cursor;
+import net.imglib2.Dimensions;
+import net.imglib2.FinalDimensions;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.outofbounds.OutOfBoundsConstantValueFactory;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.Type;
+import net.imglib2.type.numeric.ComplexType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.complex.ComplexFloatType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Convolves an image blockwise, by the overlap-save method: the output is
+ * split into blocks, and each block is computed by an FFT of the input tile
+ * covering the block plus the halo of the kernel. Tiles are transformed
+ * independently and in parallel, so peak memory is bounded by the tile size
+ * rather than the image size.
+ * <p>
+ * The requested block size is enlarged so that the tiles have an efficient
+ * FFT size. The result equals that of {@link ConvolveFFTF} with the same out
+ * of bounds strategy.
+ * </p>
+ * 
+ * @param <I>
+ * @param <O>
+ * @param <K>
+ * @param <C>
+ */
+@Plugin(type = Ops.Filter.Convolve.class, priority = Priority.NORMAL_PRIORITY)
+public class ConvolveFFTBlockwiseF<I extends RealType<I>, O extends RealType<O> & NativeType<O>, K extends RealType<K>, C extends ComplexType<C> & NativeType<C>>
+	extends
+	AbstractBinaryFunctionOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<K>, RandomAccessibleInterval<O>>
+	implements Ops.Filter.Convolve, Contingent
+{
+
+	/**
+	 * Minimum size of the blocks of the output which are computed by one FFT
+	 * each.
+	 */
+	@Parameter
+	private Dimensions blockSize;
+
+	/**
+	 * Defines the out of bounds strategy for the extended area of the input
+	 */
+	@Parameter(required = false)
+	private OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput;
+
+	/**
+	 * The output type. If null a default output type will be used.
+	 */
+	@Parameter(required = false)
+	private Type<O> outType;
+
+	/**
+	 * FFT type
+	 */
+	@Parameter(required = false)
+	private ComplexType<C> fftType;
+
+	private UnaryFunctionOp<Dimensions, long[][]> fftSizeOp;
+
+	private BinaryFunctionOp<RandomAccessibleInterval<K>, Dimensions, RandomAccessibleInterval<K>> padKernelOp;
+
+	private UnaryFunctionOp<Dimensions, Img<C>> createOp;
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void initialize() {
+		super.initialize();
+
+		if (fftType == null) {
+			fftType = (ComplexType<C>) ops().create().nativeType(
+				ComplexFloatType.class);
+		}
+
+		fftSizeOp = Functions.unary(ops(), ComputeFFTMethodsSize.class,
+			long[][].class, Dimensions.class, true, true);
+
+		padKernelOp = (BinaryFunctionOp) Functions.binary(ops(),
+			PadShiftKernel.class, RandomAccessibleInterval.class,
+			RandomAccessibleInterval.class, Dimensions.class);
+
+		createOp = (UnaryFunctionOp) Functions.unary(ops(),
+			CreateOutputFFTMethods.class, Img.class, Dimensions.class, fftType,
+			true);
+	}
+
+	/**
+	 * Create the output using the outFactory and outType if they exist. If these
+	 * are null use a default factory and type
+	 */
+	@SuppressWarnings("unchecked")
+	public RandomAccessibleInterval<O> createOutput(
+		RandomAccessibleInterval<I> input, RandomAccessibleInterval<K> kernel)
+	{
+
+		if (outType == null) {
+
+			// if the input type and kernel type are the same use this type
+			if (Util.getTypeFromInterval(input).getClass() == Util
+				.getTypeFromInterval(kernel).getClass())
+			{
+				Object temp = Util.getTypeFromInterval(input).createVariable();
+				outType = (Type<O>) temp;
+
+			}
+			// otherwise default to float
+			else {
+				Object temp = new FloatType();
+				outType = (Type<O>) temp;
+			}
+		}
+
+		return ops().create().img(input, outType.createVariable());
+	}
+
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public RandomAccessibleInterval<O> calculate(
+		final RandomAccessibleInterval<I> input,
+		final RandomAccessibleInterval<K> kernel)
+	{
+		final RandomAccessibleInterval<O> output = createOutput(input, kernel);
+
+		if (obfInput == null) {
+			obfInput = new OutOfBoundsConstantValueFactory<>(Util
+				.getTypeFromInterval(input).createVariable());
+		}
+
+		final int n = input.numDimensions();
+
+		// 1. enlarge the tiles (block plus halo) to an efficient FFT size
+		final long[] tileSize = new long[n];
+		for (int d = 0; d < n; d++) {
+			final long block = Math.min(blockSize.dimension(d), input.dimension(d));
+			tileSize[d] = block + kernel.dimension(d) - 1;
+		}
+		final Dimensions tile = new FinalDimensions(fftSizeOp.calculate(
+			new FinalDimensions(tileSize))[0]);
+
+		// 2. the part of each tile which is not corrupted by wrap-around: with
+		// the center of the kernel at the origin, the first (size - 1 - center)
+		// and the last (center) elements of a circular convolution are invalid
+		final long[] block = new long[n];
+		final long[] offset = new long[n];
+		final long[] numBlocks = new long[n];
+		long total = 1;
+		for (int d = 0; d < n; d++) {
+			offset[d] = kernel.dimension(d) - 1 - kernel.dimension(d) / 2;
+			block[d] = tile.dimension(d) - kernel.dimension(d) + 1;
+			numBlocks[d] = (input.dimension(d) + block[d] - 1) / block[d];
+			total *= numBlocks[d];
+		}
+
+		// 3. transform the kernel once for all tiles
+		final RandomAccessibleInterval<C> kernelSpectrum = createOp.calculate(tile);
+		final UnaryComputerOp<RandomAccessibleInterval<K>, RandomAccessibleInterval<C>> fftKernel =
+			(UnaryComputerOp) Computers.unary(ops(), FFTMethodsOpC.class,
+				kernelSpectrum, RandomAccessibleInterval.class);
+		KernelSpectrumCache.of(ops().getContext()).transform(
+			fftKernel, padKernelOp, kernel, padKernelOp.calculate(kernel, tile),
+			kernelSpectrum);
+
+		// 4. convolve the tiles in parallel, each chunk with its own buffers
+		final RandomAccessible<I> extended = Views.extend(input, obfInput);
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final Img<C> spectrum = createOp.calculate(tile);
+				final Img<O> result = ops().create().img(tile, outType
+					.createVariable());
+				final UnaryComputerOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<C>> fft =
+					(UnaryComputerOp) Computers.unary(ops(), FFTMethodsOpC.class,
+						spectrum, RandomAccessibleInterval.class);
+				final UnaryComputerOp<RandomAccessibleInterval<C>, RandomAccessibleInterval<O>> ifft =
+					(UnaryComputerOp) Computers.unary(ops(), IFFTMethodsOpC.class,
+						result, spectrum);
+
+				final long[] min = new long[n];
+				final long[] max = new long[n];
+				final long[] validMin = new long[n];
+				final long[] validMax = new long[n];
+				final long[] outMin = new long[n];
+				final long[] outMax = new long[n];
+
+				long index = startIndex;
+				for (int step = 0; step < numSteps; step++) {
+					long rest = index;
+					for (int d = 0; d < n; d++) {
+						final long start = rest % numBlocks[d] * block[d];
+						rest /= numBlocks[d];
+						final long length = Math.min(block[d], input.dimension(d) -
+							start);
+						min[d] = input.min(d) + start - offset[d];
+						max[d] = min[d] + tile.dimension(d) - 1;
+						validMin[d] = offset[d];
+						validMax[d] = offset[d] + length - 1;
+						outMin[d] = output.min(d) + start;
+						outMax[d] = outMin[d] + length - 1;
+					}
+
+					fft.compute(Views.zeroMin(Views.interval(extended, min, max)),
+						spectrum);
+					final Cursor<C> s = Views.flatIterable(spectrum).cursor();
+					final Cursor<C> k = Views.flatIterable(kernelSpectrum).cursor();
+					while (s.hasNext()) {
+						s.next().mul(k.next());
+					}
+					ifft.compute(spectrum, result);
+
+					final Cursor<O> src = Views.flatIterable(Views.interval(result,
+						validMin, validMax)).cursor();
+					final Cursor<O> dst = Views.flatIterable(Views.interval(output,
+						new FinalInterval(outMin, outMax))).cursor();
+					while (src.hasNext()) {
+						dst.next().set(src.next());
+					}
+
+					index += stepSize;
+				}
+			}
+		}, total);
+
+		return output;
+	}
+
+	@Override
+	public boolean conforms() {
+		return in1().numDimensions() == in2().numDimensions() && blockSize
+			.numDimensions() == in1().numDimensions();
+	}
+
+}
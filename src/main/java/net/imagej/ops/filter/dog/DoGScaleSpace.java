@@ -0,0 +1,126 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.dog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.filter.scaleSpace.ScaleSpace;
+import net.imagej.ops.special.function.AbstractUnaryFunctionOp;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import org.scijava.plugin.Plugin;
+
+/**
+ * Difference of Gaussians (DoG) of all consecutive levels of a
+ * {@link ScaleSpace}, so no image is blurred twice. Level {@code i} of the
+ * result is level {@code i + 1} minus level {@code i} of the input, with the
+ * sigma of level {@code i}. Where the two levels lie on different grids, the
+ * finer one is subsampled onto the coarser one, whose downsampling the
+ * difference takes.
+ *
+ * @param <T> type of the scale space levels
+ */
+@Plugin(type = Ops.Filter.DoG.class)
+public class DoGScaleSpace<T extends RealType<T>> extends
+	AbstractUnaryFunctionOp<ScaleSpace<T>, ScaleSpace<FloatType>> implements
+	Ops.Filter.DoG, Contingent
+{
+
+	@Override
+	public boolean conforms() {
+		return in().numLevels() > 1;
+	}
+
+	@Override
+	public ScaleSpace<FloatType> calculate(final ScaleSpace<T> input) {
+		final int numLevels = input.numLevels() - 1;
+		final List<RandomAccessibleInterval<FloatType>> differences =
+			new ArrayList<>(numLevels);
+		final double[] sigmas = new double[numLevels];
+		final long[] downsampling = new long[numLevels];
+
+		for (int i = 0; i < numLevels; i++) {
+			final RandomAccessibleInterval<T> coarse = input.getLevel(i + 1);
+			RandomAccessibleInterval<T> fine = input.getLevel(i);
+			final long ratio = input.getDownsampling(i + 1) / input
+				.getDownsampling(i);
+			if (ratio > 1) fine = Views.zeroMin(Views.subsample(fine, ratio));
+
+			final RandomAccessibleInterval<FloatType> difference = ops().create()
+				.img(coarse, new FloatType());
+			subtract(coarse, fine, difference);
+
+			differences.add(difference);
+			sigmas[i] = input.getSigma(i);
+			downsampling[i] = input.getDownsampling(i + 1);
+		}
+
+		return new ScaleSpace<>(differences, sigmas, downsampling);
+	}
+
+	// -- Helper methods --
+
+	private void subtract(final RandomAccessibleInterval<T> a,
+		final RandomAccessibleInterval<T> b,
+		final RandomAccessibleInterval<FloatType> out)
+	{
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final Cursor<T> ca = Views.flatIterable(a).cursor();
+				final Cursor<T> cb = Views.flatIterable(b).cursor();
+				final Cursor<FloatType> co = Views.flatIterable(out).cursor();
+				for (int s = 0; s < numSteps; s++) {
+					final int steps = s == 0 ? startIndex + 1 : stepSize;
+					ca.jumpFwd(steps);
+					cb.jumpFwd(steps);
+					co.jumpFwd(steps);
+					co.get().setReal(ca.get().getRealDouble() - cb.get()
+						.getRealDouble());
+				}
+			}
+		}, Intervals.numElements(out));
+	}
+
+}
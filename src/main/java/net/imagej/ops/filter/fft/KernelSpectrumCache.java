@@ -0,0 +1,316 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.fft;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.imagej.ops.special.computer.UnaryComputerOp;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.ComplexType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+import org.scijava.Context;
+import org.scijava.cache.CacheService;
+
+/**
+ * A cache of kernel spectra, so that filters which apply the same kernel over
+ * and over (e.g. the same PSF to many tiles) only transform the image.
+ * <p>
+ * Spectra are keyed by the class of the FFT op which computed them, the
+ * content and type of the kernel, and the dimensions and type of the spectrum.
+ * The kernel values are stored with the key and compared in full on a hit, so
+ * different kernels never share a spectrum. Callers which pad the kernel
+ * themselves can key the spectrum by the unpadded kernel and the padding op
+ * instead, so that only the (small) unpadded kernel is read on a lookup. The
+ * cache is bounded by the estimated number of bytes the spectra and their
+ * keys occupy; when the bound is exceeded, the least recently used spectra
+ * are evicted first.
+ * </p>
+ * <p>
+ * The ops of a {@link Context} share one instance, {@link #of(Context)}, held
+ * by the context's {@link CacheService}, so that it is released along with
+ * the context. To disable caching for a context, set its bound to zero with
+ * {@link #setMaxBytes}.
+ * </p>
+ */
+public class KernelSpectrumCache {
+
+	/** Default bound of the cache: 128 MiB. */
+	public static final long DEFAULT_MAX_BYTES = 128L << 20;
+
+	private final LinkedHashMap<Key, double[]> entries = new LinkedHashMap<>(16,
+		0.75f, true);
+
+	private long maxBytes;
+
+	private long bytes;
+
+	private long hits;
+
+	private long misses;
+
+	public KernelSpectrumCache() {
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	public KernelSpectrumCache(final long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Gets the cache shared by all ops of the given context, creating it on
+	 * first use. Without a {@link CacheService}, nothing is cached.
+	 */
+	public static KernelSpectrumCache of(final Context context) {
+		final CacheService cs = context.getService(CacheService.class);
+		if (cs == null) return new KernelSpectrumCache(0);
+		synchronized (cs) {
+			KernelSpectrumCache cache = (KernelSpectrumCache) cs.get(
+				KernelSpectrumCache.class);
+			if (cache == null) {
+				cache = new KernelSpectrumCache();
+				cs.put(KernelSpectrumCache.class, cache);
+			}
+			return cache;
+		}
+	}
+
+	// -- KernelSpectrumCache methods --
+
+	/**
+	 * Computes the spectrum of the given kernel into the given output, using
+	 * the given FFT op, unless an equal kernel has been transformed by an op of
+	 * the same class into a spectrum of the same size before; in that case, the
+	 * cached spectrum is copied into the output instead.
+	 */
+	public <K extends RealType<K>, C extends ComplexType<C>> void transform(
+		final UnaryComputerOp<RandomAccessibleInterval<K>, RandomAccessibleInterval<C>> fft,
+		final RandomAccessibleInterval<K> kernel,
+		final RandomAccessibleInterval<C> spectrum)
+	{
+		transform(fft, null, kernel, kernel, spectrum);
+	}
+
+	/**
+	 * Computes the spectrum of a padded kernel into the given output, using the
+	 * given FFT op, unless an equal unpadded kernel has been padded by an op of
+	 * the same class into the same interval and transformed by an op of the
+	 * same class into a spectrum of the same size before; in that case, the
+	 * cached spectrum is copied into the output instead.
+	 *
+	 * @param fft the op transforming the padded kernel
+	 * @param padding the op which padded {@code kernel} into
+	 *          {@code paddedKernel}, or null if they are the same
+	 * @param kernel the unpadded kernel, by which the spectrum is keyed
+	 * @param paddedKernel the padded kernel, which is transformed
+	 * @param spectrum the output
+	 */
+	public <K extends RealType<K>, C extends ComplexType<C>> void transform(
+		final UnaryComputerOp<RandomAccessibleInterval<K>, RandomAccessibleInterval<C>> fft,
+		final Object padding, final RandomAccessibleInterval<K> kernel,
+		final RandomAccessibleInterval<K> paddedKernel,
+		final RandomAccessibleInterval<C> spectrum)
+	{
+		// NB: Spectra too large to be cached are not worth a key.
+		final long size = 16 * Intervals.numElements(spectrum);
+		if (size > getMaxBytes()) {
+			fft.compute(paddedKernel, spectrum);
+			return;
+		}
+
+		final Key key = new Key(fft, padding, kernel, paddedKernel, spectrum);
+		final double[] cached = get(key);
+		if (cached != null) {
+			final Cursor<C> c = Views.flatIterable(spectrum).cursor();
+			for (int i = 0; c.hasNext(); i += 2) {
+				c.next().setComplexNumber(cached[i], cached[i + 1]);
+			}
+			return;
+		}
+
+		fft.compute(paddedKernel, spectrum);
+
+		final double[] values = new double[(int) (2 * Intervals.numElements(
+			spectrum))];
+		final Cursor<C> c = Views.flatIterable(spectrum).cursor();
+		for (int i = 0; c.hasNext(); i += 2) {
+			final C value = c.next();
+			values[i] = value.getRealDouble();
+			values[i + 1] = value.getImaginaryDouble();
+		}
+		put(key, values);
+	}
+
+	/** Discards all cached spectra. */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	/** Gets the number of cached spectra. */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/** Gets the estimated number of bytes occupied by the cached spectra. */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/** Gets the maximum number of bytes the cached spectra may occupy. */
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Sets the maximum number of bytes the cached spectra may occupy. A bound of
+	 * zero disables the cache. Spectra beyond the new bound are evicted.
+	 */
+	public synchronized void setMaxBytes(final long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Negative bound: " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+		evict();
+	}
+
+	/** Gets the number of lookups which found a cached spectrum. */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/** Gets the number of lookups which did not find a cached spectrum. */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	// -- Helper methods --
+
+	private synchronized double[] get(final Key key) {
+		final double[] values = entries.get(key);
+		if (values == null) misses++;
+		else hits++;
+		return values;
+	}
+
+	private synchronized void put(final Key key, final double[] values) {
+		final long size = 8L * values.length + key.bytes();
+		if (size > maxBytes) return;
+		final double[] old = entries.put(key, values);
+		if (old != null) bytes -= 8L * old.length + key.bytes();
+		bytes += size;
+		evict();
+	}
+
+	private void evict() {
+		final Iterator<Map.Entry<Key, double[]>> iter = entries.entrySet()
+			.iterator();
+		while (bytes > maxBytes && iter.hasNext()) {
+			final Map.Entry<Key, double[]> entry = iter.next();
+			bytes -= 8L * entry.getValue().length + entry.getKey().bytes();
+			iter.remove();
+		}
+	}
+
+	// -- Helper classes --
+
+	/** Identity of a kernel spectrum. */
+	private static final class Key {
+
+		private final Class<?> fftClass;
+		private final Class<?> paddingClass;
+		private final Class<?> kernelType;
+		private final Class<?> spectrumType;
+		private final long[] kernelDims;
+		private final long[] paddedMin;
+		private final long[] paddedMax;
+		private final long[] spectrumDims;
+		private final double[] kernelValues;
+		private final int hash;
+
+		private <K extends RealType<K>> Key(final Object fft,
+			final Object padding, final RandomAccessibleInterval<K> kernel,
+			final RandomAccessibleInterval<K> paddedKernel,
+			final RandomAccessibleInterval<?> spectrum)
+		{
+			fftClass = fft.getClass();
+			paddingClass = padding == null ? null : padding.getClass();
+			kernelType = Util.getTypeFromInterval(kernel).getClass();
+			spectrumType = Util.getTypeFromInterval(spectrum).getClass();
+			kernelDims = Intervals.dimensionsAsLongArray(kernel);
+			paddedMin = Intervals.minAsLongArray(paddedKernel);
+			paddedMax = Intervals.maxAsLongArray(paddedKernel);
+			spectrumDims = Intervals.dimensionsAsLongArray(spectrum);
+
+			// NB: The kernel is read once; its values are compared on a hit.
+			kernelValues = new double[(int) Intervals.numElements(kernel)];
+			int i = 0;
+			for (final K value : Views.flatIterable(kernel)) {
+				kernelValues[i++] = value.getRealDouble();
+			}
+			hash = (Arrays.hashCode(kernelValues) * 31 + Arrays.hashCode(
+				kernelDims)) * 31 + Arrays.hashCode(spectrumDims);
+		}
+
+		/** Gets the estimated number of bytes occupied by this key. */
+		private long bytes() {
+			return 8L * kernelValues.length;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (obj == this) return true;
+			if (!(obj instanceof Key)) return false;
+			final Key that = (Key) obj;
+			return hash == that.hash && fftClass == that.fftClass &&
+				paddingClass == that.paddingClass && kernelType == that.kernelType &&
+				spectrumType == that.spectrumType && Arrays.equals(kernelDims,
+					that.kernelDims) && Arrays.equals(paddedMin, that.paddedMin) &&
+				Arrays.equals(paddedMax, that.paddedMax) && Arrays.equals(
+					spectrumDims, that.spectrumDims) && Arrays.equals(kernelValues,
+						that.kernelValues);
+		}
+
+	}
+
+}
@@ -0,0 +1,353 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.gauss;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.special.hybrid.AbstractUnaryHybridCF;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.gauss3.Gauss3;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Gaussian filter by recursive (IIR) filtering, after Young, van Vliet and van
+ * Ginkel ("Recursive Gabor filtering", IEEE Trans. Signal Process. 50(11),
+ * 2002), with the boundary initialization of Triggs and Sdika ("Boundary
+ * conditions for Young-van Vliet recursive filtering", IEEE Trans. Signal
+ * Process. 54(6), 2006).
+ * <p>
+ * Each axis is filtered separably by a causal and an anti-causal third order
+ * recursion, in parallel over lines, so the cost per pixel does not depend on
+ * sigma. Lines are extended by the out of bounds strategy over a margin of
+ * three sigma; beyond it the line is taken to be constant. The result
+ * deviates from the sampled Gaussian by about one percent of the peak of its
+ * impulse response, so this op only applies to sigmas of at least
+ * {@link #MIN_SIGMA}, and to images at least as long as the FIR kernel of
+ * {@link Gauss3} in each filtered dimension; below that, {@link DefaultGaussRAI}
+ * is both exact and cheap.
+ * </p>
+ * <p>
+ * Since its result is not exact, it is registered below {@link DefaultGaussRAI}
+ * and only used when requested explicitly.
+ * </p>
+ *
+ * @param <T> type of input and output
+ */
+@Plugin(type = Ops.Filter.Gauss.class, priority = Priority.LOW_PRIORITY)
+public class RecursiveGaussRAI<T extends RealType<T> & NativeType<T>> extends
+	AbstractUnaryHybridCF<RandomAccessibleInterval<T>, RandomAccessibleInterval<T>>
+	implements Ops.Filter.Gauss, Contingent
+{
+
+	/** Smallest (nonzero) sigma to which this op applies. */
+	public static final double MIN_SIGMA = 3;
+
+	@Parameter
+	private double[] sigmas;
+
+	@Parameter(required = false)
+	private OutOfBoundsFactory<T, RandomAccessibleInterval<T>> outOfBounds;
+
+	@Override
+	public boolean conforms() {
+		if (sigmas.length != in().numDimensions()) return false;
+		for (int d = 0; d < sigmas.length; d++) {
+			if (sigmas[d] == 0) continue;
+			if (sigmas[d] < MIN_SIGMA) return false;
+			if (in().dimension(d) < 6 * sigmas[d] + 1) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void compute(final RandomAccessibleInterval<T> input,
+		final RandomAccessibleInterval<T> output)
+	{
+		if (outOfBounds == null) {
+			outOfBounds = new OutOfBoundsMirrorFactory<>(Boundary.SINGLE);
+		}
+
+		// intermediate results are kept in double precision only if the image is
+		if (Util.getTypeFromInterval(input) instanceof DoubleType) {
+			filter(input, output, new DoubleType());
+		}
+		else {
+			filter(input, output, new FloatType());
+		}
+	}
+
+	@Override
+	public RandomAccessibleInterval<T> createOutput(
+		final RandomAccessibleInterval<T> input)
+	{
+		return ops().create().img(input);
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Filters along each axis in turn. As for the FIR filter, each pass covers
+	 * the margins of the axes still to be filtered.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <R extends RealType<R> & NativeType<R>> void filter(
+		final RandomAccessibleInterval<T> input,
+		final RandomAccessibleInterval<T> output, final R tempType)
+	{
+		final int n = input.numDimensions();
+
+		final long[] margins = new long[n];
+		for (int d = 0; d < n; d++) {
+			margins[d] = (long) Math.ceil(3 * sigmas[d]);
+		}
+
+		int last = -1;
+		for (int d = 0; d < n; d++) {
+			if (sigmas[d] > 0) last = d;
+		}
+		if (last < 0) {
+			ops().copy().rai(output, input);
+			return;
+		}
+
+		RandomAccessible<? extends RealType<?>> source = Views.extend(input,
+			outOfBounds);
+		for (int d = 0; d <= last; d++) {
+			if (sigmas[d] == 0) continue;
+
+			// this pass covers the margins of the axes that follow
+			final long[] min = Intervals.minAsLongArray(output);
+			final long[] max = Intervals.maxAsLongArray(output);
+			for (int e = d + 1; e < n; e++) {
+				min[e] -= margins[e];
+				max[e] += margins[e];
+			}
+			final Interval interval = new FinalInterval(min, max);
+
+			final RandomAccessibleInterval<? extends RealType<?>> target = d == last
+				? output : ops().create().img(interval, tempType);
+			filterLines(source, target, d, margins[d], new Coefficients(
+				sigmas[d]));
+			source = (RandomAccessible) target;
+		}
+	}
+
+	/** Filters all lines of the target along the given axis, in parallel. */
+	private void filterLines(final RandomAccessible<? extends RealType<?>> source,
+		final RandomAccessibleInterval<? extends RealType<?>> target, final int d,
+		final long margin, final Coefficients c)
+	{
+		final int n = target.numDimensions();
+
+		// lines are indexed over the target with the axis collapsed
+		final long[] lineDims = Intervals.dimensionsAsLongArray(target);
+		final long[] lineMin = Intervals.minAsLongArray(target);
+		lineDims[d] = 1;
+		final long numLines = Intervals.numElements(lineDims);
+
+		final int length = (int) target.dimension(d);
+		final int extended = length + 2 * (int) margin;
+		final long start = target.min(d) - margin;
+
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final RandomAccess<? extends RealType<?>> in = source.randomAccess();
+				final RandomAccess<? extends RealType<?>> out = target.randomAccess();
+				final long[] position = new long[n];
+				final double[] line = new double[extended];
+
+				for (int s = 0; s < numSteps; s++) {
+					IntervalIndexer.indexToPositionWithOffset(startIndex + (long) s *
+						stepSize, lineDims, lineMin, position);
+
+					position[d] = start;
+					in.setPosition(position);
+					for (int i = 0; i < extended; i++) {
+						line[i] = in.get().getRealDouble();
+						in.fwd(d);
+					}
+
+					c.filter(line);
+
+					position[d] = target.min(d);
+					out.setPosition(position);
+					for (int i = 0; i < length; i++) {
+						out.get().setReal(line[(int) margin + i]);
+						out.fwd(d);
+					}
+				}
+			}
+		}, numLines);
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Coefficients of the third order recursion for one sigma, and the matrix
+	 * that initializes the anti-causal pass.
+	 */
+	static final class Coefficients {
+
+		/** Poles of the recursion for unit scale (Young et al. 2002). */
+		private static final double POLE_RE = 1.41650, POLE_IM = 1.00829,
+				POLE_REAL = 1.86543;
+
+		final double b, a1, a2, a3;
+
+		/** Maps the last causal outputs to the first anti-causal states. */
+		final double[][] m = new double[3][3];
+
+		Coefficients(final double sigma) {
+			// scale the poles such that the variance is sigma^2
+			double q = sigma / 2;
+			for (int i = 0; i < 50; i++) {
+				q *= sigma / Math.sqrt(variance(q));
+			}
+
+			// poles of the causal recursion: the inverse of the scaled poles
+			final double r = Math.pow(Math.hypot(POLE_RE, POLE_IM), 1 / q);
+			final double theta = Math.atan2(POLE_IM, POLE_RE) / q;
+			final double pRe = Math.cos(theta) / r;
+			final double p2 = 1 / (r * r);
+			final double p3 = Math.pow(POLE_REAL, -1 / q);
+
+			a1 = 2 * pRe + p3;
+			a2 = -(p2 + 2 * pRe * p3);
+			a3 = p2 * p3;
+			b = 1 - a1 - a2 - a3;
+
+			initializeBoundaryMatrix(sigma);
+		}
+
+		/** Filters the given line in place. */
+		void filter(final double[] line) {
+			final int length = line.length;
+			final double u = line[length - 1];
+
+			// causal pass; the line is constant before its start
+			double w1 = line[0], w2 = line[0], w3 = line[0];
+			for (int i = 0; i < length; i++) {
+				final double w = b * line[i] + a1 * w1 + a2 * w2 + a3 * w3;
+				w3 = w2;
+				w2 = w1;
+				w1 = w;
+				line[i] = w;
+			}
+
+			// anti-causal pass; the input is constant after the line's end, where
+			// the causal pass continues to converge to it
+			double y1 = u, y2 = u, y3 = u;
+			final double d1 = w1 - u, d2 = w2 - u, d3 = w3 - u;
+			y1 += m[0][0] * d1 + m[0][1] * d2 + m[0][2] * d3;
+			y2 += m[1][0] * d1 + m[1][1] * d2 + m[1][2] * d3;
+			y3 += m[2][0] * d1 + m[2][1] * d2 + m[2][2] * d3;
+			for (int i = length - 1; i >= 0; i--) {
+				final double y = b * line[i] + a1 * y1 + a2 * y2 + a3 * y3;
+				y3 = y2;
+				y2 = y1;
+				y1 = y;
+				line[i] = y;
+			}
+		}
+
+		// -- Helper methods --
+
+		/** Variance of the symmetric filter with poles scaled by 1/q. */
+		private static double variance(final double q) {
+			final double r = Math.pow(Math.hypot(POLE_RE, POLE_IM), 1 / q);
+			final double theta = Math.atan2(POLE_IM, POLE_RE) / q;
+			final double x = r * Math.cos(theta), y = r * Math.sin(theta);
+
+			// 2 d / (d - 1)^2 for the complex pole, twice for its conjugate
+			final double a = (x - 1) * (x - 1) - y * y, bb = 2 * (x - 1) * y;
+			final double complex = 2 * 2 * (x * a + y * bb) / (a * a + bb * bb);
+
+			final double d = Math.pow(POLE_REAL, 1 / q);
+			return complex + 2 * d / ((d - 1) * (d - 1));
+		}
+
+		/**
+		 * Computes the initialization matrix by continuing the causal pass over
+		 * a constant (zero) input until it has died out, and running the
+		 * anti-causal pass back over it, for each unit causal state.
+		 */
+		private void initializeBoundaryMatrix(final double sigma) {
+			final int length = (int) Math.ceil(50 * sigma) + 100;
+			final double[] w = new double[length];
+			for (int j = 0; j < 3; j++) {
+				double w1 = j == 0 ? 1 : 0, w2 = j == 1 ? 1 : 0, w3 = j == 2 ? 1 : 0;
+				for (int i = 0; i < length; i++) {
+					final double v = a1 * w1 + a2 * w2 + a3 * w3;
+					w3 = w2;
+					w2 = w1;
+					w1 = v;
+					w[i] = v;
+				}
+				double y1 = 0, y2 = 0, y3 = 0;
+				for (int i = length - 1; i >= 0; i--) {
+					final double v = b * w[i] + a1 * y1 + a2 * y2 + a3 * y3;
+					y3 = y2;
+					y2 = y1;
+					y1 = v;
+				}
+				// y1, y2, y3 now hold the outputs just past the line's end
+				m[0][j] = y1;
+				m[1][j] = y2;
+				m[2][j] = y3;
+			}
+		}
+	}
+
+}
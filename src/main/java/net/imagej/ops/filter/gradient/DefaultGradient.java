@@ -0,0 +1,225 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.gradient;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.special.hybrid.AbstractUnaryHybridCF;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Computes the gradient magnitude and orientation of a 2D image in a single
+ * parallel pass, without intermediate derivative images. The output is 3D: the
+ * magnitude is in plane {@link #MAGNITUDE}, the orientation in plane
+ * {@link #ORIENTATION} of the last dimension.
+ * <p>
+ * The orientation of the derivatives {@code (dx, dy)} is
+ * {@code atan2(dx, dy)} in degrees, in [0, 360). If {@code numBins} is
+ * positive, it is given as the index of its bin instead, out of
+ * {@code numBins} equal bins starting at zero degrees.
+ * </p>
+ * <p>
+ * A 3D input is taken as a color image with its channels along the last
+ * dimension. In each direction, the derivative of largest magnitude over
+ * all channels is used.
+ * </p>
+ * <p>
+ * The derivatives are central differences {@code (f(x+1) - f(x-1)) / 2} in
+ * single precision, or the unnormalized Sobel operator if {@code sobel} is
+ * set.
+ * </p>
+ *
+ * @param <T> type of input
+ */
+@Plugin(type = Ops.Filter.Gradient.class)
+public class DefaultGradient<T extends RealType<T>> extends
+	AbstractUnaryHybridCF<RandomAccessibleInterval<T>, RandomAccessibleInterval<FloatType>>
+	implements Ops.Filter.Gradient, Contingent
+{
+
+	/** Index of the gradient magnitude plane in the output. */
+	public static final int MAGNITUDE = 0;
+
+	/** Index of the gradient orientation plane in the output. */
+	public static final int ORIENTATION = 1;
+
+	@Parameter(required = false)
+	private int numBins;
+
+	@Parameter(required = false)
+	private boolean sobel;
+
+	@Parameter(required = false)
+	private OutOfBoundsFactory<T, RandomAccessibleInterval<T>> outOfBounds;
+
+	@Override
+	public boolean conforms() {
+		if (in().numDimensions() != 2 && in().numDimensions() != 3) return false;
+		if (out() == null) return true;
+		return out().numDimensions() == 3 && out().dimension(0) == in().dimension(
+			0) && out().dimension(1) == in().dimension(1) && out().dimension(2) == 2;
+	}
+
+	@Override
+	public RandomAccessibleInterval<FloatType> createOutput(
+		final RandomAccessibleInterval<T> input)
+	{
+		return ops().create().img(new FinalInterval(input.dimension(0), input
+			.dimension(1), 2), new FloatType());
+	}
+
+	@Override
+	public void compute(final RandomAccessibleInterval<T> input,
+		final RandomAccessibleInterval<FloatType> output)
+	{
+		if (outOfBounds == null) {
+			outOfBounds = new OutOfBoundsMirrorFactory<>(Boundary.DOUBLE);
+		}
+
+		final int width = (int) input.dimension(0);
+		final long numChannels = input.numDimensions() == 3 ? input.dimension(2)
+			: 1;
+
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final RandomAccess<T> inRA = Views.extend(input, outOfBounds)
+					.randomAccess();
+				final RandomAccess<FloatType> magnitudeRA = output.randomAccess();
+				final RandomAccess<FloatType> orientationRA = output.randomAccess();
+				magnitudeRA.setPosition(output.min(2) + MAGNITUDE, 2);
+				orientationRA.setPosition(output.min(2) + ORIENTATION, 2);
+				final double[] derivatives = new double[2];
+				final double[] neighborhood = new double[9];
+
+				for (int s = 0; s < numSteps; s++) {
+					final long y = startIndex + (long) s * stepSize;
+					magnitudeRA.setPosition(output.min(0), 0);
+					magnitudeRA.setPosition(output.min(1) + y, 1);
+					orientationRA.setPosition(output.min(0), 0);
+					orientationRA.setPosition(output.min(1) + y, 1);
+
+					for (int x = 0; x < width; x++) {
+						inRA.setPosition(input.min(0) + x, 0);
+						inRA.setPosition(input.min(1) + y, 1);
+
+						// keep the largest derivatives over all channels
+						double dx = 0;
+						double dy = 0;
+						for (long c = 0; c < numChannels; c++) {
+							if (numChannels > 1) inRA.setPosition(input.min(2) + c, 2);
+							derivatives(inRA, derivatives, neighborhood);
+							if (c == 0 || Math.abs(derivatives[0]) > Math.abs(dx)) {
+								dx = derivatives[0];
+							}
+							if (c == 0 || Math.abs(derivatives[1]) > Math.abs(dy)) {
+								dy = derivatives[1];
+							}
+						}
+
+						magnitudeRA.get().setReal(Math.sqrt(dx * dx + dy * dy));
+						orientationRA.get().setReal(orientation(dx, dy));
+						magnitudeRA.fwd(0);
+						orientationRA.fwd(0);
+					}
+				}
+			}
+		}, input.dimension(1));
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Gets the derivatives along the first two dimensions at the position of
+	 * the given access, which is restored afterwards.
+	 */
+	private void derivatives(final RandomAccess<T> ra,
+		final double[] derivatives, final double[] v)
+	{
+		if (!sobel) {
+			ra.fwd(0);
+			final float right = ra.get().getRealFloat();
+			ra.move(-2, 0);
+			final float left = ra.get().getRealFloat();
+			ra.fwd(0);
+			ra.fwd(1);
+			final float down = ra.get().getRealFloat();
+			ra.move(-2, 1);
+			final float up = ra.get().getRealFloat();
+			ra.fwd(1);
+			derivatives[0] = (right - left) * 0.5f;
+			derivatives[1] = (down - up) * 0.5f;
+			return;
+		}
+
+		// 3x3 neighborhood, row by row
+		ra.move(-1, 0);
+		ra.move(-1, 1);
+		for (int j = 0, i = 0; j < 3; j++) {
+			for (int k = 0; k < 3; k++) {
+				v[i++] = ra.get().getRealDouble();
+				ra.fwd(0);
+			}
+			ra.move(-3, 0);
+			ra.fwd(1);
+		}
+		ra.move(1, 0);
+		ra.move(-2, 1);
+		derivatives[0] = (v[2] - v[0]) + 2 * (v[5] - v[3]) + (v[8] - v[6]);
+		derivatives[1] = (v[6] - v[0]) + 2 * (v[7] - v[1]) + (v[8] - v[2]);
+	}
+
+	private double orientation(final double dx, final double dy) {
+		float angle = (float) Math.toDegrees(Math.atan2(dx, dy));
+		if (angle < 0) {
+			angle += 360;
+		}
+		if (numBins <= 0) return angle;
+		return Math.min((int) (angle * numBins / 360), numBins - 1);
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.max;
+
+import net.imagej.ops.Ops;
+import net.imagej.ops.filter.AbstractVanHerkGilWermanFilter;
+import net.imglib2.type.numeric.RealType;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Plugin;
+
+/**
+ * {@link MaxFilterOp} for rectangular neighborhoods, computing the maximum
+ * separably with the van Herk/Gil-Werman algorithm.
+ * 
+ * @param <I> input type
+ * @param <O> output type
+ * @see DefaultMaxFilter
+ */
+@Plugin(type = Ops.Filter.Max.class, priority = Priority.NORMAL_PRIORITY)
+public class RectangleMaxFilter<I extends RealType<I>, O extends RealType<O>>
+	extends AbstractVanHerkGilWermanFilter<I, O> implements MaxFilterOp<I, O>
+{
+
+	@Override
+	protected boolean needsMin() {
+		return false;
+	}
+
+	@Override
+	protected boolean needsMax() {
+		return true;
+	}
+
+	@Override
+	protected void filter(final double min, final double max,
+		final double center, final O output)
+	{
+		output.setReal(max);
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.scaleSpace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.special.function.AbstractUnaryFunctionOp;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converters;
+import net.imglib2.converter.RealFloatConverter;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Builds a Gaussian {@link ScaleSpace} of an image. Rather than blurring the
+ * input once per scale, each level is obtained from the previous one by the
+ * small additional blur {@code sqrt(sigma_i^2 - sigma_(i-1)^2)}, using that
+ * the convolution of two Gaussians is again a Gaussian.
+ * <p>
+ * If {@code downsample} is set, the previous level is subsampled by two
+ * before blurring whenever its sigma has doubled since the first level of the
+ * current octave, as in the pyramid of Lowe's SIFT detector. The remaining
+ * levels of the octave are then computed on the coarser grid, at a quarter
+ * (in 2D) of the cost. The first level is never subsampled.
+ * </p>
+ *
+ * @param <T> type of input
+ */
+@Plugin(type = Ops.Filter.ScaleSpace.class)
+public class DefaultScaleSpace<T extends RealType<T>> extends
+	AbstractUnaryFunctionOp<RandomAccessibleInterval<T>, ScaleSpace<FloatType>>
+	implements Ops.Filter.ScaleSpace, Contingent
+{
+
+	/** Isotropic scales of the levels, in pixels, in increasing order. */
+	@Parameter
+	private double[] sigmas;
+
+	/** Scale of the blur already present in the input, e.g. from the optics. */
+	@Parameter(required = false)
+	private double inputSigma;
+
+	/** Whether to halve the resolution each time the scale doubles. */
+	@Parameter(required = false)
+	private boolean downsample;
+
+	@Parameter(required = false)
+	private OutOfBoundsFactory<FloatType, RandomAccessibleInterval<FloatType>> outOfBounds;
+
+	@Override
+	public boolean conforms() {
+		if (sigmas.length == 0 || inputSigma < 0 || sigmas[0] < inputSigma) {
+			return false;
+		}
+		// a level needs some blur before it may be subsampled
+		if (downsample && sigmas[0] <= 0) return false;
+		for (int i = 1; i < sigmas.length; i++) {
+			if (sigmas[i] < sigmas[i - 1]) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public ScaleSpace<FloatType> calculate(
+		final RandomAccessibleInterval<T> input)
+	{
+		final List<RandomAccessibleInterval<FloatType>> levels = new ArrayList<>(
+			sigmas.length);
+		final long[] downsampling = new long[sigmas.length];
+
+		RandomAccessibleInterval<FloatType> previous = Converters.convert(Views
+			.zeroMin(input), new RealFloatConverter<T>(), new FloatType());
+		double previousSigma = inputSigma;
+		double octaveSigma = sigmas[0];
+		long factor = 1;
+
+		for (int i = 0; i < sigmas.length; i++) {
+			if (downsample && i > 0 && previousSigma >= 2 * octaveSigma &&
+				canHalve(previous))
+			{
+				previous = Views.zeroMin(Views.subsample(previous, 2));
+				factor *= 2;
+				octaveSigma = previousSigma;
+			}
+
+			final RandomAccessibleInterval<FloatType> level = ops().create().img(
+				previous, new FloatType());
+			blur(previous, level, Math.sqrt(sigmas[i] * sigmas[i] - previousSigma *
+				previousSigma) / factor);
+
+			levels.add(level);
+			downsampling[i] = factor;
+			previous = level;
+			previousSigma = sigmas[i];
+		}
+
+		return new ScaleSpace<>(levels, sigmas, downsampling);
+	}
+
+	// -- Helper methods --
+
+	private void blur(final RandomAccessibleInterval<FloatType> in,
+		final RandomAccessibleInterval<FloatType> out, final double sigma)
+	{
+		if (sigma == 0) {
+			ops().copy().rai(out, in);
+			return;
+		}
+		final double[] s = new double[in.numDimensions()];
+		Arrays.fill(s, sigma);
+		ops().run(Ops.Filter.Gauss.class, out, in, s, outOfBounds);
+	}
+
+	private static boolean canHalve(final RandomAccessibleInterval<?> level) {
+		for (int d = 0; d < level.numDimensions(); d++) {
+			if (level.dimension(d) < 2) return false;
+		}
+		return true;
+	}
+
+}
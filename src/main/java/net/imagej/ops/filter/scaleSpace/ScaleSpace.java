@@ -0,0 +1,95 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.scaleSpace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.imglib2.RandomAccessibleInterval;
+
+/**
+ * A stack of progressively smoothed versions of an image, as produced by
+ * {@link DefaultScaleSpace}. Each level is stored on its own sampling grid:
+ * level {@code i} is the input blurred to {@link #getSigma(int)} (in pixels of
+ * the input) and subsampled by {@link #getDownsampling(int)} in every
+ * dimension, so its position {@code x} corresponds to input position
+ * {@code x * getDownsampling(i)}. All levels have a minimum of zero.
+ *
+ * @param <T> type of the levels
+ */
+public class ScaleSpace<T> {
+
+	private final List<RandomAccessibleInterval<T>> levels;
+
+	private final double[] sigmas;
+
+	private final long[] downsampling;
+
+	public ScaleSpace(final List<RandomAccessibleInterval<T>> levels,
+		final double[] sigmas, final long[] downsampling)
+	{
+		if (levels.size() != sigmas.length || levels.size() != downsampling.length)
+		{
+			throw new IllegalArgumentException(
+				"Need one sigma and one downsampling factor per level");
+		}
+		this.levels = Collections.unmodifiableList(new ArrayList<>(levels));
+		this.sigmas = sigmas.clone();
+		this.downsampling = downsampling.clone();
+	}
+
+	/** Gets the number of levels. */
+	public int numLevels() {
+		return levels.size();
+	}
+
+	/** Gets the given level, on its own (possibly subsampled) grid. */
+	public RandomAccessibleInterval<T> getLevel(final int level) {
+		return levels.get(level);
+	}
+
+	/** Gets all levels, finest first. */
+	public List<RandomAccessibleInterval<T>> getLevels() {
+		return levels;
+	}
+
+	/** Gets the scale of the given level, in pixels of the input. */
+	public double getSigma(final int level) {
+		return sigmas[level];
+	}
+
+	/** Gets the factor by which the given level is subsampled. */
+	public long getDownsampling(final int level) {
+		return downsampling[level];
+	}
+
+}
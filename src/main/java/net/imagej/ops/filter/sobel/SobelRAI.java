@@ -32,18 +32,28 @@ package net.imagej.ops.filter.sobel;
 import net.imagej.ops.Ops;
 import net.imagej.ops.Ops.Math.Sqr;
 import net.imagej.ops.Ops.Math.Sqrt;
+import net.imagej.ops.filter.gradient.DefaultGradient;
 import net.imagej.ops.special.chain.RAIs;
 import net.imagej.ops.special.computer.BinaryComputerOp;
 import net.imagej.ops.special.computer.UnaryComputerOp;
+import net.imagej.ops.special.function.Functions;
 import net.imagej.ops.special.function.UnaryFunctionOp;
 import net.imagej.ops.special.hybrid.AbstractUnaryHybridCF;
+import net.imglib2.Cursor;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
 
 import org.scijava.plugin.Plugin;
 
 /**
- * Sobel filter implementation using separated sobel kernel.
+ * Sobel filter implementation using separated sobel kernel. For 2D images of
+ * {@link FloatType}, the gradient magnitude is computed in a single pass by
+ * {@link DefaultGradient}, which works in float precision; other types are
+ * computed in their own arithmetic. In both cases, the squared magnitude is
+ * added to the values of the output before the square root is taken.
  * 
  * @author Eike Heinz, University of Konstanz
  *
@@ -65,11 +75,22 @@ public class SobelRAI<T extends RealType<T>>
 
 	private UnaryComputerOp<RandomAccessibleInterval<T>, RandomAccessibleInterval<T>>[] derivativeComputers;
 
+	@SuppressWarnings("rawtypes")
+	private UnaryFunctionOp<RandomAccessibleInterval<T>, RandomAccessibleInterval> gradientOp;
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public void initialize() {
 		createRAI = RAIs.function(ops(), Ops.Create.Img.class, in());
 
+		// in 2D, both derivatives and the magnitude of float images are
+		// computed in one pass
+		if (in().numDimensions() == 2 && Util.getTypeFromInterval(in()) instanceof FloatType) {
+			gradientOp = Functions.unary(ops(), Ops.Filter.Gradient.class, RandomAccessibleInterval.class, in(), 0,
+					true);
+			return;
+		}
+
 		Sqr squareOp = ops().op(Ops.Math.Sqr.class, RealType.class, RealType.class);
 		squareMapOp = RAIs.computer(ops(), Ops.Map.class, in(), squareOp);
 		Sqrt sqrtOp = ops().op(Ops.Math.Sqrt.class, RealType.class, RealType.class);
@@ -83,8 +104,21 @@ public class SobelRAI<T extends RealType<T>>
 
 	}
 
+	@SuppressWarnings("unchecked")
 	@Override
 	public void compute(RandomAccessibleInterval<T> input, RandomAccessibleInterval<T> output) {
+		if (gradientOp != null) {
+			final RandomAccessibleInterval<FloatType> magnitude = Views
+					.hyperSlice(gradientOp.calculate(input), 2, DefaultGradient.MAGNITUDE);
+			final Cursor<FloatType> in = Views.flatIterable(magnitude).cursor();
+			final Cursor<T> out = Views.flatIterable(output).cursor();
+			while (out.hasNext()) {
+				final T value = out.next();
+				final double m = in.next().getRealDouble();
+				value.setReal(Math.sqrt(value.getRealDouble() + m * m));
+			}
+			return;
+		}
 
 		for (int i = 0; i < derivativeComputers.length; i++) {
 			RandomAccessibleInterval<T> derivative = createRAI.calculate(input);
@@ -30,32 +30,34 @@
 
 package net.imagej.ops.filter.vesselness;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Arrays;
 
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
 
-import Jama.EigenvalueDecomposition;
-import Jama.Matrix;
 import net.imagej.ops.Ops;
 import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
-import net.imglib2.Cursor;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
 import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.util.Intervals;
-import net.imglib2.view.Views;
 
 /**
  * Input is a 2- or 3-dimensional grayscales image. Applies the Frangi
  * Vesselness filter to an image to highlight vessel-like structures. The
  * spacing parameter refers to the physical distance between data points in the
  * RandomAccessibleInterval, and can vary for each dimension of the image.
+ * <p>
+ * The image is processed in parallel, in slabs along its last dimension. Each
+ * slab is swept plane by plane, keeping the planes it needs in a ring buffer
+ * which is filled once per slab. The independent components of the Hessian
+ * are taken from the ring in a single pass; their eigenvalues are then found
+ * in closed form.
+ * </p>
  *
  * @author Gabe Selzer
  */
@@ -89,14 +91,11 @@ public class DefaultFrangi<T extends RealType<T>, U extends RealType<U>> extends
 		return maximumVesselness;
 	}
 
-	private double getDistance(RandomAccess<T> ahead, RandomAccess<T> behind,
-		int d)
-	{
+	private double getDistance(final long[] separations) {
 		double distance = 0;
 
-		for (int i = 0; i < d; i++) {
-			double separation = (ahead.getLongPosition(i) - behind.getLongPosition(
-				i)) * spacing[i];
+		for (int i = 0; i < separations.length; i++) {
+			double separation = separations[i] * spacing[i];
 			if (separation != 0) {
 				distance += (separation * separation);
 			}
@@ -106,10 +105,6 @@ public class DefaultFrangi<T extends RealType<T>, U extends RealType<U>> extends
 		return Math.sqrt(distance);
 	}
 
-	private double derive(double val1, double val2, double distance) {
-		return ((val2 - val1) / distance);
-	}
-
 	@Override
 	public void compute(final RandomAccessibleInterval<T> input,
 		final RandomAccessibleInterval<U> output)
@@ -125,158 +120,294 @@ public class DefaultFrangi<T extends RealType<T>, U extends RealType<U>> extends
 		frangi(input, output, scale);
 	}
 
-	private final void frangi(RandomAccessibleInterval<T> in,
-		RandomAccessibleInterval<U> out, int step)
+	private final void frangi(final RandomAccessibleInterval<T> in,
+		final RandomAccessibleInterval<U> out, final int step)
 	{
+		final int n = in.numDimensions();
+		if (n < MIN_DIMS || n > MAX_DIMS) throw new RuntimeException(
+			"Currently only 2 or 3 dimensional images are supported");
 
 		// create denominators used for gaussians later.
-		double ad = 2 * alpha * alpha;
-		double bd = 2 * beta * beta;
+		final double ad = 2 * alpha * alpha;
+		final double bd = 2 * beta * beta;
 
 		// OutOfBoundsMirrorStrategy for use when the cursor reaches the edges.
-		OutOfBoundsMirrorFactory<T, RandomAccessibleInterval<T>> osmf =
+		final OutOfBoundsMirrorFactory<T, RandomAccessibleInterval<T>> osmf =
 			new OutOfBoundsMirrorFactory<T, RandomAccessibleInterval<T>>(
 				Boundary.SINGLE);
 
-		Cursor<T> cursor = Views.iterable(in).localizingCursor();
-
-		Matrix hessian = new Matrix(in.numDimensions(), in.numDimensions());
+		// The second derivative along m and n is taken between the points one
+		// step behind and one step ahead along both; only the n(n+1)/2
+		// components with m <= n are computed, the Hessian being symmetric.
+		final int numComponents = n * (n + 1) / 2;
+		final long[][] offsets = new long[numComponents][n];
+		final double[] distances = new double[numComponents];
+		final double[] spans = new double[numComponents];
+		for (int m = 0, c = 0; m < n; m++) {
+			for (int k = m; k < n; k++, c++) {
+				offsets[c][m] = step;
+				offsets[c][k] = step;
+				distances[c] = getDistance(offsets[c]);
+				final long[] span = new long[n];
+				for (int d = 0; d < n; d++)
+					span[d] = 2 * offsets[c][d];
+				spans[c] = getDistance(span);
+			}
+		}
 
-		// use three RandomAccess<T> Objects to find the values needed to calculate
-		// the
-		// second derivatives.
-		RandomAccess<T> current = osmf.create(in);
-		RandomAccess<T> behind = osmf.create(in);
-		RandomAccess<T> ahead = osmf.create(in);
+		// each plane along the last dimension is buffered with a margin of one
+		// step; a ring of 2 * step + 1 planes holds all a voxel depends on
+		final int last = n - 1;
+		final long[] min = Intervals.minAsLongArray(in);
+		final long[] dims = Intervals.dimensionsAsLongArray(in);
+		final int width = (int) dims[0] + 2 * step;
+		final int height = n == 3 ? (int) dims[1] + 2 * step : 1;
+		final int planeSize = width * height;
+		final int numPlanes = 2 * step + 1;
+		final int[] planeOffsets = new int[numComponents];
+		final int[] slabOffsets = new int[numComponents];
+		for (int c = 0; c < numComponents; c++) {
+			planeOffsets[c] = (int) offsets[c][0];
+			if (n == 3) planeOffsets[c] += (int) offsets[c][1] * width;
+			slabOffsets[c] = (int) offsets[c][last];
+		}
 
-		RandomAccess<U> outputRA = out.randomAccess();
+		// the planes are processed in contiguous slabs, so that the ring is
+		// filled once per slab rather than once per plane
+		final long depth = dims[last];
+		final long slabSize = Math.max(1, depth / (4L * Runtime.getRuntime()
+			.availableProcessors()));
+		final long numSlabs = (depth + slabSize - 1) / slabSize;
+
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				// scratch space, shared by all slabs of this chunk
+				final double[] buffer = new double[numPlanes * planeSize];
+				final long[] loaded = new long[numPlanes];
+				Arrays.fill(loaded, Long.MIN_VALUE);
+				final int[] aheadBase = new int[numComponents];
+				final int[] behindBase = new int[numComponents];
+				final double[] hessian = new double[numComponents];
+				final double[] eigenvalues = new double[n];
+
+				final RandomAccess<T> inRA = osmf.create(in);
+				final RandomAccess<U> outRA = out.randomAccess();
+
+				double localMin = Double.POSITIVE_INFINITY;
+				double localMax = Double.NEGATIVE_INFINITY;
+
+				for (int s = 0; s < numSteps; s++) {
+					final long slab = startIndex + (long) s * stepSize;
+					final long end = Math.min(depth, (slab + 1) * slabSize);
+					for (long z = slab * slabSize; z < end; z++) {
+						for (long p = z - step; p <= z + step; p++) {
+							final int slot = slot(p, numPlanes);
+							if (loaded[slot] == p) continue;
+							inRA.setPosition(min[last] + p, last);
+							int i = slot * planeSize;
+							for (int y = 0; y < height; y++) {
+								if (n == 3) inRA.setPosition(min[1] - step + y, 1);
+								inRA.setPosition(min[0] - step, 0);
+								for (int x = 0; x < width; x++) {
+									buffer[i++] = inRA.get().getRealDouble();
+									inRA.fwd(0);
+								}
+							}
+							loaded[slot] = p;
+						}
+
+						final int centerBase = slot(z, numPlanes) * planeSize;
+						for (int c = 0; c < numComponents; c++) {
+							aheadBase[c] = slot(z + slabOffsets[c], numPlanes) * planeSize +
+								planeOffsets[c];
+							behindBase[c] = slot(z - slabOffsets[c], numPlanes) * planeSize -
+								planeOffsets[c];
+						}
+
+						outRA.setPosition(min[last] + z, last);
+						final int rows = n == 3 ? (int) dims[1] : 1;
+						for (int y = 0; y < rows; y++) {
+							if (n == 3) outRA.setPosition(min[1] + y, 1);
+							outRA.setPosition(min[0], 0);
+							final int rowStart = (n == 3 ? (y + step) * width : 0) + step;
+							for (int x = 0; x < dims[0]; x++) {
+								final int i = rowStart + x;
+
+								// calculate the hessian and its squared Frobenius norm
+								final double current = buffer[centerBase + i];
+								double frobenius = 0;
+								for (int c = 0, m = 0; m < n; m++) {
+									for (int k = m; k < n; k++, c++) {
+										final double derivativeA = (current - buffer[behindBase[c] +
+											i]) / distances[c];
+										final double derivativeB = (buffer[aheadBase[c] + i] -
+											current) / distances[c];
+										hessian[c] = (derivativeB - derivativeA) / spans[c];
+										frobenius += (k == m ? 1 : 2) * hessian[c] * hessian[c];
+									}
+								}
+
+								if (n == 2) {
+									eigenvalues2D(hessian, eigenvalues);
+								}
+								else {
+									eigenvalues3D(hessian, eigenvalues);
+								}
+								sortByMagnitude(eigenvalues);
+
+								final double v = vesselness(eigenvalues, -frobenius, ad, bd);
+								if (!Double.isNaN(v)) {
+									localMax = Math.max(v, localMax);
+									localMin = Math.min(v, localMin);
+								}
+
+								outRA.get().setReal(v);
+								outRA.fwd(0);
+							}
+						}
+					}
+				}
 
-		while (cursor.hasNext()) {
+				synchronized (DefaultFrangi.this) {
+					maximumVesselness = Math.max(localMax, maximumVesselness);
+					minimumVesselness = Math.min(localMin, minimumVesselness);
+				}
+			}
+		}, numSlabs);
+	}
 
-			cursor.fwd();
+	private static double vesselness(final double[] eigenvalues,
+		final double cn, final double ad, final double bd)
+	{
+		// vesselness value
+		double v = 0;
 
-			// calculate the hessian
-			for (int m = 0; m < in.numDimensions(); m++) {
-				for (int n = 0; n < in.numDimensions(); n++) {
+		if (eigenvalues.length == 2) {
+			double c = 15;
+			double cd = 2 * c * c;
 
-					current.setPosition(cursor);
-					ahead.setPosition(cursor);
-					behind.setPosition(cursor);
+			// lambda values
+			double l1 = eigenvalues[0];
+			double al1 = Math.abs(l1);
+			double l2 = eigenvalues[1];
+			double al2 = Math.abs(l2);
 
-					// move one behind to take the first derivative
-					behind.move(-step, m);
-					if (m != n) behind.move(-step, n);
+			// Check to see if the point is on a tubular structure.
+			if (l2 < 0) {
 
-					// take the derivative between the two points
-					double derivativeA = derive(behind.get().getRealDouble(), current
-						.get().getRealDouble(), getDistance(behind, current, in
-							.numDimensions()));
+				// ratio Rb
+				double rb = al1 / al2;
 
-					// move one ahead to take the other first derivative
-					ahead.move(step, m);
-					if (m != n) ahead.move(step, n);
+				// values for ease of final calculation
+				double bn = -(rb * rb);
+				v = Math.exp(bn / bd) * (1 - Math.exp(cn / cd));
+			}
+		}
+		else {
+			double c = 200;
+			double cd = 2 * c * c;
+
+			// lambda values
+			double l1 = eigenvalues[0];
+			double al1 = Math.abs(l1);
+			double l2 = eigenvalues[1];
+			double al2 = Math.abs(l2);
+			double l3 = eigenvalues[2];
+			double al3 = Math.abs(l3);
+
+			// Check to see if the point is on a tubular structure.
+			/*
+			 * N.B. This conditional statement only takes into account the sign 
+			 * on the third-smallest eigenvalue, not both the second and third as 
+			 * described in the paper. Original versions of this filter took the
+			 * signs of both into account, but the result of the filter was an 
+			 * empty image. Only by removing the condition of the sign of the 
+			 * second eigenvalue were we able to obtain results that matched 
+			 * human expectations of a 3-D version of the filter. This conditional
+			 * in particular achieved results best aligned with human expectation.
+			 */
+			if (l3 < 0) {
+				// ratios Rb and Ra
+				double rb = al1 / Math.sqrt(al2 * al3);
+				double ra = al2 / al3;
+
+				// values for ease of final calculation
+				double an = -(ra * ra);
+				double bn = -(rb * rb);
+
+				v = (1 - Math.exp(an / ad)) * Math.exp(bn / bd) * (1 - Math.exp(cn /
+					cd));
+			}
+		}
 
-					// take the derivative between the two points
-					double derivativeB = derive(current.get().getRealDouble(), ahead.get()
-						.getRealDouble(), getDistance(current, ahead, in.numDimensions()));
+		return v;
+	}
 
-					// take the second derivative using the two first derivatives
-					double derivative2 = derive(derivativeA, derivativeB, getDistance(
-						behind, ahead, in.numDimensions()));
+	// -- Helper methods --
 
-					hessian.set(m, n, derivative2);
+	private static int slot(final long plane, final int numPlanes) {
+		return (int) Math.floorMod(plane, (long) numPlanes);
+	}
 
-				}
-			}
+	/**
+	 * Eigenvalues, in increasing order, of the symmetric 2x2 matrix with upper
+	 * triangle {@code h = {h00, h01, h11}}.
+	 */
+	static void eigenvalues2D(final double[] h, final double[] eigenvalues) {
+		final double mean = (h[0] + h[2]) / 2;
+		final double diff = (h[0] - h[2]) / 2;
+		final double r = Math.sqrt(diff * diff + h[1] * h[1]);
+		eigenvalues[0] = mean - r;
+		eigenvalues[1] = mean + r;
+	}
 
-			// find the FrobeniusNorm (used later)
-			double s = hessian.normF();
-			double cn = -(s * s);
-
-			// find and sort the eigenvalues and eigenvectors of the Hessian
-			EigenvalueDecomposition e = hessian.eig();
-			double[] eigenvaluesArray = e.getRealEigenvalues();
-			ArrayList<Double> eigenvaluesArrayList = new ArrayList<Double>();
-			for (double d : eigenvaluesArray)
-				eigenvaluesArrayList.add(d);
-			Collections.sort(eigenvaluesArrayList, Comparator.comparingDouble(
-				Math::abs));
-
-			// vesselness value
-			double v = 0;
-
-			if (in.numDimensions() == 2) {
-				double c = 15;
-				double cd = 2 * c * c;
-
-				// lambda values
-				double l1 = eigenvaluesArrayList.get(0);
-				double al1 = Math.abs(l1);
-				double l2 = eigenvaluesArrayList.get(1);
-				double al2 = Math.abs(l2);
-
-				// Check to see if the point is on a tubular structure.
-				if (l2 < 0) {
-
-					// ratio Rb
-					double rb = al1 / al2;
-
-					// values for ease of final calculation
-					double bn = -(rb * rb);
-					v = Math.exp(bn / bd) * (1 - Math.exp(cn / cd));
-				}
-			}
-			else if (in.numDimensions() == 3) {
-				double c = 200;
-				double cd = 2 * c * c;
-
-				// lambda values
-				double l1 = eigenvaluesArrayList.get(0);
-				double al1 = Math.abs(l1);
-				double l2 = eigenvaluesArrayList.get(1);
-				double al2 = Math.abs(l2);
-				double l3 = eigenvaluesArrayList.get(2);
-				double al3 = Math.abs(l3);
-
-				// Check to see if the point is on a tubular structure.
-				/*
-				 * N.B. This conditional statement only takes into account the sign 
-				 * on the third-smallest eigenvalue, not both the second and third as 
-				 * described in the paper. Original versions of this filter took the
-				 * signs of both into account, but the result of the filter was an 
-				 * empty image. Only by removing the condition of the sign of the 
-				 * second eigenvalue were we able to obtain results that matched 
-				 * human expectations of a 3-D version of the filter. This conditional
-				 * in particular achieved results best aligned with human expectation.
-				 */
-				if (l3 < 0) {
-					// ratios Rb and Ra
-					double rb = al1 / Math.sqrt(al2 * al3);
-					double ra = al2 / al3;
-
-					// values for ease of final calculation
-					double an = -(ra * ra);
-					double bn = -(rb * rb);
-
-//					System.out.println(l1 + "  " + l2 + "  " + l3);
-
-					v = (1 - Math.exp(an / ad)) * Math.exp(bn / bd) * (1 - Math.exp(cn /
-						cd));
-				}
+	/**
+	 * Eigenvalues, in increasing order, of the symmetric 3x3 matrix with upper
+	 * triangle {@code h = {h00, h01, h02, h11, h12, h22}}, by the trigonometric
+	 * solution of its characteristic polynomial (Smith, Commun. ACM 4(4), 1961).
+	 */
+	static void eigenvalues3D(final double[] h, final double[] eigenvalues) {
+		final double p1 = h[1] * h[1] + h[2] * h[2] + h[4] * h[4];
+		if (p1 == 0) {
+			eigenvalues[0] = h[0];
+			eigenvalues[1] = h[3];
+			eigenvalues[2] = h[5];
+			Arrays.sort(eigenvalues);
+			return;
+		}
 
-			}
-			else throw new RuntimeException(
-				"Currently only 2 or 3 dimensional images are supported");
+		final double q = (h[0] + h[3] + h[5]) / 3;
+		final double a = h[0] - q;
+		final double d = h[3] - q;
+		final double f = h[5] - q;
+		final double p = Math.sqrt((a * a + d * d + f * f + 2 * p1) / 6);
+
+		// half the determinant of (H - qI) / p, in [-1, 1] up to rounding
+		final double det = a * (d * f - h[4] * h[4]) - h[1] * (h[1] * f - h[4] *
+			h[2]) + h[2] * (h[1] * h[4] - d * h[2]);
+		final double r = det / (2 * p * p * p);
+		final double phi = r <= -1 ? Math.PI / 3 : r >= 1 ? 0 : Math.acos(r) / 3;
+
+		eigenvalues[2] = q + 2 * p * Math.cos(phi);
+		eigenvalues[0] = q + 2 * p * Math.cos(phi + 2 * Math.PI / 3);
+		eigenvalues[1] = 3 * q - eigenvalues[0] - eigenvalues[2];
+	}
 
-			if (!Double.isNaN(v)) {
-				maximumVesselness = Math.max(v, maximumVesselness);
-				minimumVesselness = Math.min(v, minimumVesselness);
+	/** Stable insertion sort by absolute value, as few values are sorted. */
+	private static void sortByMagnitude(final double[] values) {
+		for (int i = 1; i < values.length; i++) {
+			final double value = values[i];
+			int j = i - 1;
+			while (j >= 0 && Math.abs(values[j]) > Math.abs(value)) {
+				values[j + 1] = values[j];
+				j--;
 			}
-
-			outputRA.setPosition(cursor);
-			outputRA.get().setReal(v);
+			values[j + 1] = value;
 		}
-
 	}
 
 }
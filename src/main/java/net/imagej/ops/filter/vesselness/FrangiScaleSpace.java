@@ -0,0 +1,118 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.vesselness;
+
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.filter.scaleSpace.ScaleSpace;
+import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+/**
+ * Multi-scale Frangi Vesselness over the levels of a {@link ScaleSpace}. Each
+ * level is filtered by {@link DefaultFrangi} with a step of one pixel of its
+ * own grid, since the smoothing is already done, and the output (sized like
+ * the finest level) receives the maximum response over all levels.
+ * <p>
+ * To make the responses of different scales comparable, the second
+ * derivatives are normalized by sigma squared (Frangi et al., MICCAI 1998),
+ * which amounts to dividing the spacing of each level by its sigma.
+ * </p>
+ */
+@Plugin(type = Ops.Filter.FrangiVesselness.class)
+public class FrangiScaleSpace<T extends RealType<T>, U extends RealType<U>>
+	extends AbstractUnaryComputerOp<ScaleSpace<T>, RandomAccessibleInterval<U>>
+	implements Ops.Filter.FrangiVesselness, Contingent
+{
+
+	/** Physical spacing of the finest level, or null for unit spacing. */
+	@Parameter(required = false)
+	private double[] spacing;
+
+	@Override
+	public boolean conforms() {
+		final int n = in().getLevel(0).numDimensions();
+		return in().getDownsampling(0) == 1 && n >= DefaultFrangi.MIN_DIMS &&
+			n <= DefaultFrangi.MAX_DIMS;
+	}
+
+	@Override
+	public void compute(final ScaleSpace<T> input,
+		final RandomAccessibleInterval<U> output)
+	{
+		final int n = output.numDimensions();
+		final long[] position = new long[n];
+
+		for (int i = 0; i < input.numLevels(); i++) {
+			final RandomAccessibleInterval<T> level = input.getLevel(i);
+			final long factor = input.getDownsampling(i);
+			final double sigma = input.getSigma(i);
+			final double[] levelSpacing = new double[n];
+			for (int d = 0; d < n; d++) {
+				levelSpacing[d] = (spacing == null ? 1 : spacing[d]) * factor;
+				if (sigma > 0) levelSpacing[d] /= sigma;
+			}
+
+			final Img<FloatType> vesselness = ops().create().img(level,
+				new FloatType());
+			ops().run(Ops.Filter.FrangiVesselness.class, vesselness, level,
+				levelSpacing, 1);
+
+			// keep the strongest response, looking up coarse levels by position
+			final RandomAccess<FloatType> ra = vesselness.randomAccess();
+			final Cursor<U> cursor = Views.iterable(output).localizingCursor();
+			while (cursor.hasNext()) {
+				final U o = cursor.next();
+				cursor.localize(position);
+				for (int d = 0; d < n; d++) {
+					position[d] = (position[d] - output.min(d)) / factor;
+				}
+				ra.setPosition(position);
+				final double v = ra.get().getRealDouble();
+				if (i == 0 || v > o.getRealDouble() || Double.isNaN(o
+					.getRealDouble()))
+				{
+					o.setReal(v);
+				}
+			}
+		}
+	}
+
+}
@@ -33,6 +33,7 @@ import net.imagej.ops.AbstractNamespace;
 import net.imagej.ops.Namespace;
 import net.imagej.ops.OpMethod;
 import net.imagej.ops.Ops;
+import net.imagej.ops.image.cooccurrenceMatrix.CooccurrenceMatrices;
 import net.imagej.ops.image.cooccurrenceMatrix.MatrixOrientation;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccessibleInterval;
@@ -95,6 +96,31 @@ public class ImageNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	// -- cooccurrence matrices --
+
+	@OpMethod(
+		op = net.imagej.ops.image.cooccurrenceMatrix.DefaultCooccurrenceMatrices.class)
+	public <T extends RealType<T>> CooccurrenceMatrices cooccurrenceMatrices(
+			final IterableInterval<T> in, final int nrGreyLevels,
+			final int[] distances, final MatrixOrientation[] orientations) {
+		final CooccurrenceMatrices result = (CooccurrenceMatrices) ops().run(
+				Ops.Image.CooccurrenceMatrices.class, in, nrGreyLevels, distances,
+				orientations);
+		return result;
+	}
+
+	@OpMethod(
+		op = net.imagej.ops.image.cooccurrenceMatrix.DefaultCooccurrenceMatrices.class)
+	public <T extends RealType<T>> CooccurrenceMatrices cooccurrenceMatrices(
+			final IterableInterval<T> in, final int nrGreyLevels,
+			final int[] distances, final MatrixOrientation[] orientations,
+			final boolean symmetric) {
+		final CooccurrenceMatrices result = (CooccurrenceMatrices) ops().run(
+				Ops.Image.CooccurrenceMatrices.class, in, nrGreyLevels, distances,
+				orientations, symmetric);
+		return result;
+	}
+
 	// -- distance transform --
 
 	/** Executes the "distancetransform" operation on the given arguments. */
@@ -0,0 +1,165 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.image.cooccurrenceMatrix;
+
+/**
+ * The cooccurrence matrices of an image for a set of orientations and
+ * distances, as computed by {@link DefaultCooccurrenceMatrices}.
+ * <p>
+ * The pair counts of each matrix are stored either densely, with
+ * {@code nrGreyLevels²} entries, or, for symmetric matrices, packed as the
+ * upper triangle with {@code nrGreyLevels * (nrGreyLevels + 1) / 2} entries.
+ * A symmetric matrix counts each pair of grey levels regardless of its order,
+ * i.e. it is the mean of the matrix and its transpose.
+ * </p>
+ */
+public class CooccurrenceMatrices {
+
+	private final int nrGreyLevels;
+
+	private final MatrixOrientation[] orientations;
+
+	private final int[] distances;
+
+	private final boolean symmetric;
+
+	/** Pair counts, indexed by orientation and distance. */
+	private final long[][][] counts;
+
+	/** Number of pairs, indexed by orientation and distance. */
+	private final long[][] nrPairs;
+
+	CooccurrenceMatrices(final int nrGreyLevels,
+		final MatrixOrientation[] orientations, final int[] distances,
+		final boolean symmetric)
+	{
+		this.nrGreyLevels = nrGreyLevels;
+		this.orientations = orientations.clone();
+		this.distances = distances.clone();
+		this.symmetric = symmetric;
+		counts = new long[orientations.length][distances.length][size(
+			nrGreyLevels, symmetric)];
+		nrPairs = new long[orientations.length][distances.length];
+	}
+
+	// -- CooccurrenceMatrices methods --
+
+	/** Gets the number of grey levels, i.e. the size of each matrix. */
+	public int getNrGreyLevels() {
+		return nrGreyLevels;
+	}
+
+	/** Gets the number of orientations. */
+	public int numOrientations() {
+		return orientations.length;
+	}
+
+	/** Gets the orientation with the given index. */
+	public MatrixOrientation getOrientation(final int o) {
+		return orientations[o];
+	}
+
+	/** Gets the number of distances. */
+	public int numDistances() {
+		return distances.length;
+	}
+
+	/** Gets the distance with the given index. */
+	public int getDistance(final int d) {
+		return distances[d];
+	}
+
+	/** Whether the matrices count pairs regardless of their order. */
+	public boolean isSymmetric() {
+		return symmetric;
+	}
+
+	/**
+	 * Gets the number of pixel pairs counted for an orientation and distance.
+	 */
+	public long getNrPairs(final int o, final int d) {
+		return nrPairs[o][d];
+	}
+
+	/**
+	 * Gets the normalized cooccurrence of two grey levels for an orientation
+	 * and distance.
+	 */
+	public double get(final int o, final int d, final int row, final int col) {
+		if (nrPairs[o][d] == 0) return 0;
+		final double divisor = 1.0 / nrPairs[o][d];
+		if (!symmetric) return counts[o][d][row * nrGreyLevels + col] * divisor;
+		final long count = counts[o][d][index(row, col, nrGreyLevels)];
+		return row == col ? count * divisor : count * divisor / 2;
+	}
+
+	/**
+	 * Gets the normalized cooccurrence matrix for an orientation and distance,
+	 * as returned by {@link CooccurrenceMatrix2D} and
+	 * {@link CooccurrenceMatrix3D}.
+	 */
+	public double[][] getMatrix(final int o, final int d) {
+		final double[][] matrix = new double[nrGreyLevels][nrGreyLevels];
+		for (int row = 0; row < nrGreyLevels; row++) {
+			for (int col = 0; col < nrGreyLevels; col++) {
+				matrix[row][col] = get(o, d, row, col);
+			}
+		}
+		return matrix;
+	}
+
+	// -- Helper methods --
+
+	/** Adds partial pair counts for an orientation and distance. */
+	void add(final int o, final int d, final long[] partialCounts,
+		final long partialNrPairs)
+	{
+		final long[] c = counts[o][d];
+		for (int i = 0; i < c.length; i++) {
+			c[i] += partialCounts[i];
+		}
+		nrPairs[o][d] += partialNrPairs;
+	}
+
+	/** Gets the number of stored counts per matrix. */
+	static int size(final int nrGreyLevels, final boolean symmetric) {
+		return symmetric ? nrGreyLevels * (nrGreyLevels + 1) / 2 : nrGreyLevels *
+			nrGreyLevels;
+	}
+
+	/** Gets the index of a pair of grey levels in a packed upper triangle. */
+	static int index(final int row, final int col, final int nrGreyLevels) {
+		final int lo = Math.min(row, col);
+		final int hi = Math.max(row, col);
+		return lo * nrGreyLevels - lo * (lo - 1) / 2 + hi - lo;
+	}
+
+}
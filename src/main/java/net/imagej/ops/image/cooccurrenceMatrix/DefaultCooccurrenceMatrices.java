@@ -0,0 +1,211 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.image.cooccurrenceMatrix;
+
+import java.util.Arrays;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.Ops.Stats.MinMax;
+import net.imagej.ops.special.function.AbstractUnaryFunctionOp;
+import net.imagej.ops.special.function.Functions;
+import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Pair;
+
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Calculates the cooccurrence matrices of a 2D- or 3D-{@link IterableInterval}
+ * for several orientations and distances at once. The grey levels are
+ * quantized once, in the same way as by {@link CooccurrenceMatrix2D} and
+ * {@link CooccurrenceMatrix3D}, and all matrices are accumulated in a single
+ * parallel scan over the image.
+ */
+@Plugin(type = Ops.Image.CooccurrenceMatrices.class)
+public class DefaultCooccurrenceMatrices<T extends RealType<T>> extends
+	AbstractUnaryFunctionOp<IterableInterval<T>, CooccurrenceMatrices> implements
+	Ops.Image.CooccurrenceMatrices, Contingent
+{
+
+	@Parameter(label = "Number of Gray Levels", min = "0", max = "128",
+		stepSize = "1", initializer = "32")
+	private int nrGreyLevels;
+
+	@Parameter(label = "Distances")
+	private int[] distances;
+
+	@Parameter(label = "Matrix Orientations")
+	private MatrixOrientation[] orientations;
+
+	@Parameter(label = "Symmetric", required = false)
+	private boolean symmetric;
+
+	private UnaryFunctionOp<IterableInterval<T>, Pair<T, T>> minmax;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	public void initialize() {
+		super.initialize();
+		minmax = (UnaryFunctionOp) Functions.unary(ops(), MinMax.class,
+			Pair.class, in());
+	}
+
+	@Override
+	public CooccurrenceMatrices calculate(final IterableInterval<T> input) {
+		final int numDims = input.numDimensions();
+		final int width = (int) input.dimension(0);
+		final int height = (int) input.dimension(1);
+		final int depth = numDims > 2 ? (int) input.dimension(2) : 1;
+
+		// quantize once; pixels outside of the mask keep Integer.MAX_VALUE
+		final Pair<T, T> minMax = minmax.calculate(input);
+		final double localMin = minMax.getA().getRealDouble();
+		final double diff = minMax.getB().getRealDouble() - localMin;
+
+		final int[] pixels = new int[width * height * depth];
+		Arrays.fill(pixels, Integer.MAX_VALUE);
+
+		final Cursor<T> cursor = input.localizingCursor();
+		final long[] position = new long[numDims];
+		while (cursor.hasNext()) {
+			cursor.fwd();
+			cursor.localize(position);
+			final double value = (cursor.get().getRealDouble() - localMin) / diff;
+			final int bin;
+			if (numDims == 2) {
+				final int b = (int) (value * nrGreyLevels);
+				bin = b < nrGreyLevels - 1 ? b : nrGreyLevels - 1;
+			}
+			else {
+				bin = (int) (value * (nrGreyLevels - 1));
+			}
+			long index = 0;
+			for (int d = numDims - 1; d >= 0; d--) {
+				index = index * input.dimension(d) + position[d] - input.min(d);
+			}
+			pixels[(int) index] = bin;
+		}
+
+		final CooccurrenceMatrices matrices = new CooccurrenceMatrices(
+			nrGreyLevels, orientations, distances, symmetric);
+		final int numOrientations = orientations.length;
+		final int numDistances = distances.length;
+		final int size = CooccurrenceMatrices.size(nrGreyLevels, symmetric);
+
+		// scan all rows once, counting the pairs of every offset; the rows are
+		// split into one block per processor, so that the counts are allocated
+		// and merged once per block
+		final int numRows = height * depth;
+		final int numProcessors = Runtime.getRuntime().availableProcessors();
+		final int blockSize = (numRows + numProcessors - 1) / numProcessors;
+		final int numBlocks = (numRows + blockSize - 1) / blockSize;
+
+		ops().run(ChunkerOp.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final long[][][] counts = new long[numOrientations][numDistances][size];
+				final long[][] nrPairs = new long[numOrientations][numDistances];
+
+				for (int s = 0; s < numSteps; s++) {
+					final int block = startIndex + s * stepSize;
+					final int end = Math.min(numRows, (block + 1) * blockSize);
+					for (int row = block * blockSize; row < end; row++) {
+						final int y = row % height;
+						final int z = row / height;
+						final int offset = row * width;
+
+						for (int o = 0; o < numOrientations; o++) {
+							for (int d = 0; d < numDistances; d++) {
+								final int dx = orientations[o].getValueAtDim(0) * distances[d];
+								final int dy = orientations[o].getValueAtDim(1) * distances[d];
+								final int dz = numDims > 2 ? orientations[o].getValueAtDim(2) *
+									distances[d] : 0;
+								final int sy = y + dy;
+								final int sz = z + dz;
+								if (sy < 0 || sy >= height || sz < 0 || sz >= depth) continue;
+
+								final int delta = (sz * height + sy) * width + dx - offset;
+								final int minX = Math.max(0, -dx);
+								final int maxX = Math.min(width, width - dx);
+								final long[] c = counts[o][d];
+								long n = 0;
+								for (int i = offset + minX; i < offset + maxX; i++) {
+									final int a = pixels[i];
+									final int b = pixels[i + delta];
+									// ignore pixels not in mask
+									if (a == Integer.MAX_VALUE || b == Integer.MAX_VALUE) {
+										continue;
+									}
+									c[symmetric ? CooccurrenceMatrices.index(a, b, nrGreyLevels)
+										: a * nrGreyLevels + b]++;
+									n++;
+								}
+								nrPairs[o][d] += n;
+							}
+						}
+					}
+				}
+
+				synchronized (matrices) {
+					for (int o = 0; o < numOrientations; o++) {
+						for (int d = 0; d < numDistances; d++) {
+							matrices.add(o, d, counts[o][d], nrPairs[o][d]);
+						}
+					}
+				}
+			}
+		}, numBlocks);
+
+		return matrices;
+	}
+
+	@Override
+	public boolean conforms() {
+		final int numDims = in().numDimensions();
+		if (numDims != 2 && numDims != 3) return false;
+		if (nrGreyLevels <= 0 || distances.length == 0 ||
+			orientations.length == 0) return false;
+		for (final MatrixOrientation orientation : orientations) {
+			if (!orientation.isCompatible(numDims)) return false;
+		}
+		return true;
+	}
+
+}
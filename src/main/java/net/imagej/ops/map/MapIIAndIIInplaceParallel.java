@@ -33,6 +33,8 @@ import net.imagej.ops.Contingent;
 import net.imagej.ops.Ops;
 import net.imagej.ops.Parallel;
 import net.imagej.ops.special.inplace.BinaryInplace1Op;
+import net.imagej.ops.special.inplace.BinaryInplaceOp;
+import net.imagej.ops.thread.OpInstancePool;
 import net.imagej.ops.thread.chunker.ChunkerOp;
 import net.imagej.ops.thread.chunker.CursorBasedChunk;
 import net.imglib2.IterableInterval;
@@ -61,14 +63,16 @@ public class MapIIAndIIInplaceParallel<EA> extends
 	public void mutate1(final IterableInterval<EA> arg,
 		final IterableInterval<EA> in)
 	{
+		final OpInstancePool<BinaryInplaceOp<EA, EA>> pool =
+			new OpInstancePool<>(getOp());
 		ops().run(ChunkerOp.class, new CursorBasedChunk() {
 
 			@Override
 			public void execute(final int startIndex, final int stepSize,
 				final int numSteps)
 			{
-				Maps.inplace(arg, in, (BinaryInplace1Op<EA, EA, EA>) getOp(),
-					startIndex, stepSize, numSteps);
+				pool.run(op -> Maps.inplace(arg, in, (BinaryInplace1Op<EA, EA, EA>) op,
+					startIndex, stepSize, numSteps));
 			}
 		}, arg.size());
 	}
@@ -77,13 +81,16 @@ public class MapIIAndIIInplaceParallel<EA> extends
 	public void mutate2(final IterableInterval<EA> in,
 		final IterableInterval<EA> arg)
 	{
+		final OpInstancePool<BinaryInplaceOp<EA, EA>> pool =
+			new OpInstancePool<>(getOp());
 		ops().run(ChunkerOp.class, new CursorBasedChunk() {
 
 			@Override
 			public void execute(final int startIndex, final int stepSize,
 				final int numSteps)
 			{
-				Maps.inplace(in, arg, getOp(), startIndex, stepSize, numSteps);
+				pool.run(op -> Maps.inplace(in, arg, op, startIndex, stepSize,
+					numSteps));
 			}
 		}, in.size());
 	}
@@ -31,6 +31,8 @@ package net.imagej.ops.map;
 
 import net.imagej.ops.Ops;
 import net.imagej.ops.Parallel;
+import net.imagej.ops.special.inplace.UnaryInplaceOp;
+import net.imagej.ops.thread.OpInstancePool;
 import net.imagej.ops.thread.chunker.ChunkerOp;
 import net.imagej.ops.thread.chunker.CursorBasedChunk;
 import net.imglib2.IterableInterval;
@@ -51,13 +53,15 @@ public class MapIIInplaceParallel<A> extends
 
 	@Override
 	public void mutate(final IterableInterval<A> arg) {
+		final OpInstancePool<UnaryInplaceOp<A, A>> pool =
+			new OpInstancePool<>(getOp());
 		ops().run(ChunkerOp.class, new CursorBasedChunk() {
 
 			@Override
 			public void execute(final int startIndex, final int stepSize,
 				final int numSteps)
 			{
-				Maps.inplace(arg, getOp(), startIndex, stepSize, numSteps);
+				pool.run(op -> Maps.inplace(arg, op, startIndex, stepSize, numSteps));
 			}
 		}, arg.size());
 	}
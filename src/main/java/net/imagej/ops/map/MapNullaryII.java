@@ -30,6 +30,9 @@
 package net.imagej.ops.map;
 
 import net.imagej.ops.Ops;
+import net.imagej.ops.Parallel;
+import net.imagej.ops.special.computer.NullaryComputerOp;
+import net.imagej.ops.thread.OpInstancePool;
 import net.imagej.ops.thread.chunker.ChunkerOp;
 import net.imagej.ops.thread.chunker.CursorBasedChunk;
 import net.imglib2.IterableInterval;
@@ -46,18 +49,20 @@ import org.scijava.plugin.Plugin;
  */
 @Plugin(type = Ops.Map.class, priority = Priority.LOW_PRIORITY + 1)
 public class MapNullaryII<O> extends
-	AbstractMapNullaryComputer<O, IterableInterval<O>>
+	AbstractMapNullaryComputer<O, IterableInterval<O>> implements Parallel
 {
 
 	@Override
 	public void compute(IterableInterval<O> output) {
+		final OpInstancePool<NullaryComputerOp<O>> pool =
+			new OpInstancePool<>(getOp());
 		ops().run(ChunkerOp.class, new CursorBasedChunk() {
 
 			@Override
 			public void execute(final int startIndex, final int stepSize,
 				final int numSteps)
 			{
-				Maps.map(output, getOp(), startIndex, stepSize, numSteps);
+				pool.run(op -> Maps.map(output, op, startIndex, stepSize, numSteps));
 			}
 		}, output.size());
 	}
@@ -40,6 +40,7 @@ import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
 
 /**
  * Utility class for {@link MapOp}s.
@@ -72,6 +73,12 @@ public class Maps {
 		return Intervals.contains(a, b);
 	}
 
+	public static <I, O> boolean compatible(final RandomAccessibleInterval<I> a,
+		final RandomAccessibleInterval<O> b)
+	{
+		return Intervals.contains(a, b) && Intervals.contains(b, a);
+	}
+
 	public static <I1, I2, O> boolean compatible(final IterableInterval<I1> a,
 		final IterableInterval<I2> b, final IterableInterval<O> c)
 	{
@@ -121,6 +128,13 @@ public class Maps {
 		return Intervals.contains(a, c) && Intervals.contains(b, c);
 	}
 
+	public static <I1, I2, O> boolean compatible(
+		final RandomAccessibleInterval<I1> a, final RandomAccessibleInterval<I2> b,
+		final RandomAccessibleInterval<O> c)
+	{
+		return Intervals.contains(a, c) && Intervals.contains(b, c);
+	}
+
 	// -- Nullary Maps --
 
 	public static <O> void map(final Iterable<O> a,
@@ -179,6 +193,12 @@ public class Maps {
 		}
 	}
 
+	public static <I, O> void map(final RandomAccessibleInterval<I> a,
+		final RandomAccessibleInterval<O> b, final UnaryComputerOp<I, O> op)
+	{
+		map(a, Views.flatIterable(b), op);
+	}
+
 	// -- Binary Maps --
 
 	public static <I1, I2, O> void map(final IterableInterval<I1> a,
@@ -280,6 +300,13 @@ public class Maps {
 		}
 	}
 
+	public static <I1, I2, O> void map(final RandomAccessibleInterval<I1> a,
+		final RandomAccessibleInterval<I2> b, final RandomAccessibleInterval<O> c,
+		final BinaryComputerOp<I1, I2, O> op)
+	{
+		map(a, b, Views.flatIterable(c), op);
+	}
+
 	// -- Parallel Unary Maps --
 
 	public static <I, O> void map(final IterableInterval<I> a,
@@ -328,6 +355,13 @@ public class Maps {
 		}
 	}
 
+	public static <I, O> void map(final RandomAccessibleInterval<I> a,
+		final RandomAccessibleInterval<O> b, final UnaryComputerOp<I, O> op,
+		final int startIndex, final int stepSize, final int numSteps)
+	{
+		map(a, Views.flatIterable(b), op, startIndex, stepSize, numSteps);
+	}
+
 	// -- Parallel Binary Maps --
 
 	public static <I1, I2, O> void map(final IterableInterval<I1> a,
@@ -460,6 +494,14 @@ public class Maps {
 		}
 	}
 
+	public static <I1, I2, O> void map(final RandomAccessibleInterval<I1> a,
+		final RandomAccessibleInterval<I2> b, final RandomAccessibleInterval<O> c,
+		final BinaryComputerOp<I1, I2, O> op, final int startIndex,
+		final int stepSize, final int numSteps)
+	{
+		map(a, b, Views.flatIterable(c), op, startIndex, stepSize, numSteps);
+	}
+
 	// -- Unary Inplace Maps --
 
 	public static <I, O extends I> void inplace(final Iterable<O> arg,
@@ -520,6 +562,12 @@ public class Maps {
 		}
 	}
 
+	public static <A, I> void inplace(final RandomAccessibleInterval<A> arg,
+		final RandomAccessibleInterval<I> in, final BinaryInplace1Op<A, I, A> op)
+	{
+		inplace(Views.flatIterable(arg), in, op);
+	}
+
 	public static <A, I> void inplace(final IterableInterval<A> arg,
 		final IterableInterval<I> in, final BinaryInplace1Op<A, I, A> op,
 		final int startIndex, final int stepSize, final int numSteps)
@@ -566,6 +614,13 @@ public class Maps {
 		}
 	}
 
+	public static <A, I> void inplace(final RandomAccessibleInterval<A> arg,
+		final RandomAccessibleInterval<I> in, final BinaryInplace1Op<A, I, A> op,
+		final int startIndex, final int stepSize, final int numSteps)
+	{
+		inplace(Views.flatIterable(arg), in, op, startIndex, stepSize, numSteps);
+	}
+
 	public static <A> void inplace(final IterableInterval<A> arg,
 		final IterableInterval<A> in, final BinaryInplaceOp<A, A> op)
 	{
@@ -29,12 +29,13 @@
 
 package net.imagej.ops.stats;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
 
 import net.imagej.ops.Op;
 import net.imagej.ops.Ops;
+import net.imglib2.IterableInterval;
+import net.imglib2.type.numeric.IntegerType;
 import net.imglib2.type.numeric.RealType;
 
 import org.scijava.plugin.Parameter;
@@ -42,6 +43,12 @@ import org.scijava.plugin.Plugin;
 
 /**
  * {@link Op} to calculate the n-th {@code stats.percentile}.
+ * <p>
+ * Values are selected from primitive scratch buffers owned by the calling
+ * thread (see {@link Selection}), so no objects are allocated per call.
+ * Integer types of up to 16 bits are selected from a histogram instead when
+ * there are enough values to amortize scanning it.
+ * </p>
  * 
  * @author Daniel Seebacher (University of Konstanz)
  * @author Christian Dietz (University of Konstanz)
@@ -54,95 +61,88 @@ public class DefaultQuantile<I extends RealType<I>, O extends RealType<O>>
 	extends AbstractStatsOp<Iterable<I>, O> implements Ops.Stats.Quantile
 {
 
+	/** Maximum number of bits of integer types which are selected as ints. */
+	private static final int MAX_INT_BITS = 16;
+
 	@Parameter(min = "0.0", max = "1.0")
 	private double quantile;
-	
+
 	@Override
 	public void compute(final Iterable<I> input, final O output) {
-		final ArrayList<Double> statistics = new ArrayList<>();
-
 		final Iterator<I> it = input.iterator();
-		while (it.hasNext()) {
-			statistics.add(it.next().getRealDouble());
+		if (!it.hasNext()) {
+			output.setReal(Double.NaN);
+			return;
 		}
-
-		output.setReal(select(statistics, 0, statistics.size() - 1, (int) (statistics
-			.size() * quantile)));
+		final I first = it.next();
+		if (first instanceof IntegerType &&
+			first.getBitsPerPixel() <= MAX_INT_BITS)
+		{
+			output.setReal(selectInteger(input, first));
+		}
+		else output.setReal(selectReal(input));
 	}
 
-	/**
-	 * Returns the value of the kth lowest element. Do note that for nth lowest
-	 * element, k = n - 1.
-	 */
-	private double select(final ArrayList<Double> array, final int inLeft,
-		final int inRight, final int k)
-	{
-
-		int left = inLeft;
-		int right = inRight;
-
-		while (true) {
-
-			if (right <= left + 1) {
-
-				if (right == left + 1 && array.get(right) < array.get(left)) {
-					swap(array, left, right);
-				}
-
-				return array.get(k);
-
-			}
-			final int middle = (left + right) >>> 1;
-			swap(array, middle, left + 1);
-
-			if (array.get(left) > array.get(right)) {
-				swap(array, left, right);
-			}
-
-			if (array.get(left + 1) > array.get(right)) {
-				swap(array, left + 1, right);
-			}
-
-			if (array.get(left) > array.get(left + 1)) {
-				swap(array, left, left + 1);
-			}
-
-			int i = left + 1;
-			int j = right;
-			final double pivot = array.get(left + 1);
+	// -- Helper methods --
 
-			while (true) {
-				do
-					++i;
-				while (array.get(i) < pivot);
-				do
-					--j;
-				while (array.get(j) > pivot);
-
-				if (j < i) {
-					break;
-				}
+	private double selectReal(final Iterable<I> input) {
+		double[] values = Selection.doubles(initialCapacity(input));
+		int n = 0;
+		for (final I value : input) {
+			if (n == values.length) values = grow(values);
+			values[n++] = value.getRealDouble();
+		}
+		return Selection.select(values, n, rank(n));
+	}
 
-				swap(array, i, j);
+	private double selectInteger(final Iterable<I> input, final I first) {
+		final int min = (int) first.getMinValue();
+		final int range = (int) first.getMaxValue() - min + 1;
+
+		// NB: Scanning the histogram costs its size; only pays off for many values.
+		if (input instanceof IterableInterval &&
+			((IterableInterval<?>) input).size() >= range / 2)
+		{
+			final long n = ((IterableInterval<?>) input).size();
+			final int[] histogram = Selection.ints(range);
+			Arrays.fill(histogram, 0, range, 0);
+			for (final I value : input) {
+				histogram[((IntegerType<?>) value).getInteger() - min]++;
 			}
+			final long k = Math.min(n - 1, (long) (n * quantile));
+			return min + Selection.selectBin(histogram, range, k);
+		}
 
-			array.set(left + 1, array.get(j));
-			array.set(j, pivot);
+		int[] values = Selection.ints(initialCapacity(input));
+		int n = 0;
+		for (final I value : input) {
+			if (n == values.length) values = grow(values);
+			values[n++] = ((IntegerType<?>) value).getInteger();
+		}
+		return Selection.select(values, n, rank(n));
+	}
 
-			if (j >= k) {
-				right = j - 1;
-			}
+	/** Gets the zero-based rank of the quantile among n values. */
+	private int rank(final int n) {
+		return (int) (n * quantile);
+	}
 
-			if (j <= k) {
-				left = i;
-			}
+	private static int initialCapacity(final Iterable<?> input) {
+		if (input instanceof IterableInterval) {
+			return (int) ((IterableInterval<?>) input).size();
 		}
+		return 1024;
+	}
+
+	private static double[] grow(final double[] values) {
+		final double[] grown = Selection.doubles(2 * values.length);
+		System.arraycopy(values, 0, grown, 0, values.length);
+		return grown;
 	}
 
-	/** Helper method for swapping array entries */
-	private void swap(final List<Double> array, final int a, final int b) {
-		final double temp = array.get(a);
-		array.set(a, array.get(b));
-		array.set(b, temp);
+	private static int[] grow(final int[] values) {
+		final int[] grown = Selection.ints(2 * values.length);
+		System.arraycopy(values, 0, grown, 0, values.length);
+		return grown;
 	}
 }
@@ -0,0 +1,209 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.stats;
+
+/**
+ * Utility class for selecting the k-th smallest element of primitive arrays,
+ * without boxing and without allocating.
+ * <p>
+ * The {@code select} methods partially reorder the given range in place, using
+ * quickselect with a median-of-three pivot: they run in linear time on
+ * average. Scratch buffers for copying values into are available per thread,
+ * so repeated selections (e.g. one per neighborhood of a median filter) do not
+ * put any pressure on the garbage collector.
+ * </p>
+ */
+public final class Selection {
+
+	/** Largest scratch buffer which is retained per thread. */
+	private static final int MAX_RETAINED = 1 << 20;
+
+	private static final ThreadLocal<double[]> DOUBLES = new ThreadLocal<>();
+
+	private static final ThreadLocal<int[]> INTS = new ThreadLocal<>();
+
+	private Selection() {
+		// NB: Prevent instantiation of utility class.
+	}
+
+	// -- Scratch buffers --
+
+	/**
+	 * Gets a scratch buffer of at least the given length, owned by the calling
+	 * thread. Its contents are undefined.
+	 */
+	public static double[] doubles(final int length) {
+		double[] buffer = DOUBLES.get();
+		if (buffer == null || buffer.length < length) {
+			buffer = new double[grow(buffer == null ? 0 : buffer.length, length)];
+			if (buffer.length <= MAX_RETAINED) DOUBLES.set(buffer);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Gets a scratch buffer of at least the given length, owned by the calling
+	 * thread. Its contents are undefined.
+	 */
+	public static int[] ints(final int length) {
+		int[] buffer = INTS.get();
+		if (buffer == null || buffer.length < length) {
+			buffer = new int[grow(buffer == null ? 0 : buffer.length, length)];
+			if (buffer.length <= MAX_RETAINED) INTS.set(buffer);
+		}
+		return buffer;
+	}
+
+	// -- Selection --
+
+	/**
+	 * Gets the k-th smallest of the first {@code n} values in the given array,
+	 * reordering them in the process.
+	 *
+	 * @param k zero-based rank, clamped to {@code [0, n - 1]}
+	 */
+	public static double select(final double[] a, final int n, final int k) {
+		int left = 0;
+		int right = n - 1;
+		final int kk = Math.max(0, Math.min(k, right));
+
+		while (right > left + 1) {
+			final int middle = (left + right) >>> 1;
+			swap(a, middle, left + 1);
+			if (a[left] > a[right]) swap(a, left, right);
+			if (a[left + 1] > a[right]) swap(a, left + 1, right);
+			if (a[left] > a[left + 1]) swap(a, left, left + 1);
+
+			int i = left + 1;
+			int j = right;
+			final double pivot = a[left + 1];
+			while (true) {
+				do
+					++i;
+				while (a[i] < pivot);
+				do
+					--j;
+				while (a[j] > pivot);
+				if (j < i) break;
+				swap(a, i, j);
+			}
+			a[left + 1] = a[j];
+			a[j] = pivot;
+
+			if (j >= kk) right = j - 1;
+			if (j <= kk) left = i;
+		}
+		if (right == left + 1 && a[right] < a[left]) swap(a, left, right);
+		return a[kk];
+	}
+
+	/**
+	 * Gets the k-th smallest of the first {@code n} values in the given array,
+	 * reordering them in the process.
+	 *
+	 * @param k zero-based rank, clamped to {@code [0, n - 1]}
+	 */
+	public static int select(final int[] a, final int n, final int k) {
+		int left = 0;
+		int right = n - 1;
+		final int kk = Math.max(0, Math.min(k, right));
+
+		while (right > left + 1) {
+			final int middle = (left + right) >>> 1;
+			swap(a, middle, left + 1);
+			if (a[left] > a[right]) swap(a, left, right);
+			if (a[left + 1] > a[right]) swap(a, left + 1, right);
+			if (a[left] > a[left + 1]) swap(a, left, left + 1);
+
+			int i = left + 1;
+			int j = right;
+			final int pivot = a[left + 1];
+			while (true) {
+				do
+					++i;
+				while (a[i] < pivot);
+				do
+					--j;
+				while (a[j] > pivot);
+				if (j < i) break;
+				swap(a, i, j);
+			}
+			a[left + 1] = a[j];
+			a[j] = pivot;
+
+			if (j >= kk) right = j - 1;
+			if (j <= kk) left = i;
+		}
+		if (right == left + 1 && a[right] < a[left]) swap(a, left, right);
+		return a[kk];
+	}
+
+	/**
+	 * Gets the bin of the given histogram in which the k-th smallest counted
+	 * value falls, considering only the first {@code bins} bins.
+	 *
+	 * @param k zero-based rank; values beyond the total count select the last
+	 *          non-empty bin
+	 */
+	public static int selectBin(final int[] histogram, final int bins,
+		final long k)
+	{
+		long seen = 0;
+		int last = 0;
+		for (int bin = 0; bin < bins; bin++) {
+			if (histogram[bin] == 0) continue;
+			seen += histogram[bin];
+			last = bin;
+			if (seen > k) return bin;
+		}
+		return last;
+	}
+
+	// -- Helper methods --
+
+	private static int grow(final int current, final int needed) {
+		final int doubled = current << 1;
+		return doubled >= needed && doubled > 0 ? doubled : needed;
+	}
+
+	private static void swap(final double[] a, final int i, final int j) {
+		final double tmp = a[i];
+		a[i] = a[j];
+		a[j] = tmp;
+	}
+
+	private static void swap(final int[] a, final int i, final int j) {
+		final int tmp = a[i];
+		a[i] = a[j];
+		a[j] = tmp;
+	}
+
+}
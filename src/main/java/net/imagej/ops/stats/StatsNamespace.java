@@ -57,7 +57,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.GeometricMean.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.GeometricMean.class, in);
 		return result;
 	}
 
@@ -67,7 +67,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final O out, final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.GeometricMean.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.GeometricMean.class, out, in);
 		return result;
 	}
 
@@ -77,7 +77,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.HarmonicMean.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.HarmonicMean.class, in);
 		return result;
 	}
 
@@ -87,7 +87,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final O out, final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.HarmonicMean.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.HarmonicMean.class, out, in);
 		return result;
 	}
 
@@ -96,7 +96,7 @@ public class StatsNamespace extends AbstractNamespace {
 	public DoubleType integralMean(final DoubleType out,
 		final RectangleNeighborhood in)
 	{
-		final DoubleType result = (DoubleType) ops().run(
+		final DoubleType result = (DoubleType) run(
 			net.imagej.ops.stats.IntegralMean.class, out, in);
 		return result;
 	}
@@ -104,7 +104,7 @@ public class StatsNamespace extends AbstractNamespace {
 	@SuppressWarnings("rawtypes")
 	@OpMethod(op = net.imagej.ops.stats.IntegralSum.class)
 	public DoubleType integralSum(final RectangleNeighborhood in) {
-		final DoubleType result = (DoubleType) ops().run(
+		final DoubleType result = (DoubleType) run(
 			net.imagej.ops.stats.IntegralSum.class, in);
 		return result;
 	}
@@ -114,7 +114,7 @@ public class StatsNamespace extends AbstractNamespace {
 	public DoubleType integralSum(final DoubleType out,
 		final RectangleNeighborhood in)
 	{
-		final DoubleType result = (DoubleType) ops().run(
+		final DoubleType result = (DoubleType) run(
 			net.imagej.ops.stats.IntegralSum.class, out, in);
 		return result;
 	}
@@ -124,7 +124,7 @@ public class StatsNamespace extends AbstractNamespace {
 	public DoubleType integralVariance(final DoubleType out,
 		final RectangleNeighborhood in)
 	{
-		final DoubleType result = (DoubleType) ops().run(
+		final DoubleType result = (DoubleType) run(
 			net.imagej.ops.stats.IntegralVariance.class, out, in);
 		return result;
 	}
@@ -134,7 +134,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Kurtosis.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.Kurtosis.class, in);
 		return result;
 	}
 
@@ -143,19 +143,19 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Kurtosis.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.Kurtosis.class, out, in);
 		return result;
 	}
 
 	@OpMethod(op = net.imagej.ops.stats.IterableMax.class)
 	public <T extends RealType<T>> T max(final Iterable<T> in) {
-		final T result = (T) ops().run(net.imagej.ops.Ops.Stats.Max.class, in);
+		final T result = (T) run(net.imagej.ops.Ops.Stats.Max.class, in);
 		return result;
 	}
 
 	@OpMethod(op = net.imagej.ops.stats.IterableMax.class)
 	public <T extends RealType<T>> T max(final T out, final Iterable<T> in) {
-		final T result = (T) ops().run(net.imagej.ops.Ops.Stats.Max.class, out, in);
+		final T result = (T) run(net.imagej.ops.Ops.Stats.Max.class, out, in);
 		return result;
 	}
 
@@ -164,7 +164,7 @@ public class StatsNamespace extends AbstractNamespace {
 	public <T extends RealType<T>, O extends RealType<O>> O mean(
 		final Iterable<T> in)
 	{
-		final O result = (O) ops().run(net.imagej.ops.Ops.Stats.Mean.class, in);
+		final O result = (O) run(net.imagej.ops.Ops.Stats.Mean.class, in);
 		return result;
 	}
 
@@ -174,7 +174,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Mean.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.Mean.class, out, in);
 		return result;
 	}
 
@@ -183,7 +183,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Median.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.Median.class, in);
 		return result;
 	}
 
@@ -192,26 +192,26 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Median.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.Median.class, out, in);
 		return result;
 	}
 
 	@OpMethod(op = net.imagej.ops.stats.IterableMin.class)
 	public <T extends RealType<T>> T min(final Iterable<T> in) {
-		final T result = (T) ops().run(net.imagej.ops.Ops.Stats.Min.class, in);
+		final T result = (T) run(net.imagej.ops.Ops.Stats.Min.class, in);
 		return result;
 	}
 
 	@OpMethod(op = net.imagej.ops.stats.IterableMin.class)
 	public <T extends RealType<T>> T min(final T out, final Iterable<T> in) {
-		final T result = (T) ops().run(net.imagej.ops.Ops.Stats.Min.class, out, in);
+		final T result = (T) run(net.imagej.ops.Ops.Stats.Min.class, out, in);
 		return result;
 	}
 
 	@OpMethod(op = net.imagej.ops.stats.DefaultMinMax.class)
 	public <T extends RealType<T>> Pair<T,T> minMax(final Iterable<T> in) {
 		final Pair<T,T> result =
-			(Pair<T,T>) ops().run(net.imagej.ops.Ops.Stats.MinMax.class, in);
+			(Pair<T,T>) run(net.imagej.ops.Ops.Stats.MinMax.class, in);
 		return result;
 	}
 
@@ -220,7 +220,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Moment1AboutMean.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.Moment1AboutMean.class, in);
 		return result;
 	}
 
@@ -239,7 +239,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Moment2AboutMean.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.Moment2AboutMean.class, in);
 		return result;
 	}
 
@@ -258,7 +258,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Moment3AboutMean.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.Moment3AboutMean.class, in);
 		return result;
 	}
 
@@ -277,7 +277,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Moment4AboutMean.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.Moment4AboutMean.class, in);
 		return result;
 	}
 
@@ -296,7 +296,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in, final double percent)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Percentile.class, in, percent);
+			(O) run(net.imagej.ops.Ops.Stats.Percentile.class, in, percent);
 		return result;
 	}
 
@@ -305,21 +305,21 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in, final double percent)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Percentile.class, out, in, percent);
+			(O) run(net.imagej.ops.Ops.Stats.Percentile.class, out, in, percent);
 		return result;
 	}
 
 	@OpMethod(op = net.imagej.ops.stats.DefaultQuantile.class)
 	public <T extends RealType<T>, O extends RealType<O>> O quantile(final Iterable<T> in, final double quantile) {
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Quantile.class, in, quantile);
+			(O) run(net.imagej.ops.Ops.Stats.Quantile.class, in, quantile);
 		return result;
 	}
 
 	@OpMethod(op = net.imagej.ops.stats.DefaultQuantile.class)
 	public <T extends RealType<T>, O extends RealType<O>> O quantile(final O out, final Iterable<T> in, final double quantile) {
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Quantile.class, out, in, quantile);
+			(O) run(net.imagej.ops.Ops.Stats.Quantile.class, out, in, quantile);
 		return result;
 	}
 
@@ -328,7 +328,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final IterableInterval<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Size.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.Size.class, in);
 		return result;
 	}
 
@@ -337,7 +337,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final IterableInterval<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Size.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.Size.class, out, in);
 		return result;
 	}
 
@@ -345,7 +345,7 @@ public class StatsNamespace extends AbstractNamespace {
 	public <T extends RealType<T>, O extends RealType<O>> O size(
 		final Iterable<T> in)
 	{
-		final O result = (O) ops().run(net.imagej.ops.Ops.Stats.Size.class, in);
+		final O result = (O) run(net.imagej.ops.Ops.Stats.Size.class, in);
 		return result;
 	}
 
@@ -354,7 +354,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Size.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.Size.class, out, in);
 		return result;
 	}
 
@@ -363,7 +363,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Skewness.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.Skewness.class, in);
 		return result;
 	}
 
@@ -372,7 +372,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Skewness.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.Skewness.class, out, in);
 		return result;
 	}
 
@@ -381,7 +381,7 @@ public class StatsNamespace extends AbstractNamespace {
 	public <T extends RealType<T>, O extends RealType<O>> O stdDev(
 		final Iterable<T> in)
 	{
-		final O result = (O) ops().run(net.imagej.ops.Ops.Stats.StdDev.class, in);
+		final O result = (O) run(net.imagej.ops.Ops.Stats.StdDev.class, in);
 		return result;
 	}
 
@@ -391,7 +391,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.StdDev.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.StdDev.class, out, in);
 		return result;
 	}
 
@@ -399,7 +399,7 @@ public class StatsNamespace extends AbstractNamespace {
 	public <T extends RealType<T>, O extends RealType<O>> O sum(
 		final Iterable<T> in)
 	{
-		final O result = (O) ops().run(net.imagej.ops.Ops.Stats.Sum.class, in);
+		final O result = (O) run(net.imagej.ops.Ops.Stats.Sum.class, in);
 		return result;
 	}
 
@@ -408,7 +408,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Sum.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.Sum.class, out, in);
 		return result;
 	}
 
@@ -417,7 +417,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.SumOfInverses.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.SumOfInverses.class, in);
 		return result;
 	}
 
@@ -426,7 +426,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final O out, final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.SumOfInverses.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.SumOfInverses.class, out, in);
 		return result;
 	}
 
@@ -435,7 +435,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.SumOfLogs.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.SumOfLogs.class, in);
 		return result;
 	}
 
@@ -444,7 +444,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final O out, final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.SumOfLogs.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.SumOfLogs.class, out, in);
 		return result;
 	}
 
@@ -453,7 +453,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.SumOfSquares.class, in);
+			(O) run(net.imagej.ops.Ops.Stats.SumOfSquares.class, in);
 		return result;
 	}
 
@@ -462,7 +462,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final O out, final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.SumOfSquares.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.SumOfSquares.class, out, in);
 		return result;
 	}
 
@@ -471,7 +471,7 @@ public class StatsNamespace extends AbstractNamespace {
 	public <T extends RealType<T>, O extends RealType<O>> O variance(
 		final Iterable<T> in)
 	{
-		final O result = (O) ops().run(net.imagej.ops.Ops.Stats.Variance.class, in);
+		final O result = (O) run(net.imagej.ops.Ops.Stats.Variance.class, in);
 		return result;
 	}
 
@@ -481,7 +481,7 @@ public class StatsNamespace extends AbstractNamespace {
 		final Iterable<T> in)
 	{
 		final O result =
-			(O) ops().run(net.imagej.ops.Ops.Stats.Variance.class, out, in);
+			(O) run(net.imagej.ops.Ops.Stats.Variance.class, out, in);
 		return result;
 	}
 
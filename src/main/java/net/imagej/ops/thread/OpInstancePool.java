@@ -0,0 +1,129 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.thread;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import net.imagej.ops.Parallel;
+import net.imagej.ops.Threadable;
+
+/**
+ * A pool of independent instances of a {@link Threadable} op, for use by
+ * {@link Parallel} ops.
+ * <p>
+ * Each worker {@link #acquire() acquires} an instance obtained from
+ * {@link Threadable#getIndependentInstance()}, which no other worker uses until
+ * it is {@link #release released} again. Released instances are kept, so ops
+ * with scratch state are copied once per worker rather than once per chunk.
+ * Ops which are their own independent instance are handed out directly,
+ * without any bookkeeping.
+ * </p>
+ * <p>
+ * A pool is meant to be created for one run of a parallel op: the copies
+ * reflect the parameters of the prototype when they were made, so they are
+ * dropped along with the pool rather than reused by later runs.
+ * </p>
+ *
+ * @param <T> type of the pooled op
+ */
+public class OpInstancePool<T extends Threadable> {
+
+	/** Maximum number of idle instances kept per pool. */
+	private static final int MAX_IDLE = 2 * Runtime.getRuntime()
+		.availableProcessors();
+
+	private final T prototype;
+
+	private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	public OpInstancePool(final T prototype) {
+		this.prototype = prototype;
+	}
+
+	// -- OpInstancePool methods --
+
+	/** Checks whether this pool hands out instances of the given op. */
+	public boolean isOf(final Object op) {
+		return prototype == op;
+	}
+
+	/**
+	 * Gets an instance which is not in use by any other worker, creating one if
+	 * none is idle.
+	 */
+	public T acquire() {
+		final T instance = idle.poll();
+		if (instance != null) {
+			idleCount.decrementAndGet();
+			return instance;
+		}
+		return create();
+	}
+
+	/** Returns an instance obtained from {@link #acquire()} to the pool. */
+	public void release(final T instance) {
+		if (instance == null || isOf(instance)) return;
+		if (idleCount.incrementAndGet() > MAX_IDLE) {
+			idleCount.decrementAndGet();
+			return;
+		}
+		idle.offer(instance);
+	}
+
+	/** Runs the given action with an instance acquired from this pool. */
+	public void run(final Consumer<? super T> action) {
+		final T instance = acquire();
+		try {
+			action.accept(instance);
+		}
+		finally {
+			release(instance);
+		}
+	}
+
+	/** Gets the number of idle instances in this pool. */
+	public int idleCount() {
+		return idleCount.get();
+	}
+
+	// -- Helper methods --
+
+	@SuppressWarnings("unchecked")
+	private T create() {
+		return (T) prototype.getIndependentInstance();
+	}
+
+}
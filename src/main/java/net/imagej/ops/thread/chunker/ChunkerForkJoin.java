@@ -0,0 +1,168 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.thread.chunker;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import net.imagej.ops.Ops;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Work-stealing implementation of a {@link ChunkerOp}, based on a
+ * {@link ForkJoinPool}. The range of elements is split recursively into
+ * halves until the pieces are small enough; idle threads steal the pending
+ * halves of busy ones, so uneven per-element costs do not leave cores idle at
+ * the tail. As in {@link DefaultChunker}, each piece consists of consecutive
+ * elements.
+ * <p>
+ * The size of the pieces adapts to the measured cost per element: each piece
+ * is timed, and further splitting aims for pieces which take about
+ * {@link #TARGET_NANOS} to process, while leaving enough pieces for every
+ * thread to steal from. Once canceled, pieces which have not yet started are
+ * skipped.
+ * </p>
+ * <p>
+ * The pieces run on a {@link ForkJoinPool} of its own, not on the threads of
+ * the context's {@link org.scijava.thread.ThreadService}. Hence this chunker
+ * is registered below {@link DefaultChunker} and is only used when requested
+ * explicitly, e.g. by running {@code ChunkerForkJoin.class}.
+ * </p>
+ */
+@Plugin(type = Ops.Thread.Chunker.class, priority = Priority.LOW_PRIORITY)
+public class ChunkerForkJoin extends AbstractChunker {
+
+	/** Targeted duration of processing a single piece, in nanoseconds. */
+	public static final long TARGET_NANOS = 200_000;
+
+	/** Minimum number of pieces per thread, to give stealing some slack. */
+	private static final int PIECES_PER_THREAD = 4;
+
+	/** Number of elements processed up front to estimate the cost. */
+	private static final int PROBE_SIZE = 16;
+
+	/** Running estimate of the cost of processing one element. */
+	private volatile double nanosPerElement;
+
+	/** Upper bound on the size of a piece. */
+	private long maxGrain;
+
+	@Override
+	public void run() {
+		if (numberOfElements <= 0) return;
+
+		// estimate the cost per element on the calling thread
+		final int probe = (int) Math.min(PROBE_SIZE, numberOfElements);
+		execute(0, probe);
+		if (probe == numberOfElements || isCanceled()) return;
+
+		final ForkJoinPool pool = pool();
+		final long remaining = numberOfElements - probe;
+		maxGrain = Math.max(1, remaining / (pool.getParallelism() *
+			PIECES_PER_THREAD));
+		final Piece root = new Piece(probe, remaining);
+		if (ForkJoinTask.inForkJoinPool()) {
+			// NB: Nested chunkers join the enclosing pool instead of blocking it.
+			root.invoke();
+		}
+		else pool.invoke(root);
+	}
+
+	// -- Helper methods --
+
+	/** Processes the given range sequentially, updating the cost estimate. */
+	private void execute(final long start, final long length) {
+		final long t0 = System.nanoTime();
+		try {
+			chunkable.execute((int) start, 1, (int) length);
+		}
+		catch (final RuntimeException exc) {
+			cancel(exc.getMessage() == null ? exc.toString() : exc.getMessage());
+			throw exc;
+		}
+		final double cost = (double) (System.nanoTime() - t0) / length;
+		final double previous = nanosPerElement;
+		// NB: Races between threads only blur the average; this is harmless.
+		nanosPerElement = previous == 0 ? cost : 0.75 * previous + 0.25 * cost;
+	}
+
+	/** Gets the size below which a range is no longer split. */
+	private long grain() {
+		final double cost = nanosPerElement;
+		if (cost <= 0) return maxGrain;
+		final double grain = TARGET_NANOS / cost;
+		return grain >= maxGrain ? maxGrain : Math.max(1, (long) grain);
+	}
+
+	private static ForkJoinPool pool() {
+		return PoolHolder.POOL;
+	}
+
+	// -- Helper classes --
+
+	/** Lazily created pool shared by all instances. */
+	private static final class PoolHolder {
+
+		private static final ForkJoinPool POOL = new ForkJoinPool(Runtime
+			.getRuntime().availableProcessors());
+	}
+
+	/** A range of consecutive elements, processed by splitting in halves. */
+	private class Piece extends RecursiveAction {
+
+		private final long start;
+
+		private final long length;
+
+		public Piece(final long start, final long length) {
+			this.start = start;
+			this.length = length;
+		}
+
+		@Override
+		protected void compute() {
+			if (isCanceled()) return;
+			if (length <= grain()) {
+				execute(start, length);
+				return;
+			}
+			final long half = length / 2;
+			final Piece right = new Piece(start + half, length - half);
+			right.fork();
+			new Piece(start, half).compute();
+			right.join();
+		}
+	}
+
+}
@@ -526,6 +526,33 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(
+		op = net.imagej.ops.threshold.localContrast.LocalContrastThresholdSliding.class)
+	public <T extends RealType<T>> IterableInterval<BitType>
+		localContrastThreshold(final IterableInterval<BitType> out,
+			final RandomAccessibleInterval<T> in, final RectangleShape shape,
+			final OutOfBoundsFactory<T, RandomAccessibleInterval<T>> outOfBounds)
+	{
+		@SuppressWarnings("unchecked")
+		final IterableInterval<BitType> result = (IterableInterval<BitType>) ops()
+			.run(net.imagej.ops.Ops.Threshold.LocalContrastThreshold.class,
+				out, in, shape, outOfBounds);
+		return result;
+	}
+
+	@OpMethod(
+		op = net.imagej.ops.threshold.localContrast.LocalContrastThresholdSliding.class)
+	public <T extends RealType<T>> IterableInterval<BitType>
+		localContrastThreshold(final IterableInterval<BitType> out,
+			final RandomAccessibleInterval<T> in, final RectangleShape shape)
+	{
+		@SuppressWarnings("unchecked")
+		final IterableInterval<BitType> result = (IterableInterval<BitType>) ops()
+			.run(net.imagej.ops.Ops.Threshold.LocalContrastThreshold.class,
+				out, in, shape);
+		return result;
+	}
+
 	@OpMethod(op = net.imagej.ops.threshold.localMean.LocalMeanThreshold.class)
 	public <T extends RealType<T>> IterableInterval<BitType> localMeanThreshold(
 		final IterableInterval<BitType> out,
@@ -553,8 +580,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localMean.LocalMeanThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localMean.LocalMeanThresholdIntegral.class,
+		net.imagej.ops.threshold.localMean.LocalMeanThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType> localMeanThreshold(
 		final IterableInterval<BitType> out, final RandomAccessibleInterval<T> in,
 		final RectangleShape shape,
@@ -568,8 +596,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localMean.LocalMeanThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localMean.LocalMeanThresholdIntegral.class,
+		net.imagej.ops.threshold.localMean.LocalMeanThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType> localMeanThreshold(
 		final IterableInterval<BitType> out, final RandomAccessibleInterval<T> in,
 		final RectangleShape shape, final double c)
@@ -609,6 +638,34 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(
+		op = net.imagej.ops.threshold.localMedian.LocalMedianThresholdSliding.class)
+	public <T extends RealType<T>> IterableInterval<BitType> localMedianThreshold(
+		final IterableInterval<BitType> out, final RandomAccessibleInterval<T> in,
+		final RectangleShape shape,
+		final OutOfBoundsFactory<T, RandomAccessibleInterval<T>> outOfBounds,
+		final double c)
+	{
+		@SuppressWarnings("unchecked")
+		final IterableInterval<BitType> result = (IterableInterval<BitType>) ops()
+			.run(net.imagej.ops.Ops.Threshold.LocalMedianThreshold.class, out,
+				in, shape, outOfBounds, c);
+		return result;
+	}
+
+	@OpMethod(
+		op = net.imagej.ops.threshold.localMedian.LocalMedianThresholdSliding.class)
+	public <T extends RealType<T>> IterableInterval<BitType> localMedianThreshold(
+		final IterableInterval<BitType> out, final RandomAccessibleInterval<T> in,
+		final RectangleShape shape, final double c)
+	{
+		@SuppressWarnings("unchecked")
+		final IterableInterval<BitType> result = (IterableInterval<BitType>) ops()
+			.run(net.imagej.ops.Ops.Threshold.LocalMedianThreshold.class, out,
+				in, shape, c);
+		return result;
+	}
+
 	@OpMethod(
 		op = net.imagej.ops.threshold.localMidGrey.LocalMidGreyThreshold.class)
 	public <T extends RealType<T>> IterableInterval<BitType> localMidGreyThreshold(
@@ -638,6 +695,35 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(
+		op = net.imagej.ops.threshold.localMidGrey.LocalMidGreyThresholdSliding.class)
+	public <T extends RealType<T>> IterableInterval<BitType> localMidGreyThreshold(
+		final IterableInterval<BitType> out, final RandomAccessibleInterval<T> in,
+		final RectangleShape shape,
+		final OutOfBoundsFactory<T, RandomAccessibleInterval<T>> outOfBounds,
+		final double c)
+	{
+		@SuppressWarnings("unchecked")
+		final IterableInterval<BitType> result = (IterableInterval<BitType>) ops()
+			.run(net.imagej.ops.Ops.Threshold.LocalMidGreyThreshold.class, out,
+				in, shape, outOfBounds, c);
+		return result;
+	}
+
+	@OpMethod(
+		op = net.imagej.ops.threshold.localMidGrey.LocalMidGreyThresholdSliding.class)
+	public <T extends RealType<T>> IterableInterval<BitType> localMidGreyThreshold(
+		final IterableInterval<BitType> out, final RandomAccessibleInterval<T> in,
+		final RectangleShape shape,
+		final double c)
+	{
+		@SuppressWarnings("unchecked")
+		final IterableInterval<BitType> result = (IterableInterval<BitType>) ops()
+			.run(net.imagej.ops.Ops.Threshold.LocalMidGreyThreshold.class, out,
+				in, shape, c);
+		return result;
+	}
+
 	@OpMethod(
 		op = net.imagej.ops.threshold.localNiblack.LocalNiblackThreshold.class)
 	public <T extends RealType<T>> IterableInterval<BitType> localNiblackThreshold(
@@ -667,8 +753,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localNiblack.LocalNiblackThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localNiblack.LocalNiblackThresholdIntegral.class,
+		net.imagej.ops.threshold.localNiblack.LocalNiblackThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType>
 		localNiblackThreshold(final IterableInterval<BitType> out,
 			final RandomAccessibleInterval<T> in, final RectangleShape shape,
@@ -682,8 +769,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localNiblack.LocalNiblackThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localNiblack.LocalNiblackThresholdIntegral.class,
+		net.imagej.ops.threshold.localNiblack.LocalNiblackThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType>
 		localNiblackThreshold(final IterableInterval<BitType> out,
 			final RandomAccessibleInterval<T> in, final RectangleShape shape,
@@ -727,6 +815,37 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(op = net.imagej.ops.threshold.localBernsen.LocalBernsenThresholdSliding.class)
+	public <T extends RealType<T>> IterableInterval<BitType> localBernsenThreshold(
+		final IterableInterval<BitType> out,
+		final RandomAccessibleInterval<T> in, final RectangleShape shape,
+		final OutOfBoundsFactory<T, RandomAccessibleInterval<T>> outOfBounds,
+		final double contrastThreshold,
+		final double halfMaxValue)
+	{
+		@SuppressWarnings("unchecked")
+		final IterableInterval<BitType> result =
+			(IterableInterval<BitType>) ops().run(
+				net.imagej.ops.Ops.Threshold.LocalBernsenThreshold.class, out, in, shape,
+				outOfBounds, contrastThreshold, halfMaxValue);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.threshold.localBernsen.LocalBernsenThresholdSliding.class)
+	public <T extends RealType<T>> IterableInterval<BitType> localBernsenThreshold(
+		final IterableInterval<BitType> out,
+		final RandomAccessibleInterval<T> in, final RectangleShape shape,
+		final double contrastThreshold,
+		final double halfMaxValue)
+	{
+		@SuppressWarnings("unchecked")
+		final IterableInterval<BitType> result =
+			(IterableInterval<BitType>) ops().run(
+				net.imagej.ops.Ops.Threshold.LocalBernsenThreshold.class, out, in, shape,
+				contrastThreshold, halfMaxValue);
+		return result;
+	}
+
 	@OpMethod(
 		op = net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThreshold.class)
 	public <T extends RealType<T>> IterableInterval<BitType>
@@ -788,8 +907,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdIntegral.class,
+		net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType>
 		localPhansalkarThreshold(final IterableInterval<BitType> out,
 			final RandomAccessibleInterval<T> in, final RectangleShape shape,
@@ -803,8 +923,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdIntegral.class,
+		net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType>
 		localPhansalkarThreshold(final IterableInterval<BitType> out,
 			final RandomAccessibleInterval<T> in, final RectangleShape shape,
@@ -818,8 +939,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdIntegral.class,
+		net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType>
 		localPhansalkarThreshold(final IterableInterval<BitType> out,
 			final RandomAccessibleInterval<T> in, final RectangleShape shape,
@@ -832,8 +954,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdIntegral.class,
+		net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType>
 		localPhansalkarThreshold(final IterableInterval<BitType> out,
 			final RandomAccessibleInterval<T> in, final RectangleShape shape)
@@ -901,8 +1024,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdIntegral.class,
+		net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType>
 		localSauvolaThreshold(final IterableInterval<BitType> out,
 			final RandomAccessibleInterval<T> in, final RectangleShape shape,
@@ -916,8 +1040,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdIntegral.class,
+		net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType>
 		localSauvolaThreshold(final IterableInterval<BitType> out,
 			final RandomAccessibleInterval<T> in, final RectangleShape shape,
@@ -931,8 +1056,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdIntegral.class,
+		net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType>
 		localSauvolaThreshold(final IterableInterval<BitType> out,
 			final RandomAccessibleInterval<T> in, final RectangleShape shape,
@@ -945,8 +1071,9 @@ public class ThresholdNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(
-		op = net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdIntegral.class)
+	@OpMethod(ops = {
+		net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdIntegral.class,
+		net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdSliding.class })
 	public <T extends RealType<T>> IterableInterval<BitType>
 		localSauvolaThreshold(final IterableInterval<BitType> out,
 			final RandomAccessibleInterval<T> in, final RectangleShape shape)
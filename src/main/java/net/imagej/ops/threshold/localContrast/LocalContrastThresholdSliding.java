@@ -0,0 +1,84 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.threshold.localContrast;
+
+import net.imagej.ops.Ops;
+import net.imagej.ops.filter.AbstractVanHerkGilWermanFilter;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.RealType;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Plugin;
+
+/**
+ * {@link LocalContrastThreshold} for rectangular neighborhoods, which slides a
+ * window over the image and updates the local minimum and maximum
+ * incrementally, instead of visiting each neighborhood separately. Shapes
+ * skipping the center are left to {@link LocalContrastThreshold}.
+ * <p>
+ * Registered just above {@link LocalContrastThreshold}, so that it is matched
+ * instead of it for every rectangular shape it applies to, but not instead of
+ * ops registered with a higher priority. Run {@link LocalContrastThreshold}
+ * explicitly to get its results.
+ * </p>
+ * <p>
+ * As in {@code stats.minMax}, NaN values are ignored when taking the minimum
+ * and maximum.
+ * </p>
+ *
+ * @param <T> input type
+ */
+@Plugin(type = Ops.Threshold.LocalContrastThreshold.class,
+	priority = Priority.NORMAL_PRIORITY + 1)
+public class LocalContrastThresholdSliding<T extends RealType<T>> extends
+	AbstractVanHerkGilWermanFilter<T, BitType> implements
+	Ops.Threshold.LocalContrastThreshold
+{
+
+	@Override
+	protected boolean needsMin() {
+		return true;
+	}
+
+	@Override
+	protected boolean needsMax() {
+		return true;
+	}
+
+	@Override
+	protected void filter(final double min, final double max,
+		final double center, final BitType output)
+	{
+		// NB: Foreground if at least as close to the max value as to the min.
+		output.set(center - min <= max - center);
+	}
+
+}
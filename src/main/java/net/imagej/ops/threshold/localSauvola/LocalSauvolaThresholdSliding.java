@@ -0,0 +1,84 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.threshold.localSauvola;
+
+import net.imagej.ops.Ops;
+import net.imagej.ops.filter.AbstractRunningSumFilter;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.RealType;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * {@link LocalSauvolaThreshold} for rectangular neighborhoods, which slides a
+ * window over the image and updates the local mean and standard deviation
+ * incrementally, instead of visiting each neighborhood separately. Shapes
+ * skipping the center are supported as well.
+ * <p>
+ * Registered just above {@link LocalSauvolaThreshold}, so that it is matched
+ * instead of it for every rectangular shape it applies to, but not instead of
+ * ops registered with a higher priority. {@link LocalSauvolaThresholdIntegral}
+ * is still only used when requested explicitly.
+ * </p>
+ *
+ * @param <T> input type
+ */
+@Plugin(type = Ops.Threshold.LocalSauvolaThreshold.class,
+	priority = Priority.LOW_PRIORITY + 1)
+public class LocalSauvolaThresholdSliding<T extends RealType<T>> extends
+	AbstractRunningSumFilter<T, BitType> implements
+	Ops.Threshold.LocalSauvolaThreshold
+{
+
+	@Parameter(required = false)
+	private double k = 0.5d;
+
+	@Parameter(required = false)
+	private double r = 0.5d;
+
+	@Override
+	protected boolean needsSquares() {
+		return true;
+	}
+
+	@Override
+	protected void filter(final double mean, final double variance,
+		final double center, final BitType output)
+	{
+		final double stdDev = Math.sqrt(variance);
+		final double threshold = mean * (1.0d + k * ((Math.sqrt(stdDev) / r) -
+			1.0));
+		output.set(center >= threshold);
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.scijava.InstantiableException;
+
+/**
+ * Tests {@link OpIndex}.
+ */
+public class OpIndexTest extends AbstractOpTest {
+
+	/** Tests that name lookups agree with {@link OpInfo#nameMatches}. */
+	@Test
+	public void testNamed() {
+		final OpIndex index = index();
+		for (final String name : new String[] { "math.add", "add", "stats.mean",
+			"mean", "gauss", "filter.gauss", "test.dessert.gelati", "gelati" })
+		{
+			assertEquals(name, scan(name), index.named(name));
+		}
+		assertTrue(index.named("this.op.does.not.exist").isEmpty());
+		assertEquals(index.values(), index.named(null));
+	}
+
+	/** Tests that namespace lookups agree with {@link OpInfo#isNamespace}. */
+	@Test
+	public void testNamespace() {
+		final OpIndex index = index();
+		final List<OpInfo> expected = new ArrayList<>();
+		for (final OpInfo info : ops.infos()) {
+			if (info.isNamespace("stats")) expected.add(info);
+		}
+		assertEquals(expected, index.namespace("stats"));
+	}
+
+	/** Tests that type lookups contain exactly the assignable ops. */
+	@Test
+	public void testOfType() throws InstantiableException {
+		final OpIndex index = index();
+		final List<OpInfo> infos = index.ofType(Ops.Stats.Mean.class);
+		assertFalse(infos.isEmpty());
+		for (final OpInfo info : infos) {
+			assertTrue(Ops.Stats.Mean.class.isAssignableFrom(info.cInfo()
+				.loadClass()));
+		}
+		assertSame(infos, index.ofType(Ops.Stats.Mean.class));
+	}
+
+	/** Tests that removed ops disappear from all buckets. */
+	@Test
+	public void testRemove() {
+		final OpIndex index = index();
+		final List<OpInfo> named = index.named("math.add");
+		final OpInfo info = named.get(0);
+		index.ofType(Ops.Math.Add.class);
+		index.removeOps(Collections.singletonList(info));
+
+		assertNull(index.get(info.cInfo().getDelegateClassName()));
+		assertEquals(named.size() - 1, index.named("math.add").size());
+		assertFalse(index.named("add").contains(info));
+		assertFalse(index.namespace("math").contains(info));
+		assertFalse(index.ofType(Ops.Math.Add.class).contains(info));
+
+		index.addOps(Collections.singletonList(info));
+		assertEquals(named.size(), index.named("math.add").size());
+		assertTrue(index.ofType(Ops.Math.Add.class).contains(info));
+	}
+
+	// -- Helper methods --
+
+	private OpIndex index() {
+		final OpIndex index = new OpIndex();
+		index.addOps(ops.infos());
+		return index;
+	}
+
+	private List<OpInfo> scan(final String name) {
+		final List<OpInfo> infos = new ArrayList<>();
+		for (final OpInfo info : ops.infos()) {
+			if (info.nameMatches(name)) infos.add(info);
+		}
+		return infos;
+	}
+
+}
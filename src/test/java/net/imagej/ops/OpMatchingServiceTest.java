@@ -31,6 +31,7 @@ package net.imagej.ops;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -76,6 +77,36 @@ public class OpMatchingServiceTest extends AbstractOpTest {
 		assertTrue(Double.isNaN(value.get()));
 	}
 
+	/** Tests that repeated requests are answered from the match cache. */
+	@Test
+	public void testMatchCache() {
+		final OpMatchCache cache = matcher.matchCache();
+		cache.resetStatistics();
+
+		final DoubleType first = new DoubleType(1);
+		final Module m1 = matcher.findMatch(ops, OpRef.create("test.nan", first))
+			.getModule();
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		final DoubleType second = new DoubleType(2);
+		final Module m2 = matcher.findMatch(ops, OpRef.create("test.nan", second))
+			.getModule();
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		// the memoized match must still be a fresh, populated instance
+		assertNotSame(m1.getDelegateObject(), m2.getDelegateObject());
+		assertSame(second, m2.getInput("arg"));
+		m2.run();
+		assertTrue(Double.isNaN(second.get()));
+		assertFalse(Double.isNaN(first.get()));
+
+		cache.clear();
+		matcher.findMatch(ops, OpRef.create("test.nan", second));
+		assertEquals(2, cache.getMisses());
+	}
+
 	/** Tests support for matching when there are optional parameters. */
 	@Test
 	public void testOptionalParams() {
@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.IntStream;
+
+import net.imglib2.type.numeric.real.DoubleType;
+
+import org.junit.Test;
+import org.scijava.ItemIO;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Tests {@link PreparedOp}.
+ */
+public class PreparedOpTest extends AbstractOpTest {
+
+	/** Tests that a prepared op runs without further matching. */
+	@Test
+	public void testApply() {
+		final PreparedOp<DoubleType> twice = ops.prepare("test.twice",
+			DoubleType.class).as(DoubleType.class);
+		assertTrue(twice.isReusable());
+
+		final OpMatchCache cache = matcher.matchCache();
+		cache.resetStatistics();
+		assertEquals(6, twice.apply(new DoubleType(3)).get(), 0);
+		assertEquals(-1, twice.apply(new DoubleType(-0.5)).get(), 0);
+		assertEquals(0, cache.getHits() + cache.getMisses());
+	}
+
+	/** Tests that omitted optional arguments are padded as when matching. */
+	@Test
+	public void testOptionalArgs() {
+		final PreparedOp<DoubleType> scale = ops.prepare("test.twice",
+			DoubleType.class, Double.class).as(DoubleType.class);
+		assertEquals(9, scale.apply(new DoubleType(3), 3.0).get(), 0);
+
+		final PreparedOp<DoubleType> twice = ops.prepare("test.twice",
+			new DoubleType(1)).as(DoubleType.class);
+		assertEquals(8, twice.apply(new DoubleType(4)).get(), 0);
+	}
+
+	/** Tests that a single prepared op can be shared among threads. */
+	@Test
+	public void testConcurrentApply() {
+		final PreparedOp<DoubleType> twice = ops.prepare("test.twice",
+			DoubleType.class).as(DoubleType.class);
+		IntStream.range(0, 1000).parallel().forEach(i -> assertEquals(2 * i, twice
+			.apply(new DoubleType(i)).get(), 0));
+	}
+
+	/** Tests that the prepared op is checked against the requested output. */
+	@Test(expected = IllegalArgumentException.class)
+	public void testIncompatibleOutput() {
+		ops.prepare("test.twice", DoubleType.class).as(String.class);
+	}
+
+	// -- Helper classes --
+
+	/** Multiplies its input by a factor, which defaults to two. */
+	@Plugin(type = Op.class, name = "test.twice")
+	public static class Twice extends AbstractOp {
+
+		@Parameter(type = ItemIO.OUTPUT)
+		private DoubleType out;
+
+		@Parameter
+		private DoubleType in;
+
+		@Parameter(required = false)
+		private Double factor;
+
+		@Override
+		public void run() {
+			out = new DoubleType(in.get() * (factor == null ? 2 : factor));
+		}
+
+	}
+
+}
@@ -30,7 +30,13 @@
 package net.imagej.ops.cached;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 
@@ -38,12 +44,18 @@ import net.imagej.ops.AbstractOpTest;
 import net.imagej.ops.Op;
 import net.imagej.ops.OpInfo;
 import net.imagej.ops.Ops;
+import net.imagej.ops.map.MapUnaryComputers;
+import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
+import net.imagej.ops.special.computer.Computers;
+import net.imagej.ops.special.computer.UnaryComputerOp;
 import net.imagej.ops.special.function.Functions;
 import net.imagej.ops.special.function.UnaryFunctionOp;
 import net.imagej.ops.special.hybrid.AbstractUnaryHybridCF;
 import net.imagej.ops.special.hybrid.Hybrids;
 import net.imagej.ops.special.hybrid.UnaryHybridCF;
+import net.imglib2.Cursor;
 import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.type.numeric.integer.ByteType;
 import net.imglib2.type.numeric.real.DoubleType;
 
@@ -75,6 +87,7 @@ public class CachedOpEnvironmentTest extends AbstractOpTest {
 		final ArrayList<OpInfo> customOps = new ArrayList<>();
 		customOps.add(new OpInfo(MyMin.class));
 		customOps.add(new OpInfo(MyOptionalParameterOp.class));
+		customOps.add(new OpInfo(MyStatefulOp.class));
 
 		env = new CachedOpEnvironment(ops, customOps);
 
@@ -109,6 +122,120 @@ public class CachedOpEnvironmentTest extends AbstractOpTest {
 		assertEquals(2.0, hybrid.calculate(imgB).getRealDouble(), 0.0);
 	}
 
+	@Test
+	public void testCachingComputer() {
+		ctr = 0;
+		final UnaryComputerOp<Img<ByteType>, DoubleType> computer = Computers
+			.unary(env, Ops.Stats.Min.class, DoubleType.class, imgA);
+
+		// The cached result is copied into each output
+		final DoubleType out1 = new DoubleType();
+		final DoubleType out2 = new DoubleType();
+		computer.compute(imgA, out1);
+		computer.compute(imgA, out2);
+		assertEquals(1.0, out1.get(), 0.0);
+		assertEquals(1.0, out2.get(), 0.0);
+
+		// Computing as a function shares the result with the computer
+		assertEquals(1.0, hybrid.calculate(imgA).get(), 0.0);
+
+		// Should be increased
+		computer.compute(imgB, out1);
+		assertEquals(2.0, out1.get(), 0.0);
+	}
+
+	@Test
+	public void testParallelStatefulComputer() {
+		final UnaryComputerOp<DoubleType, DoubleType> computer = Computers.unary(
+			env, StatefulOp.class, DoubleType.class, DoubleType.class);
+		assertTrue(computer instanceof CachedOpEnvironment.CachedComputerOp);
+
+		// each worker gets its own cached wrapper around its own delegate
+		final UnaryComputerOp<DoubleType, DoubleType> copy = computer
+			.getIndependentInstance();
+		assertNotSame(computer, copy);
+		assertTrue(copy instanceof CachedOpEnvironment.CachedComputerOp);
+
+		final Img<DoubleType> in = ArrayImgs.doubles(100000);
+		final Img<DoubleType> out = ArrayImgs.doubles(100000);
+		int i = 0;
+		for (final DoubleType t : in) {
+			t.set(i++ % 1000);
+		}
+		ops.run(MapUnaryComputers.IIToIIParallel.class, out, in, computer);
+
+		final Cursor<DoubleType> inCursor = in.cursor();
+		final Cursor<DoubleType> outCursor = out.cursor();
+		while (inCursor.hasNext()) {
+			assertEquals(2 * inCursor.next().get(), outCursor.next().get(), 0.0);
+		}
+	}
+
+	@Test
+	public void testExclude() {
+		ctr = 0;
+		env.exclude(Ops.Stats.Min.class);
+		final UnaryFunctionOp<Img<ByteType>, DoubleType> uncached = Functions
+			.unary(env, Ops.Stats.Min.class, DoubleType.class, imgA);
+		assertFalse(uncached instanceof CachedOpEnvironment.CachedFunctionOp);
+
+		assertEquals(1.0, uncached.calculate(imgA).get(), 0.0);
+		assertEquals(2.0, uncached.calculate(imgA).get(), 0.0);
+	}
+
+	@Test
+	public void testInclude() {
+		env.include(Ops.Stats.Max.class);
+		assertFalse(Functions.unary(env, Ops.Stats.Min.class, DoubleType.class,
+			imgA) instanceof CachedOpEnvironment.CachedFunctionOp);
+	}
+
+	@Test
+	public void testContentAware() {
+		ctr = 0;
+		env.setContentAware(true);
+
+		// imgA and imgB have identical contents
+		assertEquals(1.0, func.calculate(imgA).get(), 0.0);
+		assertEquals(1.0, func.calculate(imgB).get(), 0.0);
+
+		// modifying the image invalidates the cached result
+		imgA.firstElement().inc();
+		assertEquals(2.0, func.calculate(imgA).get(), 0.0);
+		assertEquals(1.0, func.calculate(imgB).get(), 0.0);
+	}
+
+	@Test
+	public void testSharedCache() {
+		// environments of one context share their results by default
+		assertSame(env.getCache(), new CachedOpEnvironment(ops).getCache());
+		final OpResultCache own = new OpResultCache();
+		assertSame(own, new CachedOpEnvironment(ops, null, null, own).getCache());
+	}
+
+	@Test
+	public void testByteBound() {
+		final OpResultCache cache = new OpResultCache(300);
+		final CacheKey keyA = new CacheKey(MyMin.class, imgA, new Object[0], false,
+			cache.queue());
+		final CacheKey keyB = new CacheKey(MyMin.class, imgB, new Object[0], false,
+			cache.queue());
+		assertEquals(keyA, new CacheKey(MyMin.class, imgA, new Object[0], false,
+			cache.queue()));
+		assertNotEquals(keyA, keyB);
+
+		// 10x10 bytes each; the second one does not fit alongside the first
+		cache.put(keyA, imgA.copy());
+		cache.put(keyB, imgB.copy());
+		assertNull(cache.get(keyA));
+		assertNotNull(cache.get(keyB));
+		assertTrue(cache.getBytes() <= cache.getMaxBytes());
+
+		// results larger than the whole cache are not cached
+		cache.put(keyA, new double[1000]);
+		assertNull(cache.get(keyA));
+	}
+
 	@Test
 	public void testOptionalParameter() {
 		UnaryFunctionOp<DoubleType, Object> f = Functions.unary(env, OptionalParameterOp.class, Object.class, DoubleType.class);
@@ -136,6 +263,35 @@ public class CachedOpEnvironmentTest extends AbstractOpTest {
 
 	}
 
+	private interface StatefulOp extends Op {
+		String name = "stateful.op";
+	}
+
+	// computer keeping its intermediate result in a field, so an instance must
+	// not be shared between threads
+	public static class MyStatefulOp extends
+		AbstractUnaryComputerOp<DoubleType, DoubleType> implements StatefulOp
+	{
+
+		private final DoubleType scratch = new DoubleType();
+
+		@Override
+		public void compute(final DoubleType input, final DoubleType output) {
+			scratch.set(input);
+			Thread.yield();
+			scratch.mul(2);
+			output.set(scratch);
+		}
+
+		@Override
+		public MyStatefulOp getIndependentInstance() {
+			final MyStatefulOp copy = new MyStatefulOp();
+			copy.setEnvironment(ops());
+			return copy;
+		}
+
+	}
+
 	private interface OptionalParameterOp extends Op {
 		String name = "optional.parameter.op";
 	}
@@ -31,8 +31,16 @@ package net.imagej.ops.deconvolve;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import net.imagej.ops.AbstractOpTest;
+import net.imagej.ops.deconvolve.accelerate.LeanVectorAccelerator;
+import net.imagej.ops.deconvolve.accelerate.VectorAccelerator;
 import net.imagej.ops.filter.convolve.ConvolveFFTF;
+import net.imagej.ops.special.inplace.Inplaces;
+import net.imagej.ops.special.inplace.UnaryInplaceOp;
 import net.imglib2.Cursor;
 import net.imglib2.Point;
 import net.imglib2.RandomAccessibleInterval;
@@ -91,6 +99,129 @@ public class DeconvolveTest extends AbstractOpTest {
 		}
 	}
 
+	@Test
+	public void testEarlyStopping() {
+		final Img<FloatType> in = new ArrayImgFactory<FloatType>().create(
+			new int[] { 64, 48 }, new FloatType());
+		placeSphereInCenter(in);
+		final Img<FloatType> kernel = new ArrayImgFactory<FloatType>().create(
+			new int[] { 9, 9 }, new FloatType());
+		placeSphereInCenter(kernel);
+
+		@SuppressWarnings("unchecked")
+		final Img<FloatType> convolved = (Img<FloatType>) ops.run(
+			ConvolveFFTF.class, in, kernel);
+
+		// a tolerance of one stops after the first iteration
+		final RandomAccessibleInterval<FloatType> once = richardsonLucy(convolved,
+			kernel, 1, false, 0);
+		final RandomAccessibleInterval<FloatType> stopped = richardsonLucy(
+			convolved, kernel, 10, false, 1);
+		assertIdentical(once, stopped);
+
+		// with the accelerator, too
+		final RandomAccessibleInterval<FloatType> acceleratedOnce =
+			richardsonLucy(convolved, kernel, 1, true, 0);
+		final RandomAccessibleInterval<FloatType> acceleratedStopped =
+			richardsonLucy(convolved, kernel, 10, true, 1);
+		assertIdentical(acceleratedOnce, acceleratedStopped);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testLeanVectorAccelerator() {
+		final Img<FloatType> a = new ArrayImgFactory<FloatType>().create(
+			new int[] { 20, 15 }, new FloatType());
+		final Random random = new Random(42);
+		for (final FloatType t : a) {
+			t.setReal(1 + random.nextFloat());
+		}
+		final Img<FloatType> b = a.copy();
+
+		final UnaryInplaceOp<RandomAccessibleInterval<FloatType>, RandomAccessibleInterval<FloatType>> vector =
+			(UnaryInplaceOp) Inplaces.unary(ops, VectorAccelerator.class, a);
+		final UnaryInplaceOp<RandomAccessibleInterval<FloatType>, RandomAccessibleInterval<FloatType>> lean =
+			(UnaryInplaceOp) Inplaces.unary(ops, LeanVectorAccelerator.class, b);
+
+		// iterate a contraction towards a fixed point, accelerating each step
+		for (int i = 0; i < 6; i++) {
+			step(a);
+			step(b);
+			vector.mutate(a);
+			lean.mutate(b);
+			final Cursor<FloatType> ca = a.cursor();
+			final Cursor<FloatType> cb = b.cursor();
+			while (ca.hasNext()) {
+				assertEquals(ca.next().get(), cb.next().get(), 1e-4);
+			}
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testBatch() {
+		final Img<FloatType> kernel = new ArrayImgFactory<FloatType>().create(
+			new int[] { 9, 7 }, new FloatType());
+		placeSphereInCenter(kernel);
+
+		// a stack of differently blurred spheres
+		final Img<FloatType> stack = new ArrayImgFactory<FloatType>().create(
+			new int[] { 40, 30, 3 }, new FloatType());
+		final List<RandomAccessibleInterval<FloatType>> slices = new ArrayList<>();
+		for (int z = 0; z < stack.dimension(2); z++) {
+			final Img<FloatType> in = new ArrayImgFactory<FloatType>().create(
+				new int[] { 40, 30 }, new FloatType());
+			placeSphereInCenter(in);
+			for (final FloatType t : in) {
+				t.mul(z + 1);
+			}
+			final RandomAccessibleInterval<FloatType> convolved =
+				(RandomAccessibleInterval<FloatType>) ops.run(ConvolveFFTF.class, in,
+					kernel);
+			ops.copy().rai(Views.hyperSlice(stack, 2, z), convolved);
+			slices.add(Views.hyperSlice(stack, 2, z));
+		}
+
+		for (final boolean nonCirculant : new boolean[] { false, true }) {
+			// all images at once, and one after the other in a single worker
+			final List<RandomAccessibleInterval<FloatType>> batch =
+				(List<RandomAccessibleInterval<FloatType>>) ops.run(
+					RichardsonLucyBatchList.class, null, slices, kernel, 5,
+					nonCirculant);
+			final List<RandomAccessibleInterval<FloatType>> sequential =
+				(List<RandomAccessibleInterval<FloatType>>) ops.run(
+					RichardsonLucyBatchList.class, null, slices, kernel, 5, nonCirculant,
+					true, 0.0, 1L);
+
+			assertEquals(slices.size(), batch.size());
+			for (int z = 0; z < slices.size(); z++) {
+				final RandomAccessibleInterval<FloatType> single =
+					(RandomAccessibleInterval<FloatType>) ops.run(RichardsonLucyF.class,
+						slices.get(z), kernel, null, null, null, null, null, 5,
+						nonCirculant);
+				assertIdentical(single, batch.get(z));
+
+				final RandomAccessibleInterval<FloatType> accelerated =
+					(RandomAccessibleInterval<FloatType>) ops.run(RichardsonLucyF.class,
+						slices.get(z), kernel, null, null, null, null, null, 5,
+						nonCirculant, true);
+				// the acceleration factor sums in parallel, in varying order
+				assertClose(accelerated, sequential.get(z), 1e-3f);
+			}
+		}
+
+		// the slices of a stack
+		final List<RandomAccessibleInterval<FloatType>> batch =
+			(List<RandomAccessibleInterval<FloatType>>) ops.run(
+				RichardsonLucyBatchList.class, slices, kernel, 5);
+		final RandomAccessibleInterval<FloatType> deconvolved =
+			(RandomAccessibleInterval<FloatType>) ops.run(
+				RichardsonLucyBatchStack.class, stack, kernel, 2, 5);
+		for (int z = 0; z < slices.size(); z++) {
+			assertIdentical(batch.get(z), Views.hyperSlice(deconvolved, 2, z));
+		}
+	}
+
 	// utility to place a small sphere at the center of the image
 	private void placeSphereInCenter(Img<FloatType> img) {
 
@@ -105,4 +236,40 @@ public class DeconvolveTest extends AbstractOpTest {
 			value.setReal(1);
 		}
 	}
+
+	@SuppressWarnings("unchecked")
+	private RandomAccessibleInterval<FloatType> richardsonLucy(
+		final Img<FloatType> in, final Img<FloatType> kernel,
+		final int maxIterations, final boolean accelerate, final double tolerance)
+	{
+		return (RandomAccessibleInterval<FloatType>) ops.run(RichardsonLucyF.class,
+			in, kernel, null, null, null, null, null, maxIterations, false,
+			accelerate, tolerance);
+	}
+
+	private void assertIdentical(final RandomAccessibleInterval<FloatType> a,
+		final RandomAccessibleInterval<FloatType> b)
+	{
+		assertClose(a, b, 0.0f);
+	}
+
+	private void assertClose(final RandomAccessibleInterval<FloatType> a,
+		final RandomAccessibleInterval<FloatType> b, final float delta)
+	{
+		final Cursor<FloatType> ca = Views.flatIterable(a).cursor();
+		final Cursor<FloatType> cb = Views.flatIterable(b).cursor();
+		while (ca.hasNext()) {
+			assertEquals(ca.next().get(), cb.next().get(), delta);
+		}
+	}
+
+	// one step of a contraction towards a fixed point
+	private void step(final Img<FloatType> img) {
+		final Cursor<FloatType> c = img.localizingCursor();
+		while (c.hasNext()) {
+			final FloatType t = c.next();
+			final float target = 2 + c.getFloatPosition(0) / 10;
+			t.setReal(target + 0.8f * (t.get() - target));
+		}
+	}
 }
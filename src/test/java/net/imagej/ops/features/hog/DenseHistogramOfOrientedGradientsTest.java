@@ -0,0 +1,168 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.features.hog;
+
+import static org.junit.Assert.assertEquals;
+
+import net.imagej.ops.AbstractOpTest;
+import net.imagej.ops.filter.gradient.DefaultGradient;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link IntegralOrientationHistogram} and
+ * {@link DenseHistogramOfOrientedGradients}.
+ */
+public class DenseHistogramOfOrientedGradientsTest extends AbstractOpTest {
+
+	private static final int NUM_ORIENTATIONS = 9;
+
+	/**
+	 * Neighborhood histograms read from the integral histogram must match the
+	 * descriptor of {@link HistogramOfOrientedGradients2D}.
+	 */
+	@Test
+	public void testIntegralHistogram() {
+		final Img<FloatType> input = openFloatImg("HoG2DInput.png");
+		final int span = 2;
+
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> hog =
+			(RandomAccessibleInterval<FloatType>) ops.run(
+				HistogramOfOrientedGradients2D.class, null, input, NUM_ORIENTATIONS,
+				span);
+		final RandomAccessibleInterval<DoubleType> integral = ops.namespace(
+			HogNamespace.class).integralHistogram(input, NUM_ORIENTATIONS);
+
+		assertEquals(3, integral.numDimensions());
+		assertEquals(input.dimension(0), integral.dimension(0));
+		assertEquals(input.dimension(1), integral.dimension(1));
+		assertEquals(NUM_ORIENTATIONS, integral.dimension(2));
+
+		final RandomAccess<DoubleType> integralRA = integral.randomAccess();
+		final RandomAccess<FloatType> hogRA = hog.randomAccess();
+		final double[] histogram = new double[NUM_ORIENTATIONS];
+		for (int i = 0; i < input.dimension(0); i++) {
+			for (int j = 0; j < input.dimension(1); j++) {
+				IntegralHistograms.histogram(integralRA, integral, i - span, j - span,
+					i + span, j + span, histogram);
+				for (int k = 0; k < NUM_ORIENTATIONS; k++) {
+					hogRA.setPosition(new long[] { i, j, k });
+					final float expected = hogRA.get().getRealFloat();
+					assertEquals("i=" + i + ", j=" + j + ", k=" + k, expected,
+						histogram[k], 1e-3 + 1e-5 * Math.abs(expected));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDenseHog() {
+		final Img<FloatType> input = openFloatImg("HoG2DInput.png");
+		final int cellSize = 4;
+		final int blockSize = 2;
+		final int windowSize = 3;
+		final int blockLength = blockSize * blockSize * NUM_ORIENTATIONS;
+
+		final HogNamespace hog = ops.namespace(HogNamespace.class);
+		final RandomAccessibleInterval<FloatType> dense = hog.denseHog(input,
+			NUM_ORIENTATIONS, cellSize, blockSize, windowSize, windowSize);
+
+		assertEquals(3, dense.numDimensions());
+		assertEquals((input.dimension(0) - windowSize * cellSize) / cellSize + 1,
+			dense.dimension(0));
+		assertEquals((input.dimension(1) - windowSize * cellSize) / cellSize + 1,
+			dense.dimension(1));
+		assertEquals(4 * blockLength, dense.dimension(2));
+
+		// first block of the first window, computed by brute force
+		final RandomAccessibleInterval<FloatType> gradient = ops.filter().gradient(
+			input);
+		final RandomAccess<FloatType> gradientRA = gradient.randomAccess();
+		final double[] block = new double[blockLength];
+		for (int y = 0; y < blockSize * cellSize; y++) {
+			for (int x = 0; x < blockSize * cellSize; x++) {
+				gradientRA.setPosition(new long[] { x, y,
+					DefaultGradient.ORIENTATION });
+				final int bin = HistogramOfOrientedGradients2D.getBin(gradientRA.get()
+					.getRealFloat(), NUM_ORIENTATIONS);
+				gradientRA.setPosition(DefaultGradient.MAGNITUDE, 2);
+				final int cell = (y / cellSize) * blockSize + x / cellSize;
+				block[cell * NUM_ORIENTATIONS + bin] += gradientRA.get()
+					.getRealDouble();
+			}
+		}
+		double sumOfSquares = 0;
+		for (final double v : block) {
+			sumOfSquares += v * v;
+		}
+		final double norm = Math.sqrt(sumOfSquares + 1e-6);
+
+		final RandomAccess<FloatType> denseRA = dense.randomAccess();
+		for (int i = 0; i < blockLength; i++) {
+			denseRA.setPosition(new long[] { 0, 0, i });
+			assertEquals("i=" + i, block[i] / norm, denseRA.get().getRealDouble(),
+				1e-5);
+		}
+
+		// with a stride of one cell, overlapping windows share their blocks
+		final RandomAccess<FloatType> shiftedRA = dense.randomAccess();
+		for (int i = 0; i < blockLength; i++) {
+			denseRA.setPosition(new long[] { 0, 0, blockLength + i });
+			shiftedRA.setPosition(new long[] { 1, 0, i });
+			assertEquals(denseRA.get().getRealFloat(), shiftedRA.get()
+				.getRealFloat(), 1e-5);
+			denseRA.setPosition(new long[] { 0, 0, 2 * blockLength + i });
+			shiftedRA.setPosition(new long[] { 0, 1, i });
+			assertEquals(denseRA.get().getRealFloat(), shiftedRA.get()
+				.getRealFloat(), 1e-5);
+		}
+
+		// a custom stride in pixels
+		final RandomAccessibleInterval<FloatType> strided = hog.denseHog(input,
+			NUM_ORIENTATIONS, cellSize, blockSize, windowSize, windowSize, 2);
+		assertEquals((input.dimension(0) - windowSize * cellSize) / 2 + 1, strided
+			.dimension(0));
+		final RandomAccess<FloatType> stridedRA = strided.randomAccess();
+		for (int i = 0; i < 4 * blockLength; i++) {
+			denseRA.setPosition(new long[] { 1, 0, i });
+			stridedRA.setPosition(new long[] { 2, 0, i });
+			assertEquals(denseRA.get().getRealFloat(), stridedRA.get()
+				.getRealFloat(), 1e-5);
+		}
+	}
+
+}
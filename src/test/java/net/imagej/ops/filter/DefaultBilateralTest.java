@@ -32,6 +32,7 @@ import net.imglib2.Cursor;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.real.DoubleType;
 
 import static org.junit.Assert.assertEquals;
 
@@ -147,6 +148,54 @@ public class DefaultBilateralTest extends AbstractOpTest {
 		}
 	}
 
+	@Test
+	public void testVolume() {
+		// NB: Every plane is the 2-D test image; the filter must smooth along z,
+		// too, so a constant stack must filter the same as a single plane.
+		final byte[] plane = { 7, 8, 9, 1, 2, 3, 7, 9, 8, 1, 3, 2, 8, 7, 9, 2, 1, 3, 8, 9, 7, 2, 3, 1, 9, 7, 8, 3, 1,
+				2, 9, 8, 7, 3, 2, 1 };
+		final byte[] data = new byte[plane.length * 3];
+		for (int z = 0; z < 3; z++) {
+			System.arraycopy(plane, 0, data, z * plane.length, plane.length);
+		}
+		final Img<ByteType> in = ArrayImgs.bytes(data, 6, 6, 3);
+		final Img<ByteType> out = generateByteArrayTestImg(false, 6, 6, 3);
+
+		ops.run(DefaultBilateral.class, out, in, 15, 5, 2);
+
+		final byte[] expected = { 8, 7, 6, 4, 3, 2 };
+		Cursor<ByteType> cout = out.cursor();
+		for (int i = 0; i < data.length; i++) {
+			assertEquals(expected[i % 6], cout.next().get());
+		}
+	}
+
+	@Test
+	public void testApproximate() {
+		final double[] data = new double[64 * 64];
+		for (int y = 0; y < 64; y++) {
+			for (int x = 0; x < 64; x++) {
+				data[y * 64 + x] = (x < 32 ? 10 : 200) + (x * 7 + y * 13) % 5;
+			}
+		}
+		final Img<DoubleType> in = ArrayImgs.doubles(data, 64, 64);
+		final Img<DoubleType> exact = ArrayImgs.doubles(64, 64);
+		final Img<DoubleType> approximate = ArrayImgs.doubles(64, 64);
+
+		ops.run(DefaultBilateral.class, exact, in, 10, 4, 12);
+		ops.run(DefaultBilateral.class, approximate, in, 10, 4, 12, true);
+
+		// NB: The edge must survive, and both results must be close.
+		final Cursor<DoubleType> ce = exact.cursor();
+		final Cursor<DoubleType> ca = approximate.cursor();
+		while (ce.hasNext()) {
+			final double e = ce.next().get();
+			final double a = ca.next().get();
+			assertEquals(e, a, 0.5);
+			assertEquals(ce.getIntPosition(0) < 32 ? 12 : 202, a, 0.5);
+		}
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testTooManyDimensions() {
 		final byte[] data = { 2, 2, 2, 2, 2, 2, 2, 2 };
@@ -30,29 +30,42 @@
 package net.imagej.ops.filter;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.util.ArrayList;
 import java.util.Collections;
 
 import net.imagej.ops.AbstractOpTest;
+import net.imagej.ops.Ops;
 import net.imagej.ops.filter.max.DefaultMaxFilter;
 import net.imagej.ops.filter.max.MaxFilterOp;
+import net.imagej.ops.filter.max.RectangleMaxFilter;
 import net.imagej.ops.filter.mean.DefaultMeanFilter;
 import net.imagej.ops.filter.mean.MeanFilterOp;
+import net.imagej.ops.filter.mean.RectangleMeanFilter;
 import net.imagej.ops.filter.median.DefaultMedianFilter;
 import net.imagej.ops.filter.median.MedianFilterOp;
+import net.imagej.ops.filter.median.RectangleMedianFilter;
 import net.imagej.ops.filter.min.DefaultMinFilter;
 import net.imagej.ops.filter.min.MinFilterOp;
+import net.imagej.ops.filter.min.RectangleMinFilter;
 import net.imagej.ops.filter.sigma.DefaultSigmaFilter;
 import net.imagej.ops.filter.sigma.SigmaFilterOp;
 import net.imagej.ops.filter.variance.DefaultVarianceFilter;
+import net.imagej.ops.filter.variance.RectangleVarianceFilter;
 import net.imagej.ops.filter.variance.VarianceFilterOp;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
 import net.imglib2.algorithm.neighborhood.RectangleShape;
 import net.imglib2.algorithm.neighborhood.RectangleShape.NeighborhoodsIterableInterval;
 import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
 import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
 import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.util.Util;
 import net.imglib2.view.Views;
 
@@ -161,6 +174,151 @@ public class NonLinearFiltersTest extends AbstractOpTest {
 		assertEquals(min, out.firstElement().get());
 	}
 
+	/**
+	 * @see RectangleMaxFilter
+	 * @see RectangleMedianFilter
+	 * @see RectangleMinFilter
+	 */
+	@Test
+	public void testRectangleFiltersAgreeWithDefault() {
+		final Img<ByteType> in3 = generateByteArrayTestImg(true, new long[] { 13,
+			9, 7 });
+		final RectangleShape[] shapes = { new RectangleShape(0, false),
+			new RectangleShape(2, false), new RectangleShape(2, true) };
+		for (final RectangleShape s : shapes) {
+			assertSameFilter(DefaultMedianFilter.class, RectangleMedianFilter.class,
+				in3, s);
+			if (s.isSkippingCenter()) continue;
+			assertSameFilter(DefaultMinFilter.class, RectangleMinFilter.class, in3,
+				s);
+			assertSameFilter(DefaultMaxFilter.class, RectangleMaxFilter.class, in3,
+				s);
+		}
+	}
+
+	/**
+	 * @see RectangleMedianFilter
+	 * @see RectangleMinFilter
+	 * @see RectangleMaxFilter
+	 */
+	@Test
+	public void testRectangleFiltersOnFloats() {
+		final Img<FloatType> in3 = generateFloatArrayTestImg(true, new long[] { 13,
+			9, 7 });
+		final Img<FloatType> output = in3.factory().create(in3, new FloatType());
+		final RectangleShape s = new RectangleShape(2, false);
+
+		// the sliding histogram only applies to integer types
+		assertFalse(ops.op(Ops.Filter.Median.class, output, in3,
+			s) instanceof RectangleMedianFilter);
+
+		final Img<FloatType> expected = in3.factory().create(in3, new FloatType());
+		for (final Class<?>[] pair : new Class<?>[][] { { DefaultMinFilter.class,
+			RectangleMinFilter.class }, { DefaultMaxFilter.class,
+				RectangleMaxFilter.class } })
+		{
+			ops.run(pair[0], expected, in3, s);
+			ops.run(pair[1], output, in3, s);
+			final Cursor<FloatType> e = expected.cursor();
+			final Cursor<FloatType> a = output.cursor();
+			while (e.hasNext()) {
+				assertEquals(e.next().get(), a.next().get(), 0);
+			}
+		}
+	}
+
+	/**
+	 * @see RectangleMeanFilter
+	 * @see RectangleVarianceFilter
+	 */
+	@Test
+	public void testRunningSumFiltersAgreeWithDefault() {
+		final Img<ByteType> in3 = generateByteArrayTestImg(true, new long[] { 13,
+			9, 7 });
+		final RectangleShape[] shapes = { new RectangleShape(1, false),
+			new RectangleShape(3, false), new RectangleShape(2, true) };
+		for (final RectangleShape s : shapes) {
+			assertCloseFilter(DefaultMeanFilter.class, RectangleMeanFilter.class,
+				in3, s);
+			assertCloseFilter(DefaultVarianceFilter.class,
+				RectangleVarianceFilter.class, in3, s);
+		}
+	}
+
+	/**
+	 * @see RectangleVarianceFilter
+	 */
+	@Test
+	public void testRunningSumVariancePrecision() {
+		// large values with a small spread cancel badly in double sums
+		final Img<UnsignedShortType> in2 = ArrayImgs.unsignedShorts(40, 30);
+		int i = 0;
+		for (final UnsignedShortType t : in2) {
+			t.set(65535 - (i++ * 7) % 5);
+		}
+		final Img<DoubleType> actual = ArrayImgs.doubles(40, 30);
+		final int span = 3;
+		ops.run(RectangleVarianceFilter.class, actual, in2, new RectangleShape(
+			span, false));
+
+		final RandomAccess<UnsignedShortType> ra = in2.randomAccess();
+		final Cursor<DoubleType> a = actual.localizingCursor();
+		while (a.hasNext()) {
+			a.fwd();
+			final long x = a.getLongPosition(0);
+			final long y = a.getLongPosition(1);
+			if (x < span || y < span || x >= 40 - span || y >= 30 - span) continue;
+			long sum = 0;
+			long sumOfSquares = 0;
+			for (long yy = y - span; yy <= y + span; yy++) {
+				for (long xx = x - span; xx <= x + span; xx++) {
+					ra.setPosition(new long[] { xx, yy });
+					final long v = ra.get().get();
+					sum += v;
+					sumOfSquares += v * v;
+				}
+			}
+			final long n = (2 * span + 1) * (2 * span + 1);
+			final double expected = (double) (n * sumOfSquares - sum * sum) / (n *
+				(n - 1));
+			assertEquals(expected, a.get().get(), 1e-12);
+		}
+	}
+
+	private void assertCloseFilter(final Class<?> expectedOp,
+		final Class<?> actualOp, final Img<ByteType> input,
+		final RectangleShape s)
+	{
+		final long[] dims = new long[input.numDimensions()];
+		input.dimensions(dims);
+		final Img<DoubleType> expected = ArrayImgs.doubles(dims);
+		final Img<DoubleType> actual = ArrayImgs.doubles(dims);
+		ops.run(expectedOp, expected, input, s, oobFactory);
+		ops.run(actualOp, actual, input, s, oobFactory);
+
+		final Cursor<DoubleType> e = expected.cursor();
+		final Cursor<DoubleType> a = actual.cursor();
+		while (e.hasNext()) {
+			assertEquals(e.next().get(), a.next().get(), 1e-9);
+		}
+	}
+
+	private void assertSameFilter(final Class<?> expectedOp,
+		final Class<?> actualOp, final Img<ByteType> input,
+		final RectangleShape s)
+	{
+		final Img<ByteType> expected = input.factory().create(input, new ByteType());
+		final Img<ByteType> actual = input.factory().create(input, new ByteType());
+		ops.run(expectedOp, expected, input, s, oobFactory);
+		ops.run(actualOp, actual, input, s, oobFactory);
+
+		final Cursor<ByteType> e = expected.cursor();
+		final Cursor<ByteType> a = actual.cursor();
+		while (e.hasNext()) {
+			assertEquals(e.next().get(), a.next().get());
+		}
+	}
+
 	/**
 	 * @see SigmaFilterOp
 	 * @see DefaultSigmaFilter
@@ -30,17 +30,22 @@
 package net.imagej.ops.filter.convolve;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
 import net.imagej.ops.AbstractOpTest;
 import net.imagej.ops.Op;
 import net.imagej.ops.Ops;
 import net.imagej.ops.filter.fft.CreateOutputFFTMethods;
+import net.imagej.ops.filter.fft.KernelSpectrumCache;
 import net.imagej.ops.filter.pad.PadInputFFTMethods;
 import net.imagej.ops.filter.pad.PadShiftKernelFFTMethods;
 import net.imagej.ops.special.function.BinaryFunctionOp;
 import net.imagej.ops.special.function.Functions;
 import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imglib2.Cursor;
 import net.imglib2.Dimensions;
 import net.imglib2.FinalDimensions;
 import net.imglib2.Point;
@@ -56,6 +61,8 @@ import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.view.Views;
 
 import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.cache.CacheService;
 
 /**
  * Tests involving convolvers.
@@ -79,6 +86,14 @@ public class ConvolveTest extends AbstractOpTest {
 		// we should get ConvolveNaive
 		assertSame(ConvolveNaiveF.class, op.getClass());
 
+		// unless an engine is requested, which the cost model picks
+		op = ops.op(Ops.Filter.Convolve.class, in, kernel, null, null,
+			ConvolveCostModel.Engine.AUTO);
+		assertSame(ConvolveAutoF.class, op.getClass());
+		final ConvolveCostModel model = new ConvolveCostModel();
+		assertSame(ConvolveCostModel.Engine.NAIVE, model.select(in, kernel,
+			false));
+
 		// make sure it runs
 		@SuppressWarnings("unchecked")
 		final Img<FloatType> out1 = (Img<FloatType>) ops.run(ConvolveNaiveF.class,
@@ -95,6 +110,7 @@ public class ConvolveTest extends AbstractOpTest {
 
 		// this time we should get ConvolveFFT
 		assertSame(ConvolveFFTF.class, op.getClass());
+		assertSame(ConvolveCostModel.Engine.FFT, model.select(in, kernel, false));
 
 		// make sure it runs
 		@SuppressWarnings("unchecked")
@@ -213,6 +229,199 @@ public class ConvolveTest extends AbstractOpTest {
 		assertEquals(size[0], out2.dimension(0));
 	}
 
+	/** tests that the kernel spectrum cache belongs to its context */
+	@Test
+	public void testKernelSpectrumCacheScope() {
+		assertSame(KernelSpectrumCache.of(context), KernelSpectrumCache.of(
+			ops.getContext()));
+
+		final Context other = new Context(CacheService.class);
+		try {
+			assertNotSame(KernelSpectrumCache.of(context), KernelSpectrumCache.of(
+				other));
+		}
+		finally {
+			other.dispose();
+		}
+	}
+
+	/** tests that repeated convolutions reuse the spectrum of the kernel */
+	@Test
+	public void testKernelSpectrumCache() {
+		final KernelSpectrumCache cache = KernelSpectrumCache.of(context);
+		cache.clear();
+
+		final int[] size = new int[] { 64, 48 };
+		final Img<FloatType> in = new ArrayImgFactory<FloatType>().create(size,
+			new FloatType());
+		placeSphereInCenter(in);
+		final Img<FloatType> kernel = new ArrayImgFactory<FloatType>().create(
+			new int[] { 15, 15 }, new FloatType());
+		placeSphereInCenter(kernel);
+
+		@SuppressWarnings("unchecked")
+		final Img<FloatType> out1 = (Img<FloatType>) ops.run(ConvolveFFTF.class,
+			in, kernel);
+		final long misses = cache.getMisses();
+		final long hits = cache.getHits();
+
+		// the same kernel again, in another image: the kernel FFT is reused
+		@SuppressWarnings("unchecked")
+		final Img<FloatType> out2 = (Img<FloatType>) ops.run(ConvolveFFTF.class,
+			in.copy(), kernel.copy());
+		assertEquals(hits + 1, cache.getHits());
+		assertEquals(misses, cache.getMisses());
+
+		final Cursor<FloatType> c1 = out1.cursor();
+		final Cursor<FloatType> c2 = out2.cursor();
+		while (c1.hasNext()) {
+			assertEquals(c1.next().get(), c2.next().get(), 0);
+		}
+
+		// a different kernel must be transformed anew
+		kernel.firstElement().set(1);
+		ops.run(ConvolveFFTF.class, in, kernel);
+		assertEquals(hits + 1, cache.getHits());
+		assertEquals(misses + 1, cache.getMisses());
+	}
+
+	/** tests that all engines of the front-end compute the same convolution */
+	@Test
+	public void testConvolveEngines() {
+		final Img<FloatType> in = new ArrayImgFactory<FloatType>().create(
+			new int[] { 40, 30 }, new FloatType());
+		int i = 0;
+		for (final FloatType value : in) {
+			value.set((i++ * 7919) % 101 / 100f);
+		}
+
+		// an asymmetric kernel of rank one, with even and odd sizes
+		final float[] a = { 1, 2, 5, 3 };
+		final float[] b = { -1, 0, 2, 4, 1 };
+		final Img<FloatType> kernel = new ArrayImgFactory<FloatType>().create(
+			new int[] { a.length, b.length }, new FloatType());
+		final Cursor<FloatType> kc = kernel.localizingCursor();
+		while (kc.hasNext()) {
+			kc.fwd();
+			kc.get().set(a[kc.getIntPosition(0)] * b[kc.getIntPosition(1)]);
+		}
+		assertNotNull(ConvolveAutoF.factorize(kernel));
+
+		final RandomAccessibleInterval<FloatType> naive = convolve(in, kernel,
+			ConvolveCostModel.Engine.NAIVE);
+		final RandomAccessibleInterval<FloatType> separable = convolve(in, kernel,
+			ConvolveCostModel.Engine.SEPARABLE);
+		final RandomAccessibleInterval<FloatType> fft = convolve(in, kernel,
+			ConvolveCostModel.Engine.FFT);
+
+		final Cursor<FloatType> cn = Views.flatIterable(naive).cursor();
+		final Cursor<FloatType> cs = Views.flatIterable(separable).cursor();
+		final Cursor<FloatType> cf = Views.flatIterable(fft).cursor();
+		while (cn.hasNext()) {
+			final float expected = cn.next().get();
+			assertEquals(expected, cs.next().get(), 0.01);
+			assertEquals(expected, cf.next().get(), 0.01);
+		}
+
+		// a kernel of higher rank cannot be factorized
+		kernel.firstElement().set(100);
+		assertNull(ConvolveAutoF.factorize(kernel));
+	}
+
+	/**
+	 * Tests that the existing signatures keep correlating with asymmetric
+	 * kernels, while the engines compute true convolution.
+	 */
+	@Test
+	public void testAsymmetricKernel() {
+		final Img<FloatType> in = new ArrayImgFactory<FloatType>().create(
+			new int[] { 21, 21 }, new FloatType());
+		final RandomAccess<FloatType> inRA = in.randomAccess();
+		inRA.setPosition(new long[] { 10, 10 });
+		inRA.get().set(1);
+
+		final Img<FloatType> kernel = new ArrayImgFactory<FloatType>().create(
+			new int[] { 3, 3 }, new FloatType());
+		final Cursor<FloatType> kc = kernel.localizingCursor();
+		while (kc.hasNext()) {
+			kc.fwd();
+			kc.get().set(1 + kc.getIntPosition(0) + 3 * kc.getIntPosition(1));
+		}
+		final RandomAccess<FloatType> kernelRA = kernel.randomAccess();
+
+		final RandomAccessibleInterval<FloatType> correlated = ops.filter()
+			.convolve(in, kernel);
+		final RandomAccessibleInterval<FloatType> convolved = convolve(in, kernel,
+			ConvolveCostModel.Engine.AUTO);
+
+		final RandomAccess<FloatType> corrRA = correlated.randomAccess();
+		final RandomAccess<FloatType> convRA = convolved.randomAccess();
+		for (int dy = -1; dy <= 1; dy++) {
+			for (int dx = -1; dx <= 1; dx++) {
+				corrRA.setPosition(new long[] { 10 + dx, 10 + dy });
+				kernelRA.setPosition(new long[] { 1 - dx, 1 - dy });
+				assertEquals(kernelRA.get().get(), corrRA.get().get(), 0);
+
+				convRA.setPosition(new long[] { 10 + dx, 10 + dy });
+				kernelRA.setPosition(new long[] { 1 + dx, 1 + dy });
+				assertEquals(kernelRA.get().get(), convRA.get().get(), 1e-5);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private RandomAccessibleInterval<FloatType> convolve(final Img<FloatType> in,
+		final Img<FloatType> kernel, final ConvolveCostModel.Engine engine)
+	{
+		return (RandomAccessibleInterval<FloatType>) ops.run(ConvolveAutoF.class,
+			in, kernel, null, null, engine);
+	}
+
+	/** tests that blockwise convolution agrees with whole-image convolution */
+	@Test
+	public void testConvolveBlockwise() {
+		final Img<FloatType> in = new ArrayImgFactory<FloatType>().create(
+			new int[] { 100, 70 }, new FloatType());
+		int i = 0;
+		for (final FloatType value : in) {
+			value.set((i++ * 7919) % 101 / 100f);
+		}
+		final Img<FloatType> kernel = new ArrayImgFactory<FloatType>().create(
+			new int[] { 9, 6 }, new FloatType());
+		placeSphereInCenter(kernel);
+		kernel.firstElement().set(0.5f);
+
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> expected =
+			(RandomAccessibleInterval<FloatType>) ops.run(ConvolveFFTF.class, in,
+				kernel);
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> actual =
+			(RandomAccessibleInterval<FloatType>) ops.run(
+				ConvolveFFTBlockwiseF.class, in, kernel, new FinalDimensions(16, 16));
+
+		final Cursor<FloatType> ce = Views.flatIterable(expected).cursor();
+		final Cursor<FloatType> ca = Views.flatIterable(actual).cursor();
+		while (ce.hasNext()) {
+			assertEquals(ce.next().get(), ca.next().get(), 1e-4);
+		}
+
+		// the spectrum is keyed by the unpadded kernel and its full content
+		final KernelSpectrumCache cache = KernelSpectrumCache.of(context);
+		final long hits = cache.getHits();
+		final long misses = cache.getMisses();
+		ops.run(ConvolveFFTBlockwiseF.class, in, kernel.copy(),
+			new FinalDimensions(16, 16));
+		assertEquals(hits + 1, cache.getHits());
+		assertEquals(misses, cache.getMisses());
+
+		kernel.firstElement().set(0.25f);
+		ops.run(ConvolveFFTBlockwiseF.class, in, kernel, new FinalDimensions(16,
+			16));
+		assertEquals(hits + 1, cache.getHits());
+		assertEquals(misses + 1, cache.getMisses());
+	}
+
 	// utility to place a small sphere at the center of the image
 	private void placeSphereInCenter(Img<FloatType> img) {
 
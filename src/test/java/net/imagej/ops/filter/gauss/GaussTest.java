@@ -29,12 +29,18 @@
 
 package net.imagej.ops.filter.gauss;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import net.imagej.ops.AbstractOpTest;
+import net.imagej.ops.Ops;
 import net.imglib2.Cursor;
 import net.imglib2.algorithm.gauss3.Gauss3;
 import net.imglib2.exception.IncompatibleTypeException;
 import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.util.Util;
 import net.imglib2.view.Views;
 
@@ -76,4 +82,38 @@ public class GaussTest extends AbstractOpTest {
 				.getRealDouble(), 0);
 		}
 	}
+
+	/** Tests the recursive Gaussian against the FIR one. */
+	@Test
+	public void recursiveGaussTest() {
+		final Img<FloatType> in = ArrayImgs.floats(64, 48);
+		final Cursor<FloatType> c = in.localizingCursor();
+		while (c.hasNext()) {
+			c.fwd();
+			final int x = c.getIntPosition(0), y = c.getIntPosition(1);
+			double v = 100 * Math.sin(x / 5.0) * Math.cos(y / 7.0);
+			if ((x - 30) * (x - 30) + (y - 20) * (y - 20) < 9) v += 200;
+			if (x > 45) v += 50;
+			c.get().setReal(v);
+		}
+
+		final double[] sigmas = { 4, 4 };
+		// only used when requested explicitly
+		assertTrue(ops.op(Ops.Filter.Gauss.class, in,
+			sigmas) instanceof DefaultGaussRAI);
+		assertTrue(ops.op(RecursiveGaussRAI.class, in,
+			sigmas) instanceof RecursiveGaussRAI);
+
+		final Img<FloatType> recursive = ArrayImgs.floats(64, 48);
+		final Img<FloatType> fir = ArrayImgs.floats(64, 48);
+		ops.run(RecursiveGaussRAI.class, recursive, in, sigmas);
+		ops.run(DefaultGaussRAI.class, fir, in, sigmas);
+
+		// within one percent of the range of the filtered image
+		final Cursor<FloatType> c1 = recursive.cursor();
+		final Cursor<FloatType> c2 = fir.cursor();
+		while (c1.hasNext()) {
+			assertEquals(c2.next().get(), c1.next().get(), 2);
+		}
+	}
 }
@@ -0,0 +1,117 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.gradient;
+
+import static org.junit.Assert.assertEquals;
+
+import net.imagej.ops.AbstractOpTest;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.FloatType;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link DefaultGradient}.
+ */
+public class GradientTest extends AbstractOpTest {
+
+	@Test
+	public void testCentralDifference() {
+		final RandomAccessibleInterval<FloatType> gradient = ops.filter().gradient(
+			ramp(3, 2, 1));
+
+		assertEquals(3, gradient.numDimensions());
+		assertEquals(2, gradient.dimension(2));
+		assertGradient(gradient, 5, 5, Math.sqrt(13), Math.toDegrees(Math.atan2(3,
+			2)));
+	}
+
+	@Test
+	public void testBinnedSobel() {
+		final RandomAccessibleInterval<FloatType> gradient = ops.filter().gradient(
+			null, ramp(-3, 2, 1), 8, true);
+
+		// four times the difference over two pixels, in the seventh of eight bins
+		assertGradient(gradient, 5, 5, 8 * Math.sqrt(13), 6);
+	}
+
+	@Test
+	public void testChannelMax() {
+		// the steepest channel differs for each direction
+		final Img<FloatType> in = ArrayImgs.floats(10, 10, 3);
+		final Cursor<FloatType> c = in.localizingCursor();
+		final double[][] slopes = { { 1, -1 }, { -4, 2 }, { 3, 5 } };
+		while (c.hasNext()) {
+			c.fwd();
+			final double[] slope = slopes[c.getIntPosition(2)];
+			c.get().setReal(slope[0] * c.getDoublePosition(0) + slope[1] * c
+				.getDoublePosition(1));
+		}
+
+		final RandomAccessibleInterval<FloatType> gradient = ops.filter().gradient(
+			in);
+		assertEquals(10, gradient.dimension(0));
+		assertEquals(2, gradient.dimension(2));
+		assertGradient(gradient, 5, 5, Math.sqrt(41), Math.toDegrees(Math.atan2(-4,
+			5)) + 360);
+	}
+
+	// -- Helper methods --
+
+	private Img<FloatType> ramp(final double sx, final double sy,
+		final double offset)
+	{
+		final Img<FloatType> img = ArrayImgs.floats(10, 10);
+		final Cursor<FloatType> c = img.localizingCursor();
+		while (c.hasNext()) {
+			c.fwd();
+			c.get().setReal(sx * c.getDoublePosition(0) + sy * c.getDoublePosition(
+				1) + offset);
+		}
+		return img;
+	}
+
+	private static void assertGradient(
+		final RandomAccessibleInterval<FloatType> gradient, final long x,
+		final long y, final double magnitude, final double orientation)
+	{
+		final RandomAccess<FloatType> ra = gradient.randomAccess();
+		ra.setPosition(new long[] { x, y, DefaultGradient.MAGNITUDE });
+		assertEquals(magnitude, ra.get().getRealDouble(), 1e-5);
+		ra.setPosition(DefaultGradient.ORIENTATION, 2);
+		assertEquals(orientation, ra.get().getRealDouble(), 1e-4);
+	}
+
+}
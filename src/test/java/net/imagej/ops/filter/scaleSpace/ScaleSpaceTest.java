@@ -0,0 +1,195 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.scaleSpace;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import net.imagej.ops.AbstractOpTest;
+import net.imglib2.Cursor;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+import net.imglib2.view.composite.CompositeIntervalView;
+import net.imglib2.view.composite.RealComposite;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link DefaultScaleSpace} and the ops consuming a {@link ScaleSpace}.
+ */
+public class ScaleSpaceTest extends AbstractOpTest {
+
+	@Test
+	public void testIncrementalBlur() {
+		final Img<FloatType> in = createImage();
+		final double[] sigmas = { 1, 2, 4 };
+		final ScaleSpace<FloatType> scaleSpace = ops.filter().scaleSpace(in,
+			sigmas);
+
+		assertEquals(sigmas.length, scaleSpace.numLevels());
+		for (int i = 0; i < sigmas.length; i++) {
+			assertEquals(1, scaleSpace.getDownsampling(i));
+			assertEquals(sigmas[i], scaleSpace.getSigma(i), 0);
+			assertClose(blur(in, sigmas[i]), scaleSpace.getLevel(i), 2);
+		}
+	}
+
+	@Test
+	public void testDownsampling() {
+		final Img<FloatType> in = createImage();
+		final ScaleSpace<FloatType> scaleSpace = ops.filter().scaleSpace(in,
+			new double[] { 1, 2, 4, 8 }, 0, true);
+
+		final long[] factors = { 1, 1, 2, 4 };
+		for (int i = 0; i < factors.length; i++) {
+			assertEquals(factors[i], scaleSpace.getDownsampling(i));
+			assertArrayEquals(new long[] { 64 / factors[i], 48 / factors[i] },
+				Intervals.dimensionsAsLongArray(scaleSpace.getLevel(i)));
+		}
+
+		// away from the borders, where the mirror axes of the grids differ
+		final Interval interior = Intervals.createMinMax(6, 6, 25, 17);
+		assertClose(Views.interval(Views.subsample(blur(in, 4), 2), interior), Views
+			.interval(scaleSpace.getLevel(2), interior), 3);
+	}
+
+	@Test
+	public void testDoG() {
+		final ScaleSpace<FloatType> scaleSpace = ops.filter().scaleSpace(
+			createImage(), new double[] { 1, 2, 4 }, 0, true);
+		final ScaleSpace<FloatType> dog = ops.filter().dog(scaleSpace);
+
+		assertEquals(2, dog.numLevels());
+		assertEquals(1, dog.getSigma(0), 0);
+		assertEquals(2, dog.getSigma(1), 0);
+		assertEquals(1, dog.getDownsampling(0));
+		assertEquals(2, dog.getDownsampling(1));
+
+		// the difference of the levels, the finer one taken on the coarser grid
+		final Cursor<FloatType> coarse = Views.flatIterable(scaleSpace.getLevel(2))
+			.cursor();
+		final Cursor<FloatType> fine = Views.flatIterable(Views.subsample(scaleSpace
+			.getLevel(1), 2)).cursor();
+		final Cursor<FloatType> actual = Views.flatIterable(dog.getLevel(1))
+			.cursor();
+		while (actual.hasNext()) {
+			assertEquals(coarse.next().get() - fine.next().get(), actual.next().get(),
+				1e-5);
+		}
+	}
+
+	@Test
+	public void testHessian() {
+		final ScaleSpace<FloatType> scaleSpace = ops.filter().scaleSpace(
+			createImage(), 1, 2);
+		final List<CompositeIntervalView<FloatType, RealComposite<FloatType>>> hessians =
+			ops.filter().hessian(scaleSpace);
+
+		assertEquals(2, hessians.size());
+		final Cursor<RealComposite<FloatType>> actual = Views.iterable(hessians
+			.get(1)).cursor();
+		final Cursor<RealComposite<FloatType>> expected = Views.iterable(ops
+			.filter().hessian(scaleSpace.getLevel(1))).cursor();
+		while (expected.hasNext()) {
+			assertEquals(expected.next().get(0), actual.next().get(0));
+		}
+	}
+
+	@Test
+	public void testFrangi() {
+		final Img<FloatType> in = createImage();
+		final double[] spacing = { 1, 1 };
+
+		// a single unblurred level of scale one is plain single-scale Frangi
+		final ScaleSpace<FloatType> scaleSpace = ops.filter().scaleSpace(in,
+			new double[] { 1 }, 1);
+		final Img<FloatType> expected = ArrayImgs.floats(64, 48);
+		ops.filter().frangiVesselness(expected, in, spacing, 1);
+		final Img<FloatType> actual = ArrayImgs.floats(64, 48);
+		ops.filter().frangiVesselness(actual, scaleSpace, spacing);
+		assertClose(expected, actual, 0);
+
+		// more levels can only raise the response
+		final Img<FloatType> multi = ArrayImgs.floats(64, 48);
+		ops.filter().frangiVesselness(multi, ops.filter().scaleSpace(in,
+			new double[] { 1, 2, 4 }, 1, true), spacing);
+		final Cursor<FloatType> c = multi.cursor();
+		final Cursor<FloatType> e = expected.cursor();
+		while (c.hasNext()) {
+			final float v = c.next().get();
+			final float single = e.next().get();
+			if (!Float.isNaN(single)) assertTrue(v >= single);
+		}
+	}
+
+	// -- Helper methods --
+
+	private Img<FloatType> createImage() {
+		final Img<FloatType> img = ArrayImgs.floats(64, 48);
+		final Cursor<FloatType> c = img.localizingCursor();
+		while (c.hasNext()) {
+			c.fwd();
+			final double x = c.getDoublePosition(0);
+			final double y = c.getDoublePosition(1);
+			final double line = Math.abs(y - 0.5 * x - 8) < 2 ? 50 : 0;
+			c.get().setReal(25 * Math.sin(x / 5) * Math.cos(y / 7) + line);
+		}
+		return img;
+	}
+
+	private RandomAccessibleInterval<FloatType> blur(final Img<FloatType> in,
+		final double sigma)
+	{
+		return ops.filter().gauss(in, sigma, sigma);
+	}
+
+	private static void assertClose(
+		final RandomAccessibleInterval<FloatType> expected,
+		final RandomAccessibleInterval<FloatType> actual, final double delta)
+	{
+		assertArrayEquals(Intervals.dimensionsAsLongArray(expected), Intervals
+			.dimensionsAsLongArray(actual));
+		final Cursor<FloatType> e = Views.flatIterable(expected).cursor();
+		final Cursor<FloatType> a = Views.flatIterable(actual).cursor();
+		while (e.hasNext()) {
+			assertEquals(e.next().getRealDouble(), a.next().getRealDouble(), delta);
+		}
+	}
+
+}
@@ -36,8 +36,12 @@ import net.imglib2.Cursor;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.integer.ShortType;
+import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.util.Util;
+import net.imglib2.view.Views;
 
 import org.junit.Test;
 
@@ -97,4 +101,71 @@ public class SobelFilterTest extends AbstractOpTest {
 		assertEquals(type, outRA.get());
 	}
 
+	@Test
+	public void testIntegerType() {
+		// non-float types keep squaring, summing and rooting in their own type
+		final Img<ShortType> img = ArrayImgs.shorts(20, 20);
+		int i = 0;
+		for (final ShortType t : img) {
+			t.setReal((i++ * 7919) % 251);
+		}
+
+		final RandomAccessibleInterval<ShortType> out = ops.filter().sobel(img);
+
+		final RandomAccessibleInterval<ShortType> dx = ops.filter().partialDerivative(img, 0);
+		final RandomAccessibleInterval<ShortType> dy = ops.filter().partialDerivative(img, 1);
+		final Cursor<ShortType> cx = Views.flatIterable(dx).cursor();
+		final Cursor<ShortType> cy = Views.flatIterable(dy).cursor();
+		final Cursor<ShortType> c = Views.flatIterable(out).cursor();
+		final ShortType sum = new ShortType();
+		final ShortType square = new ShortType();
+		final ShortType expected = new ShortType();
+		while (c.hasNext()) {
+			sum.setZero();
+			square.setReal(Math.pow(cx.next().getRealDouble(), 2));
+			sum.add(square);
+			square.setReal(Math.pow(cy.next().getRealDouble(), 2));
+			sum.add(square);
+			expected.setReal(Math.sqrt(sum.getRealDouble()));
+			assertEquals(expected.get(), c.next().get());
+		}
+	}
+
+	@Test
+	public void testDoubleType() {
+		// double images keep the derivatives, squares and root in double
+		final Img<DoubleType> img = ArrayImgs.doubles(20, 20);
+		int i = 0;
+		for (final DoubleType t : img) {
+			t.set(Math.sin(i++ * 0.37) * 1e3 + 1e-3 * i);
+		}
+
+		final RandomAccessibleInterval<DoubleType> out = ops.filter().sobel(img);
+
+		final RandomAccessibleInterval<DoubleType> dx = ops.filter().partialDerivative(img, 0);
+		final RandomAccessibleInterval<DoubleType> dy = ops.filter().partialDerivative(img, 1);
+		final Cursor<DoubleType> cx = Views.flatIterable(dx).cursor();
+		final Cursor<DoubleType> cy = Views.flatIterable(dy).cursor();
+		final Cursor<DoubleType> c = Views.flatIterable(out).cursor();
+		while (c.hasNext()) {
+			final double x = cx.next().get();
+			final double y = cy.next().get();
+			assertEquals(Math.sqrt(x * x + y * y), c.next().get(), 1e-9);
+		}
+	}
+
+	@Test
+	public void testAccumulation() {
+		// the magnitude is accumulated into the values of the output
+		final Img<FloatType> img = ArrayImgs.floats(10, 10);
+		final Img<FloatType> out = ArrayImgs.floats(10, 10);
+		for (final FloatType t : out) {
+			t.set(9);
+		}
+		ops.filter().sobel(out, img);
+		for (final FloatType t : out) {
+			assertEquals(3, t.get(), 0);
+		}
+	}
+
 }
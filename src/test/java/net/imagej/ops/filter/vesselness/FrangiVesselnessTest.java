@@ -30,8 +30,15 @@
 
 package net.imagej.ops.filter.vesselness;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.EigenDecomposition;
 import org.junit.Test;
 import org.scijava.Context;
 import org.scijava.cache.CacheService;
@@ -94,6 +101,70 @@ public class FrangiVesselnessTest extends AbstractOpTest {
 		}
 	}
 
+	@Test
+	public void testEigenvalues() {
+		final Random random = new Random(42);
+		final double[] h2 = new double[3];
+		final double[] h3 = new double[6];
+		final double[] actual2 = new double[2];
+		final double[] actual3 = new double[3];
+		for (int i = 0; i < 1000; i++) {
+			for (int c = 0; c < h3.length; c++)
+				h3[c] = random.nextGaussian() * 10;
+			// also try some matrices with a repeated eigenvalue
+			if (i % 10 == 0) h3[1] = h3[2] = h3[4] = 0;
+			if (i % 10 == 1) h3[3] = h3[5] = h3[0];
+			System.arraycopy(h3, 0, h2, 0, 3);
+
+			DefaultFrangi.eigenvalues2D(h2, actual2);
+			assertEigenvalues(new double[][] { { h2[0], h2[1] }, { h2[1], h2[2] } },
+				actual2);
+
+			DefaultFrangi.eigenvalues3D(h3, actual3);
+			assertEigenvalues(new double[][] { { h3[0], h3[1], h3[2] }, { h3[1],
+				h3[3], h3[4] }, { h3[2], h3[4], h3[5] } }, actual3);
+		}
+	}
+
+	@Test
+	public void test3D() {
+		// a bright tube along z, on a dark background
+		final Img<FloatType> input = ArrayImgs.floats(21, 21, 12);
+		final Cursor<FloatType> c = input.localizingCursor();
+		while (c.hasNext()) {
+			c.fwd();
+			final double dx = c.getDoublePosition(0) - 10;
+			final double dy = c.getDoublePosition(1) - 10;
+			c.get().setReal(1000 * Math.exp(-(dx * dx + dy * dy) / 8));
+		}
+
+		final Img<FloatType> output = ArrayImgs.floats(21, 21, 12);
+		ops.run(net.imagej.ops.filter.vesselness.DefaultFrangi.class, output,
+			input, new double[] { 1, 1, 1 }, 1);
+
+		final RandomAccess<FloatType> ra = output.randomAccess();
+		for (int z = 0; z < 12; z++) {
+			ra.setPosition(new long[] { 10, 10, z });
+			assertTrue(ra.get().get() > 0.01);
+			ra.setPosition(new long[] { 0, 0, z });
+			assertEquals(0, ra.get().get(), 1e-6);
+		}
+	}
+
+	// -- Helper methods --
+
+	private static void assertEigenvalues(final double[][] matrix,
+		final double[] actual)
+	{
+		final double[] expected = new EigenDecomposition(new Array2DRowRealMatrix(
+			matrix)).getRealEigenvalues();
+		Arrays.sort(expected);
+		double scale = 0;
+		for (final double e : expected)
+			scale = Math.max(scale, Math.abs(e));
+		assertArrayEquals(expected, actual, 1e-10 * scale);
+	}
+
 	@Override
 	protected Context createContext() {
 		return new Context(OpService.class, OpMatchingService.class,
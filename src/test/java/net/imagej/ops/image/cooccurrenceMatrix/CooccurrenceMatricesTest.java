@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.image.cooccurrenceMatrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import net.imagej.ops.AbstractOpTest;
+import net.imglib2.IterableInterval;
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.view.Views;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link DefaultCooccurrenceMatrices}.
+ */
+public class CooccurrenceMatricesTest extends AbstractOpTest {
+
+	private static final int[] DISTANCES = { 1, 2, 3 };
+
+	@Test
+	public void test2D() {
+		final Img<UnsignedByteType> img =
+			generateRandomlyFilledUnsignedByteTestImgWithSeed(new long[] { 37, 23 },
+				42);
+		final MatrixOrientation[] orientations = MatrixOrientation2D.values();
+
+		final CooccurrenceMatrices matrices = ops.image().cooccurrenceMatrices(
+			img, 16, DISTANCES, orientations);
+		assertMatchesSingleMatrices(img, 16, orientations, matrices);
+	}
+
+	@Test
+	public void test3D() {
+		final Img<UnsignedByteType> img =
+			generateRandomlyFilledUnsignedByteTestImgWithSeed(new long[] { 13, 11,
+				7 }, 42);
+		final MatrixOrientation[] orientations = MatrixOrientation3D.values();
+
+		final CooccurrenceMatrices matrices = ops.image().cooccurrenceMatrices(
+			img, 8, DISTANCES, orientations);
+		assertMatchesSingleMatrices(img, 8, orientations, matrices);
+	}
+
+	@Test
+	public void testOffsetInterval() {
+		final Img<UnsignedByteType> img =
+			generateRandomlyFilledUnsignedByteTestImgWithSeed(new long[] { 30, 30 },
+				7);
+		final IterableInterval<UnsignedByteType> region = Views.iterable(Views
+			.interval(img, new long[] { 5, 3 }, new long[] { 24, 28 }));
+		final MatrixOrientation[] orientations = MatrixOrientation2D.values();
+
+		final CooccurrenceMatrices matrices = ops.image().cooccurrenceMatrices(
+			region, 16, DISTANCES, orientations);
+		assertMatchesSingleMatrices(region, 16, orientations, matrices);
+	}
+
+	@Test
+	public void testSymmetric() {
+		final Img<UnsignedByteType> img =
+			generateRandomlyFilledUnsignedByteTestImgWithSeed(new long[] { 37, 23 },
+				42);
+		final MatrixOrientation[] orientations = MatrixOrientation2D.values();
+
+		final CooccurrenceMatrices dense = ops.image().cooccurrenceMatrices(img,
+			16, DISTANCES, orientations);
+		final CooccurrenceMatrices packed = ops.image().cooccurrenceMatrices(img,
+			16, DISTANCES, orientations, true);
+
+		for (int o = 0; o < orientations.length; o++) {
+			for (int d = 0; d < DISTANCES.length; d++) {
+				assertEquals(dense.getNrPairs(o, d), packed.getNrPairs(o, d));
+				final double[][] matrix = dense.getMatrix(o, d);
+				double sum = 0;
+				for (int row = 0; row < 16; row++) {
+					for (int col = 0; col < 16; col++) {
+						final double value = packed.get(o, d, row, col);
+						assertEquals((matrix[row][col] + matrix[col][row]) / 2, value,
+							1e-12);
+						sum += value;
+					}
+				}
+				assertEquals(1, sum, 1e-9);
+			}
+		}
+	}
+
+	// -- Helper methods --
+
+	private void assertMatchesSingleMatrices(
+		final IterableInterval<UnsignedByteType> img,
+		final int nrGreyLevels, final MatrixOrientation[] orientations,
+		final CooccurrenceMatrices matrices)
+	{
+		assertEquals(orientations.length, matrices.numOrientations());
+		assertEquals(DISTANCES.length, matrices.numDistances());
+		for (int o = 0; o < orientations.length; o++) {
+			for (int d = 0; d < DISTANCES.length; d++) {
+				final double[][] expected = ops.image().cooccurrenceMatrix(img,
+					nrGreyLevels, DISTANCES[d], orientations[o]);
+				final double[][] actual = matrices.getMatrix(o, d);
+				for (int row = 0; row < nrGreyLevels; row++) {
+					assertArrayEquals(orientations[o] + ", " + DISTANCES[d],
+						expected[row], actual[row], 0);
+				}
+			}
+		}
+	}
+
+}
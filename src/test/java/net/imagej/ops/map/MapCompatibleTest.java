@@ -106,6 +106,15 @@ public class MapCompatibleTest extends AbstractOpTest {
 		assertFalse(Maps.compatible(in1RAI, outLargeII));
 	}
 
+	@Test
+	public void testRAInRAI() {
+		assertTrue(Maps.compatible(in1RAI, outRAI));
+
+		// Intervals differ
+		assertFalse(Maps.compatible(in1LargeRAI, outRAI));
+		assertFalse(Maps.compatible(in1RAI, outLargeRAI));
+	}
+
 	@Test
 	public void testIInIInII() {
 		assertTrue(Maps.compatible(in1II, in2II, outII));
@@ -190,4 +199,15 @@ public class MapCompatibleTest extends AbstractOpTest {
 		// RAI does not contain II
 		assertFalse(Maps.compatible(in1LargeRAI, in2RAI, outLargeII));
 	}
+
+	@Test
+	public void testRAInRAInRAI() {
+		assertTrue(Maps.compatible(in1RAI, in2RAI, outRAI));
+
+		// RAIs contain output RAI
+		assertTrue(Maps.compatible(in1LargeRAI, in2LargeRAI, outRAI));
+
+		// RAI does not contain output RAI
+		assertFalse(Maps.compatible(in1LargeRAI, in2RAI, outLargeRAI));
+	}
 }
@@ -29,6 +29,10 @@
 
 package net.imagej.ops.stats;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import net.imagej.ops.AbstractOpTest;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImg;
@@ -256,6 +260,36 @@ public class StatisticsTest extends AbstractOpTest {
 			0.00001d);
 	}
 
+	@Test
+	public void testQuantileAgreesWithSorting() {
+		// float values are selected as doubles
+		final float[] sortedFloats = array.clone();
+		Arrays.sort(sortedFloats);
+
+		// bytes are selected from a histogram, or as ints if the size is unknown
+		final List<UnsignedByteType> bytes = new ArrayList<>();
+		for (final UnsignedByteType b : randomlyFilledImg) bytes.add(b.copy());
+		final int[] sortedBytes = new int[bytes.size()];
+		for (int i = 0; i < sortedBytes.length; i++) {
+			sortedBytes[i] = bytes.get(i).get();
+		}
+		Arrays.sort(sortedBytes);
+
+		for (final double q : new double[] { 0, 0.1, 0.25, 0.5, 0.9, 1 }) {
+			final int kf = Math.min(sortedFloats.length - 1,
+				(int) (sortedFloats.length * q));
+			Assert.assertEquals(sortedFloats[kf], ((DoubleType) ops.run(
+				DefaultQuantile.class, img, q)).getRealDouble(), 0d);
+
+			final int kb = Math.min(sortedBytes.length - 1,
+				(int) (sortedBytes.length * q));
+			Assert.assertEquals(sortedBytes[kb], ((DoubleType) ops.run(
+				DefaultQuantile.class, randomlyFilledImg, q)).getRealDouble(), 0d);
+			Assert.assertEquals(sortedBytes[kb], ((DoubleType) ops.run(
+				DefaultQuantile.class, bytes, q)).getRealDouble(), 0d);
+		}
+	}
+
 	@Test
 	public void testSkewness() {
 		Assert.assertEquals("Skewness", -0.0012661517853476312, ((DoubleType) ops
@@ -0,0 +1,144 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.thread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.imagej.ops.AbstractOpTest;
+import net.imagej.ops.map.MapUnaryComputers;
+import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
+import net.imglib2.Cursor;
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.integer.ByteType;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link OpInstancePool}.
+ */
+public class OpInstancePoolTest extends AbstractOpTest {
+
+	@Test
+	public void testReuse() {
+		final Scratch op = new Scratch(new AtomicInteger(), new AtomicBoolean());
+		final OpInstancePool<Scratch> pool = new OpInstancePool<>(op);
+		assertTrue(pool.isOf(op));
+
+		final Scratch first = pool.acquire();
+		final Scratch second = pool.acquire();
+		assertNotSame(op, first);
+		assertNotSame(first, second);
+		pool.release(first);
+		pool.release(second);
+		assertEquals(2, pool.idleCount());
+
+		// released instances are handed out again
+		final Scratch third = pool.acquire();
+		assertTrue(third == first || third == second);
+		assertEquals(2, op.copies.get());
+	}
+
+	@Test
+	public void testParallelMap() {
+		final Img<ByteType> in = generateByteArrayTestImg(true, 200, 200);
+		final Img<ByteType> out = generateByteArrayTestImg(false, 200, 200);
+		final AtomicInteger copies = new AtomicInteger();
+		final AtomicBoolean clash = new AtomicBoolean();
+		final Scratch op = new Scratch(copies, clash);
+
+		ops.run(MapUnaryComputers.IIToIIParallel.class, out, in, op);
+		ops.run(MapUnaryComputers.IIToIIParallel.class, out, in, op);
+
+		// no instance was used by two threads at once
+		assertFalse(clash.get());
+		// at most one copy per worker and run, rather than one per chunk
+		final int workers = Runtime.getRuntime().availableProcessors() + 1;
+		assertTrue(copies.get() <= 2 * workers);
+	}
+
+	@Test
+	public void testParameterChange() {
+		final Img<ByteType> in = generateByteArrayTestImg(true, 200, 200);
+		final Img<ByteType> out = generateByteArrayTestImg(false, 200, 200);
+		final Scratch op = new Scratch(new AtomicInteger(), new AtomicBoolean());
+
+		ops.run(MapUnaryComputers.IIToIIParallel.class, out, in, op);
+		op.offset = 1;
+		ops.run(MapUnaryComputers.IIToIIParallel.class, out, in, op);
+
+		// copies made by the first run must not be reused with the old offset
+		final Cursor<ByteType> i = in.cursor();
+		final Cursor<ByteType> o = out.cursor();
+		while (i.hasNext()) {
+			assertEquals((byte) (i.next().get() + 1), o.next().get());
+		}
+	}
+
+	/** An op with scratch state, which must not be shared between threads. */
+	private static class Scratch extends
+		AbstractUnaryComputerOp<ByteType, ByteType>
+	{
+
+		private final AtomicInteger copies;
+
+		private final AtomicBoolean clash;
+
+		private final AtomicBoolean busy = new AtomicBoolean();
+
+		private int offset;
+
+		public Scratch(final AtomicInteger copies, final AtomicBoolean clash) {
+			this.copies = copies;
+			this.clash = clash;
+		}
+
+		@Override
+		public void compute(final ByteType input, final ByteType output) {
+			if (!busy.compareAndSet(false, true)) clash.set(true);
+			output.set((byte) (input.get() + offset));
+			busy.set(false);
+		}
+
+		@Override
+		public Scratch getIndependentInstance() {
+			copies.incrementAndGet();
+			final Scratch copy = new Scratch(copies, clash);
+			copy.offset = offset;
+			return copy;
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2017 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.thread.chunker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import net.imagej.ops.AbstractOpTest;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link ChunkerForkJoin}.
+ */
+public class ChunkerForkJoinTest extends AbstractOpTest {
+
+	@Test
+	public void testEachElementOnce() {
+		final int n = 100_003;
+		final AtomicIntegerArray visits = new AtomicIntegerArray(n);
+		ops.run(ChunkerForkJoin.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				for (int i = 0; i < numSteps; i++) {
+					visits.incrementAndGet(startIndex + i * stepSize);
+				}
+			}
+		}, n);
+		for (int i = 0; i < n; i++) {
+			assertEquals(1, visits.get(i));
+		}
+	}
+
+	@Test
+	public void testOptIn() {
+		// the default chunker keeps running on the context's ThreadService
+		final Chunk chunk = new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{}
+		};
+		assertTrue(ops.op(ChunkerOp.class, chunk, 10L) instanceof DefaultChunker);
+	}
+
+	@Test
+	public void testUnevenCost() {
+		final int n = 1000;
+		final AtomicInteger count = new AtomicInteger();
+		ops.run(ChunkerForkJoin.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				for (int i = 0; i < numSteps; i++) {
+					// the tail is much more expensive than the head
+					if (startIndex + i > 900) busyWait(20_000);
+					count.incrementAndGet();
+				}
+			}
+		}, n);
+		assertEquals(n, count.get());
+	}
+
+	@Test
+	public void testCancel() {
+		final int n = 1_000_000;
+		final AtomicInteger count = new AtomicInteger();
+		final ChunkerForkJoin chunker = new ChunkerForkJoin();
+		chunker.setChunk(new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				count.addAndGet(numSteps);
+				chunker.cancel("enough");
+			}
+		});
+		chunker.setNumberOfElements(n);
+		chunker.run();
+		assertTrue(chunker.isCanceled());
+		assertTrue(count.get() < n);
+	}
+
+	private static void busyWait(final long nanos) {
+		final long t0 = System.nanoTime();
+		while (System.nanoTime() - t0 < nanos) {
+			// spin
+		}
+	}
+}
@@ -30,6 +30,7 @@
 package net.imagej.ops.threshold.apply;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import net.imagej.ops.AbstractOpTest;
 import net.imagej.ops.Ops;
@@ -70,17 +71,25 @@ import net.imagej.ops.threshold.ApplyThresholdMethodLocal.LocalYenThreshold;
 import net.imagej.ops.threshold.LocalThresholdMethod;
 import net.imagej.ops.threshold.ThresholdNamespace;
 import net.imagej.ops.threshold.localBernsen.LocalBernsenThreshold;
+import net.imagej.ops.threshold.localBernsen.LocalBernsenThresholdSliding;
 import net.imagej.ops.threshold.localContrast.LocalContrastThreshold;
+import net.imagej.ops.threshold.localContrast.LocalContrastThresholdSliding;
 import net.imagej.ops.threshold.localMean.LocalMeanThreshold;
 import net.imagej.ops.threshold.localMean.LocalMeanThresholdIntegral;
+import net.imagej.ops.threshold.localMean.LocalMeanThresholdSliding;
 import net.imagej.ops.threshold.localMedian.LocalMedianThreshold;
+import net.imagej.ops.threshold.localMedian.LocalMedianThresholdSliding;
 import net.imagej.ops.threshold.localMidGrey.LocalMidGreyThreshold;
+import net.imagej.ops.threshold.localMidGrey.LocalMidGreyThresholdSliding;
 import net.imagej.ops.threshold.localNiblack.LocalNiblackThreshold;
 import net.imagej.ops.threshold.localNiblack.LocalNiblackThresholdIntegral;
+import net.imagej.ops.threshold.localNiblack.LocalNiblackThresholdSliding;
 import net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThreshold;
 import net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdIntegral;
+import net.imagej.ops.threshold.localPhansalkar.LocalPhansalkarThresholdSliding;
 import net.imagej.ops.threshold.localSauvola.LocalSauvolaThreshold;
 import net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdIntegral;
+import net.imagej.ops.threshold.localSauvola.LocalSauvolaThresholdSliding;
 import net.imglib2.Cursor;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccessibleInterval;
@@ -97,6 +106,7 @@ import net.imglib2.type.logic.BitType;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.ByteType;
 import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.Intervals;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -731,6 +741,101 @@ public class LocalThresholdTest extends AbstractOpTest {
 		assertEquals(false, out.firstElement().get());
 	}
 
+	/**
+	 * Tests that the sliding implementations agree with the default ones.
+	 */
+	@Test
+	public void testSlidingResultsConsistency() {
+		final RectangleShape shape = new RectangleShape(2, false);
+		final OutOfBoundsMirrorFactory<ByteType, Img<ByteType>> oob =
+			new OutOfBoundsMirrorFactory<>(Boundary.SINGLE);
+
+		assertSameResults(LocalBernsenThreshold.class,
+			LocalBernsenThresholdSliding.class, in, shape, oob, 10.0, 0.0);
+		assertSameResults(LocalContrastThreshold.class,
+			LocalContrastThresholdSliding.class, in, shape, oob);
+		assertSameResults(LocalMeanThreshold.class,
+			LocalMeanThresholdSliding.class, in, shape, oob, 0.0);
+		assertSameResults(LocalMeanThreshold.class,
+			LocalMeanThresholdSliding.class, in, new RectangleShape(1, true), oob,
+			1.0);
+		assertSameResults(LocalMedianThreshold.class,
+			LocalMedianThresholdSliding.class, in, shape, oob, 0.0);
+		assertSameResults(LocalMidGreyThreshold.class,
+			LocalMidGreyThresholdSliding.class, in, shape, oob, 0.0);
+		assertSameResults(LocalNiblackThreshold.class,
+			LocalNiblackThresholdSliding.class, normalizedIn, shape, oob, 0.0, 0.2);
+		assertSameResults(LocalPhansalkarThreshold.class,
+			LocalPhansalkarThresholdSliding.class, normalizedIn, shape, oob, 0.25,
+			0.5);
+		assertSameResults(LocalSauvolaThreshold.class,
+			LocalSauvolaThresholdSliding.class, normalizedIn, shape, oob, 0.5, 0.5);
+
+		// NaN values are ignored by stats.minMax and propagate through means
+		final Img<DoubleType> nanIn = ArrayImgs.doubles(Intervals
+			.dimensionsAsLongArray(normalizedIn));
+		final Cursor<DoubleType> source = normalizedIn.cursor();
+		int i = 0;
+		for (final DoubleType t : nanIn) {
+			final double value = source.next().get();
+			t.set(i++ % 7 == 0 ? Double.NaN : value);
+		}
+		final OutOfBoundsMirrorFactory<DoubleType, Img<DoubleType>> nanOob =
+			new OutOfBoundsMirrorFactory<>(Boundary.SINGLE);
+		assertSameResults(LocalBernsenThreshold.class,
+			LocalBernsenThresholdSliding.class, nanIn, shape, nanOob, 0.1, 0.5);
+		assertSameResults(LocalContrastThreshold.class,
+			LocalContrastThresholdSliding.class, nanIn, shape, nanOob);
+		assertSameResults(LocalMidGreyThreshold.class,
+			LocalMidGreyThresholdSliding.class, nanIn, shape, nanOob, 0.0);
+		assertSameResults(LocalMeanThreshold.class,
+			LocalMeanThresholdSliding.class, nanIn, shape, nanOob, 0.0);
+	}
+
+	/**
+	 * Tests that the sliding implementations are matched for rectangular shapes
+	 * only, and that the integral ones are still run when requested.
+	 */
+	@Test
+	public void testSlidingMatching() {
+		final OutOfBoundsMirrorFactory<ByteType, Img<ByteType>> oob =
+			new OutOfBoundsMirrorFactory<>(Boundary.SINGLE);
+
+		final RectangleShape rectangle = new RectangleShape(2, false);
+		assertTrue(ops.op(Ops.Threshold.LocalMeanThreshold.class, out, in,
+			rectangle, oob, 0.0) instanceof LocalMeanThresholdSliding);
+		assertTrue(ops.op(Ops.Threshold.LocalMeanThreshold.class, out, in,
+			new DiamondShape(2), oob, 0.0) instanceof LocalMeanThreshold);
+		assertTrue(ops.op(LocalMeanThresholdIntegral.class, out, in, rectangle,
+			oob, 0.0) instanceof LocalMeanThresholdIntegral);
+		assertTrue(ops.op(Ops.Threshold.LocalBernsenThreshold.class, out, in,
+			rectangle, oob, 10.0, 0.0) instanceof LocalBernsenThresholdSliding);
+	}
+
+	private void assertSameResults(final Class<?> expectedOp,
+		final Class<?> actualOp, final Img<?> input, final Object... args)
+	{
+		final Img<BitType> expected = ArrayImgs.bits(Intervals
+			.dimensionsAsLongArray(input));
+		final Img<BitType> actual = ArrayImgs.bits(Intervals.dimensionsAsLongArray(
+			input));
+
+		ops.run(expectedOp, concat(expected, input, args));
+		ops.run(actualOp, concat(actual, input, args));
+
+		testIterableIntervalSimilarity(expected, actual);
+	}
+
+	private static Object[] concat(final Object out, final Object in,
+		final Object... args)
+	{
+		final Object[] all = new Object[args.length + 2];
+		all[0] = out;
+		all[1] = in;
+		System.arraycopy(args, 0, all, 2, args.length);
+		return all;
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testContingencyOfNormalImplementation() {
 		ops.run(LocalSauvolaThreshold.class, out, in, new RectangleShape(3, false),